@@ -38,6 +38,24 @@ interface AcronymModel {
 
   List<ScoredSense> findBestSense(List<? extends Token> allTokens, int forTokenIndex);
 
+  /**
+   * Returns at most the {@code k} best senses for the token, in the order of
+   * {@link #findBestSense(List, int)}.
+   *
+   * @param allTokens the tokens
+   * @param forTokenIndex the index of the acronym token
+   * @param k the maximum number of senses to return
+   * @return list of the best senses
+   */
+  default List<ScoredSense> findBestSenses(
+      List<? extends Token> allTokens,
+      int forTokenIndex,
+      int k
+  ) {
+    List<ScoredSense> senses = findBestSense(allTokens, forTokenIndex);
+    return senses.size() > k ? senses.subList(0, k) : senses;
+  }
+
   /**
    * For deidentification: remove a single word from the model entirely
    *
@@ -16,15 +16,17 @@
 
 package edu.umn.biomedicus.acronym;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.inject.Inject;
 import com.google.inject.ProvidedBy;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import edu.umn.biomedicus.acronyms.ScoredSense;
 import edu.umn.biomedicus.annotations.Setting;
-import edu.umn.biomedicus.common.tuples.Pair;
 import edu.umn.biomedicus.exc.BiomedicusException;
 import edu.umn.biomedicus.framework.DataLoader;
+import edu.umn.biomedicus.framework.RocksDbResources;
 import edu.umn.biomedicus.serialization.YamlSerialization;
 import edu.umn.biomedicus.tokenization.Token;
 import java.io.IOException;
@@ -33,12 +35,14 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import javax.annotation.Nullable;
+import org.rocksdb.RocksDBException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yaml.snakeyaml.Yaml;
@@ -75,6 +79,20 @@ class AcronymVectorModel implements AcronymModel {
 
   private final double cutoffScore;
 
+  /**
+   * The packed vectors of the senses of the most recently used sets of expansions from the
+   * expansions model, by the expansions, or null if caching is disabled.
+   */
+  @Nullable
+  private final Cache<List<String>, SenseMatrix> senseMatrices;
+
+  /**
+   * Context vectors not currently in use. They grow to the size of the vocabulary, so they are
+   * kept for reuse by whichever thread scores next rather than per thread, which would allocate a
+   * new one for every document run on its own virtual thread.
+   */
+  private final Queue<ContextVector> idleContextVectors = new ConcurrentLinkedQueue<>();
+
   /**
    * Constructor. Needs several things already made:
    *  @param wordVectorSpace the vector space (most importantly dictionary) used to build context
@@ -82,19 +100,29 @@ class AcronymVectorModel implements AcronymModel {
    * @param senseVectors which maps between senses and their context vectors
    * @param alignmentModel a model used for alignment of unknown acronyms
    * @param cutoffScore
+   * @param senseMatrixCacheSize the maximum number of packed sense matrices to keep, evicting the
+   * least recently used ones once the cache is full, 0 to disable caching
    */
   AcronymVectorModel(
       WordVectorSpace wordVectorSpace,
       SenseVectors senseVectors,
       AcronymExpansionsModel acronymExpansionsModel,
       @Nullable AlignmentModel alignmentModel,
-      double cutoffScore
+      double cutoffScore,
+      int senseMatrixCacheSize
   ) {
     this.acronymExpansionsModel = acronymExpansionsModel;
     this.senseVectors = senseVectors;
     this.wordVectorSpace = wordVectorSpace;
     this.alignmentModel = alignmentModel;
     this.cutoffScore = cutoffScore;
+    if (senseMatrixCacheSize > 0) {
+      senseMatrices = CacheBuilder.newBuilder()
+          .maximumSize(senseMatrixCacheSize)
+          .build();
+    } else {
+      senseMatrices = null;
+    }
   }
 
   /**
@@ -131,7 +159,15 @@ class AcronymVectorModel implements AcronymModel {
    */
   @Override
   public List<ScoredSense> findBestSense(List<? extends Token> context, int forThisIndex) {
+    return findBestSenses(context, forThisIndex, Integer.MAX_VALUE);
+  }
 
+  @Override
+  public List<ScoredSense> findBestSenses(
+      List<? extends Token> context,
+      int forThisIndex,
+      int k
+  ) {
     String acronym = Acronyms.standardAcronymForm(context.get(forThisIndex));
 
     // If the model doesn't contain this acronym, make sure it doesn't contain an upper-case version of it
@@ -145,8 +181,10 @@ class AcronymVectorModel implements AcronymModel {
     if (senses == null) {
       senses = acronymExpansionsModel.getExpansions(acronym.toLowerCase());
     }
+    boolean aligned = false;
     if (senses == null && alignmentModel != null) {
       senses = alignmentModel.findBestLongforms(acronym);
+      aligned = true;
     }
     if (senses == null || senses.size() == 0) {
       return Collections.emptyList();
@@ -157,50 +195,36 @@ class AcronymVectorModel implements AcronymModel {
       return Collections.singletonList(new ScoredSense(senses.iterator().next(), 1));
     }
 
-    List<Pair<String, SparseVector>> usableSenses = new ArrayList<>();
-    // Be sure that there even are disambiguation vectors for senses
-    for (String sense : senses) {
-      SparseVector sparseVector = senseVectors.get(sense);
-      if (sparseVector != null) {
-        usableSenses.add(Pair.of(sense, sparseVector));
-      }
-    }
-
-    // If no senses good for disambiguation were found, try the upper-case version
-    if (usableSenses.size() == 0 && acronymExpansionsModel.hasExpansions(acronym.toUpperCase())) {
-      for (String sense : senses) {
-        SparseVector sparseVector = senseVectors.get(sense);
-        if (sparseVector != null) {
-          usableSenses.add(Pair.of(sense, sparseVector));
-        }
+    // Be sure that there even are disambiguation vectors for senses. Senses guessed by the
+    // alignment model are not cached since they are not bounded by the expansions model.
+    SenseMatrix senseMatrix;
+    if (aligned || senseMatrices == null) {
+      senseMatrix = SenseMatrix.pack(senses, senseVectors);
+    } else {
+      List<String> key = new ArrayList<>(senses);
+      try {
+        senseMatrix = senseMatrices.get(key, () -> SenseMatrix.pack(key, senseVectors));
+      } catch (ExecutionException e) {
+        throw new IllegalStateException(e.getCause());
       }
     }
 
     // Should this just guess the first sense instead?
-    if (usableSenses.size() == 0) {
+    if (senseMatrix.rows() == 0) {
       return Collections.emptyList();
     }
 
-    double best = -Double.MAX_VALUE;
-    String winner = Acronyms.UNKNOWN;
-
-    SparseVector vector = wordVectorSpace.vectorize(context, forThisIndex);
-    // Loop through all possible senses for this acronym
-    for (Pair<String, SparseVector> senseAndVector : usableSenses) {
-      double score = vector.dot(senseAndVector.getSecond());
-      if (score > best) {
-        best = score;
-        winner = senseAndVector.first();
-      }
+    ContextVector contextVector = idleContextVectors.poll();
+    if (contextVector == null) {
+      contextVector = new ContextVector();
+    }
+    try {
+      contextVector.clear();
+      wordVectorSpace.vectorize(context, forThisIndex, contextVector);
+      return senseMatrix.topSenses(contextVector, k, cutoffScore);
+    } finally {
+      idleContextVectors.offer(contextVector);
     }
-    return usableSenses.stream()
-        .map(pair -> {
-          double score = vector.dot(pair.getSecond());
-          return new ScoredSense(pair.first(), score);
-        })
-        .filter(scored -> scored.getScore() >= cutoffScore)
-        .sorted(Comparator.comparing(ScoredSense::getScore).reversed())
-        .collect(Collectors.toList());
   }
 
   /**
@@ -212,6 +236,9 @@ class AcronymVectorModel implements AcronymModel {
     Integer ind = wordVectorSpace.removeWord(word);
     if (ind != null) {
       senseVectors.removeWord(ind);
+      if (senseMatrices != null) {
+        senseMatrices.invalidateAll();
+      }
     }
   }
 
@@ -224,6 +251,9 @@ class AcronymVectorModel implements AcronymModel {
     Set<Integer> removed = wordVectorSpace.removeWordsExcept(wordsToRemove);
     removed.remove(null);
     senseVectors.removeWords(removed);
+    if (senseMatrices != null) {
+      senseMatrices.invalidateAll();
+    }
   }
 
   void writeToDirectory(Path outputDir,
@@ -260,9 +290,16 @@ class AcronymVectorModel implements AcronymModel {
 
     private final Boolean sensesInMemory;
 
+    private final String sensesFormat;
+
+    private final Path sensesMappedPath;
+
     private final AcronymExpansionsModel expansionsModel;
     private final Double cutoffScore;
 
+    private final int senseMatrixCacheSize;
+
+    private final RocksDbResources rocksDbResources;
 
     @Inject
     public Loader(
@@ -271,16 +308,30 @@ class AcronymVectorModel implements AcronymModel {
         @Setting("acronym.vector.model.asDataPath") Path vectorSpacePath,
         @Setting("acronym.senseMap.senseVectors.asDataPath") Path senseMapPath,
         @Setting("acronym.senseMap.inMemory") Boolean sensesInMemory,
+        @Setting("acronym.senseMap.format") String sensesFormat,
+        @Setting("acronym.senseMap.mapped.asDataPath") Path sensesMappedPath,
         @Setting("acronym.cutoffScore") Double cutoffScore,
-        AcronymExpansionsModel expansionsModel
+        @Setting("acronym.senseMatrixCache.size") Integer senseMatrixCacheSize,
+        AcronymExpansionsModel expansionsModel,
+        RocksDbResources rocksDbResources
     ) {
       this.alignmentModel = alignmentModel;
       this.useAlignment = useAlignment;
       this.vectorSpacePath = vectorSpacePath;
       this.senseMapPath = senseMapPath;
       this.sensesInMemory = sensesInMemory;
+      this.sensesFormat = sensesFormat;
+      this.sensesMappedPath = sensesMappedPath;
       this.expansionsModel = expansionsModel;
       this.cutoffScore = cutoffScore;
+      this.senseMatrixCacheSize = senseMatrixCacheSize;
+      this.rocksDbResources = rocksDbResources;
+    }
+
+    @Override
+    public int loadPriority() {
+      // the vector space is always read into memory, the sense vectors only when configured to
+      return sensesInMemory ? 90 : 60;
     }
 
     @Override
@@ -294,13 +345,25 @@ class AcronymVectorModel implements AcronymModel {
         WordVectorSpace wordVectorSpace = yaml
             .load(Files.newBufferedReader(vectorSpacePath));
 
-        LOGGER.info("Loading acronym sense map: {}. inMemory = {}", senseMapPath, sensesInMemory);
-        SenseVectors senseVectors = new RocksDBSenseVectors(senseMapPath, false)
-            .inMemory(sensesInMemory);
+        SenseVectors senseVectors;
+        switch (sensesFormat) {
+          case "rocksdb":
+            LOGGER.info("Loading acronym sense map: {}. inMemory = {}", senseMapPath,
+                sensesInMemory);
+            senseVectors = new RocksDBSenseVectors(rocksDbResources.openReadOnly(senseMapPath))
+                .inMemory(sensesInMemory);
+            break;
+          case "mapped":
+            LOGGER.info("Mapping acronym sense map: {}", sensesMappedPath);
+            senseVectors = new MappedSenseVectors(sensesMappedPath);
+            break;
+          default:
+            throw new BiomedicusException("Unknown acronym sense map format: " + sensesFormat);
+        }
 
         return new AcronymVectorModel(wordVectorSpace, senseVectors, expansionsModel,
-            useAlignment ? alignmentModel.get() : null, cutoffScore);
-      } catch (IOException e) {
+            useAlignment ? alignmentModel.get() : null, cutoffScore, senseMatrixCacheSize);
+      } catch (IOException | RocksDBException e) {
         throw new BiomedicusException(e);
       }
     }
@@ -18,6 +18,8 @@ package edu.umn.biomedicus.acronym;
 
 import edu.umn.biomedicus.acronyms.ScoredSense;
 import edu.umn.biomedicus.exc.BiomedicusException;
+import edu.umn.biomedicus.framework.RocksDbResources;
+import edu.umn.biomedicus.framework.StandardMetricsRegistry;
 import edu.umn.biomedicus.tokenization.Token;
 import edu.umn.nlpengine.AbstractTextRange;
 import java.io.BufferedReader;
@@ -47,7 +49,9 @@ public class AcronymVectorOfflineEvaluation {
     AcronymExpansionsModel aem = new AcronymExpansionsModel.Loader(expansionsModelPath).loadModel();
 
     AcronymVectorModel avm = new AcronymVectorModel.Loader(null, false, vectorSpacePath,
-        senseMapPath, true, 0.0d, aem).loadModel();
+        senseMapPath, true, "rocksdb", null, 0.0d, 1000, aem,
+        new RocksDbResources(256, false, false,
+            new StandardMetricsRegistry(false, 0))).loadModel();
 
     int correct = 0;
     int total = 0;
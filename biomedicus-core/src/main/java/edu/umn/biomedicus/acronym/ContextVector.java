@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.acronym;
+
+import java.util.Arrays;
+
+/**
+ * A reusable dense accumulator for the context vector of one acronym occurrence. Keeps the indices
+ * that were written so that clearing it only touches those entries.
+ * <p>This class is not thread safe.</p>
+ *
+ * @since 2.2.0
+ */
+final class ContextVector {
+
+  private double[] values = new double[1024];
+
+  private boolean[] set = new boolean[1024];
+
+  private int[] indices = new int[64];
+
+  private int count;
+
+  /**
+   * Adds {@code increment} to the value at {@code index}.
+   *
+   * @param index the word index
+   * @param increment the amount to add
+   */
+  void add(int index, double increment) {
+    if (index >= values.length) {
+      int capacity = Math.max(index + 1, values.length * 2);
+      values = Arrays.copyOf(values, capacity);
+      set = Arrays.copyOf(set, capacity);
+    }
+    if (!set[index]) {
+      set[index] = true;
+      if (count == indices.length) {
+        indices = Arrays.copyOf(indices, count * 2);
+      }
+      indices[count++] = index;
+      values[index] = increment;
+    } else {
+      values[index] += increment;
+    }
+  }
+
+  /**
+   * Returns the value at {@code index}, 0 if nothing was added there.
+   */
+  double get(int index) {
+    return index < values.length ? values[index] : 0;
+  }
+
+  /**
+   * The number of distinct indices with a value.
+   */
+  int nonzeroCount() {
+    return count;
+  }
+
+  /**
+   * Resets every value to zero.
+   */
+  void clear() {
+    for (int i = 0; i < count; i++) {
+      int index = indices[i];
+      values[index] = 0;
+      set[index] = false;
+    }
+    count = 0;
+  }
+}
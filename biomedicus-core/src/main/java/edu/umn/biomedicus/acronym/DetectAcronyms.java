@@ -141,7 +141,8 @@ class DetectAcronyms implements DocumentTask {
     boolean found = false;
     if (model.hasAcronym(token)
         || (orthographicModel != null && orthographicModel.seemsLikeAbbreviation(token))) {
-      List<ScoredSense> senses = model.findBestSense(termTokens, i);
+      List<ScoredSense> senses = model.findBestSenses(termTokens, i,
+          labelOtherSenses ? Integer.MAX_VALUE : 1);
       if (senses.size() > 0) {
         ScoredSense first = senses.get(0);
         acronymLabeler.add(new Acronym(token, first.getSense(), token.getHasSpaceAfter(),
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.umn.biomedicus.acronym;
+
+import edu.umn.biomedicus.common.dictionary.MappedByteTable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+
+/**
+ * Sense vectors read from a memory-mapped snapshot of the {@link RocksDBSenseVectors} database, so
+ * that every process on a machine shares one copy of the vectors.
+ *
+ * @since 2.2.0
+ */
+public final class MappedSenseVectors implements SenseVectors {
+
+  private final MappedByteTable table;
+
+  public MappedSenseVectors(Path path) throws IOException {
+    table = MappedByteTable.open(path);
+  }
+
+  /**
+   * Writes a snapshot of the sense vectors database written by {@link RocksDBSenseVectors}.
+   *
+   * @param dbPath the RocksDB database
+   * @param outputPath the folder to write the snapshot to
+   */
+  public static void writeSnapshot(Path dbPath, Path outputPath)
+      throws IOException, RocksDBException {
+    RocksDB.loadLibrary();
+    try (RocksDB rocksDB = RocksDB.openReadOnly(dbPath.toString())) {
+      MappedByteTable.copy(rocksDB, outputPath);
+    }
+  }
+
+  @Override
+  public boolean containsSense(@Nullable String sense) {
+    return sense != null && table.contains(sense.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Nullable
+  @Override
+  public SparseVector get(@Nullable String sense) {
+    if (sense == null) {
+      return null;
+    }
+    ByteBuffer value = table.get(sense.getBytes(StandardCharsets.UTF_8));
+    return value == null ? null : new SparseVector(value);
+  }
+
+  private <T> Iterator<T> iterator(Function<MappedByteTable.Cursor, T> function) {
+    MappedByteTable.Cursor cursor = table.cursor();
+    return new Iterator<T>() {
+      @Override
+      public boolean hasNext() {
+        return cursor.isValid();
+      }
+
+      @Override
+      public T next() {
+        if (!cursor.isValid()) {
+          throw new NoSuchElementException();
+        }
+        T next = function.apply(cursor);
+        cursor.next();
+        return next;
+      }
+    };
+  }
+
+  @Override
+  public Set<String> senses() {
+    return new AbstractSet<String>() {
+      @Override
+      public Iterator<String> iterator() {
+        return MappedSenseVectors.this.iterator(
+            cursor -> StandardCharsets.UTF_8.decode(cursor.key()).toString());
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return o instanceof String && containsSense((String) o);
+      }
+
+      @Override
+      public int size() {
+        return table.size();
+      }
+    };
+  }
+
+  @Override
+  public Collection<SparseVector> vectors() {
+    return new AbstractCollection<SparseVector>() {
+      @Override
+      public Iterator<SparseVector> iterator() {
+        return MappedSenseVectors.this.iterator(cursor -> new SparseVector(cursor.value()));
+      }
+
+      @Override
+      public int size() {
+        return table.size();
+      }
+    };
+  }
+
+  @Override
+  public void removeWord(int index) {
+    throw new UnsupportedOperationException("Mapped sense vectors are read-only");
+  }
+
+  @Override
+  public void removeWords(Collection<Integer> indexes) {
+    throw new UnsupportedOperationException("Mapped sense vectors are read-only");
+  }
+
+  @Override
+  public int size() {
+    return table.size();
+  }
+
+  @Override
+  public void close() {
+
+  }
+}
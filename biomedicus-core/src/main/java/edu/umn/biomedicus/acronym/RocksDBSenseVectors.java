@@ -16,6 +16,7 @@
 
 package edu.umn.biomedicus.acronym;
 
+import edu.umn.biomedicus.framework.RocksDbResources;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
@@ -41,11 +42,20 @@ public class RocksDBSenseVectors implements SenseVectors {
 
   private transient int _size = -1;
 
+  /**
+   * Uses an already open database of sense vectors.
+   *
+   * @param rocksDB the database, which is closed when the sense vectors are closed
+   */
+  public RocksDBSenseVectors(RocksDB rocksDB) {
+    this.rocksDB = rocksDB;
+  }
+
   public RocksDBSenseVectors(Path path, boolean forWriting) {
     RocksDB.loadLibrary();
 
     if (forWriting) {
-      try (Options options = new Options().setCreateIfMissing(true).prepareForBulkLoad()) {
+      try (Options options = RocksDbResources.bulkLoadOptions()) {
         rocksDB = RocksDB.open(options, path.toString());
       } catch (RocksDBException e) {
         throw new RuntimeException(e);
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.acronym;
+
+import edu.umn.biomedicus.acronyms.ScoredSense;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The sense vectors of the candidate senses of one acronym packed into a compressed sparse row
+ * matrix, one row per sense with the column indices of each row ascending, so that every sense
+ * is scored against a context in one pass over contiguous arrays.
+ * <p>Scores are the same as {@link SparseVector#dot(SparseVector)} of the context vector with each
+ * sense vector, summed in the same order.</p>
+ *
+ * @since 2.2.0
+ */
+final class SenseMatrix {
+
+  private final String[] senses;
+
+  private final int[] rowStarts;
+
+  private final int[] columns;
+
+  private final double[] values;
+
+  private SenseMatrix(String[] senses, int[] rowStarts, int[] columns, double[] values) {
+    this.senses = senses;
+    this.rowStarts = rowStarts;
+    this.columns = columns;
+    this.values = values;
+  }
+
+  /**
+   * Packs the vectors of every sense which has one, in the order given.
+   *
+   * @param senses the candidate senses
+   * @param senseVectors the sense vectors
+   * @return the matrix, which may have no rows
+   */
+  static SenseMatrix pack(Iterable<String> senses, SenseVectors senseVectors) {
+    List<String> usable = new ArrayList<>();
+    List<SparseVector> vectors = new ArrayList<>();
+    int entries = 0;
+    for (String sense : senses) {
+      SparseVector vector = senseVectors.get(sense);
+      if (vector != null) {
+        usable.add(sense);
+        vectors.add(vector);
+        entries += vector.entries();
+      }
+    }
+
+    int[] rowStarts = new int[usable.size() + 1];
+    int[] columns = new int[entries];
+    double[] values = new double[entries];
+    int entry = 0;
+    for (int row = 0; row < vectors.size(); row++) {
+      rowStarts[row] = entry;
+      SparseVector vector = vectors.get(row);
+      for (int i = 0; i < vector.entries(); i++) {
+        columns[entry] = vector.indexAt(i);
+        values[entry] = vector.valueAt(i);
+        entry++;
+      }
+    }
+    rowStarts[usable.size()] = entry;
+    return new SenseMatrix(usable.toArray(new String[0]), rowStarts, columns, values);
+  }
+
+  /**
+   * The number of senses with vectors.
+   */
+  int rows() {
+    return senses.length;
+  }
+
+  /**
+   * Scores every sense against the context vector.
+   *
+   * @param contextVector the context vector
+   * @param scores the array to write the score of each row to, at least {@link #rows()} long
+   */
+  void score(ContextVector contextVector, double[] scores) {
+    for (int row = 0; row < senses.length; row++) {
+      double sum = 0;
+      for (int entry = rowStarts[row]; entry < rowStarts[row + 1]; entry++) {
+        double value = contextVector.get(columns[entry]);
+        if (value != 0) {
+          sum += value * values[entry];
+        }
+      }
+      scores[row] = sum;
+    }
+  }
+
+  /**
+   * Scores every sense against the context vector and returns the {@code k} highest scoring senses
+   * whose score is at least {@code cutoffScore}, highest first. Senses with equal scores keep
+   * their order.
+   *
+   * @param contextVector the context vector
+   * @param k the maximum number of senses to return
+   * @param cutoffScore the minimum score of returned senses
+   * @return list of the senses and their scores
+   */
+  List<ScoredSense> topSenses(ContextVector contextVector, int k, double cutoffScore) {
+    double[] scores = new double[senses.length];
+    score(contextVector, scores);
+
+    int[] order = new int[senses.length];
+    int kept = 0;
+    for (int row = 0; row < senses.length; row++) {
+      double score = scores[row];
+      if (!(score >= cutoffScore)) {
+        continue;
+      }
+      int i = kept++;
+      while (i > 0 && scores[order[i - 1]] < score) {
+        order[i] = order[i - 1];
+        i--;
+      }
+      order[i] = row;
+    }
+
+    int size = Math.min(kept, k);
+    if (size == 0) {
+      return Collections.emptyList();
+    }
+    List<ScoredSense> topSenses = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      topSenses.add(new ScoredSense(senses[order[i]], scores[order[i]]));
+    }
+    return topSenses;
+  }
+}
@@ -66,11 +66,14 @@ public class SparseVector {
   }
 
   public SparseVector(byte[] bytes) {
-    size = bytes.length / ENTRY_BYTES;
+    this(ByteBuffer.wrap(bytes));
+  }
+
+  public SparseVector(ByteBuffer wrap) {
+    size = wrap.remaining() / ENTRY_BYTES;
     keys = new int[size];
     values = new double[size];
 
-    ByteBuffer wrap = ByteBuffer.wrap(bytes);
     for (int i = 0; i < size; i++) {
       keys[i] = wrap.getInt();
       values[i] = wrap.getDouble();
@@ -307,6 +310,27 @@ public class SparseVector {
     values = newValues;
   }
 
+  /**
+   * The number of nonzero entries stored in this vector.
+   */
+  int entries() {
+    return size;
+  }
+
+  /**
+   * The index of the {@code entry}th stored entry, entries are sorted by index ascending.
+   */
+  int indexAt(int entry) {
+    return keys[entry];
+  }
+
+  /**
+   * The value of the {@code entry}th stored entry.
+   */
+  double valueAt(int entry) {
+    return values[entry];
+  }
+
   public byte[] toBytes() {
     ByteBuffer buffer = ByteBuffer.allocate(size * ENTRY_BYTES);
     for (int i = 0; i < size; i++) {
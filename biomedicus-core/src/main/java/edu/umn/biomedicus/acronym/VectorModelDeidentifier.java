@@ -17,6 +17,8 @@
 package edu.umn.biomedicus.acronym;
 
 import edu.umn.biomedicus.exc.BiomedicusException;
+import edu.umn.biomedicus.framework.RocksDbResources;
+import edu.umn.biomedicus.framework.StandardMetricsRegistry;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -46,7 +48,9 @@ public class VectorModelDeidentifier {
     AcronymExpansionsModel aem = new AcronymExpansionsModel.Loader(Paths.get(expansionsModelPath))
         .loadModel();
     AcronymVectorModel avm = new AcronymVectorModel.Loader(null, false, Paths.get(vectorSpacePath),
-        Paths.get(senseMapPath), false, 0.0d, aem).loadModel();
+        Paths.get(senseMapPath), false, "rocksdb", null, 0.0d, 0, aem,
+        new RocksDbResources(256, false, false,
+            new StandardMetricsRegistry(false, 0))).loadModel();
 
     Set<String> keepWords = new HashSet<>(Files.readAllLines(Paths.get(keepWordsFile)));
     avm.removeWordsExcept(keepWords);
@@ -189,9 +189,34 @@ public class WordVectorSpace {
    * @param stopCenterToken the token index following the term of interest
    */
   SparseVector vectorize(List<? extends Token> context, int startCenterToken, int stopCenterToken) {
-
     Map<Integer, Double> wordVector = new HashMap<>();
+    vectorize(context, startCenterToken, stopCenterToken,
+        (wordInt, increment) -> wordVector.merge(wordInt, increment, Double::sum));
+    return new SparseVector(wordVector);
+  }
 
+  public SparseVector vectorize(List<? extends Token> context, int centerToken) {
+    return vectorize(context, centerToken, centerToken + 1);
+  }
+
+  /**
+   * Generates a context vector centered on a token into a reusable accumulator instead of a new
+   * sparse vector. The accumulator is not cleared first.
+   *
+   * @param context a list of tokens which includes the term of interest
+   * @param centerToken the index of the term of interest
+   * @param contextVector the accumulator to add the weights of the context words to
+   */
+  void vectorize(List<? extends Token> context, int centerToken, ContextVector contextVector) {
+    vectorize(context, centerToken, centerToken + 1, contextVector::add);
+  }
+
+  private void vectorize(
+      List<? extends Token> context,
+      int startCenterToken,
+      int stopCenterToken,
+      WordWeights wordWeights
+  ) {
     int startIndex = Math.max(startCenterToken - (int) windowSize, 0);
     int stopIndex = Math.min(stopCenterToken + (int) windowSize, context.size());
     for (int i = startIndex; i < stopIndex; i++) {
@@ -216,21 +241,23 @@ public class WordVectorSpace {
         if (wordInt != -1) {
           int dist = i < startCenterToken ? startCenterToken - i : i - stopCenterToken;
           double thisIncrement = DIST_WEIGHT.apply(dist, maxDist);
-          double oldCount = wordVector.getOrDefault(wordInt, 0.);
-          wordVector.put(wordInt, oldCount + thisIncrement);
+          wordWeights.add(wordInt, thisIncrement);
         }
       }
     }
     if (countingDocuments) {
       totalDocs++;
     }
-    return new SparseVector(wordVector);
   }
 
-  public SparseVector vectorize(List<? extends Token> context, int centerToken) {
-    return vectorize(context, centerToken, centerToken + 1);
-  }
 
+  /**
+   * Receives the weight of each occurrence of a word in a context.
+   */
+  private interface WordWeights {
+
+    void add(int wordInt, double increment);
+  }
 
   /**
    * For de-identification purposes: remove a single word from the dictionary
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.annotations;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Indicates that a document or artifact task does not keep any state between calls to run, so a
+ * single instance can be reused for many documents instead of being injected for each one. An
+ * instance is still only used by one thread at a time.
+ * <br/>
+ * The same behavior can be enabled for a task without the annotation using the "reuseInstances"
+ * processor setting.
+ */
+@Documented
+@Target(TYPE)
+@Retention(RUNTIME)
+public @interface Reusable {
+
+}
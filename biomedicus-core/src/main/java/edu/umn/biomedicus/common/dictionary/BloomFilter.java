@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.umn.biomedicus.common.dictionary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+
+/**
+ * A Bloom filter over the keys of a database, used to answer lookups of keys that are definitely
+ * not in the database without calling into it.
+ * <p>Keeps counts of the lookups it rejected, the lookups it passed through, and the passed
+ * lookups which turned out to be misses, so the savings can be measured on real documents.</p>
+ * <p>Adding keys is not thread safe, testing keys is.</p>
+ *
+ * @since 2.2.0
+ */
+public final class BloomFilter {
+
+  private final String name;
+
+  private final long[] bits;
+
+  private final long bitCount;
+
+  private final int hashes;
+
+  private final LongAdder rejected = new LongAdder();
+
+  private final LongAdder passed = new LongAdder();
+
+  private final LongAdder falsePositives = new LongAdder();
+
+  BloomFilter(String name, long expectedKeys, double falsePositiveRate) {
+    if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+      throw new IllegalArgumentException("False positive rate must be between 0 and 1: "
+          + falsePositiveRate);
+    }
+    this.name = name;
+    long keys = Math.max(expectedKeys, 1);
+    long optimalBits = (long) Math.ceil(-keys * Math.log(falsePositiveRate)
+        / (Math.log(2) * Math.log(2)));
+    int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimalBits + 63) / 64));
+    bits = new long[words];
+    bitCount = 64L * words;
+    hashes = (int) Math.max(1, Math.min(30, Math.round((double) bitCount / keys * Math.log(2))));
+  }
+
+  /**
+   * Builds a filter over all the keys in {@code db}.
+   *
+   * @param name the name used when logging the counts
+   * @param db the database
+   * @param falsePositiveRate the target rate of lookups of absent keys which are not rejected, or
+   * 0 to not filter the database
+   * @return the filter, or null if the false positive rate is 0
+   * @throws RocksDBException if the number of keys cannot be estimated
+   */
+  @Nullable
+  public static BloomFilter forKeys(String name, RocksDB db, double falsePositiveRate)
+      throws RocksDBException {
+    if (falsePositiveRate <= 0) {
+      return null;
+    }
+    long estimatedKeys = db.getLongProperty("rocksdb.estimate-num-keys");
+    BloomFilter filter = new BloomFilter(name, estimatedKeys, falsePositiveRate);
+    try (RocksIterator iterator = db.newIterator()) {
+      iterator.seekToFirst();
+      while (iterator.isValid()) {
+        filter.put(iterator.key());
+        iterator.next();
+      }
+    }
+    return filter;
+  }
+
+  /**
+   * Gets the value for {@code key} from {@code db}, unless the filter rejects the key.
+   *
+   * @param db the database
+   * @param filter the filter over the keys of the database, or null to always call into it
+   * @param key the key
+   * @return the value or null if the key is not in the database
+   * @throws RocksDBException if the database fails
+   */
+  @Nullable
+  public static byte[] get(RocksDB db, @Nullable BloomFilter filter, byte[] key)
+      throws RocksDBException {
+    if (filter == null) {
+      return db.get(key);
+    }
+    if (!filter.mightContain(key)) {
+      return null;
+    }
+    byte[] value = db.get(key);
+    if (value == null) {
+      filter.falsePositives.increment();
+    }
+    return value;
+  }
+
+  /**
+   * Reads the value for {@code key} from {@code db} into {@code value}, unless the filter rejects
+   * the key.
+   *
+   * @param db the database
+   * @param filter the filter over the keys of the database, or null to always call into it
+   * @param key the key
+   * @param value the array to read the value into
+   * @return the length of the value, which is only fully read if it is not more than the length
+   * of {@code value}, or {@link RocksDB#NOT_FOUND} if the key is not in the database
+   * @throws RocksDBException if the database fails
+   */
+  public static int get(RocksDB db, @Nullable BloomFilter filter, byte[] key, byte[] value)
+      throws RocksDBException {
+    if (filter == null) {
+      return db.get(key, value);
+    }
+    if (!filter.mightContain(key)) {
+      return RocksDB.NOT_FOUND;
+    }
+    int length = db.get(key, value);
+    if (length == RocksDB.NOT_FOUND) {
+      filter.falsePositives.increment();
+    }
+    return length;
+  }
+
+  /**
+   * Gets the values for all of {@code keys} from {@code db} in one call, leaving out the keys the
+   * filter rejects.
+   *
+   * @param db the database
+   * @param filter the filter over the keys of the database, or null to look up every key
+   * @param keys the keys
+   * @return the value for each key, null where the key is not in the database
+   * @throws RocksDBException if the database fails
+   */
+  public static List<byte[]> multiGet(RocksDB db, @Nullable BloomFilter filter, List<byte[]> keys)
+      throws RocksDBException {
+    List<byte[]> lookups = keys;
+    if (filter != null) {
+      lookups = new ArrayList<>(keys.size());
+      for (byte[] key : keys) {
+        if (filter.mightContain(key)) {
+          lookups.add(key);
+        }
+      }
+    }
+    Map<byte[], byte[]> found = lookups.isEmpty() ? null : db.multiGet(lookups);
+    List<byte[]> values = new ArrayList<>(keys.size());
+    for (byte[] key : keys) {
+      values.add(found == null ? null : found.get(key));
+    }
+    if (filter != null) {
+      filter.falsePositives.add(lookups.size() - (found == null ? 0 : found.size()));
+    }
+    return values;
+  }
+
+  private static long hash(byte[] key) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : key) {
+      hash ^= b & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  void put(byte[] key) {
+    long hash = hash(key);
+    int first = (int) hash;
+    int second = (int) (hash >>> 32);
+    for (int i = 0; i < hashes; i++) {
+      long bit = ((first + (long) i * second) & Long.MAX_VALUE) % bitCount;
+      bits[(int) (bit >>> 6)] |= 1L << bit;
+    }
+  }
+
+  /**
+   * Returns whether the key might have been added to the filter, counting the lookup.
+   *
+   * @param key the key
+   * @return false if the key was definitely not added
+   */
+  public boolean mightContain(byte[] key) {
+    long hash = hash(key);
+    int first = (int) hash;
+    int second = (int) (hash >>> 32);
+    for (int i = 0; i < hashes; i++) {
+      long bit = ((first + (long) i * second) & Long.MAX_VALUE) % bitCount;
+      if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+        rejected.increment();
+        return false;
+      }
+    }
+    passed.increment();
+    return true;
+  }
+
+  /**
+   * The number of lookups that were rejected without calling into the database.
+   */
+  public long rejected() {
+    return rejected.sum();
+  }
+
+  /**
+   * The number of lookups that were passed through to the database.
+   */
+  public long passed() {
+    return passed.sum();
+  }
+
+  /**
+   * The number of passed lookups that were misses in the database.
+   */
+  public long falsePositives() {
+    return falsePositives.sum();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s bloom filter: %d lookups rejected, %d passed, %d false positives",
+        name, rejected(), passed(), falsePositives());
+  }
+}
@@ -0,0 +1,487 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.common.dictionary;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksIterator;
+
+/**
+ * A read-only, memory-mapped snapshot of a sorted table from byte keys to byte values, such as the
+ * contents of a RocksDB database.
+ * <p>Because the table is mapped read-only from files, every process on a machine that opens the
+ * same snapshot shares the same physical pages through the page cache, and only the pages that
+ * are actually looked up are resident. Lookups binary search the keys in place and return values
+ * as read-only slices of the mapped files, so they do not allocate copies of the data.</p>
+ * <p>A table is a directory of shard files named {@code shard-00000}, {@code shard-00001}, and so
+ * on, each holding a consecutive range of the keys. Shards are kept under 2 GB so that they can
+ * be mapped by a single {@link java.nio.MappedByteBuffer}. Each shard is laid out as:</p>
+ * <ul>
+ * <li>a header of the magic number, version, and number of entries as ints</li>
+ * <li>the offset of each key in the key bytes as ints, with one extra for the end</li>
+ * <li>the offset of each value in the value bytes as ints, with one extra for the end</li>
+ * <li>the bytes of the keys, sorted by unsigned byte order</li>
+ * <li>the bytes of the values</li>
+ * </ul>
+ *
+ * @since 2.2.0
+ */
+public final class MappedByteTable {
+
+  private static final int MAGIC = 0x424d4254;
+
+  private static final int VERSION = 1;
+
+  private static final int HEADER_BYTES = 12;
+
+  /**
+   * The default maximum size of a shard in bytes.
+   */
+  static final int DEFAULT_SHARD_BYTES = 1 << 30;
+
+  private final Shard[] shards;
+
+  private final int size;
+
+  private MappedByteTable(Shard[] shards) {
+    this.shards = shards;
+    int size = 0;
+    for (Shard shard : shards) {
+      size += shard.count;
+    }
+    this.size = size;
+  }
+
+  private static Path shardPath(Path directory, int index) {
+    return directory.resolve(String.format("shard-%05d", index));
+  }
+
+  /**
+   * Maps the table in {@code directory}.
+   *
+   * @param directory the directory written by a {@link Writer}
+   * @return the table
+   * @throws IOException if the directory does not contain a table or it cannot be mapped
+   */
+  public static MappedByteTable open(Path directory) throws IOException {
+    List<Shard> shards = new ArrayList<>();
+    Path path;
+    while (Files.exists(path = shardPath(directory, shards.size()))) {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        shards.add(new Shard(channel.map(MapMode.READ_ONLY, 0, channel.size())));
+      }
+    }
+    if (shards.isEmpty()) {
+      throw new IOException("No mapped table in: " + directory);
+    }
+    return new MappedByteTable(shards.toArray(new Shard[0]));
+  }
+
+  /**
+   * Creates a writer for a new table in {@code directory}.
+   *
+   * @param directory the directory to write the table to
+   * @return a writer which must be closed to finish the table
+   * @throws IOException if the directory cannot be created
+   */
+  public static Writer create(Path directory) throws IOException {
+    return new Writer(directory, DEFAULT_SHARD_BYTES);
+  }
+
+  /**
+   * Writes every entry in a RocksDB database to a new table in {@code directory}. RocksDB's
+   * default comparator orders keys the same way as the table.
+   *
+   * @param rocksDB the database to copy
+   * @param directory the directory to write the table to
+   * @throws IOException if the table cannot be written
+   */
+  public static void copy(RocksDB rocksDB, Path directory) throws IOException {
+    try (Writer writer = create(directory);
+        RocksIterator iterator = rocksDB.newIterator()) {
+      iterator.seekToFirst();
+      while (iterator.isValid()) {
+        writer.put(iterator.key(), iterator.value());
+        iterator.next();
+      }
+    }
+  }
+
+  /**
+   * Compares keys in the order of the table, as unsigned bytes.
+   *
+   * @param first the first key
+   * @param second the second key
+   * @return a negative integer, zero, or a positive integer as the first key is less than, equal
+   *     to, or greater than the second
+   */
+  public static int compare(byte[] first, byte[] second) {
+    int length = Math.min(first.length, second.length);
+    for (int i = 0; i < length; i++) {
+      int result = Integer.compare(first[i] & 0xff, second[i] & 0xff);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return Integer.compare(first.length, second.length);
+  }
+
+  /**
+   * Returns the value for the key as a read-only buffer positioned at the start of the value, or
+   * null if the key is not in the table.
+   *
+   * @param key the key bytes
+   * @return a buffer containing exactly the value, or null
+   */
+  @Nullable
+  public ByteBuffer get(byte[] key) {
+    Shard shard = shards[shardFor(key)];
+    int index = shard.indexOf(key);
+    return index == -1 ? null : shard.value(index);
+  }
+
+  /**
+   * Returns the index of the last shard whose first key is less than or equal to the key.
+   */
+  private int shardFor(byte[] key) {
+    int low = 0;
+    int high = shards.length - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (shards[mid].compareKey(0, key) <= 0) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns whether any key in the table starts with the prefix.
+   *
+   * @param prefix the prefix bytes
+   * @return true if a key starts with the prefix
+   */
+  public boolean hasPrefix(byte[] prefix) {
+    int shard = shardFor(prefix);
+    int index = shards[shard].lowerBound(prefix);
+    if (index == shards[shard].count) {
+      if (shard + 1 == shards.length) {
+        return false;
+      }
+      shard++;
+      index = 0;
+    }
+    return shards[shard].startsWith(index, prefix);
+  }
+
+  /**
+   * Returns whether the key is in the table.
+   *
+   * @param key the key bytes
+   * @return true if the table contains the key
+   */
+  public boolean contains(byte[] key) {
+    return get(key) != null;
+  }
+
+  /**
+   * The number of entries in the table.
+   *
+   * @return integer count
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns a cursor over all the entries in the table in key order.
+   *
+   * @return new cursor positioned at the first entry
+   */
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  /**
+   * Iterates over the entries of the table, following the same pattern as
+   * {@link org.rocksdb.RocksIterator}.
+   */
+  public final class Cursor {
+
+    private int shard = 0;
+
+    private int index = 0;
+
+    private Cursor() {
+      skipEmpty();
+    }
+
+    private void skipEmpty() {
+      while (shard < shards.length && index == shards[shard].count) {
+        shard++;
+        index = 0;
+      }
+    }
+
+    public boolean isValid() {
+      return shard < shards.length;
+    }
+
+    /**
+     * A read-only buffer containing exactly the current key.
+     */
+    public ByteBuffer key() {
+      return shards[shard].key(index);
+    }
+
+    /**
+     * A read-only buffer containing exactly the current value.
+     */
+    public ByteBuffer value() {
+      return shards[shard].value(index);
+    }
+
+    public void next() {
+      index++;
+      skipEmpty();
+    }
+  }
+
+  private static final class Shard {
+
+    private final ByteBuffer buffer;
+
+    private final int count;
+
+    private final int keyOffsetsStart;
+
+    private final int valueOffsetsStart;
+
+    private final int keysStart;
+
+    private final int valuesStart;
+
+    Shard(ByteBuffer buffer) {
+      this.buffer = buffer;
+      if (buffer.getInt(0) != MAGIC) {
+        throw new IllegalStateException("Not a mapped table shard");
+      }
+      int version = buffer.getInt(4);
+      if (version != VERSION) {
+        throw new IllegalStateException("Unsupported mapped table version: " + version);
+      }
+      count = buffer.getInt(8);
+      keyOffsetsStart = HEADER_BYTES;
+      valueOffsetsStart = keyOffsetsStart + 4 * (count + 1);
+      keysStart = valueOffsetsStart + 4 * (count + 1);
+      valuesStart = keysStart + buffer.getInt(keyOffsetsStart + 4 * count);
+    }
+
+    int indexOf(byte[] key) {
+      int low = 0;
+      int high = count - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        int result = compareKey(mid, key);
+        if (result < 0) {
+          low = mid + 1;
+        } else if (result > 0) {
+          high = mid - 1;
+        } else {
+          return mid;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * Returns the index of the first key greater than or equal to the key.
+     */
+    int lowerBound(byte[] key) {
+      int low = 0;
+      int high = count;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (compareKey(mid, key) < 0) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+
+    boolean startsWith(int index, byte[] prefix) {
+      int start = keysStart + buffer.getInt(keyOffsetsStart + 4 * index);
+      int length = keysStart + buffer.getInt(keyOffsetsStart + 4 * (index + 1)) - start;
+      if (length < prefix.length) {
+        return false;
+      }
+      for (int i = 0; i < prefix.length; i++) {
+        if (buffer.get(start + i) != prefix[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    int compareKey(int index, byte[] key) {
+      if (count == 0) {
+        return -1;
+      }
+      int start = keysStart + buffer.getInt(keyOffsetsStart + 4 * index);
+      int length = keysStart + buffer.getInt(keyOffsetsStart + 4 * (index + 1)) - start;
+      int common = Math.min(length, key.length);
+      for (int i = 0; i < common; i++) {
+        int result = Integer.compare(buffer.get(start + i) & 0xff, key[i] & 0xff);
+        if (result != 0) {
+          return result;
+        }
+      }
+      return Integer.compare(length, key.length);
+    }
+
+    ByteBuffer key(int index) {
+      return slice(keysStart, keyOffsetsStart, index);
+    }
+
+    ByteBuffer value(int index) {
+      return slice(valuesStart, valueOffsetsStart, index);
+    }
+
+    private ByteBuffer slice(int dataStart, int offsetsStart, int index) {
+      int start = dataStart + buffer.getInt(offsetsStart + 4 * index);
+      int end = dataStart + buffer.getInt(offsetsStart + 4 * (index + 1));
+      ByteBuffer duplicate = buffer.duplicate();
+      duplicate.limit(end).position(start);
+      return duplicate.slice().asReadOnlyBuffer();
+    }
+  }
+
+  /**
+   * Writes a table one entry at a time. Entries must be added in strictly increasing order of
+   * their keys, compared as unsigned bytes.
+   */
+  public static final class Writer implements Closeable {
+
+    private final Path directory;
+
+    private final int shardBytes;
+
+    private final ByteArrayOutputStream keys = new ByteArrayOutputStream();
+
+    private final ByteArrayOutputStream values = new ByteArrayOutputStream();
+
+    private int[] keyOffsets = new int[1024];
+
+    private int[] valueOffsets = new int[1024];
+
+    private int count = 0;
+
+    private int shard = 0;
+
+    @Nullable
+    private byte[] lastKey;
+
+    Writer(Path directory, int shardBytes) throws IOException {
+      this.directory = directory;
+      this.shardBytes = shardBytes;
+      Files.createDirectories(directory);
+    }
+
+    /**
+     * Adds an entry to the table.
+     *
+     * @param key the key, which must be greater than every previous key
+     * @param value the value
+     * @throws IOException if a full shard cannot be written
+     */
+    public void put(byte[] key, byte[] value) throws IOException {
+      if (lastKey != null && compare(lastKey, key) >= 0) {
+        throw new IllegalArgumentException("Keys must be added in increasing order");
+      }
+      long entryBytes = 8L + key.length + value.length;
+      if (HEADER_BYTES + 16L + entryBytes > shardBytes) {
+        throw new IllegalArgumentException("Entry is larger than the maximum shard size");
+      }
+      if (count > 0 && HEADER_BYTES + 8L * (count + 2) + keys.size() + values.size() + entryBytes
+          > shardBytes) {
+        flush();
+      }
+      if (count + 1 == keyOffsets.length) {
+        keyOffsets = Arrays.copyOf(keyOffsets, keyOffsets.length * 2);
+        valueOffsets = Arrays.copyOf(valueOffsets, valueOffsets.length * 2);
+      }
+      keyOffsets[count] = keys.size();
+      valueOffsets[count] = values.size();
+      keys.write(key);
+      values.write(value);
+      count++;
+      lastKey = key.clone();
+    }
+
+    private void flush() throws IOException {
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(shardPath(directory, shard++))))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+          out.writeInt(keyOffsets[i]);
+        }
+        out.writeInt(keys.size());
+        for (int i = 0; i < count; i++) {
+          out.writeInt(valueOffsets[i]);
+        }
+        out.writeInt(values.size());
+        keys.writeTo(out);
+        values.writeTo(out);
+      }
+      keys.reset();
+      values.reset();
+      count = 0;
+    }
+
+    /**
+     * Writes the last shard of the table.
+     *
+     * @throws IOException if the shard cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+      if (count > 0 || shard == 0) {
+        flush();
+      }
+    }
+  }
+}
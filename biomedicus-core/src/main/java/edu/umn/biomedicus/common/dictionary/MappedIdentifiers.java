@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.umn.biomedicus.common.dictionary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import javax.annotation.Nullable;
+
+/**
+ * An implementation of {@link BidirectionalDictionary.Identifiers} backed by a
+ * {@link MappedByteTable} snapshot of the database used by {@link RocksDbIdentifiers}.
+ *
+ * @since 2.2.0
+ */
+public final class MappedIdentifiers extends AbstractIdentifiers {
+  /**
+   * string terms -> integer indices
+   */
+  private final MappedByteTable indices;
+
+  public MappedIdentifiers(Path identifiersPath) throws IOException {
+    indices = MappedByteTable.open(identifiersPath);
+  }
+
+  @Override
+  protected int getIdentifier(@Nullable CharSequence term) {
+    if (term == null) {
+      return -1;
+    }
+
+    ByteBuffer idBytes = indices.get(term.toString().getBytes(StandardCharsets.UTF_8));
+    return idBytes == null ? -1 : idBytes.getInt(0);
+  }
+
+  @Override
+  public boolean contains(@Nullable String string) {
+    return string != null && indices.contains(string.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Override
+  public MappingIterator mappingIterator() {
+    MappedByteTable.Cursor cursor = indices.cursor();
+    return new MappingIterator() {
+      @Override
+      public boolean isValid() {
+        return cursor.isValid();
+      }
+
+      @Override
+      public int identifier() {
+        return cursor.value().getInt(0);
+      }
+
+      @Override
+      public String string() {
+        return StandardCharsets.UTF_8.decode(cursor.key()).toString();
+      }
+
+      @Override
+      public void next() {
+        cursor.next();
+      }
+
+      @Override
+      public void close() {
+
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    return indices.size();
+  }
+
+  @Override
+  public void close() {
+
+  }
+}
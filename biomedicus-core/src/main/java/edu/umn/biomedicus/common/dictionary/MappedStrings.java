@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.umn.biomedicus.common.dictionary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * An implementation of {@link BidirectionalDictionary.Strings} backed by a
+ * {@link MappedByteTable} snapshot of the database used by {@link RocksDbStrings}.
+ *
+ * @since 2.2.0
+ */
+public final class MappedStrings extends AbstractStrings {
+
+  /**
+   * integer indices -> string terms
+   */
+  private final MappedByteTable terms;
+
+  public MappedStrings(Path termsPath) throws IOException {
+    terms = MappedByteTable.open(termsPath);
+  }
+
+  @Override
+  protected String getTerm(int termIdentifier) {
+    ByteBuffer termBytes = terms.get(ByteBuffer.allocate(4).putInt(termIdentifier).array());
+    return termBytes == null ? null : StandardCharsets.UTF_8.decode(termBytes).toString();
+  }
+
+  @Override
+  public MappingIterator mappingIterator() {
+    MappedByteTable.Cursor cursor = terms.cursor();
+    return new MappingIterator() {
+      @Override
+      public boolean isValid() {
+        return cursor.isValid();
+      }
+
+      @Override
+      public int identifier() {
+        return cursor.key().getInt(0);
+      }
+
+      @Override
+      public String string() {
+        return StandardCharsets.UTF_8.decode(cursor.value()).toString();
+      }
+
+      @Override
+      public void next() {
+        cursor.next();
+      }
+
+      @Override
+      public void close() {
+
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    return terms.size();
+  }
+
+  @Override
+  public void close() {
+
+  }
+}
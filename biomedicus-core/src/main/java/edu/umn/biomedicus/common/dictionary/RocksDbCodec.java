@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.common.dictionary;
+
+import java.util.Arrays;
+import javax.annotation.Nullable;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+
+/**
+ * Reusable key and value buffers for single lookups in RocksDB stores, so that encoding a key and
+ * reading back its value does not allocate.
+ * <p>Keys are encoded into arrays that are reused for every key of the same length, since RocksDB
+ * takes keys as whole arrays. Values are read into one array that grows to fit the largest value
+ * seen, and are decoded from it in place. Both are only valid until the next call on the same
+ * codec, so callers must finish with a key and its value before encoding another. Batched lookups
+ * need a distinct array for each key and should keep using freshly allocated keys.</p>
+ * <p>Instances are thread-confined, use {@link #local()} to get the one for the current
+ * thread. When every document runs on its own virtual thread a codec is created for each
+ * document and is only reused for the lookups of that document. That is still one codec for many
+ * lookups, and a new codec is two small arrays, so it is not pooled like the larger per-document
+ * state of the TnT tagger and the acronym model.</p>
+ *
+ * @since 2.2.0
+ */
+public final class RocksDbCodec {
+
+  private static final ThreadLocal<RocksDbCodec> LOCAL
+      = ThreadLocal.withInitial(RocksDbCodec::new);
+
+  private byte[][] keys = new byte[64][];
+
+  private byte[] value = new byte[256];
+
+  private int valueLength;
+
+  RocksDbCodec() {
+  }
+
+  /**
+   * Returns the codec for the current thread.
+   *
+   * @return the codec
+   */
+  public static RocksDbCodec local() {
+    return LOCAL.get();
+  }
+
+  /**
+   * Returns the number of bytes in the UTF-8 encoding of {@code string}, with unpaired surrogates
+   * encoded as '?' like {@link String#getBytes(java.nio.charset.Charset)}.
+   */
+  static int utf8Length(String string) {
+    int length = 0;
+    int size = string.length();
+    for (int i = 0; i < size; i++) {
+      char c = string.charAt(i);
+      if (c < 0x80) {
+        length += 1;
+      } else if (c < 0x800) {
+        length += 2;
+      } else if (Character.isHighSurrogate(c) && i + 1 < size
+          && Character.isLowSurrogate(string.charAt(i + 1))) {
+        length += 4;
+        i++;
+      } else if (Character.isSurrogate(c)) {
+        length += 1;
+      } else {
+        length += 3;
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Writes the UTF-8 encoding of {@code string} into {@code bytes} starting at {@code offset}.
+   *
+   * @return the offset after the last byte written
+   */
+  static int putUtf8(String string, byte[] bytes, int offset) {
+    int size = string.length();
+    for (int i = 0; i < size; i++) {
+      char c = string.charAt(i);
+      if (c < 0x80) {
+        bytes[offset++] = (byte) c;
+      } else if (c < 0x800) {
+        bytes[offset++] = (byte) (0xc0 | (c >> 6));
+        bytes[offset++] = (byte) (0x80 | (c & 0x3f));
+      } else if (Character.isHighSurrogate(c) && i + 1 < size
+          && Character.isLowSurrogate(string.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, string.charAt(++i));
+        bytes[offset++] = (byte) (0xf0 | (codePoint >> 18));
+        bytes[offset++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+        bytes[offset++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+        bytes[offset++] = (byte) (0x80 | (codePoint & 0x3f));
+      } else if (Character.isSurrogate(c)) {
+        bytes[offset++] = '?';
+      } else {
+        bytes[offset++] = (byte) (0xe0 | (c >> 12));
+        bytes[offset++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+        bytes[offset++] = (byte) (0x80 | (c & 0x3f));
+      }
+    }
+    return offset;
+  }
+
+  static void putInt(byte[] bytes, int offset, int value) {
+    bytes[offset] = (byte) (value >>> 24);
+    bytes[offset + 1] = (byte) (value >>> 16);
+    bytes[offset + 2] = (byte) (value >>> 8);
+    bytes[offset + 3] = (byte) value;
+  }
+
+  /**
+   * Returns the reused key array of exactly {@code length} bytes.
+   *
+   * @param length the length of the key
+   * @return the array, with unspecified contents
+   */
+  public byte[] key(int length) {
+    if (length >= keys.length) {
+      keys = Arrays.copyOf(keys, Math.max(length + 1, keys.length * 2));
+    }
+    byte[] key = keys[length];
+    if (key == null) {
+      key = new byte[length];
+      keys[length] = key;
+    }
+    return key;
+  }
+
+  /**
+   * Encodes a string as a UTF-8 key, the same bytes as
+   * {@code string.getBytes(StandardCharsets.UTF_8)}.
+   *
+   * @param string the string
+   * @return the reused key array
+   */
+  public byte[] utf8Key(String string) {
+    byte[] key = key(utf8Length(string));
+    putUtf8(string, key, 0);
+    return key;
+  }
+
+  /**
+   * Encodes a big-endian int followed by the UTF-8 bytes of a string as a key.
+   *
+   * @param prefix the int
+   * @param string the string
+   * @return the reused key array
+   */
+  public byte[] intUtf8Key(int prefix, String string) {
+    byte[] key = key(4 + utf8Length(string));
+    putInt(key, 0, prefix);
+    putUtf8(string, key, 4);
+    return key;
+  }
+
+  /**
+   * Encodes a bag as a key, the same bytes as {@link StringsBag#getBytes()}.
+   *
+   * @param bag the bag
+   * @return the reused key array
+   */
+  public byte[] bagKey(StringsBag bag) {
+    byte[] key = key(bag.bytesLength());
+    bag.putBytes(key);
+    return key;
+  }
+
+  /**
+   * Reads the value for {@code key} from {@code db} into this codec's value array, unless the
+   * filter rejects the key.
+   *
+   * @param db the database
+   * @param filter the filter over the keys of the database, or null to always call into it
+   * @param key the key
+   * @return true if the key was found, in which case the value can be read from this codec
+   * @throws RocksDBException if the database fails
+   */
+  public boolean get(RocksDB db, @Nullable BloomFilter filter, byte[] key)
+      throws RocksDBException {
+    int length = BloomFilter.get(db, filter, key, value);
+    if (length > value.length) {
+      value = new byte[Math.max(length, value.length * 2)];
+      length = db.get(key, value);
+    }
+    valueLength = length == RocksDB.NOT_FOUND ? 0 : length;
+    return length != RocksDB.NOT_FOUND;
+  }
+
+  /**
+   * The array holding the last value read. Only the first {@link #valueLength()} bytes belong to
+   * the value.
+   */
+  public byte[] value() {
+    return value;
+  }
+
+  /**
+   * The length of the last value read.
+   */
+  public int valueLength() {
+    return valueLength;
+  }
+
+  /**
+   * Decodes the big-endian int at {@code offset} in the last value read.
+   */
+  public int valueInt(int offset) {
+    return (value[offset] & 0xff) << 24 | (value[offset + 1] & 0xff) << 16
+        | (value[offset + 2] & 0xff) << 8 | (value[offset + 3] & 0xff);
+  }
+
+  /**
+   * Decodes the last value read as a big-endian double.
+   */
+  public double valueDouble() {
+    return Double.longBitsToDouble((long) valueInt(0) << 32 | valueInt(4) & 0xffffffffL);
+  }
+
+  /**
+   * Copies the last value read into a new array of its exact length.
+   */
+  public byte[] copyValue() {
+    return Arrays.copyOf(value, valueLength);
+  }
+}
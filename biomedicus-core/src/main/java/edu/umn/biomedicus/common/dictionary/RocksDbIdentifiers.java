@@ -27,20 +27,60 @@ import org.rocksdb.Options;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public final class RocksDbIdentifiers extends AbstractIdentifiers implements Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RocksDbIdentifiers.class);
+
   /**
    * string terms -> integer indices
    */
   private final RocksDB indices;
 
+  @Nullable
+  private final BloomFilter filter;
+
   private transient int _size = -1;
 
   public RocksDbIdentifiers(Path identifiersPath) {
+    this(identifiersPath, 0);
+  }
+
+  /**
+   * Opens the identifiers, building a bloom filter over the terms to reject unknown terms before
+   * calling into RocksDB.
+   *
+   * @param identifiersPath the path to the database
+   * @param bloomFilterRate the false positive rate of the filter, or 0 for no filter
+   */
+  public RocksDbIdentifiers(Path identifiersPath, double bloomFilterRate) {
+    this(open(identifiersPath), identifiersPath.toString(), bloomFilterRate);
+  }
+
+  /**
+   * Uses an already open database of identifiers, building a bloom filter over the terms to reject
+   * unknown terms before calling into RocksDB.
+   *
+   * @param indices the database, which is closed when the identifiers are closed
+   * @param name the name of the database used when logging the bloom filter counts
+   * @param bloomFilterRate the false positive rate of the filter, or 0 for no filter
+   */
+  public RocksDbIdentifiers(RocksDB indices, String name, double bloomFilterRate) {
+    this.indices = indices;
+    try {
+      filter = BloomFilter.forKeys(name, indices, bloomFilterRate);
+    } catch (RocksDBException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static RocksDB open(Path identifiersPath) {
     RocksDB.loadLibrary();
 
     try (Options options = new Options().setInfoLogLevel(InfoLogLevel.ERROR_LEVEL)) {
-      indices = RocksDB.openReadOnly(options, identifiersPath.toString());
+      return RocksDB.openReadOnly(options, identifiersPath.toString());
     } catch (RocksDBException e) {
       throw new RuntimeException(e);
     }
@@ -54,7 +94,7 @@ public final class RocksDbIdentifiers extends AbstractIdentifiers implements Clo
 
     byte[] bytes = term.toString().getBytes(StandardCharsets.UTF_8);
     try {
-      byte[] idBytes = indices.get(bytes);
+      byte[] idBytes = BloomFilter.get(indices, filter, bytes);
       if (idBytes == null) {
         return -1;
       }
@@ -66,6 +106,9 @@ public final class RocksDbIdentifiers extends AbstractIdentifiers implements Clo
 
   @Override
   public void close() {
+    if (filter != null) {
+      LOGGER.info("{}", filter);
+    }
     indices.close();
   }
 
@@ -75,7 +118,7 @@ public final class RocksDbIdentifiers extends AbstractIdentifiers implements Clo
       return false;
     }
     try {
-      return indices.get(string.getBytes(StandardCharsets.UTF_8)) != null;
+      return BloomFilter.get(indices, filter, string.getBytes(StandardCharsets.UTF_8)) != null;
     } catch (RocksDBException e) {
       throw new RuntimeException(e);
     }
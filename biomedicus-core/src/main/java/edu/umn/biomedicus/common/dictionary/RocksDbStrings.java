@@ -36,6 +36,15 @@ public final class RocksDbStrings extends AbstractStrings {
 
   private transient int _size = -1;
 
+  /**
+   * Uses an already open database of terms.
+   *
+   * @param terms the database, which is closed when the strings are closed
+   */
+  public RocksDbStrings(RocksDB terms) {
+    this.terms = terms;
+  }
+
   public RocksDbStrings(Path termsPath) {
     RocksDB.loadLibrary();
 
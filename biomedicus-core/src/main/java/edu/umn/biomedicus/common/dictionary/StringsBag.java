@@ -141,12 +141,26 @@ public final class StringsBag extends AbstractCollection<StringIdentifier>
   }
 
   public byte[] getBytes() {
-    ByteBuffer buffer = ByteBuffer.allocate(4 * 2 * terms.length);
+    byte[] bytes = new byte[bytesLength()];
+    putBytes(bytes);
+    return bytes;
+  }
+
+  /**
+   * The number of bytes returned by {@link #getBytes()}.
+   */
+  int bytesLength() {
+    return 4 * 2 * terms.length;
+  }
+
+  /**
+   * Writes the bytes returned by {@link #getBytes()} to the start of {@code bytes}.
+   */
+  void putBytes(byte[] bytes) {
     for (int i = 0; i < terms.length; i++) {
-      buffer.putInt(terms[i]);
-      buffer.putInt(counts[i]);
+      RocksDbCodec.putInt(bytes, 8 * i, terms[i]);
+      RocksDbCodec.putInt(bytes, 8 * i + 4, counts[i]);
     }
-    return buffer.array();
   }
 
   @Override
@@ -34,6 +34,11 @@ public class PosCap implements Comparable<PosCap>, Serializable {
    */
   private static final long serialVersionUID = -6706873411087752899L;
 
+  /**
+   * The number of parts of speech, cached because {@link PartOfSpeech#values()} copies the array.
+   */
+  private static final int PARTS_OF_SPEECH = PartOfSpeech.values().length;
+
   /**
    * The part of speech of this object.
    */
@@ -92,7 +97,7 @@ public class PosCap implements Comparable<PosCap>, Serializable {
    * @return integer count of the number of part of speech capitalizations.
    */
   public static int cardinality() {
-    return PartOfSpeech.values().length * 2;
+    return PARTS_OF_SPEECH * 2;
   }
 
   /**
@@ -102,7 +107,7 @@ public class PosCap implements Comparable<PosCap>, Serializable {
    * @return part of speech capitalization with the specified ordinal.
    */
   public static PosCap createFromOrdinal(int ordinal) {
-    int posOrdinal = ordinal % PartOfSpeech.values().length;
+    int posOrdinal = ordinal % PARTS_OF_SPEECH;
     boolean capitalized = ordinal != posOrdinal;
     return PosCap.create(PartOfSpeech.values()[posOrdinal], capitalized);
   }
@@ -132,7 +137,7 @@ public class PosCap implements Comparable<PosCap>, Serializable {
    * @return integer ordinal
    */
   public int ordinal() {
-    return (capitalized ? PartOfSpeech.values().length : 0) + partOfSpeech.ordinal();
+    return (capitalized ? PARTS_OF_SPEECH : 0) + partOfSpeech.ordinal();
   }
 
   @Override
@@ -17,7 +17,9 @@
 package edu.umn.biomedicus.concepts;
 
 import com.google.inject.ProvidedBy;
+import edu.umn.biomedicus.common.dictionary.StringIdentifier;
 import edu.umn.biomedicus.common.dictionary.StringsBag;
+import java.util.ArrayList;
 import java.util.List;
 import javax.annotation.Nullable;
 
@@ -53,6 +55,60 @@ public interface ConceptDictionary {
   @Nullable
   List<ConceptRow> forNorms(StringsBag norms);
 
+  /**
+   * Returns whether batch lookups are cheaper than the same number of single lookups. Detectors
+   * only collect their lookups into batches for dictionaries which return true, since collecting
+   * the keys takes an extra scan of each sentence.
+   *
+   * @return true if the batch lookups should be used
+   */
+  default boolean batchesLookups() {
+    return false;
+  }
+
+  /**
+   * Finds the applicable concepts for each of a batch of phrases. Implementations backed by a
+   * database resolve the whole batch in one call.
+   *
+   * @param phrases the phrases in text
+   * @return the concepts for each phrase, null where there are none
+   */
+  default List<List<ConceptRow>> forPhrases(List<String> phrases) {
+    List<List<ConceptRow>> results = new ArrayList<>(phrases.size());
+    for (String phrase : phrases) {
+      results.add(forPhrase(phrase));
+    }
+    return results;
+  }
+
+  /**
+   * Finds the applicable concepts for each of a batch of lowercased phrases.
+   *
+   * @param phrases the lowercased phrases in text
+   * @return the concepts for each phrase, null where there are none
+   */
+  default List<List<ConceptRow>> forLowercasePhrases(List<String> phrases) {
+    List<List<ConceptRow>> results = new ArrayList<>(phrases.size());
+    for (String phrase : phrases) {
+      results.add(forLowercasePhrase(phrase));
+    }
+    return results;
+  }
+
+  /**
+   * Finds the applicable concepts for each of a batch of bags of token norms.
+   *
+   * @param normBags the bags of token norms
+   * @return the concepts for each bag, null where there are none
+   */
+  default List<List<ConceptRow>> forNormBags(List<StringsBag> normBags) {
+    List<List<ConceptRow>> results = new ArrayList<>(normBags.size());
+    for (StringsBag norms : normBags) {
+      results.add(forNorms(norms));
+    }
+    return results;
+  }
+
   /**
    * Returns the full source name for the identifier.
    *
@@ -61,4 +117,37 @@ public interface ConceptDictionary {
    */
   @Nullable
   String source(int identifier);
+
+  /**
+   * Returns whether any phrase in the dictionary starts with the prefix. Used to stop extending
+   * phrases which cannot match, implementations which cannot answer cheaply return true.
+   *
+   * @param prefix the prefix of a phrase
+   * @return false if no phrase starts with the prefix
+   */
+  default boolean hasPhrasePrefix(String prefix) {
+    return true;
+  }
+
+  /**
+   * Returns whether any lowercase phrase in the dictionary starts with the prefix. Implementations
+   * which cannot answer cheaply return true.
+   *
+   * @param prefix the prefix of a lowercase phrase
+   * @return false if no lowercase phrase starts with the prefix
+   */
+  default boolean hasLowercasePrefix(String prefix) {
+    return true;
+  }
+
+  /**
+   * Returns whether any bag of norms in the dictionary contains the norm. Implementations which
+   * cannot answer cheaply return true.
+   *
+   * @param norm the norm identifier
+   * @return false if no bag of norms contains the norm
+   */
+  default boolean hasNorm(StringIdentifier norm) {
+    return true;
+  }
 }
@@ -23,6 +23,7 @@ import edu.umn.biomedicus.common.dictionary.BidirectionalDictionary;
 import edu.umn.biomedicus.common.dictionary.StringsBag;
 import edu.umn.biomedicus.exc.BiomedicusException;
 import edu.umn.biomedicus.framework.Bootstrapper;
+import edu.umn.biomedicus.framework.RocksDbResources;
 import edu.umn.biomedicus.vocabulary.Vocabulary;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
@@ -261,7 +262,7 @@ public class ConceptDictionaryBuilder {
             }
           }
         }
-        try (Options options = new Options().setCreateIfMissing(true).prepareForBulkLoad()) {
+        try (Options options = RocksDbResources.bulkLoadOptions()) {
           try (RocksDB phrases = RocksDB.open(options, dbPath.resolve("phrases").toString());
               RocksDB lowercase = RocksDB.open(options, dbPath.resolve("lowercase").toString())) {
             int wrote = 0;
@@ -343,7 +344,7 @@ public class ConceptDictionaryBuilder {
     }
 
     int wrote = 0;
-    try (Options options = new Options().setCreateIfMissing(true).prepareForBulkLoad();
+    try (Options options = RocksDbResources.bulkLoadOptions();
         RocksDB normsDb = RocksDB.open(options, dbPath.resolve("norms").toString())) {
       for (Entry<StringsBag, List<ConceptRow>> entry : map.entrySet()) {
         List<ConceptRow> suiCuiTuis = entry.getValue();
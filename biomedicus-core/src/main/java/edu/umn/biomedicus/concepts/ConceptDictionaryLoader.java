@@ -19,22 +19,16 @@ package edu.umn.biomedicus.concepts;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import edu.umn.biomedicus.annotations.Setting;
-import edu.umn.biomedicus.common.dictionary.StringsBag;
 import edu.umn.biomedicus.exc.BiomedicusException;
 import edu.umn.biomedicus.framework.DataLoader;
+import edu.umn.biomedicus.framework.RocksDbResources;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
-import javax.annotation.Nullable;
-import org.rocksdb.InfoLogLevel;
-import org.rocksdb.Options;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
-import org.rocksdb.RocksIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,93 +40,91 @@ public class ConceptDictionaryLoader extends DataLoader<ConceptDictionary> {
 
   private final boolean inMemory;
 
+  private final String format;
+
+  private final Path mappedPath;
+
+  private final double bloomFilterRate;
+
+  private final RocksDbResources rocksDbResources;
+
   @Inject
   ConceptDictionaryLoader(@Setting("concepts.db.asDataPath") Path dbPath,
-      @Setting("concepts.inMemory") boolean inMemory) {
+      @Setting("concepts.inMemory") boolean inMemory,
+      @Setting("concepts.format") String format,
+      @Setting("concepts.mapped.asDataPath") Path mappedPath,
+      @Setting("concepts.bloomFilter") double bloomFilterRate,
+      RocksDbResources rocksDbResources) {
     this.dbPath = dbPath;
     this.inMemory = inMemory;
+    this.format = format;
+    this.mappedPath = mappedPath;
+    this.bloomFilterRate = bloomFilterRate;
+    this.rocksDbResources = rocksDbResources;
+  }
+
+  private static Map<Integer, String> loadSources(Path path) throws IOException {
+    Map<Integer, String> sources = new HashMap<>();
+    Files.lines(path.resolve("sources.txt")).forEach(s -> sources.put(sources.size(), s));
+    return sources;
+  }
+
+  @Override
+  public int loadPriority() {
+    // reading the whole dictionary into memory is the slowest load in the default pipeline
+    if ("mapped".equals(format)) {
+      return 10;
+    }
+    return inMemory ? 100 : 40;
   }
 
   @Override
   protected ConceptDictionary loadModel() throws BiomedicusException {
-    RocksDB.loadLibrary();
+    switch (format) {
+      case "rocksdb":
+        return loadRocksDb();
+      case "mapped":
+        LOGGER.info("Mapping concepts dictionary: {}.", mappedPath);
+        try {
+          return new MappedConceptDictionary(mappedPath, loadSources(mappedPath));
+        } catch (IOException e) {
+          throw new BiomedicusException(e);
+        }
+      default:
+        throw new BiomedicusException("Unknown concepts format: " + format);
+    }
+  }
 
-    try (Options options = new Options().setInfoLogLevel(InfoLogLevel.ERROR_LEVEL)) {
+  private ConceptDictionary loadRocksDb() throws BiomedicusException {
+    try {
       LOGGER.info("Opening concepts dictionary: {}. inMemory = {}.", dbPath, inMemory);
 
-      RocksDB phrasesDB = RocksDB.openReadOnly(options, dbPath.resolve("phrases").toString());
-      RocksDB lowercaseDB = RocksDB.openReadOnly(options, dbPath.resolve("lowercase").toString());
-      RocksDB normsDB = RocksDB.openReadOnly(options, dbPath.resolve("norms").toString());
-      Map<Integer, String> sources = new HashMap<>();
-
-      Files.lines(dbPath.resolve("sources.txt")).forEach(s -> sources.put(sources.size(), s));
-
+      RocksDB phrasesDB = rocksDbResources.openReadOnly(dbPath.resolve("phrases"));
+      RocksDB lowercaseDB = rocksDbResources.openReadOnly(dbPath.resolve("lowercase"));
+      RocksDB normsDB = rocksDbResources.openReadOnly(dbPath.resolve("norms"));
+      Map<Integer, String> sources = loadSources(dbPath);
 
       if (inMemory) {
-        LOGGER.info("Loading concepts phrases into memory.");
-        final Map<String, List<ConceptRow>> phrases = new HashMap<>();
-        dumpToMap(phrasesDB, phrases, String::new);
-
-        LOGGER.info("Loading concepts lowercases into memory.");
-        final Map<String, List<ConceptRow>> lowercasePhrases = new HashMap<>();
-        dumpToMap(lowercaseDB, lowercasePhrases, String::new);
-
-        LOGGER.info("Loading concepts norms into memory.");
-        final Map<StringsBag, List<ConceptRow>> normDictionary = new HashMap<>();
-        dumpToMap(normsDB, normDictionary, StringsBag::new);
-
+        LOGGER.info("Loading concepts into an off-heap trie.");
+        TrieConceptDictionary dictionary = TrieConceptDictionary.load(phrasesDB, lowercaseDB,
+            normsDB, sources);
+        phrasesDB.close();
+        lowercaseDB.close();
+        normsDB.close();
         LOGGER.info("Done loading concepts into memory.");
-
-        return new ConceptDictionary () {
-          @Override
-          @Nullable
-          public List<ConceptRow> forPhrase(String phrase) {
-            return phrases.get(phrase);
-          }
-
-          @Override
-          @Nullable
-          public List<ConceptRow> forLowercasePhrase(String phrase) {
-            return lowercasePhrases.get(phrase);
-          }
-
-          @Override
-          @Nullable
-          public List<ConceptRow> forNorms(StringsBag norms) {
-            if (norms.uniqueTerms() == 0) {
-              return null;
-            }
-            return normDictionary.get(norms);
-          }
-
-          @Override
-          public String source(int identifier) {
-            return sources.get(identifier);
-          }
-        };
-
+        return dictionary;
       }
 
+      if (bloomFilterRate > 0) {
+        LOGGER.info("Building concepts bloom filters.");
+      }
+      RocksDbConceptDictionary dictionary = new RocksDbConceptDictionary(phrasesDB, lowercaseDB,
+          normsDB, sources, bloomFilterRate);
       LOGGER.info("Done opening concepts dictionary.");
 
-      return new RocksDbConceptDictionary(phrasesDB, lowercaseDB, normsDB, sources);
+      return dictionary;
     } catch (RocksDBException | IOException e) {
       throw new BiomedicusException(e);
     }
   }
-
-  private static <T> void dumpToMap(RocksDB db, Map<T, List<ConceptRow>> suiCuiTuis,
-      Function<byte[], T> keyMapper) {
-    try (RocksIterator rocksIterator = db.newIterator()) {
-      rocksIterator.seekToFirst();
-      while (rocksIterator.isValid()) {
-        byte[] keyBytes = rocksIterator.key();
-        T key = keyMapper.apply(keyBytes);
-        suiCuiTuis.put(key, RocksDbConceptDictionary.toList(rocksIterator.value()));
-        rocksIterator.next();
-      }
-    }
-
-    db.close();
-  }
 }
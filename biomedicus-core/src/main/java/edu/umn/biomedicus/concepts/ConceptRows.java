@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.concepts;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * An unmodifiable list view of the {@link ConceptRow} values serialized in a buffer. Rows are only
+ * decoded when they are accessed, so looking up a phrase costs the view and nothing per row until
+ * the rows are used.
+ * <p>Decoded rows are not cached: every call to {@link #get(int)}, including through an iterator,
+ * allocates a new row and its SUI, CUI and TUI. Reading each row once, as the concept detector
+ * does, allocates the same as decoding the whole list up front, while caching would add an array
+ * to every lookup. Callers that read a row more than once should keep the returned row.</p>
+ *
+ * @since 2.2.0
+ */
+final class ConceptRows extends AbstractList<ConceptRow> implements RandomAccess {
+
+  private final ByteBuffer buffer;
+
+  private final int start;
+
+  private final int size;
+
+  /**
+   * Creates a view of the rows between the position and the limit of {@code buffer}. The buffer
+   * must not be modified afterwards.
+   *
+   * @param buffer the buffer
+   */
+  ConceptRows(ByteBuffer buffer) {
+    this.buffer = buffer;
+    start = buffer.position();
+    size = buffer.remaining() / ConceptRow.NUM_BYTES;
+  }
+
+  @Override
+  public ConceptRow get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    int offset = start + index * ConceptRow.NUM_BYTES;
+    return new ConceptRow(
+        new SUI(buffer.getInt(offset)),
+        new CUI(buffer.getInt(offset + 4)),
+        new TUI(buffer.getInt(offset + 8)),
+        buffer.getInt(offset + 12)
+    );
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+}
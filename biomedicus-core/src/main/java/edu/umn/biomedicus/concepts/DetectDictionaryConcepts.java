@@ -29,6 +29,7 @@ import static edu.umn.biomedicus.common.types.syntax.PartOfSpeech.WDT;
 import static edu.umn.biomedicus.common.types.syntax.PartOfSpeech.XX;
 
 import edu.umn.biomedicus.acronyms.Acronym;
+import edu.umn.biomedicus.common.dictionary.StringIdentifier;
 import edu.umn.biomedicus.common.dictionary.StringsBag;
 import edu.umn.biomedicus.common.types.syntax.PartOfSpeech;
 import edu.umn.biomedicus.common.types.syntax.PartsOfSpeech;
@@ -46,18 +47,24 @@ import edu.umn.nlpengine.TextRange;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import javax.inject.Inject;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Uses a {@link ConceptDictionary} to recognize concepts in text. First, it will try to find direct
  * matches against all in-order sublists of tokens in a sentence. Then it will perform syntactic
- * permutations on any prepositional phrases in those sublists.
+ * permutations on any prepositional phrases in those sublists. Sublists starting at a token stop
+ * being extended once the dictionary reports that no entry can match them. The lookups for each
+ * sentence are sent to the dictionary in batches.
  *
  * @author Ben Knoll
  * @author Serguei Pakhomov
@@ -81,6 +88,8 @@ class DetectDictionaryConcepts implements DocumentTask {
 
   private Labeler<UmlsConcept> conceptLabeler;
 
+  private SentenceLookups lookups;
+
   /**
    * Creates a dictionary concept recognizer from a concept dictionary and a document.
    *
@@ -111,29 +120,7 @@ class DetectDictionaryConcepts implements DocumentTask {
     return Collections.unmodifiableSet(builder);
   }
 
-  private boolean checkPhrase(Span span, String phrase, boolean oneToken, double confMod) {
-    List<ConceptRow> phraseSUI = conceptDictionary.forPhrase(phrase);
-
-    if (phraseSUI != null) {
-      makeTerm(span, phraseSUI, 1 - confMod);
-      return true;
-    }
-
-    if (oneToken) {
-      return false;
-    }
-
-    phraseSUI = conceptDictionary.forLowercasePhrase(phrase.toLowerCase(Locale.ENGLISH));
-
-    if (phraseSUI != null) {
-      makeTerm(span, phraseSUI, 0.6 - confMod);
-      return true;
-    }
-
-    return false;
-  }
-
-  private void checkTokenSet(List<TermToken> tokenSet) {
+  private void checkTokenSet(List<TermToken> tokenSet, Candidates candidates) {
     if (tokenSet.size() <= 1) {
       return;
     }
@@ -149,11 +136,16 @@ class DetectDictionaryConcepts implements DocumentTask {
         continue;
       }
 
-      builder.addTerm(normForm.normIdentifier());
+      StringIdentifier normIdentifier = normForm.normIdentifier();
+      if (!conceptDictionary.hasNorm(normIdentifier)) {
+        candidates.norms = false;
+        return;
+      }
+      builder.addTerm(normIdentifier);
     }
     StringsBag normBag = builder.build();
 
-    List<ConceptRow> normsCUI = conceptDictionary.forNorms(normBag);
+    List<ConceptRow> normsCUI = lookups.forNorms(normBag);
     if (normsCUI != null) {
       makeTerm(phraseAsSpan, normsCUI, .3);
     }
@@ -219,35 +211,192 @@ class DetectDictionaryConcepts implements DocumentTask {
         editedStringSpans.add(span);
       }
 
-      for (int from = 0; from < sentenceTermTokens.size(); from++) {
-        int to = Math.min(from + SPAN_SIZE, sentenceTermTokens.size());
-        List<TermToken> window = sentenceTermTokens.subList(from, to);
-
-        TermToken first = window.get(0);
-
-        for (int subsetSize = 1; subsetSize <= window.size(); subsetSize++) {
-          List<TermToken> windowSubset = window.subList(0, subsetSize);
-          TermToken last = windowSubset.get(subsetSize - 1);
-          Span entire = new Span(first.getStartIndex(), last.getEndIndex());
+      if (conceptDictionary.batchesLookups()) {
+        lookups = new SentenceLookups(false);
+        findConcepts(documentText, sentenceTermTokens, editedString, editedStringSpans);
+        lookups.resolve();
+      } else {
+        lookups = new SentenceLookups(true);
+      }
+      findConcepts(documentText, sentenceTermTokens, editedString, editedStringSpans);
+    }
+  }
 
-          if (posTags.inside(entire).stream()
-              .map(PosTag::getPartOfSpeech).allMatch(TRIVIAL_POS::contains)) {
-            continue;
-          }
+  private void findConcepts(
+      String documentText,
+      List<TermToken> sentenceTermTokens,
+      StringBuilder editedString,
+      List<Span> editedStringSpans
+  ) {
+    for (int from = 0; from < sentenceTermTokens.size(); from++) {
+      int to = Math.min(from + SPAN_SIZE, sentenceTermTokens.size());
+      List<TermToken> window = sentenceTermTokens.subList(from, to);
+
+      TermToken first = window.get(0);
+
+      Candidates candidates = new Candidates();
+      for (int subsetSize = 1; subsetSize <= window.size() && candidates.alive();
+          subsetSize++) {
+        List<TermToken> windowSubset = window.subList(0, subsetSize);
+        TermToken last = windowSubset.get(subsetSize - 1);
+        Span entire = new Span(first.getStartIndex(), last.getEndIndex());
+
+        if (posTags.inside(entire).stream()
+            .map(PosTag::getPartOfSpeech).allMatch(TRIVIAL_POS::contains)) {
+          continue;
+        }
 
-          if (checkPhrase(entire, entire.coveredString(documentText), subsetSize == 1, 0)) {
-            continue;
-          }
+        if (candidates.phrases.check(entire, entire.coveredString(documentText),
+            subsetSize == 1, 0)) {
+          continue;
+        }
 
+        if (candidates.editedPhrases.alive()) {
           int editedBegin = editedStringSpans.get(from).getStartIndex();
           int editedEnd = editedStringSpans.get(from + subsetSize - 1).getEndIndex();
           String editedSubstring = editedString.substring(editedBegin, editedEnd);
-          if (checkPhrase(entire, editedSubstring, subsetSize == 1, .1)) {
+          if (candidates.editedPhrases.check(entire, editedSubstring, subsetSize == 1, .1)) {
             continue;
           }
+        }
+
+        if (candidates.norms) {
+          checkTokenSet(windowSubset, candidates);
+        }
+      }
+    }
+  }
+
+  /**
+   * Tracks which kinds of dictionary entries can still match as the phrase starting at a token is
+   * extended by more tokens. Every phrase starting at a token is a prefix of the longer phrases
+   * starting at the same token, and every bag of norms is contained in the bags of the longer
+   * phrases, so once the dictionary has no entries extending them the rest of the window can be
+   * skipped without changing the results.
+   */
+  private final class Candidates {
+
+    private final PhraseCandidates phrases = new PhraseCandidates();
+
+    private final PhraseCandidates editedPhrases = new PhraseCandidates();
+
+    private boolean norms = true;
+
+    boolean alive() {
+      return phrases.alive() || editedPhrases.alive() || norms;
+    }
+  }
+
+  private final class PhraseCandidates {
+
+    private boolean phrase = true;
+
+    private boolean lowercase = true;
+
+    boolean alive() {
+      return phrase || lowercase;
+    }
+
+    boolean check(Span span, String text, boolean oneToken, double confMod) {
+      if (phrase) {
+        if (conceptDictionary.hasPhrasePrefix(text)) {
+          List<ConceptRow> phraseSUI = lookups.forPhrase(text);
+          if (phraseSUI != null) {
+            makeTerm(span, phraseSUI, 1 - confMod);
+            return true;
+          }
+        } else {
+          phrase = false;
+        }
+      }
 
-          checkTokenSet(windowSubset);
+      if (oneToken || !lowercase) {
+        return false;
+      }
+
+      String lowercaseText = text.toLowerCase(Locale.ENGLISH);
+      if (conceptDictionary.hasLowercasePrefix(lowercaseText)) {
+        List<ConceptRow> phraseSUI = lookups.forLowercasePhrase(lowercaseText);
+        if (phraseSUI != null) {
+          makeTerm(span, phraseSUI, 0.6 - confMod);
+          return true;
         }
+      } else if (text.indexOf('\u03a3') == -1) {
+        // the lowercase of a capital sigma depends on the characters following it
+        lowercase = false;
+      }
+
+      return false;
+    }
+  }
+
+  /**
+   * The dictionary lookups for a sentence. For dictionaries which batch lookups the sentence is
+   * scanned twice: first collecting every phrase and bag of norms that could be looked up, with
+   * every lookup missing, then again after all of them have been resolved in one batch per kind of
+   * entry. Finding a concept only skips lookups, so the first scan collects every key the second
+   * scan uses. Other dictionaries are scanned once with single lookups.
+   */
+  private final class SentenceLookups {
+
+    private final Map<String, List<ConceptRow>> phrases = new LinkedHashMap<>();
+
+    private final Map<String, List<ConceptRow>> lowercasePhrases = new LinkedHashMap<>();
+
+    private final Map<StringsBag, List<ConceptRow>> normBags = new LinkedHashMap<>();
+
+    private boolean resolved;
+
+    SentenceLookups(boolean resolved) {
+      this.resolved = resolved;
+    }
+
+    @Nullable
+    List<ConceptRow> forPhrase(String phrase) {
+      return lookup(phrases, phrase, conceptDictionary::forPhrase);
+    }
+
+    @Nullable
+    List<ConceptRow> forLowercasePhrase(String phrase) {
+      return lookup(lowercasePhrases, phrase, conceptDictionary::forLowercasePhrase);
+    }
+
+    @Nullable
+    List<ConceptRow> forNorms(StringsBag norms) {
+      return lookup(normBags, norms, conceptDictionary::forNorms);
+    }
+
+    void resolve() {
+      resolve(phrases, conceptDictionary::forPhrases);
+      resolve(lowercasePhrases, conceptDictionary::forLowercasePhrases);
+      resolve(normBags, conceptDictionary::forNormBags);
+      resolved = true;
+    }
+
+    @Nullable
+    private <K> List<ConceptRow> lookup(
+        Map<K, List<ConceptRow>> results,
+        K key,
+        Function<K, List<ConceptRow>> single
+    ) {
+      if (!resolved) {
+        results.put(key, null);
+        return null;
+      }
+      return results.containsKey(key) ? results.get(key) : single.apply(key);
+    }
+
+    private <K> void resolve(
+        Map<K, List<ConceptRow>> results,
+        Function<List<K>, List<List<ConceptRow>>> batch
+    ) {
+      if (results.isEmpty()) {
+        return;
+      }
+      List<K> keys = new ArrayList<>(results.keySet());
+      List<List<ConceptRow>> found = batch.apply(keys);
+      for (int i = 0; i < keys.size(); i++) {
+        results.put(keys.get(i), found.get(i));
       }
     }
   }
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.umn.biomedicus.concepts;
+
+import edu.umn.biomedicus.common.dictionary.MappedByteTable;
+import edu.umn.biomedicus.common.dictionary.StringsBag;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An implementation of {@link ConceptDictionary} that uses memory-mapped snapshots of the
+ * {@link RocksDbConceptDictionary} databases, so that every process on a machine shares one copy
+ * of the dictionary.
+ *
+ * @since 2.2.0
+ */
+public final class MappedConceptDictionary implements ConceptDictionary {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MappedConceptDictionary.class);
+
+  private static final String[] DATABASES = {"phrases", "lowercase", "norms"};
+
+  private final MappedByteTable phrases;
+
+  private final MappedByteTable lowercase;
+
+  private final MappedByteTable norms;
+
+  private final Map<Integer, String> sources;
+
+  MappedConceptDictionary(Path mappedPath, Map<Integer, String> sources) throws IOException {
+    phrases = MappedByteTable.open(mappedPath.resolve("phrases"));
+    lowercase = MappedByteTable.open(mappedPath.resolve("lowercase"));
+    norms = MappedByteTable.open(mappedPath.resolve("norms"));
+    this.sources = sources;
+  }
+
+  /**
+   * Writes snapshots of the concept dictionary databases created by
+   * {@link ConceptDictionaryBuilder}.
+   *
+   * @param dbPath the folder containing the RocksDB databases
+   * @param outputPath the folder to write the snapshot to
+   */
+  public static void writeSnapshot(Path dbPath, Path outputPath)
+      throws IOException, RocksDBException {
+    RocksDB.loadLibrary();
+    for (String database : DATABASES) {
+      LOGGER.info("Writing concepts snapshot: {}", database);
+      try (RocksDB rocksDB = RocksDB.openReadOnly(dbPath.resolve(database).toString())) {
+        MappedByteTable.copy(rocksDB, outputPath.resolve(database));
+      }
+    }
+    Files.copy(dbPath.resolve("sources.txt"), outputPath.resolve("sources.txt"),
+        StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  @Nullable
+  private static List<ConceptRow> toList(@Nullable ByteBuffer buffer) {
+    return buffer == null ? null : new ConceptRows(buffer);
+  }
+
+  @Nullable
+  @Override
+  public List<ConceptRow> forPhrase(String phrase) {
+    return toList(phrases.get(phrase.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Nullable
+  @Override
+  public List<ConceptRow> forLowercasePhrase(String phrase) {
+    return toList(lowercase.get(phrase.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Nullable
+  @Override
+  public List<ConceptRow> forNorms(StringsBag norms) {
+    if (norms.uniqueTerms() == 0) {
+      return null;
+    }
+    return toList(this.norms.get(norms.getBytes()));
+  }
+
+  @Nullable
+  @Override
+  public String source(int identifier) {
+    return sources.get(identifier);
+  }
+
+  @Override
+  public boolean hasPhrasePrefix(String prefix) {
+    return phrases.hasPrefix(prefix.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Override
+  public boolean hasLowercasePrefix(String prefix) {
+    return lowercase.hasPrefix(prefix.getBytes(StandardCharsets.UTF_8));
+  }
+}
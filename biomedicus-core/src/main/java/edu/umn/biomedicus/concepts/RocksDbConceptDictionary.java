@@ -16,6 +16,8 @@
 
 package edu.umn.biomedicus.concepts;
 
+import edu.umn.biomedicus.common.dictionary.BloomFilter;
+import edu.umn.biomedicus.common.dictionary.RocksDbCodec;
 import edu.umn.biomedicus.common.dictionary.StringsBag;
 import edu.umn.biomedicus.framework.LifecycleManaged;
 import java.nio.ByteBuffer;
@@ -26,14 +28,20 @@ import java.util.Map;
 import javax.annotation.Nullable;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * An implementation of {@link ConceptDictionary} that uses RocksDB as a backend.
+ * An implementation of {@link ConceptDictionary} that uses RocksDB as a backend. Optionally keeps
+ * a {@link BloomFilter} over the keys of each database so that most misses do not call into
+ * RocksDB.
  *
  * @since 1.8.0
  */
 class RocksDbConceptDictionary implements ConceptDictionary, LifecycleManaged {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(RocksDbConceptDictionary.class);
+
   private final RocksDB phrases;
 
   private final RocksDB lowercase;
@@ -42,48 +50,55 @@ class RocksDbConceptDictionary implements ConceptDictionary, LifecycleManaged {
 
   private final Map<Integer, String> sources;
 
+  @Nullable
+  private final BloomFilter phrasesFilter;
+
+  @Nullable
+  private final BloomFilter lowercaseFilter;
+
+  @Nullable
+  private final BloomFilter normsFilter;
+
   RocksDbConceptDictionary(
       RocksDB phrases,
       RocksDB lowercase,
       RocksDB normsDB,
-      Map<Integer, String> sources
-  ) {
+      Map<Integer, String> sources,
+      double bloomFilterRate
+  ) throws RocksDBException {
     this.phrases = phrases;
     this.lowercase = lowercase;
     this.normsDB = normsDB;
     this.sources = sources;
+    phrasesFilter = BloomFilter.forKeys("Concept phrases", phrases, bloomFilterRate);
+    lowercaseFilter = BloomFilter.forKeys("Concept lowercase phrases", lowercase,
+        bloomFilterRate);
+    normsFilter = BloomFilter.forKeys("Concept norms", normsDB, bloomFilterRate);
   }
 
-  static List<ConceptRow> toList(byte[] bytes) {
-    List<ConceptRow> list = new ArrayList<>();
-    ByteBuffer buffer = ByteBuffer.wrap(bytes);
-    while (buffer.hasRemaining()) {
-      list.add(ConceptRow.next(buffer));
+  @Nullable
+  private static List<ConceptRow> get(RocksDB db, @Nullable BloomFilter filter,
+      RocksDbCodec codec, byte[] key) {
+    try {
+      return codec.get(db, filter, key)
+          ? new ConceptRows(ByteBuffer.wrap(codec.copyValue())) : null;
+    } catch (RocksDBException e) {
+      throw new RuntimeException(e);
     }
-
-    return list;
   }
 
   @Nullable
   @Override
   public List<ConceptRow> forPhrase(String phrase) {
-    try {
-      byte[] bytes = phrases.get(phrase.getBytes(StandardCharsets.UTF_8));
-      return bytes == null ? null : toList(bytes);
-    } catch (RocksDBException e) {
-      throw new RuntimeException(e);
-    }
+    RocksDbCodec codec = RocksDbCodec.local();
+    return get(phrases, phrasesFilter, codec, codec.utf8Key(phrase));
   }
 
   @Nullable
   @Override
   public List<ConceptRow> forLowercasePhrase(String phrase) {
-    try {
-      byte[] bytes = lowercase.get(phrase.getBytes(StandardCharsets.UTF_8));
-      return bytes == null ? null : toList(bytes);
-    } catch (RocksDBException e) {
-      throw new RuntimeException(e);
-    }
+    RocksDbCodec codec = RocksDbCodec.local();
+    return get(lowercase, lowercaseFilter, codec, codec.utf8Key(phrase));
   }
 
   @Nullable
@@ -92,9 +107,59 @@ class RocksDbConceptDictionary implements ConceptDictionary, LifecycleManaged {
     if (norms.uniqueTerms() == 0) {
       return null;
     }
+    RocksDbCodec codec = RocksDbCodec.local();
+    return get(normsDB, normsFilter, codec, codec.bagKey(norms));
+  }
+
+  @Override
+  public boolean batchesLookups() {
+    return true;
+  }
+
+  @Override
+  public List<List<ConceptRow>> forPhrases(List<String> phrases) {
+    return multiGet(this.phrases, phrasesFilter, utf8(phrases));
+  }
+
+  @Override
+  public List<List<ConceptRow>> forLowercasePhrases(List<String> phrases) {
+    return multiGet(lowercase, lowercaseFilter, utf8(phrases));
+  }
+
+  @Override
+  public List<List<ConceptRow>> forNormBags(List<StringsBag> normBags) {
+    List<byte[]> keys = new ArrayList<>(normBags.size());
+    for (StringsBag norms : normBags) {
+      keys.add(norms.getBytes());
+    }
+    List<List<ConceptRow>> results = multiGet(normsDB, normsFilter, keys);
+    for (int i = 0; i < normBags.size(); i++) {
+      if (normBags.get(i).uniqueTerms() == 0) {
+        results.set(i, null);
+      }
+    }
+    return results;
+  }
+
+  private static List<byte[]> utf8(List<String> strings) {
+    List<byte[]> keys = new ArrayList<>(strings.size());
+    for (String string : strings) {
+      keys.add(string.getBytes(StandardCharsets.UTF_8));
+    }
+    return keys;
+  }
+
+  private static List<List<ConceptRow>> multiGet(
+      RocksDB db,
+      @Nullable BloomFilter filter,
+      List<byte[]> keys
+  ) {
     try {
-      byte[] bytes = normsDB.get(norms.getBytes());
-      return bytes == null ? null : toList(bytes);
+      List<List<ConceptRow>> results = new ArrayList<>(keys.size());
+      for (byte[] bytes : BloomFilter.multiGet(db, filter, keys)) {
+        results.add(bytes == null ? null : new ConceptRows(ByteBuffer.wrap(bytes)));
+      }
+      return results;
     } catch (RocksDBException e) {
       throw new RuntimeException(e);
     }
@@ -108,6 +173,10 @@ class RocksDbConceptDictionary implements ConceptDictionary, LifecycleManaged {
 
   @Override
   public void doShutdown() {
-
+    for (BloomFilter filter : new BloomFilter[]{phrasesFilter, lowercaseFilter, normsFilter}) {
+      if (filter != null) {
+        LOGGER.info("{}", filter);
+      }
+    }
   }
 }
@@ -0,0 +1,529 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.concepts;
+
+import edu.umn.biomedicus.common.dictionary.StringIdentifier;
+import edu.umn.biomedicus.common.dictionary.StringsBag;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import javax.annotation.Nullable;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksIterator;
+
+/**
+ * An in-memory implementation of {@link ConceptDictionary} which stores the phrases, lowercase
+ * phrases, and norm bags of the dictionary in a single off-heap radix trie of their bytes.
+ * <p>Phrases and their lowercase forms share one trie node when they are equal and share the
+ * nodes of any common prefix otherwise. The concept rows are packed into a second off-heap buffer
+ * and only decoded into {@link ConceptRow} objects when looked up, so the heap holds almost
+ * nothing besides the sources.</p>
+ * <p>Each trie node is laid out in the node buffer as:</p>
+ * <ul>
+ * <li>the length of the edge label leading to the node as an unsigned short, then its bytes</li>
+ * <li>a byte with a flag for each of the phrase, lowercase, and norms slots that has rows in the
+ * node and, in the next three bits, a flag for each slot that has rows in the node or any of its
+ * descendants, followed by the offset of the rows in the rows buffer as an int for each of the
+ * node's own slots</li>
+ * <li>the number of children as a short, then for each child in order of their first label byte,
+ * that byte and the offset of the child node as an int</li>
+ * </ul>
+ * <p>Rows are stored as the number of rows as an int followed by the rows in the format of
+ * {@link ConceptRow#getBytes()}.</p>
+ *
+ * @since 2.2.0
+ */
+final class TrieConceptDictionary implements ConceptDictionary {
+
+  static final int PHRASE = 0;
+
+  static final int LOWERCASE = 1;
+
+  static final int NORMS = 2;
+
+  private static final int SLOTS = 3;
+
+  /**
+   * Mask for the flags of the slots stored in a node. The flags for the slots stored in the node or
+   * any of its descendants are shifted left by {@link #SLOTS}.
+   */
+  private static final int OWN = (1 << SLOTS) - 1;
+
+  private final ByteBuffer nodes;
+
+  private final int root;
+
+  private final ByteBuffer rows;
+
+  private final BitSet norms;
+
+  private final boolean unknownNorms;
+
+  private final Map<Integer, String> sources;
+
+  private TrieConceptDictionary(ByteBuffer nodes, int root, ByteBuffer rows, BitSet norms,
+      boolean unknownNorms, Map<Integer, String> sources) {
+    this.nodes = nodes;
+    this.root = root;
+    this.rows = rows;
+    this.norms = norms;
+    this.unknownNorms = unknownNorms;
+    this.sources = sources;
+  }
+
+  /**
+   * Loads the dictionary from the concepts RocksDB databases.
+   *
+   * @param phrases the phrases database
+   * @param lowercase the lowercase phrases database
+   * @param norms the norms database
+   * @param sources the source names by identifier
+   * @return the dictionary
+   */
+  static TrieConceptDictionary load(RocksDB phrases, RocksDB lowercase, RocksDB norms,
+      Map<Integer, String> sources) {
+    try (RocksIterator phrasesIterator = phrases.newIterator();
+        RocksIterator lowercaseIterator = lowercase.newIterator();
+        RocksIterator normsIterator = norms.newIterator()) {
+      return build(entries(phrasesIterator), entries(lowercaseIterator), entries(normsIterator),
+          sources);
+    }
+  }
+
+  private static Iterator<Entry<byte[], byte[]>> entries(RocksIterator rocksIterator) {
+    rocksIterator.seekToFirst();
+    return new Iterator<Entry<byte[], byte[]>>() {
+      @Override
+      public boolean hasNext() {
+        return rocksIterator.isValid();
+      }
+
+      @Override
+      public Entry<byte[], byte[]> next() {
+        if (!rocksIterator.isValid()) {
+          throw new NoSuchElementException();
+        }
+        Entry<byte[], byte[]> entry = new SimpleImmutableEntry<>(rocksIterator.key(),
+            rocksIterator.value());
+        rocksIterator.next();
+        return entry;
+      }
+    };
+  }
+
+  /**
+   * Builds the dictionary from the entries of the phrases, lowercase, and norms tables, each of
+   * which must be sorted by their keys compared as unsigned bytes, like RocksDB iterators.
+   *
+   * @return the dictionary
+   */
+  static TrieConceptDictionary build(
+      Iterator<Entry<byte[], byte[]>> phrases,
+      Iterator<Entry<byte[], byte[]>> lowercase,
+      Iterator<Entry<byte[], byte[]>> norms,
+      Map<Integer, String> sources
+  ) {
+    List<PeekingSource> inputs = Arrays.asList(new PeekingSource(phrases),
+        new PeekingSource(lowercase), new PeekingSource(norms));
+    Builder builder = new Builder();
+    byte[][] values = new byte[SLOTS][];
+    while (true) {
+      byte[] key = null;
+      for (PeekingSource input : inputs) {
+        if (input.peek != null && (key == null || compare(input.peek.getKey(), key) < 0)) {
+          key = input.peek.getKey();
+        }
+      }
+      if (key == null) {
+        break;
+      }
+      for (int slot = 0; slot < SLOTS; slot++) {
+        PeekingSource input = inputs.get(slot);
+        if (input.peek != null && compare(input.peek.getKey(), key) == 0) {
+          values[slot] = input.peek.getValue();
+          input.advance();
+        } else {
+          values[slot] = null;
+        }
+      }
+      builder.add(key, values);
+    }
+    return builder.build(sources);
+  }
+
+  static int compare(byte[] first, byte[] second) {
+    int length = Math.min(first.length, second.length);
+    for (int i = 0; i < length; i++) {
+      int result = Integer.compare(first[i] & 0xff, second[i] & 0xff);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return Integer.compare(first.length, second.length);
+  }
+
+  /**
+   * Walks the trie along the key, returning the offset of the node where the key ends or -1 if the
+   * key is not in the trie. When {@code prefix} is true the key may end partway through the label
+   * of the returned node.
+   */
+  private int walk(byte[] key, boolean prefix) {
+    int node = root;
+    int position = 0;
+    while (true) {
+      int labelLength = nodes.getShort(node) & 0xffff;
+      int compared = Math.min(labelLength, key.length - position);
+      if (compared < labelLength && !prefix) {
+        return -1;
+      }
+      int labelStart = node + 2;
+      for (int i = 0; i < compared; i++) {
+        if (nodes.get(labelStart + i) != key[position + i]) {
+          return -1;
+        }
+      }
+      position += compared;
+      if (position == key.length) {
+        return node;
+      }
+
+      int flagsOffset = labelStart + labelLength;
+      int childrenStart = flagsOffset + 1 + 4 * Integer.bitCount(nodes.get(flagsOffset) & OWN);
+      int childCount = nodes.getShort(childrenStart);
+      int first = childrenStart + 2;
+      int target = key[position] & 0xff;
+      int low = 0;
+      int high = childCount - 1;
+      node = -1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        int label = nodes.get(first + 5 * mid) & 0xff;
+        if (label < target) {
+          low = mid + 1;
+        } else if (label > target) {
+          high = mid - 1;
+        } else {
+          node = nodes.getInt(first + 5 * mid + 1);
+          break;
+        }
+      }
+      if (node == -1) {
+        return -1;
+      }
+    }
+  }
+
+  private int flags(int node) {
+    return nodes.get(node + 2 + (nodes.getShort(node) & 0xffff));
+  }
+
+  /**
+   * Returns the offset in the rows buffer for the slot of the key, or -1 if there is none.
+   */
+  private int find(byte[] key, int slot) {
+    int node = walk(key, false);
+    if (node == -1) {
+      return -1;
+    }
+    int flags = flags(node);
+    if ((flags & (1 << slot)) == 0) {
+      return -1;
+    }
+    int payloadsStart = node + 2 + (nodes.getShort(node) & 0xffff) + 1;
+    return nodes.getInt(payloadsStart + 4 * Integer.bitCount(flags & ((1 << slot) - 1)));
+  }
+
+  private boolean hasPrefix(byte[] prefix, int slot) {
+    int node = walk(prefix, true);
+    return node != -1 && (flags(node) & (1 << (SLOTS + slot))) != 0;
+  }
+
+  @Nullable
+  private List<ConceptRow> rows(byte[] key, int slot) {
+    int offset = find(key, slot);
+    if (offset == -1) {
+      return null;
+    }
+    int count = rows.getInt(offset);
+    ByteBuffer slice = rows.duplicate();
+    slice.limit(offset + 4 + count * ConceptRow.NUM_BYTES).position(offset + 4);
+    return new ConceptRows(slice.slice());
+  }
+
+  @Nullable
+  @Override
+  public List<ConceptRow> forPhrase(String phrase) {
+    return rows(phrase.getBytes(StandardCharsets.UTF_8), PHRASE);
+  }
+
+  @Nullable
+  @Override
+  public List<ConceptRow> forLowercasePhrase(String phrase) {
+    return rows(phrase.getBytes(StandardCharsets.UTF_8), LOWERCASE);
+  }
+
+  @Nullable
+  @Override
+  public List<ConceptRow> forNorms(StringsBag norms) {
+    if (norms.uniqueTerms() == 0) {
+      return null;
+    }
+    return rows(norms.getBytes(), NORMS);
+  }
+
+  @Nullable
+  @Override
+  public String source(int identifier) {
+    return sources.get(identifier);
+  }
+
+  @Override
+  public boolean hasPhrasePrefix(String prefix) {
+    return hasPrefix(prefix.getBytes(StandardCharsets.UTF_8), PHRASE);
+  }
+
+  @Override
+  public boolean hasLowercasePrefix(String prefix) {
+    return hasPrefix(prefix.getBytes(StandardCharsets.UTF_8), LOWERCASE);
+  }
+
+  @Override
+  public boolean hasNorm(StringIdentifier norm) {
+    return norm.value() < 0 ? unknownNorms : norms.get(norm.value());
+  }
+
+  private static final class PeekingSource {
+
+    private final Iterator<Entry<byte[], byte[]>> iterator;
+
+    @Nullable
+    private Entry<byte[], byte[]> peek;
+
+    PeekingSource(Iterator<Entry<byte[], byte[]>> iterator) {
+      this.iterator = iterator;
+      advance();
+    }
+
+    void advance() {
+      peek = iterator.hasNext() ? iterator.next() : null;
+    }
+  }
+
+  /**
+   * A growable off-heap buffer.
+   */
+  private static final class Output {
+
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+
+    private void ensure(int bytes) {
+      if (buffer.remaining() < bytes) {
+        long capacity = Math.max(buffer.capacity() * 2L, (long) buffer.position() + bytes);
+        if (capacity > Integer.MAX_VALUE) {
+          throw new IllegalStateException("Concept dictionary is too large");
+        }
+        ByteBuffer larger = ByteBuffer.allocateDirect((int) capacity);
+        buffer.flip();
+        larger.put(buffer);
+        buffer = larger;
+      }
+    }
+
+    ByteBuffer finish() {
+      buffer.flip();
+      ByteBuffer finished = ByteBuffer.allocateDirect(buffer.remaining());
+      finished.put(buffer);
+      finished.flip();
+      return finished.asReadOnlyBuffer();
+    }
+  }
+
+  /**
+   * A trie node which has not been written yet because it may still get children.
+   */
+  private static final class PendingNode {
+
+    private final int depth;
+
+    private final int[] payloads = {-1, -1, -1};
+
+    private int subtreeFlags = 0;
+
+    private byte[] childLabels = new byte[4];
+
+    private int[] childOffsets = new int[4];
+
+    private int childCount = 0;
+
+    PendingNode(int depth) {
+      this.depth = depth;
+    }
+
+    void addChild(byte label, int offset) {
+      if (childCount == childLabels.length) {
+        childLabels = Arrays.copyOf(childLabels, childCount * 2);
+        childOffsets = Arrays.copyOf(childOffsets, childCount * 2);
+      }
+      childLabels[childCount] = label;
+      childOffsets[childCount] = offset;
+      childCount++;
+    }
+  }
+
+  /**
+   * Builds the trie from keys in sorted order. Nodes are written once all of their children have
+   * been written, so the trie is never held on heap.
+   */
+  static final class Builder {
+
+    private final Output nodes = new Output();
+
+    private final Output rows = new Output();
+
+    private final List<PendingNode> stack = new ArrayList<>();
+
+    private final BitSet norms = new BitSet();
+
+    private boolean unknownNorms = false;
+
+    private byte[] previous = new byte[0];
+
+    Builder() {
+      stack.add(new PendingNode(0));
+    }
+
+    private PendingNode top() {
+      return stack.get(stack.size() - 1);
+    }
+
+    /**
+     * Adds a key, which must be greater than every previous key, with the serialized rows for each
+     * slot or null if the slot has no rows.
+     */
+    void add(byte[] key, byte[][] values) {
+      int common = 0;
+      int length = Math.min(previous.length, key.length);
+      while (common < length && previous[common] == key[common]) {
+        common++;
+      }
+      if (common == key.length && stack.size() > 1) {
+        throw new IllegalArgumentException("Keys must be added in increasing order");
+      }
+
+      while (top().depth > common) {
+        PendingNode node = stack.remove(stack.size() - 1);
+        if (top().depth < common) {
+          stack.add(new PendingNode(common));
+        }
+        write(node, top());
+      }
+
+      PendingNode node = top();
+      if (node.depth != key.length) {
+        node = new PendingNode(key.length);
+        stack.add(node);
+      }
+      for (int slot = 0; slot < SLOTS; slot++) {
+        if (values[slot] == null) {
+          continue;
+        }
+        int shared = -1;
+        for (int other = 0; other < slot; other++) {
+          if (values[other] != null && Arrays.equals(values[other], values[slot])) {
+            shared = node.payloads[other];
+          }
+        }
+        node.payloads[slot] = shared != -1 ? shared : writeRows(values[slot]);
+      }
+      if (values[NORMS] != null) {
+        ByteBuffer bag = ByteBuffer.wrap(key);
+        while (bag.remaining() >= 8) {
+          int term = bag.getInt();
+          bag.getInt();
+          if (term >= 0) {
+            norms.set(term);
+          } else {
+            unknownNorms = true;
+          }
+        }
+      }
+      previous = key;
+    }
+
+    private int writeRows(byte[] value) {
+      rows.ensure(4 + value.length);
+      int offset = rows.buffer.position();
+      rows.buffer.putInt(value.length / ConceptRow.NUM_BYTES).put(value);
+      return offset;
+    }
+
+    private void write(PendingNode node, PendingNode parent) {
+      int labelLength = node.depth - parent.depth;
+      if (labelLength > 0xffff) {
+        throw new IllegalArgumentException("Key is too long");
+      }
+      int flags = 0;
+      int payloadCount = 0;
+      for (int slot = 0; slot < SLOTS; slot++) {
+        if (node.payloads[slot] != -1) {
+          flags |= 1 << slot;
+          payloadCount++;
+        }
+      }
+      flags |= (node.subtreeFlags | flags) << SLOTS;
+      int childCount = node.childCount;
+      nodes.ensure(2 + labelLength + 1 + 4 * payloadCount + 2 + 5 * childCount);
+      ByteBuffer buffer = nodes.buffer;
+      int offset = buffer.position();
+      buffer.putShort((short) labelLength).put(previous, parent.depth, labelLength);
+      buffer.put((byte) flags);
+      for (int slot = 0; slot < SLOTS; slot++) {
+        if (node.payloads[slot] != -1) {
+          buffer.putInt(node.payloads[slot]);
+        }
+      }
+      buffer.putShort((short) childCount);
+      for (int i = 0; i < childCount; i++) {
+        buffer.put(node.childLabels[i]).putInt(node.childOffsets[i]);
+      }
+      if (node != parent) {
+        parent.addChild(previous[parent.depth], offset);
+        parent.subtreeFlags |= (flags >> SLOTS) & OWN;
+      }
+    }
+
+    TrieConceptDictionary build(Map<Integer, String> sources) {
+      while (stack.size() > 1) {
+        PendingNode node = stack.remove(stack.size() - 1);
+        write(node, top());
+      }
+      PendingNode root = stack.get(0);
+      int rootOffset = nodes.buffer.position();
+      write(root, root);
+      return new TrieConceptDictionary(nodes.finish(), rootOffset, rows.finish(), norms,
+          unknownNorms, sources);
+    }
+  }
+}
@@ -20,8 +20,17 @@ import com.google.inject.Inject;
 import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.google.inject.Singleton;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
 import edu.umn.biomedicus.annotations.Setting;
+import edu.umn.biomedicus.exc.BiomedicusException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 /**
  * A class that provides access to the functionality of Biomedicus. The instances of this class is
@@ -58,6 +67,45 @@ public final class Application {
     return injector.getInstance(Key.get(settingType, new SettingImpl(key)));
   }
 
+  /**
+   * Loads every model used by the root classes concurrently, blocking until they are all loaded.
+   *
+   * @param roots the classes, like pipeline components, whose models should be loaded
+   * @return the load time and heap usage of each model
+   * @throws BiomedicusException if any of the models fails to load
+   */
+  public List<LoadResult> eagerLoad(Class<?>... roots) throws BiomedicusException {
+    return injector.getInstance(EagerLoader.class).loadAll(Arrays.asList(roots));
+  }
+
+  /**
+   * Loads the models of the pipeline components listed in the "eagerLoad.components" setting, if
+   * the "eagerLoad.enabled" setting is true.
+   *
+   * @return the load time and heap usage of each model
+   * @throws BiomedicusException if a component class does not exist or a model fails to load
+   */
+  public List<LoadResult> eagerLoadConfigured() throws BiomedicusException {
+    Map<String, Object> settings = injector.getInstance(
+        Key.get(new TypeLiteral<Map<String, Object>>() {}, Names.named("globalSettings")));
+    if (!Boolean.TRUE.equals(settings.get("eagerLoad.enabled"))) {
+      return Collections.emptyList();
+    }
+
+    List<Class<?>> roots = new ArrayList<>();
+    Object components = settings.get("eagerLoad.components");
+    if (components instanceof Collection) {
+      for (Object component : (Collection<?>) components) {
+        try {
+          roots.add(Class.forName(component.toString().trim()));
+        } catch (ClassNotFoundException e) {
+          throw new BiomedicusException("Eager load component not found: " + component, e);
+        }
+      }
+    }
+    return injector.getInstance(EagerLoader.class).loadAll(roots);
+  }
+
   public Path confFolder() {
     return confFolder;
   }
@@ -104,7 +104,11 @@ public final class BiomedicusScopes {
   /**
    * A context object, stores a ref to the context {@link ThreadLocal} and the map of objects to
    * provide within the scope.<br/> <br/> {@link #call(Callable)} causes the current thread to enter
-   * the scope so that objects from the map are provided when scoped objects are needed.
+   * the scope so that objects from the map are provided when scoped objects are needed. Entering
+   * the scope only modifies the calling thread's {@link ThreadLocal}, so any number of threads can
+   * be inside the same context at once. Objects shared between those threads, such as
+   * {@code DocumentsProcessor} instances, are responsible for their own locking, see
+   * {@code DocumentsProcessorRunner}.
    */
   public static final class Context {
 
@@ -126,7 +130,7 @@ public final class BiomedicusScopes {
      * @return the value of T returned by the callable.
      * @throws Exception any exception thrown by the callable.
      */
-    public synchronized <T> T call(Callable<T> callable) throws Exception {
+    public <T> T call(Callable<T> callable) throws Exception {
       if (contextRef.get() != null) {
         throw new IllegalStateException("Processor scope already in progress");
       }
@@ -138,6 +142,12 @@ public final class BiomedicusScopes {
       }
     }
 
+    /**
+     * Returns the scoped object for the key, creating it if it does not exist yet. Objects that
+     * already exist are returned without locking. Creation holds a single lock for the whole
+     * context, so scoped objects which depend on each other can be created from different threads
+     * without deadlocking.
+     */
     @SuppressWarnings("unchecked")
     protected <T> T get(Key<T> key, Provider<T> unscoped) {
       T t = (T) objectsMap.get(key);
@@ -21,4 +21,14 @@ import edu.umn.biomedicus.exc.BiomedicusException;
 public interface EagerLoadable {
 
   void eagerLoad() throws BiomedicusException;
+
+  /**
+   * The priority used by {@link EagerLoader}, loadables with a higher priority are started first.
+   * Slow loaders should have a higher priority so that they start before faster ones.
+   *
+   * @return integer priority
+   */
+  default int loadPriority() {
+    return 0;
+  }
 }
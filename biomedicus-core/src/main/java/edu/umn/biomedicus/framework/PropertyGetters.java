@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.framework;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Compiles the property methods used by {@link SearchExpr} into getters that are called directly
+ * instead of through {@link Method#invoke(Object, Object...)}.
+ * <p>Getters are generated with {@link LambdaMetafactory}, the same way the compiler implements
+ * a method reference like {@code Label::getValue}, so once the JIT has seen a call site it can
+ * inline the property method. If a lambda cannot be generated for a method, for example because
+ * its class is not accessible from this package, the getter falls back to a method handle and
+ * then to reflection. Getters are cached by method, since many patterns test the same
+ * properties.</p>
+ *
+ * @since 2.2.0
+ */
+final class PropertyGetters {
+
+  private static final Map<Method, Function<Object, Object>> GETTERS = new ConcurrentHashMap<>();
+
+  private PropertyGetters() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Returns a function which calls the no-argument {@code method} on its argument and returns the
+   * result, boxed if it is primitive.
+   *
+   * @param method the property method
+   * @return the getter
+   */
+  static Function<Object, Object> getter(Method method) {
+    return GETTERS.computeIfAbsent(method, PropertyGetters::compile);
+  }
+
+  private static Function<Object, Object> compile(Method method) {
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    MethodHandle handle;
+    try {
+      handle = lookup.unreflect(method);
+    } catch (IllegalAccessException e) {
+      return reflective(method);
+    }
+
+    try {
+      CallSite callSite = LambdaMetafactory.metafactory(
+          lookup,
+          "apply",
+          MethodType.methodType(Function.class),
+          MethodType.methodType(Object.class, Object.class),
+          handle,
+          handle.type().wrap()
+      );
+      @SuppressWarnings("unchecked")
+      Function<Object, Object> getter = (Function<Object, Object>) callSite.getTarget()
+          .invokeExact();
+      return getter;
+    } catch (Throwable e) {
+      MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+      return label -> {
+        try {
+          return (Object) generic.invokeExact(label);
+        } catch (RuntimeException | Error e1) {
+          throw e1;
+        } catch (Throwable throwable) {
+          throw new IllegalStateException(throwable);
+        }
+      };
+    }
+  }
+
+  private static Function<Object, Object> reflective(Method method) {
+    return label -> {
+      try {
+        return method.invoke(label);
+      } catch (IllegalAccessException | InvocationTargetException e) {
+        throw new IllegalStateException(e);
+      }
+    };
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.framework;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import edu.umn.biomedicus.annotations.Setting;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.annotation.Nullable;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.Cache;
+import org.rocksdb.InfoLogLevel;
+import org.rocksdb.LRUCache;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.Statistics;
+import org.rocksdb.TickerType;
+
+/**
+ * Owns the options shared by every read-only RocksDB model: one LRU block cache sized by the
+ * "rocksdb.blockCache.megabytes" setting, with index and filter blocks stored in the cache and
+ * pinned for the first level, and memory-mapped reads when "rocksdb.mmapReads" is true.
+ * <p>Each database opened through {@link #openReadOnly(Path)} adds its size and memory use, and
+ * its own block cache hits and misses when "rocksdb.statistics" is true, to the
+ * {@link MetricsRegistry}, which reports them the same way as the processor metrics.</p>
+ * <p>Databases written by the model builders use {@link #bulkLoadOptions()}, which adds bloom
+ * filters to the SST files.</p>
+ *
+ * @since 2.2.0
+ */
+@Singleton
+public final class RocksDbResources implements LifecycleManaged {
+
+  private static final int BLOOM_FILTER_BITS_PER_KEY = 10;
+
+  private final Cache blockCache;
+
+  private final BlockBasedTableConfig tableConfig;
+
+  private final boolean mmapReads;
+
+  private final boolean statistics;
+
+  private final MetricsRegistry metricsRegistry;
+
+  private final List<DbMetrics> metrics = new CopyOnWriteArrayList<>();
+
+  @Inject
+  public RocksDbResources(
+      @Setting("rocksdb.blockCache.megabytes") int blockCacheMegabytes,
+      @Setting("rocksdb.mmapReads") boolean mmapReads,
+      @Setting("rocksdb.statistics") boolean statistics,
+      MetricsRegistry metricsRegistry
+  ) {
+    RocksDB.loadLibrary();
+    blockCache = new LRUCache(blockCacheMegabytes * 1024L * 1024L);
+    tableConfig = new BlockBasedTableConfig()
+        .setBlockCache(blockCache)
+        .setCacheIndexAndFilterBlocks(true)
+        .setPinL0FilterAndIndexBlocksInCache(true);
+    this.mmapReads = mmapReads;
+    this.statistics = statistics;
+    this.metricsRegistry = metricsRegistry;
+  }
+
+  /**
+   * Creates the options for writing a model database. The caller is responsible for closing them.
+   *
+   * @return options which create the database if it is missing, are tuned for bulk loading, and
+   * write a whole key bloom filter into every SST file
+   */
+  public static Options bulkLoadOptions() {
+    RocksDB.loadLibrary();
+    try (BloomFilter bloomFilter = new BloomFilter(BLOOM_FILTER_BITS_PER_KEY, false)) {
+      // the table factory created by setTableFormatConfig holds its own reference to the filter
+      BlockBasedTableConfig tableConfig = new BlockBasedTableConfig().setFilter(bloomFilter);
+      return new Options()
+          .setCreateIfMissing(true)
+          .prepareForBulkLoad()
+          .setTableFormatConfig(tableConfig);
+    }
+  }
+
+  /**
+   * Opens a database read-only with the shared block cache. Each database gets its own options,
+   * so that its statistics only count its own reads.
+   *
+   * @param path the path to the database
+   * @return the database, which the caller is responsible for closing, its metrics are reported
+   * as -1 once it is closed
+   * @throws RocksDBException if the database cannot be opened
+   */
+  public RocksDB openReadOnly(Path path) throws RocksDBException {
+    Statistics dbStatistics = statistics ? new Statistics() : null;
+    Options options = new Options()
+        .setInfoLogLevel(InfoLogLevel.ERROR_LEVEL)
+        .setTableFormatConfig(tableConfig)
+        .setAllowMmapReads(mmapReads);
+    if (dbStatistics != null) {
+      options.setStatistics(dbStatistics);
+    }
+    RocksDB db;
+    try {
+      db = RocksDB.openReadOnly(options, path.toString());
+    } catch (RocksDBException e) {
+      options.close();
+      if (dbStatistics != null) {
+        dbStatistics.close();
+      }
+      throw e;
+    }
+    DbMetrics dbMetrics = new DbMetrics(path.toString(), db, options, dbStatistics);
+    metrics.add(dbMetrics);
+    metricsRegistry.addResourceMetrics(dbMetrics);
+    return db;
+  }
+
+  @Override
+  public void doShutdown() {
+    for (DbMetrics dbMetrics : metrics) {
+      dbMetrics.close();
+    }
+    metrics.clear();
+    blockCache.close();
+  }
+
+  /**
+   * MXBean interface for the metrics of a read-only RocksDB database.
+   */
+  public interface RocksDbMetricsMXBean {
+
+    String getPath();
+
+    long getEstimatedKeys();
+
+    long getTableReadersMemoryBytes();
+
+    long getBlockCacheUsageBytes();
+
+    long getBlockCachePinnedUsageBytes();
+
+    long getBlockCacheHits();
+
+    long getBlockCacheMisses();
+  }
+
+  private static final class DbMetrics implements RocksDbMetricsMXBean, ResourceMetrics {
+
+    private final String path;
+
+    private final RocksDB db;
+
+    private final Options options;
+
+    @Nullable
+    private final Statistics statistics;
+
+    private volatile boolean closed;
+
+    DbMetrics(String path, RocksDB db, Options options, @Nullable Statistics statistics) {
+      this.path = path;
+      this.db = db;
+      this.options = options;
+      this.statistics = statistics;
+    }
+
+    /**
+     * Releases the Java handles to the options and statistics. An open database keeps its own
+     * references to them, so this does not need to wait for the database to be closed.
+     */
+    void close() {
+      closed = true;
+      options.close();
+      if (statistics != null) {
+        statistics.close();
+      }
+    }
+
+    private long ticker(TickerType tickerType) {
+      if (statistics == null || closed) {
+        return -1;
+      }
+      return statistics.getTickerCount(tickerType);
+    }
+
+    private long property(String property) {
+      if (!db.isOwningHandle()) {
+        return -1;
+      }
+      try {
+        return db.getLongProperty(property);
+      } catch (RocksDBException e) {
+        return -1;
+      }
+    }
+
+    @Override
+    public String getResourceType() {
+      return "RocksDb";
+    }
+
+    @Override
+    public String getResourceName() {
+      return path;
+    }
+
+    @Override
+    public String getPath() {
+      return path;
+    }
+
+    @Override
+    public long getEstimatedKeys() {
+      return property("rocksdb.estimate-num-keys");
+    }
+
+    @Override
+    public long getTableReadersMemoryBytes() {
+      return property("rocksdb.estimate-table-readers-mem");
+    }
+
+    @Override
+    public long getBlockCacheUsageBytes() {
+      return property("rocksdb.block-cache-usage");
+    }
+
+    @Override
+    public long getBlockCachePinnedUsageBytes() {
+      return property("rocksdb.block-cache-pinned-usage");
+    }
+
+    @Override
+    public long getBlockCacheHits() {
+      return ticker(TickerType.BLOCK_CACHE_HIT);
+    }
+
+    @Override
+    public long getBlockCacheMisses() {
+      return ticker(TickerType.BLOCK_CACHE_MISS);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("RocksDB %s: %d keys, table readers %d bytes, shared block cache %d "
+              + "bytes (%d pinned), own block cache hits=%d misses=%d", path, getEstimatedKeys(),
+          getTableReadersMemoryBytes(), getBlockCacheUsageBytes(),
+          getBlockCachePinnedUsageBytes(), getBlockCacheHits(), getBlockCacheMisses());
+    }
+  }
+}
@@ -23,16 +23,18 @@ import edu.umn.nlpengine.Label;
 import edu.umn.nlpengine.LabelIndex;
 import edu.umn.nlpengine.Span;
 import edu.umn.nlpengine.TextRange;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 import javax.annotation.Nonnull;
@@ -55,6 +57,11 @@ public class SearchExpr {
       return null;
     }
 
+    @Override
+    boolean leadingTypes(Set<Class<? extends Label>> types) {
+      return false;
+    }
+
     @Override
     void swapNext(Node next) {
       throw new IllegalStateException("Should never swap next on the accept node");
@@ -77,6 +84,11 @@ public class SearchExpr {
       return null;
     }
 
+    @Override
+    boolean leadingTypes(Set<Class<? extends Label>> types) {
+      return false;
+    }
+
     @Override
     void swapNext(Node next) {
       throw new IllegalStateException("Should never swap next on the final accept node");
@@ -94,6 +106,13 @@ public class SearchExpr {
 
   private final Map<String, Integer> groupNames;
 
+  /**
+   * The label types one of which begins every match found by {@link #searchRoot}, or null if a
+   * match may begin some other way.
+   */
+  @Nullable
+  private final List<Class<? extends Label>> leadingTypes;
+
   SearchExpr(Node root,
       Node searchRoot,
       int numberGroups,
@@ -104,6 +123,8 @@ public class SearchExpr {
     this.numberGroups = numberGroups;
     this.numberLocals = numberLocals;
     this.groupNames = groupNames;
+    Set<Class<? extends Label>> types = new LinkedHashSet<>();
+    leadingTypes = searchRoot.leadingTypes(types) ? new ArrayList<>(types) : null;
   }
 
   /**
@@ -901,6 +922,19 @@ public class SearchExpr {
       return next.firstType();
     }
 
+    /**
+     * Adds the types of the labels that a match starting at this node can begin with to
+     * {@code types}. Unlike {@link #firstType()} this accounts for every path through optionals,
+     * loops, and alternations.
+     *
+     * @param types the set to add the types to
+     * @return false if a match can begin without consuming one of those labels, or depends on the
+     *     text or labels before it, in which case {@code types} is incomplete
+     */
+    boolean leadingTypes(Set<Class<? extends Label>> types) {
+      return next.leadingTypes(types);
+    }
+
     void swapNext(Node next) {
       this.next = next;
     }
@@ -922,6 +956,11 @@ public class SearchExpr {
       }
       return State.miss();
     }
+
+    @Override
+    boolean leadingTypes(Set<Class<? extends Label>> types) {
+      return false;
+    }
   }
 
   /**
@@ -1024,6 +1063,16 @@ public class SearchExpr {
       }
       return first;
     }
+
+    @Override
+    boolean leadingTypes(Set<Class<? extends Label>> types) {
+      for (int i = 0; i < size; i++) {
+        if (!paths[i].leadingTypes(types)) {
+          return false;
+        }
+      }
+      return true;
+    }
   }
 
   /**
@@ -1058,6 +1107,11 @@ public class SearchExpr {
       }
       return next.search(search, state);
     }
+
+    @Override
+    boolean leadingTypes(Set<Class<? extends Label>> types) {
+      return false;
+    }
   }
 
   /**
@@ -1080,6 +1134,11 @@ public class SearchExpr {
       }
       return State.miss();
     }
+
+    @Override
+    boolean leadingTypes(Set<Class<? extends Label>> types) {
+      return false;
+    }
   }
 
   /**
@@ -1103,6 +1162,11 @@ public class SearchExpr {
         return res;
       }
     }
+
+    @Override
+    boolean leadingTypes(Set<Class<? extends Label>> types) {
+      return node.leadingTypes(types);
+    }
   }
 
   /**
@@ -1145,6 +1209,11 @@ public class SearchExpr {
         return next.search(search, state);
       }
     }
+
+    @Override
+    boolean leadingTypes(Set<Class<? extends Label>> types) {
+      return option.leadingTypes(types) && next.leadingTypes(types);
+    }
   }
 
   /**
@@ -1172,6 +1241,11 @@ public class SearchExpr {
       }
       return next.search(search, res);
     }
+
+    @Override
+    boolean leadingTypes(Set<Class<? extends Label>> types) {
+      return node.leadingTypes(types) && next.leadingTypes(types);
+    }
   }
 
   /**
@@ -1205,6 +1279,11 @@ public class SearchExpr {
 
       return noOptionRes;
     }
+
+    @Override
+    boolean leadingTypes(Set<Class<? extends Label>> types) {
+      return node.leadingTypes(types) && next.leadingTypes(types);
+    }
   }
 
   /**
@@ -1245,6 +1324,15 @@ public class SearchExpr {
     Class<? extends Label> firstType() {
       return body.firstType();
     }
+
+    /**
+     * Only reached by returning from the end of the body, so the body can finish without
+     * consuming a label.
+     */
+    @Override
+    boolean leadingTypes(Set<Class<? extends Label>> types) {
+      return false;
+    }
   }
 
   /**
@@ -1499,6 +1587,12 @@ public class SearchExpr {
     Class<? extends Label> firstType() {
       return recursiveLoop.firstType();
     }
+
+    @Override
+    boolean leadingTypes(Set<Class<? extends Label>> types) {
+      return recursiveLoop.body.leadingTypes(types)
+          && (recursiveLoop.min > 0 || recursiveLoop.next.leadingTypes(types));
+    }
   }
 
   /**
@@ -1557,6 +1651,11 @@ public class SearchExpr {
 
       return result;
     }
+
+    @Override
+    boolean leadingTypes(Set<Class<? extends Label>> types) {
+      return false;
+    }
   }
 
   /**
@@ -1652,6 +1751,15 @@ public class SearchExpr {
       return labelType;
     }
 
+    @Override
+    boolean leadingTypes(Set<Class<? extends Label>> types) {
+      if (contains) {
+        return false;
+      }
+      types.add(labelType);
+      return true;
+    }
+
     boolean propertiesMatch(DefaultSearcher search, TextRange label) {
       for (PropertyMatch requiredProperty : requiredProperties) {
         if (!requiredProperty.doesMatch(search, label)) {
@@ -1697,6 +1805,7 @@ public class SearchExpr {
 
       final String name;
       final Method readMethod;
+      final Function<Object, Object> getter;
 
       PropertyMatch(String name) {
         this.name = name;
@@ -1705,6 +1814,7 @@ public class SearchExpr {
         } catch (NoSuchMethodException e) {
           throw new IllegalStateException(e);
         }
+        getter = PropertyGetters.getter(readMethod);
       }
 
       abstract boolean doesMatch(DefaultSearcher search, TextRange label);
@@ -1721,13 +1831,9 @@ public class SearchExpr {
 
       @Override
       boolean doesMatch(DefaultSearcher search, TextRange label) {
-        try {
-          Object value = readMethod.invoke(label);
-          return value != null && value instanceof CharSequence
-              && pattern.matcher((CharSequence) value).matches();
-        } catch (IllegalAccessException | InvocationTargetException e) {
-          throw new IllegalStateException();
-        }
+        Object value = getter.apply(label);
+        return value != null && value instanceof CharSequence
+            && pattern.matcher((CharSequence) value).matches();
       }
     }
 
@@ -1742,18 +1848,14 @@ public class SearchExpr {
 
       @Override
       boolean doesMatch(DefaultSearcher search, TextRange label) {
-        try {
-          Object result = readMethod.invoke(label);
-          if (result == null || !(result instanceof CharSequence)) {
-            return false;
-          }
-          if (!(result instanceof String)) {
-            result = result.toString();
-          }
-          return value.equalsIgnoreCase((String) result);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-          throw new IllegalStateException(e);
+        Object result = getter.apply(label);
+        if (result == null || !(result instanceof CharSequence)) {
+          return false;
         }
+        if (!(result instanceof String)) {
+          result = result.toString();
+        }
+        return value.equalsIgnoreCase((String) result);
       }
     }
 
@@ -1788,17 +1890,13 @@ public class SearchExpr {
 
       @Override
       boolean doesMatch(DefaultSearcher search, TextRange label) {
-        try {
-          Object invoke = readMethod.invoke(label);
-          if (invoke == null || !(invoke instanceof Number)) {
-            return false;
-          }
-          double first = ((Number) invoke).doubleValue();
-          double second = ((Number) value).doubleValue();
-          return Math.abs(first - second) < 1e-10;
-        } catch (IllegalAccessException | InvocationTargetException e) {
-          throw new IllegalStateException("");
+        Object invoke = getter.apply(label);
+        if (invoke == null || !(invoke instanceof Number)) {
+          return false;
         }
+        double first = ((Number) invoke).doubleValue();
+        double second = ((Number) value).doubleValue();
+        return Math.abs(first - second) < 1e-10;
       }
     }
 
@@ -1813,37 +1911,28 @@ public class SearchExpr {
 
       @Override
       boolean doesMatch(DefaultSearcher search, TextRange label) {
-        try {
-          Object invoke = readMethod.invoke(label);
-          return value.equals(invoke);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-          throw new IllegalStateException(e);
-        }
+        return value.equals(getter.apply(label));
       }
     }
 
     class PropertyValueBackReference extends PropertyMatch {
 
       private final String group;
-      private final Method backrefMethod;
+      private final Function<Object, Object> backrefGetter;
 
       PropertyValueBackReference(String name,
           String group,
           Method backrefMethod) {
         super(name);
         this.group = group;
-        this.backrefMethod = backrefMethod;
+        backrefGetter = PropertyGetters.getter(backrefMethod);
       }
 
       @Override
       boolean doesMatch(DefaultSearcher search, TextRange label) {
         TextRange groupLabel = search.getLabel(group);
-        try {
-          return groupLabel != null
-              && backrefMethod.invoke(groupLabel).equals(readMethod.invoke(label));
-        } catch (IllegalAccessException | InvocationTargetException e) {
-          throw new IllegalStateException("");
-        }
+        return groupLabel != null
+            && backrefGetter.apply(groupLabel).equals(getter.apply(label));
       }
     }
 
@@ -1859,11 +1948,7 @@ public class SearchExpr {
       @Override
       boolean doesMatch(DefaultSearcher search, TextRange label) {
         Span span = search.getSpan(group);
-        try {
-          return span != null && span.equals(readMethod.invoke(label));
-        } catch (IllegalAccessException | InvocationTargetException e) {
-          throw new IllegalStateException("");
-        }
+        return span != null && span.equals(getter.apply(label));
       }
     }
 
@@ -1889,12 +1974,7 @@ public class SearchExpr {
 
       @Override
       boolean doesMatch(DefaultSearcher search, TextRange label) {
-        try {
-          Object invoke = readMethod.invoke(label);
-          return value.equals(invoke);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-          throw new IllegalStateException(e);
-        }
+        return value.equals(getter.apply(label));
       }
     }
   }
@@ -1981,6 +2061,17 @@ public class SearchExpr {
     int from, to;
     State result = State.miss();
 
+    /**
+     * For each leading type, the position the candidate was found from, and the start of the first
+     * label of the type starting at or after it, or {@link Integer#MAX_VALUE} if there is none.
+     * Searches only move forward through a document, so one lookup serves every search until the
+     * search passes the candidate.
+     */
+    @Nullable
+    private int[] candidateFroms;
+    @Nullable
+    private int[] candidates;
+
     DefaultSearcher(DefaultSearcher defaultSearcher) {
       document = null;
       labels = defaultSearcher.labels.clone();
@@ -2035,11 +2126,49 @@ public class SearchExpr {
       Arrays.fill(groups, -1);
       Arrays.fill(labels, null);
 
-      result = searchRoot.search(this, new State(from, from, to, new ArrayList<>()));
+      int start = from;
+      if (leadingTypes != null && from >= 0 && from <= to) {
+        start = nextCandidate();
+        if (start > to) {
+          result = State.miss();
+          from = result.end;
+          return found = false;
+        }
+      }
+
+      result = searchRoot.search(this, new State(start, start, to, new ArrayList<>()));
       from = result.end;
       return found = result.isHit();
     }
 
+    /**
+     * Finds the earliest start of a label of one of the leading types at or after {@link #from}.
+     * Every match has to begin at one of these labels, so searching can start there instead of at
+     * {@link #from}, and does not need to run at all if it is past {@link #to}.
+     *
+     * @return the start index, or {@link Integer#MAX_VALUE} if there are no more labels of the
+     *     leading types
+     */
+    private int nextCandidate() {
+      assert leadingTypes != null;
+      if (candidates == null || candidateFroms == null) {
+        candidates = new int[leadingTypes.size()];
+        candidateFroms = new int[leadingTypes.size()];
+        Arrays.fill(candidateFroms, Integer.MAX_VALUE);
+      }
+      int start = Integer.MAX_VALUE;
+      for (int i = 0; i < candidates.length; i++) {
+        if (candidateFroms[i] > from || candidates[i] < from) {
+          Label first = document.labelIndex(leadingTypes.get(i))
+              .inside(new Span(from, Integer.MAX_VALUE)).first();
+          candidates[i] = first == null ? Integer.MAX_VALUE : first.getStartIndex();
+          candidateFroms[i] = from;
+        }
+        start = Math.min(start, candidates[i]);
+      }
+      return start;
+    }
+
     @Override
     public boolean search(int begin, int end) {
       from = Math.max(from, begin);
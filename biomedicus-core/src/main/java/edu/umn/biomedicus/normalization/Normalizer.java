@@ -29,12 +29,16 @@ import edu.umn.nlpengine.DocumentTask;
 import edu.umn.nlpengine.DocumentsProcessor;
 import edu.umn.nlpengine.LabelIndex;
 import edu.umn.nlpengine.Labeler;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import javax.annotation.Nonnull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Performs word normalization on the parse tokens in a document.
+ * Performs word normalization on the parse tokens in a document. Normalizer models which batch
+ * lookups are queried once per document with the terms and parts of speech of all the words.
  *
  * @since 1.7.0
  */
@@ -66,14 +70,24 @@ final public class Normalizer implements DocumentsProcessor {
 
     LabelIndex<ParseToken> parseTokenLabelIndex = document.labelIndex(ParseToken.class);
 
-    for (WordIndex wordIndex : wordIndexLabelIndex) {
-      PartOfSpeech partOfSpeech = posTagIndex
-          .firstAtLocation(wordIndex)
-          .getPartOfSpeech();
-      StringIdentifier wordTerm = wordIndex.getStringIdentifier();
+    List<WordIndex> wordIndexes = wordIndexLabelIndex.asList();
+    Iterator<TermString> normsAndTerms = null;
+    if (normalizerStore.batchesLookups()) {
+      List<TermPos> termPosList = new ArrayList<>(wordIndexes.size());
+      for (WordIndex wordIndex : wordIndexes) {
+        StringIdentifier wordTerm = wordIndex.getStringIdentifier();
+        if (!wordTerm.isUnknown()) {
+          termPosList.add(termPos(wordIndex, posTagIndex));
+        }
+      }
+      normsAndTerms = normalizerStore.getAll(termPosList).iterator();
+    }
+
+    for (WordIndex wordIndex : wordIndexes) {
       TermString normAndTerm = null;
-      if (!wordTerm.isUnknown()) {
-        normAndTerm = normalizerStore.get(new TermPos(wordTerm, partOfSpeech));
+      if (!wordIndex.getStringIdentifier().isUnknown()) {
+        normAndTerm = normsAndTerms != null ? normsAndTerms.next()
+            : normalizerStore.get(termPos(wordIndex, posTagIndex));
       }
       String norm;
       StringIdentifier normTerm;
@@ -91,6 +105,13 @@ final public class Normalizer implements DocumentsProcessor {
     }
   }
 
+  private static TermPos termPos(WordIndex wordIndex, LabelIndex<PosTag> posTagIndex) {
+    PartOfSpeech partOfSpeech = posTagIndex
+        .firstAtLocation(wordIndex)
+        .getPartOfSpeech();
+    return new TermPos(wordIndex.getStringIdentifier(), partOfSpeech);
+  }
+
   @Override
   public void done() {
 
@@ -18,6 +18,8 @@ package edu.umn.biomedicus.normalization;
 
 import com.google.inject.ProvidedBy;
 import edu.umn.biomedicus.framework.LifecycleManaged;
+import java.util.ArrayList;
+import java.util.List;
 import javax.annotation.Nullable;
 
 /**
@@ -34,4 +36,29 @@ public interface NormalizerModel extends LifecycleManaged {
    */
   @Nullable
   TermString get(TermPos termPos);
+
+  /**
+   * Returns whether {@link #getAll(List)} is cheaper than the same number of calls to
+   * {@link #get(TermPos)}.
+   *
+   * @return true if batches should be used
+   */
+  default boolean batchesLookups() {
+    return false;
+  }
+
+  /**
+   * Gets the term index identifier and string form for each of a batch of terms. Implementations
+   * backed by a database resolve the whole batch in one call.
+   *
+   * @param termPosList the terms and parts of speech
+   * @return the term and string for each, null where there is none
+   */
+  default List<TermString> getAll(List<TermPos> termPosList) {
+    List<TermString> results = new ArrayList<>(termPosList.size());
+    for (TermPos termPos : termPosList) {
+      results.add(get(termPos));
+    }
+    return results;
+  }
 }
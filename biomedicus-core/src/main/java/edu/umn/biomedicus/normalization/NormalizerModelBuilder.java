@@ -22,6 +22,7 @@ import edu.umn.biomedicus.common.dictionary.StringIdentifier;
 import edu.umn.biomedicus.common.types.syntax.PartOfSpeech;
 import edu.umn.biomedicus.exc.BiomedicusException;
 import edu.umn.biomedicus.framework.Bootstrapper;
+import edu.umn.biomedicus.framework.RocksDbResources;
 import edu.umn.biomedicus.vocabulary.Vocabulary;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -215,7 +216,7 @@ public final class NormalizerModelBuilder {
 
     System.out.println("Creating normalizer db from " + builder.size() + " terms");
 
-    try (Options options = new Options().setCreateIfMissing(true).prepareForBulkLoad()) {
+    try (Options options = RocksDbResources.bulkLoadOptions()) {
       try (RocksDB rocksDB = RocksDB.open(options, dbPath.toString())) {
         builder.forEach((tp, ts) -> {
           try {
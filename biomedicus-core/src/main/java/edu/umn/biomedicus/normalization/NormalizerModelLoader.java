@@ -21,7 +21,9 @@ import com.google.inject.Singleton;
 import edu.umn.biomedicus.annotations.Setting;
 import edu.umn.biomedicus.exc.BiomedicusException;
 import edu.umn.biomedicus.framework.DataLoader;
+import edu.umn.biomedicus.framework.RocksDbResources;
 import java.nio.file.Path;
+import org.rocksdb.RocksDBException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,18 +39,31 @@ public final class NormalizerModelLoader extends DataLoader<NormalizerModel> {
 
   private final boolean inMemory;
 
+  private final RocksDbResources rocksDbResources;
+
   @Inject
   NormalizerModelLoader(@Setting("normalization.db.asDataPath") Path dbPath,
-      @Setting("normalization.inMemory") boolean inMemory) {
+      @Setting("normalization.inMemory") boolean inMemory,
+      RocksDbResources rocksDbResources) {
     this.dbPath = dbPath;
     this.inMemory = inMemory;
+    this.rocksDbResources = rocksDbResources;
+  }
+
+  @Override
+  public int loadPriority() {
+    return inMemory ? 80 : 20;
   }
 
   @SuppressWarnings("unchecked")
   @Override
-  protected NormalizerModel loadModel() {
+  protected NormalizerModel loadModel() throws BiomedicusException {
     LOGGER.info("Loading normalization model: {}. inMemory = {}.", dbPath, inMemory);
 
-    return new RocksDBNormalizerModel(dbPath).inMemory(inMemory);
+    try {
+      return new RocksDBNormalizerModel(rocksDbResources.openReadOnly(dbPath)).inMemory(inMemory);
+    } catch (RocksDBException e) {
+      throw new BiomedicusException(e);
+    }
   }
 }
@@ -16,9 +16,12 @@
 
 package edu.umn.biomedicus.normalization;
 
+import edu.umn.biomedicus.common.dictionary.BloomFilter;
 import edu.umn.biomedicus.exc.BiomedicusException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 import org.rocksdb.InfoLogLevel;
@@ -34,6 +37,10 @@ public class RocksDBNormalizerModel implements NormalizerModel {
 
   private final RocksDB db;
 
+  RocksDBNormalizerModel(RocksDB db) {
+    this.db = db;
+  }
+
   RocksDBNormalizerModel(Path dbPath) {
     RocksDB.loadLibrary();
 
@@ -59,6 +66,28 @@ public class RocksDBNormalizerModel implements NormalizerModel {
     }
   }
 
+  @Override
+  public boolean batchesLookups() {
+    return true;
+  }
+
+  @Override
+  public List<TermString> getAll(List<TermPos> termPosList) {
+    List<byte[]> keys = new ArrayList<>(termPosList.size());
+    for (TermPos termPos : termPosList) {
+      keys.add(termPos.getBytes());
+    }
+    try {
+      List<TermString> results = new ArrayList<>(keys.size());
+      for (byte[] bytes : BloomFilter.multiGet(db, null, keys)) {
+        results.add(bytes == null ? null : new TermString(bytes));
+      }
+      return results;
+    } catch (RocksDBException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   @Override
   public void doShutdown() {
     db.close();
@@ -21,6 +21,7 @@ import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
 
 import edu.umn.biomedicus.acronym.AcronymExpansionsModel;
 import edu.umn.biomedicus.annotations.ComponentSetting;
+import edu.umn.biomedicus.annotations.SingleThreaded;
 import edu.umn.biomedicus.sentences.Sentence;
 import edu.umn.nlpengine.ArtifactsProcessor;
 import edu.umn.nlpengine.Artifact;
@@ -47,6 +48,7 @@ import javax.annotation.Nonnull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+@SingleThreaded
 public class ONLPSentenceTrainer implements ArtifactsProcessor {
   private static final Logger logger = LoggerFactory.getLogger(ONLPSentenceTrainer.class);
   private static final String POISON = ">poison<";
@@ -16,10 +16,10 @@
 
 package edu.umn.biomedicus.tnt;
 
-import com.google.inject.ImplementedBy;
+import com.google.inject.ProvidedBy;
 import java.nio.file.Path;
 
-@ImplementedBy(RocksDbDataStoreFactory.class)
+@ProvidedBy(DataStoreFactoryProvider.class)
 interface DataStoreFactory {
 
   void setDbPath(Path dbPath);
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.tnt;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import edu.umn.biomedicus.annotations.Setting;
+
+/**
+ * Provides the TnT data store factory for the "tnt.word.format" setting, either "rocksdb" or
+ * "mapped".
+ *
+ * @since 2.2.0
+ */
+@Singleton
+class DataStoreFactoryProvider implements Provider<DataStoreFactory> {
+
+  private final String format;
+
+  private final Provider<RocksDbDataStoreFactory> rocksDbDataStoreFactory;
+
+  private final Provider<MappedDataStoreFactory> mappedDataStoreFactory;
+
+  @Inject
+  DataStoreFactoryProvider(
+      @Setting("tnt.word.format") String format,
+      Provider<RocksDbDataStoreFactory> rocksDbDataStoreFactory,
+      Provider<MappedDataStoreFactory> mappedDataStoreFactory
+  ) {
+    this.format = format;
+    this.rocksDbDataStoreFactory = rocksDbDataStoreFactory;
+    this.mappedDataStoreFactory = mappedDataStoreFactory;
+  }
+
+  @Override
+  public DataStoreFactory get() {
+    switch (format) {
+      case "rocksdb":
+        return rocksDbDataStoreFactory.get();
+      case "mapped":
+        return mappedDataStoreFactory.get();
+      default:
+        throw new IllegalStateException("Unknown TnT word format: " + format);
+    }
+  }
+}
@@ -21,6 +21,7 @@ import edu.umn.biomedicus.common.tuples.WordCap;
 import edu.umn.biomedicus.common.tuples.WordPosCap;
 import edu.umn.biomedicus.common.types.syntax.PartOfSpeech;
 import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -62,6 +63,22 @@ public class KnownWordProbabilityModel implements WordProbabilityModel {
     }
   }
 
+  @Override
+  public double[] logProbabilitiesOfWord(List<PartOfSpeech> candidates, WordCap wordCap) {
+    String word = wordCapAdapter.apply(wordCap).getWord();
+    List<Pair<PartOfSpeech, String>> keys = new ArrayList<>(candidates.size());
+    for (PartOfSpeech candidate : candidates) {
+      keys.add(Pair.of(candidate, word));
+    }
+    List<Double> probabilities = knownWordsDataStore.getProbabilities(keys);
+    double[] logProbabilities = new double[candidates.size()];
+    for (int i = 0; i < logProbabilities.length; i++) {
+      Double prob = probabilities.get(i);
+      logProbabilities[i] = prob == null ? Double.NEGATIVE_INFINITY : prob;
+    }
+    return logProbabilities;
+  }
+
   @Override
   public Set<PartOfSpeech> getCandidates(WordCap wordCap) {
     WordCap adapted = wordCapAdapter.apply(wordCap);
@@ -18,6 +18,7 @@ package edu.umn.biomedicus.tnt;
 
 import edu.umn.biomedicus.common.tuples.Pair;
 import edu.umn.biomedicus.common.types.syntax.PartOfSpeech;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
@@ -27,6 +28,21 @@ public interface KnownWordsDataStore {
   @Nullable
   Double getProbability(String word, PartOfSpeech candidate);
 
+  /**
+   * Gets the probability of each part of speech and word pair. Implementations backed by a
+   * database resolve the whole batch in one call.
+   *
+   * @param keys the parts of speech and words
+   * @return the probability of each pair, null where there is none
+   */
+  default List<Double> getProbabilities(List<Pair<PartOfSpeech, String>> keys) {
+    List<Double> probabilities = new ArrayList<>(keys.size());
+    for (Pair<PartOfSpeech, String> key : keys) {
+      probabilities.add(getProbability(key.getSecond(), key.getFirst()));
+    }
+    return probabilities;
+  }
+
   List<PartOfSpeech> getCandidates(String word);
 
   boolean isKnown(String word);
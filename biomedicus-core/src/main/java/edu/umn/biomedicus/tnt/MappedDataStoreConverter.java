@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.tnt;
+
+import edu.umn.biomedicus.common.tuples.Pair;
+import edu.umn.biomedicus.common.types.syntax.PartOfSpeech;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+import org.kohsuke.args4j.spi.PathOptionHandler;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Converts the RocksDB TnT word model databases created by {@link RocksDbDataStoreFactory} into
+ * the memory-mapped tables read by {@link MappedDataStoreFactory}.
+ *
+ * @since 2.2.0
+ */
+public final class MappedDataStoreConverter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MappedDataStoreConverter.class);
+
+  private static final Pattern SUFFIXES = Pattern.compile("(\\d+)");
+
+  private static final Pattern WORDS = Pattern.compile("(\\d+)-words");
+
+  @Nullable
+  @Option(name = "-i", required = true, handler = PathOptionHandler.class,
+      usage = "path to the RocksDB TnT word databases, for example tnt/words")
+  private Path rocksDbPath;
+
+  @Nullable
+  @Argument(required = true, handler = PathOptionHandler.class,
+      usage = "output path for the mapped TnT word models")
+  private Path outputPath;
+
+  public static void main(String[] args) {
+    try {
+      new MappedDataStoreConverter().process(args);
+    } catch (IOException | RocksDBException e) {
+      e.printStackTrace();
+    }
+  }
+
+  public void process(String[] args) throws IOException, RocksDBException {
+    CmdLineParser parser = new CmdLineParser(this);
+
+    try {
+      parser.parseArgument(args);
+    } catch (CmdLineException e) {
+      System.err.println(e.getLocalizedMessage());
+      System.err.println("java edu.umn.biomedicus.tnt.MappedDataStoreConverter "
+          + "-i [path-to-rocksdb-words] [output-path]");
+      parser.printUsage(System.err);
+      return;
+    }
+
+    assert rocksDbPath != null && outputPath != null
+        : "should be non-null by this point based on required = true";
+
+    convert(rocksDbPath, outputPath);
+  }
+
+  /**
+   * Converts every suffix and known word database in {@code rocksDbPath}.
+   *
+   * @param rocksDbPath the folder containing the RocksDB databases
+   * @param outputPath the folder to write the mapped files to
+   */
+  public static void convert(Path rocksDbPath, Path outputPath)
+      throws IOException, RocksDBException {
+    RocksDB.loadLibrary();
+    Files.createDirectories(outputPath);
+    try (Stream<Path> databases = Files.list(rocksDbPath)) {
+      for (Path database : (Iterable<Path>) databases::iterator) {
+        String name = database.getFileName().toString();
+        Matcher suffixes = SUFFIXES.matcher(name);
+        if (suffixes.matches()) {
+          int id = Integer.parseInt(suffixes.group(1));
+          LOGGER.info("Converting TnT suffix model: {}", id);
+          convertSuffixes(database,
+              outputPath.resolve(MappedDataStoreFactory.getSuffixesName(id)));
+        }
+        Matcher words = WORDS.matcher(name);
+        if (words.matches()) {
+          int id = Integer.parseInt(words.group(1));
+          LOGGER.info("Converting TnT known word model: {}", id);
+          convertKnownWords(database, rocksDbPath.resolve(id + "-candidates"),
+              outputPath.resolve(MappedDataStoreFactory.getWordsName(id)));
+        }
+      }
+    }
+  }
+
+  private static void convertSuffixes(Path database, Path output)
+      throws IOException, RocksDBException {
+    Map<String, Map<PartOfSpeech, Double>> probabilities = new TreeMap<>();
+    try (RocksDB rocksDB = RocksDB.openReadOnly(database.toString());
+        RocksIterator iterator = rocksDB.newIterator()) {
+      iterator.seekToFirst();
+      while (iterator.isValid()) {
+        Pair<PartOfSpeech, String> posWord = RocksDbDataStoreFactory
+            .getPosWordFromBytes(iterator.key());
+        MappedDataStoreFactory.addProbability(probabilities, posWord.getSecond(),
+            posWord.getFirst(), ByteBuffer.wrap(iterator.value()).getDouble());
+        iterator.next();
+      }
+    }
+    MappedDataStoreFactory.write(output, probabilities);
+  }
+
+  private static void convertKnownWords(Path wordsDatabase, Path candidatesDatabase, Path output)
+      throws IOException, RocksDBException {
+    Map<String, Map<PartOfSpeech, Double>> probabilities = new TreeMap<>();
+    try (RocksDB words = RocksDB.openReadOnly(wordsDatabase.toString());
+        RocksDB candidates = RocksDB.openReadOnly(candidatesDatabase.toString());
+        RocksIterator iterator = candidates.newIterator()) {
+      iterator.seekToFirst();
+      while (iterator.isValid()) {
+        String word = new String(iterator.key(), StandardCharsets.UTF_8);
+        for (PartOfSpeech partOfSpeech : RocksDbDataStoreFactory
+            .getPartsOfSpeechFromBytes(iterator.value())) {
+          byte[] bytes = words.get(RocksDbDataStoreFactory.getPosWordBytes(partOfSpeech, word));
+          if (bytes != null) {
+            MappedDataStoreFactory.addProbability(probabilities, word, partOfSpeech,
+                ByteBuffer.wrap(bytes).getDouble());
+          }
+        }
+        iterator.next();
+      }
+    }
+    MappedDataStoreFactory.write(output, probabilities);
+  }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.tnt;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import edu.umn.biomedicus.annotations.Setting;
+import edu.umn.biomedicus.common.dictionary.MappedByteTable;
+import edu.umn.biomedicus.common.tuples.Pair;
+import edu.umn.biomedicus.common.types.syntax.PartOfSpeech;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Data store factory for TnT word models stored in read-only memory-mapped
+ * {@link MappedByteTable} tables. Opening a store only maps the files, so startup does not depend
+ * on the size of the model and the data is shared between processes through the page cache.
+ * <p>The keys of a table are the UTF-8 bytes of the words or suffixes, and each value is the
+ * ordinal byte and probability double of every part of speech of the key.</p>
+ * <p>Stores created by this factory keep their probabilities in memory until they are written.
+ * Existing RocksDB stores can be converted using {@link MappedDataStoreConverter}.</p>
+ *
+ * @since 2.2.0
+ */
+@Singleton
+class MappedDataStoreFactory implements DataStoreFactory {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MappedDataStoreFactory.class);
+
+  private static final int ENTRY_BYTES = 9;
+
+  private static final PartOfSpeech[] PARTS_OF_SPEECH = PartOfSpeech.values();
+
+  private Path dbPath;
+
+  @Inject
+  MappedDataStoreFactory(@Setting("tnt.word.mapped.asDataPath") Path dbPath) {
+    this.dbPath = dbPath;
+  }
+
+  static String getSuffixesName(int id) {
+    return id + "-suffixes.tnt";
+  }
+
+  static String getWordsName(int id) {
+    return id + "-words.tnt";
+  }
+
+  @Override
+  public void setDbPath(Path dbPath) {
+    this.dbPath = dbPath;
+  }
+
+  private MappedByteTable openTable(String name) {
+    try {
+      return MappedByteTable.open(dbPath.resolve(name));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public SuffixDataStore openSuffixDataStore(int id) {
+    LOGGER.info("Mapping TnT suffix model: {}", id);
+    return new MappedSuffixDataStore(openTable(getSuffixesName(id)), null);
+  }
+
+  @Override
+  public KnownWordsDataStore openKnownWordDataStore(int id) {
+    LOGGER.info("Mapping TnT known word model: {}", id);
+    return new MappedKnownWordsDataStore(openTable(getWordsName(id)), null);
+  }
+
+  @Override
+  public KnownWordsDataStore createKnownWordsDataStore(int id) {
+    return new MappedKnownWordsDataStore(null, dbPath.resolve(getWordsName(id)));
+  }
+
+  @Override
+  public SuffixDataStore createSuffixDataStore(int id) {
+    return new MappedSuffixDataStore(null, dbPath.resolve(getSuffixesName(id)));
+  }
+
+  /**
+   * Adds a probability to a map being prepared for writing.
+   */
+  static void addProbability(Map<String, Map<PartOfSpeech, Double>> probabilities, String key,
+      PartOfSpeech partOfSpeech, double probability) {
+    probabilities.computeIfAbsent(key, k -> new LinkedHashMap<>()).put(partOfSpeech, probability);
+  }
+
+  /**
+   * Writes a table to {@code directory}. The parts of speech of each key are stored in the
+   * iteration order of its map, and are returned in that order as the candidates of a word.
+   *
+   * @param directory the directory to write the table to
+   * @param probabilities the map from keys to the probability of each part of speech
+   * @throws IOException if the table cannot be written
+   */
+  static void write(Path directory,
+      Map<String, ? extends Map<PartOfSpeech, Double>> probabilities) throws IOException {
+    List<byte[]> keys = new ArrayList<>(probabilities.size());
+    for (String key : probabilities.keySet()) {
+      keys.add(key.getBytes(StandardCharsets.UTF_8));
+    }
+    keys.sort(MappedByteTable::compare);
+
+    try (MappedByteTable.Writer writer = MappedByteTable.create(directory)) {
+      for (byte[] key : keys) {
+        Map<PartOfSpeech, Double> value = probabilities
+            .get(new String(key, StandardCharsets.UTF_8));
+        ByteBuffer bytes = ByteBuffer.allocate(ENTRY_BYTES * value.size());
+        for (Entry<PartOfSpeech, Double> entry : value.entrySet()) {
+          bytes.put((byte) entry.getKey().ordinal()).putDouble(entry.getValue());
+        }
+        writer.put(key, bytes.array());
+      }
+    }
+  }
+
+  /**
+   * Either reads from a mapped table, or collects probabilities to write to {@code outputPath}.
+   */
+  private static class MappedStore {
+
+    @Nullable
+    final MappedByteTable table;
+
+    @Nullable
+    final Path outputPath;
+
+    final Map<String, Map<PartOfSpeech, Double>> pending = new TreeMap<>();
+
+    MappedStore(@Nullable MappedByteTable table, @Nullable Path outputPath) {
+      this.table = table;
+      this.outputPath = outputPath;
+    }
+
+    @Nullable
+    Double probability(String key, PartOfSpeech partOfSpeech) {
+      if (table != null) {
+        ByteBuffer value = table.get(key.getBytes(StandardCharsets.UTF_8));
+        if (value == null) {
+          return null;
+        }
+        for (int entry = 0; entry < value.limit(); entry += ENTRY_BYTES) {
+          if (value.get(entry) == partOfSpeech.ordinal()) {
+            return value.getDouble(entry + 1);
+          }
+        }
+        return null;
+      }
+      Map<PartOfSpeech, Double> probabilities = pending.get(key);
+      return probabilities == null ? null : probabilities.get(partOfSpeech);
+    }
+
+    void addAll(Map<Pair<PartOfSpeech, String>, Double> probabilities) {
+      if (outputPath == null) {
+        throw new UnsupportedOperationException("Mapped data stores are read-only");
+      }
+      for (Entry<Pair<PartOfSpeech, String>, Double> entry : probabilities.entrySet()) {
+        addProbability(pending, entry.getKey().getSecond(), entry.getKey().getFirst(),
+            entry.getValue());
+      }
+    }
+
+    public void write() {
+      if (outputPath != null) {
+        try {
+          MappedDataStoreFactory.write(outputPath, pending);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+    }
+  }
+
+  private static class MappedSuffixDataStore extends MappedStore implements SuffixDataStore {
+
+    MappedSuffixDataStore(@Nullable MappedByteTable table, @Nullable Path outputPath) {
+      super(table, outputPath);
+    }
+
+    @Nullable
+    @Override
+    public Double getProbability(String suffix, PartOfSpeech candidate) {
+      return probability(suffix, candidate);
+    }
+
+    @Override
+    public void addAllProbabilities(TreeMap<Pair<PartOfSpeech, String>, Double> probabilities) {
+      addAll(probabilities);
+    }
+  }
+
+  private static class MappedKnownWordsDataStore extends MappedStore implements
+      KnownWordsDataStore {
+
+    MappedKnownWordsDataStore(@Nullable MappedByteTable table, @Nullable Path outputPath) {
+      super(table, outputPath);
+    }
+
+    @Nullable
+    @Override
+    public Double getProbability(String word, PartOfSpeech candidate) {
+      return probability(word, candidate);
+    }
+
+    @Override
+    public List<PartOfSpeech> getCandidates(String word) {
+      if (table != null) {
+        ByteBuffer value = table.get(word.getBytes(StandardCharsets.UTF_8));
+        if (value == null) {
+          return Collections.emptyList();
+        }
+        List<PartOfSpeech> candidates = new ArrayList<>(value.limit() / ENTRY_BYTES);
+        for (int entry = 0; entry < value.limit(); entry += ENTRY_BYTES) {
+          candidates.add(PARTS_OF_SPEECH[value.get(entry)]);
+        }
+        return candidates;
+      }
+      Map<PartOfSpeech, Double> probabilities = pending.get(word);
+      return probabilities == null ? Collections.emptyList()
+          : new ArrayList<>(probabilities.keySet());
+    }
+
+    @Override
+    public boolean isKnown(String word) {
+      return table != null ? table.contains(word.getBytes(StandardCharsets.UTF_8))
+          : pending.containsKey(word);
+    }
+
+    @Override
+    public void addAllProbabilities(Map<Pair<PartOfSpeech, String>, Double> lexicalProbabilities) {
+      addAll(lexicalProbabilities);
+    }
+  }
+}
@@ -20,6 +20,7 @@ import edu.umn.biomedicus.common.tuples.PosCap;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.TreeMap;
+import javax.annotation.Nullable;
 
 /**
  * Statistical model determining the probability of a trigram of part of speech tags. It is a
@@ -70,6 +71,14 @@ class PosCapTrigramModel {
    */
   private final double trigramLambda;
 
+  /**
+   * The log base 10 of the interpolated trigram probability for every ordinal triple, indexed by
+   * {@code (first * cardinality + second) * cardinality + third}, or null if it has not been
+   * precomputed.
+   */
+  @Nullable
+  private double[] trigramLogProbabilities;
+
   /**
    * Default constructor. Creates the model with the given probability maps.
    *
@@ -142,15 +151,64 @@ class PosCapTrigramModel {
    * @return a double precision probability between 0.0 and 1.0
    */
   public double getTrigramProbability(PosCap first, PosCap second, PosCap third) {
-    double unigramProbability = unigramProbabilities[third.ordinal()];
-    double bigramProbability = bigramProbabilities[second.ordinal()][third.ordinal()];
-    double trigramProbability = trigramProbabilities[first.ordinal()][second.ordinal()][third
-        .ordinal()];
+    return getTrigramProbability(first.ordinal(), second.ordinal(), third.ordinal());
+  }
+
+  /**
+   * Returns the probability that a pos-capitalization will occur given the two previous
+   * pos-capitalizations, all identified by their {@link PosCap#ordinal()}.
+   *
+   * @param first the ordinal of the first pos-capitalization
+   * @param second the ordinal of the second pos-capitalization
+   * @param third the ordinal of the pos-capitalization whose probability is returned
+   * @return a double precision probability between 0.0 and 1.0
+   */
+  public double getTrigramProbability(int first, int second, int third) {
+    double unigramProbability = unigramProbabilities[third];
+    double bigramProbability = bigramProbabilities[second][third];
+    double trigramProbability = trigramProbabilities[first][second][third];
 
     return unigramLambda * unigramProbability + bigramLambda * bigramProbability
         + trigramLambda * trigramProbability;
   }
 
+  /**
+   * Returns the log base 10 of {@link #getTrigramProbability(int, int, int)}, reading it from the
+   * precomputed table if {@link #precomputeLogProbabilities()} has been called.
+   *
+   * @param first the ordinal of the first pos-capitalization
+   * @param second the ordinal of the second pos-capitalization
+   * @param third the ordinal of the pos-capitalization whose probability is returned
+   * @return log base 10 probability
+   */
+  public double getTrigramLogProbability(int first, int second, int third) {
+    double[] table = trigramLogProbabilities;
+    if (table != null) {
+      int cardinality = unigramProbabilities.length;
+      return table[(first * cardinality + second) * cardinality + third];
+    }
+    return Math.log10(getTrigramProbability(first, second, third));
+  }
+
+  /**
+   * Computes the interpolated log probability of every trigram in advance, so that
+   * {@link #getTrigramLogProbability(int, int, int)} is a single array read. Uses
+   * 8 * cardinality<sup>3</sup> bytes of memory.
+   */
+  public void precomputeLogProbabilities() {
+    int cardinality = unigramProbabilities.length;
+    double[] table = new double[cardinality * cardinality * cardinality];
+    int index = 0;
+    for (int first = 0; first < cardinality; first++) {
+      for (int second = 0; second < cardinality; second++) {
+        for (int third = 0; third < cardinality; third++) {
+          table[index++] = Math.log10(getTrigramProbability(first, second, third));
+        }
+      }
+    }
+    trigramLogProbabilities = table;
+  }
+
   public Map<String, Object> createStore() {
     Map<String, Object> store = new TreeMap<>();
     store.put("unigramLambda", unigramLambda);
@@ -19,10 +19,13 @@ package edu.umn.biomedicus.tnt;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import edu.umn.biomedicus.annotations.Setting;
+import edu.umn.biomedicus.common.dictionary.BloomFilter;
+import edu.umn.biomedicus.common.dictionary.RocksDbCodec;
 import edu.umn.biomedicus.common.tuples.Pair;
 import edu.umn.biomedicus.common.types.syntax.PartOfSpeech;
 import edu.umn.biomedicus.exc.BiomedicusException;
 import edu.umn.biomedicus.framework.LifecycleManaged;
+import edu.umn.biomedicus.framework.RocksDbResources;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
@@ -50,17 +53,29 @@ class RocksDbDataStoreFactory implements DataStoreFactory, LifecycleManaged {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(RocksDbDataStoreFactory.class);
 
+  private static final PartOfSpeech[] PARTS_OF_SPEECH = PartOfSpeech.values();
+
   private final Collection<RocksDB> rocksDBS = new ArrayList<>();
 
+  private final Collection<BloomFilter> filters = new ArrayList<>();
+
   private final boolean inMemory;
 
+  private final double bloomFilterRate;
+
+  private final RocksDbResources rocksDbResources;
+
   private Path dbPath;
 
   @Inject
   public RocksDbDataStoreFactory(@Setting("tnt.word.db.asDataPath") Path dbPath,
-      @Setting("tnt.word.inMemory") boolean inMemory) {
+      @Setting("tnt.word.inMemory") boolean inMemory,
+      @Setting("tnt.word.bloomFilter") double bloomFilterRate,
+      RocksDbResources rocksDbResources) {
     this.dbPath = dbPath;
     this.inMemory = inMemory;
+    this.bloomFilterRate = bloomFilterRate;
+    this.rocksDbResources = rocksDbResources;
   }
 
   @Override
@@ -72,10 +87,9 @@ class RocksDbDataStoreFactory implements DataStoreFactory, LifecycleManaged {
 
   @Override
   public SuffixDataStore openSuffixDataStore(int id) {
-    RocksDB.loadLibrary();
     try {
       LOGGER.info("Opening TnT suffix model: {}", id);
-      RocksDB rocksDB = RocksDB.openReadOnly(dbPath.resolve(getSuffixesName(id)).toString());
+      RocksDB rocksDB = rocksDbResources.openReadOnly(dbPath.resolve(getSuffixesName(id)));
       RocksDbSuffixDataStore rocksDbSuffixDataStore = new RocksDbSuffixDataStore(rocksDB);
       if (inMemory) {
         LOGGER.info("Loading TnT suffix model into memory: {}", id);
@@ -97,8 +111,7 @@ class RocksDbDataStoreFactory implements DataStoreFactory, LifecycleManaged {
 
   @Override
   public SuffixDataStore createSuffixDataStore(int id) {
-    RocksDB.loadLibrary();
-    try (Options options = new Options().setCreateIfMissing(true).prepareForBulkLoad()) {
+    try (Options options = RocksDbResources.bulkLoadOptions()) {
       Files.createDirectories(dbPath);
       RocksDB rocksDB = RocksDB.open(options, dbPath.resolve(getSuffixesName(id)).toString());
       rocksDBS.add(rocksDB);
@@ -119,15 +132,15 @@ class RocksDbDataStoreFactory implements DataStoreFactory, LifecycleManaged {
 
   @Override
   public KnownWordsDataStore openKnownWordDataStore(int id) {
-    RocksDB.loadLibrary();
     try {
       LOGGER.info("Opening TnT model known word model: {}", id);
-      RocksDB rocksDB = RocksDB.openReadOnly(dbPath.resolve(getWordsName(id)).toString());
-      RocksDB candidatesDB = RocksDB.openReadOnly(dbPath.resolve(getCandidatesName(id)).toString());
+      RocksDB rocksDB = rocksDbResources.openReadOnly(dbPath.resolve(getWordsName(id)));
+      RocksDB candidatesDB = rocksDbResources.openReadOnly(
+          dbPath.resolve(getCandidatesName(id)));
 
-      RocksDbKnownWordsDataStore rocksDbKnownWordsDataStore = new RocksDbKnownWordsDataStore(
-          rocksDB, candidatesDB);
       if (inMemory) {
+        RocksDbKnownWordsDataStore rocksDbKnownWordsDataStore = new RocksDbKnownWordsDataStore(
+            rocksDB, candidatesDB, null);
         LOGGER.info("Loading TnT known word model into memory: {}", id);
         InMemoryKnownWordDataStore inMemoryKnownWordDataStore = rocksDbKnownWordsDataStore
             .inMemory();
@@ -136,9 +149,14 @@ class RocksDbDataStoreFactory implements DataStoreFactory, LifecycleManaged {
         candidatesDB.close();
         return inMemoryKnownWordDataStore;
       }
+      BloomFilter candidatesFilter = BloomFilter.forKeys("TnT known words " + id, candidatesDB,
+          bloomFilterRate);
+      if (candidatesFilter != null) {
+        filters.add(candidatesFilter);
+      }
       rocksDBS.add(rocksDB);
       rocksDBS.add(candidatesDB);
-      return rocksDbKnownWordsDataStore;
+      return new RocksDbKnownWordsDataStore(rocksDB, candidatesDB, candidatesFilter);
     } catch (RocksDBException e) {
       throw new RuntimeException(e);
     }
@@ -146,15 +164,14 @@ class RocksDbDataStoreFactory implements DataStoreFactory, LifecycleManaged {
 
   @Override
   public KnownWordsDataStore createKnownWordsDataStore(int id) {
-    RocksDB.loadLibrary();
-    try (Options options = new Options().setCreateIfMissing(true).prepareForBulkLoad()) {
+    try (Options options = RocksDbResources.bulkLoadOptions()) {
       Files.createDirectories(dbPath);
       RocksDB rocksDB = RocksDB.open(options, dbPath.resolve(getWordsName(id)).toString());
       rocksDBS.add(rocksDB);
       RocksDB candidatesDB = RocksDB.open(options, dbPath.resolve(getCandidatesName(id)).toString());
       rocksDBS.add(candidatesDB);
 
-      return new RocksDbKnownWordsDataStore(rocksDB, candidatesDB);
+      return new RocksDbKnownWordsDataStore(rocksDB, candidatesDB, null);
     } catch (RocksDBException | IOException e) {
       throw new RuntimeException(e);
     }
@@ -162,6 +179,9 @@ class RocksDbDataStoreFactory implements DataStoreFactory, LifecycleManaged {
 
   @Override
   public void doShutdown() {
+    for (BloomFilter filter : filters) {
+      LOGGER.info("{}", filter);
+    }
     for (RocksDB rocksDB : rocksDBS) {
       rocksDB.close();
     }
@@ -259,14 +279,18 @@ class RocksDbDataStoreFactory implements DataStoreFactory, LifecycleManaged {
     @Nullable
     @Override
     public Double getProbability(String suffix, PartOfSpeech candidate) {
-      try {
-        byte[] bytes = probabilitiesDB.get(getPosWordBytes(candidate, suffix));
-        return bytes == null ? null : ByteBuffer.wrap(bytes).getDouble();
-      } catch (RocksDBException e) {
-        throw new RuntimeException(e);
-      }
+      return RocksDbDataStoreFactory.getProbability(probabilitiesDB, candidate, suffix);
     }
 
+    @Override
+    public boolean batchesLookups() {
+      return true;
+    }
+
+    @Override
+    public List<Double> getProbabilities(List<Pair<PartOfSpeech, String>> keys) {
+      return multiGetProbabilities(probabilitiesDB, keys);
+    }
 
     @Override
     public void addAllProbabilities(TreeMap<Pair<PartOfSpeech, String>, Double> probabilities) {
@@ -311,38 +335,50 @@ class RocksDbDataStoreFactory implements DataStoreFactory, LifecycleManaged {
 
     private final RocksDB candidatesDB;
 
+    @Nullable
+    private final BloomFilter candidatesFilter;
 
-    public RocksDbKnownWordsDataStore(RocksDB probabilitiesDB, RocksDB candidatesDB) {
+    public RocksDbKnownWordsDataStore(RocksDB probabilitiesDB, RocksDB candidatesDB,
+        @Nullable BloomFilter candidatesFilter) {
       this.probabilitiesDB = probabilitiesDB;
       this.candidatesDB = candidatesDB;
+      this.candidatesFilter = candidatesFilter;
     }
 
     @Nullable
     @Override
     public Double getProbability(String word, PartOfSpeech candidate) {
-      byte[] posWordBytes = getPosWordBytes(candidate, word);
-      try {
-        byte[] bytes = probabilitiesDB.get(posWordBytes);
-        return bytes == null ? null : ByteBuffer.wrap(bytes).getDouble();
-      } catch (RocksDBException e) {
-        throw new RuntimeException(e);
-      }
+      return RocksDbDataStoreFactory.getProbability(probabilitiesDB, candidate, word);
+    }
+
+    @Override
+    public List<Double> getProbabilities(List<Pair<PartOfSpeech, String>> keys) {
+      return multiGetProbabilities(probabilitiesDB, keys);
     }
 
     @Override
     public List<PartOfSpeech> getCandidates(String word) {
+      RocksDbCodec codec = RocksDbCodec.local();
       try {
-        return getPartsOfSpeechFromBytes(
-            candidatesDB.get(word.getBytes(StandardCharsets.UTF_8)));
+        if (!codec.get(candidatesDB, candidatesFilter, codec.utf8Key(word))) {
+          return Collections.emptyList();
+        }
       } catch (RocksDBException e) {
         throw new RuntimeException(e);
       }
+      int size = codec.valueLength() / 4;
+      List<PartOfSpeech> partsOfSpeech = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        partsOfSpeech.add(PARTS_OF_SPEECH[codec.valueInt(4 * i)]);
+      }
+      return partsOfSpeech;
     }
 
     @Override
     public boolean isKnown(String word) {
+      RocksDbCodec codec = RocksDbCodec.local();
       try {
-        return candidatesDB.get(word.getBytes(StandardCharsets.UTF_8)) != null;
+        return codec.get(candidatesDB, candidatesFilter, codec.utf8Key(word));
       } catch (RocksDBException e) {
         throw new RuntimeException(e);
       }
@@ -406,10 +442,24 @@ class RocksDbDataStoreFactory implements DataStoreFactory, LifecycleManaged {
     }
   }
 
+  @Nullable
+  private static Double getProbability(RocksDB probabilitiesDB, PartOfSpeech candidate,
+      String word) {
+    RocksDbCodec codec = RocksDbCodec.local();
+    try {
+      if (codec.get(probabilitiesDB, null, codec.intUtf8Key(candidate.ordinal(), word))) {
+        return codec.valueDouble();
+      }
+      return null;
+    } catch (RocksDBException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   static byte[] getPosWordBytes(PartOfSpeech candidate, String word) {
     byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
     ByteBuffer byteBuffer = ByteBuffer.allocate(bytes.length + 4);
-    byteBuffer.putInt(candidate.ordinal()).put(word.getBytes(StandardCharsets.UTF_8));
+    byteBuffer.putInt(candidate.ordinal()).put(bytes);
     return byteBuffer.array();
   }
 
@@ -418,7 +468,7 @@ class RocksDbDataStoreFactory implements DataStoreFactory, LifecycleManaged {
       return null;
     }
     ByteBuffer wrap = ByteBuffer.wrap(bytes);
-    PartOfSpeech partOfSpeech = PartOfSpeech.values()[wrap.getInt()];
+    PartOfSpeech partOfSpeech = PARTS_OF_SPEECH[wrap.getInt()];
     byte[] stringBytes = new byte[wrap.remaining()];
     wrap.get(stringBytes);
     String s = new String(stringBytes, StandardCharsets.UTF_8);
@@ -433,6 +483,23 @@ class RocksDbDataStoreFactory implements DataStoreFactory, LifecycleManaged {
     return byteBuffer.array();
   }
 
+  private static List<Double> multiGetProbabilities(RocksDB probabilitiesDB,
+      List<Pair<PartOfSpeech, String>> keys) {
+    List<byte[]> keyBytes = new ArrayList<>(keys.size());
+    for (Pair<PartOfSpeech, String> key : keys) {
+      keyBytes.add(getPosWordBytes(key.getFirst(), key.getSecond()));
+    }
+    try {
+      List<Double> probabilities = new ArrayList<>(keys.size());
+      for (byte[] bytes : BloomFilter.multiGet(probabilitiesDB, null, keyBytes)) {
+        probabilities.add(bytes == null ? null : ByteBuffer.wrap(bytes).getDouble());
+      }
+      return probabilities;
+    } catch (RocksDBException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   static List<PartOfSpeech> getPartsOfSpeechFromBytes(@Nullable byte[] bytes) {
     if (bytes == null) {
       return Collections.emptyList();
@@ -442,7 +509,7 @@ class RocksDbDataStoreFactory implements DataStoreFactory, LifecycleManaged {
     List<PartOfSpeech> partsOfSpeech = new ArrayList<>(size);
     ByteBuffer wrap = ByteBuffer.wrap(bytes);
     while (wrap.hasRemaining()) {
-      PartOfSpeech partOfSpeech = PartOfSpeech.values()[wrap.getInt()];
+      PartOfSpeech partOfSpeech = PARTS_OF_SPEECH[wrap.getInt()];
       partsOfSpeech.add(partOfSpeech);
     }
     return partsOfSpeech;
@@ -18,6 +18,8 @@ package edu.umn.biomedicus.tnt;
 
 import edu.umn.biomedicus.common.tuples.Pair;
 import edu.umn.biomedicus.common.types.syntax.PartOfSpeech;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.TreeMap;
 import javax.annotation.Nullable;
 
@@ -26,6 +28,31 @@ interface SuffixDataStore {
   @Nullable
   Double getProbability(String suffix, PartOfSpeech candidate);
 
+  /**
+   * Returns whether {@link #getProbabilities(List)} is cheaper than the same number of calls to
+   * {@link #getProbability(String, PartOfSpeech)}.
+   *
+   * @return true if batches should be used
+   */
+  default boolean batchesLookups() {
+    return false;
+  }
+
+  /**
+   * Gets the probability of each part of speech and suffix pair. Implementations backed by a
+   * database resolve the whole batch in one call.
+   *
+   * @param keys the parts of speech and suffixs
+   * @return the probability of each pair, null where there is none
+   */
+  default List<Double> getProbabilities(List<Pair<PartOfSpeech, String>> keys) {
+    List<Double> probabilities = new ArrayList<>(keys.size());
+    for (Pair<PartOfSpeech, String> key : keys) {
+      probabilities.add(getProbability(key.getSecond(), key.getFirst()));
+    }
+    return probabilities;
+  }
+
   void addAllProbabilities(TreeMap<Pair<PartOfSpeech, String>, Double> probabilities);
 
   void write();
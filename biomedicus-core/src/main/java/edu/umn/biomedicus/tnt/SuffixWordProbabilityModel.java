@@ -21,6 +21,8 @@ import edu.umn.biomedicus.common.tuples.WordCap;
 import edu.umn.biomedicus.common.types.syntax.PartOfSpeech;
 import edu.umn.biomedicus.common.types.syntax.PartsOfSpeech;
 import edu.umn.biomedicus.common.utilities.Strings;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -63,6 +65,42 @@ public class SuffixWordProbabilityModel implements WordProbabilityModel {
         .orElse(Double.NEGATIVE_INFINITY);
   }
 
+  /**
+   * For stores which batch lookups, looks up every suffix of the word for every candidate in one
+   * batch, then uses the probability of the longest suffix found for each candidate. Other stores
+   * are queried one suffix at a time, stopping at the longest suffix found.
+   */
+  @Override
+  public double[] logProbabilitiesOfWord(List<PartOfSpeech> candidates, WordCap wordCap) {
+    if (!suffixDataStore.batchesLookups()) {
+      return WordProbabilityModel.super.logProbabilitiesOfWord(candidates, wordCap);
+    }
+    WordCap adapted = wordCapAdapter.apply(wordCap);
+    List<String> suffixes = Strings.generateSuffixes(adapted.getWord(), maxSuffixLength)
+        .collect(Collectors.toList());
+    List<Pair<PartOfSpeech, String>> keys = new ArrayList<>(
+        candidates.size() * suffixes.size());
+    for (PartOfSpeech candidate : candidates) {
+      for (String suffix : suffixes) {
+        keys.add(Pair.of(candidate, suffix));
+      }
+    }
+    List<Double> probabilities = suffixDataStore.getProbabilities(keys);
+
+    double[] logProbabilities = new double[candidates.size()];
+    Arrays.fill(logProbabilities, Double.NEGATIVE_INFINITY);
+    for (int i = 0; i < logProbabilities.length; i++) {
+      for (int j = 0; j < suffixes.size(); j++) {
+        Double probability = probabilities.get(i * suffixes.size() + j);
+        if (probability != null) {
+          logProbabilities[i] = probability;
+          break;
+        }
+      }
+    }
+    return logProbabilities;
+  }
+
   @Override
   public Set<PartOfSpeech> getCandidates(WordCap wordCap) {
     return PARTS_OF_SPEECH;
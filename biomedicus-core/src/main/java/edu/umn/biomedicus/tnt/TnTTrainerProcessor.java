@@ -18,6 +18,7 @@ package edu.umn.biomedicus.tnt;
 
 import com.google.inject.Inject;
 import edu.umn.biomedicus.annotations.ComponentSetting;
+import edu.umn.biomedicus.annotations.SingleThreaded;
 import edu.umn.biomedicus.sentences.Sentence;
 import edu.umn.biomedicus.tagging.PosTag;
 import edu.umn.biomedicus.tokenization.ParseToken;
@@ -36,6 +37,7 @@ import javax.annotation.Nonnull;
  * @author Ben Knoll
  * @since 1.7.0
  */
+@SingleThreaded
 public class TnTTrainerProcessor implements ArtifactsProcessor {
 
   private final String viewName;
@@ -16,11 +16,15 @@
 
 package edu.umn.biomedicus.tnt;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.inject.ProvidedBy;
 import edu.umn.biomedicus.annotations.Setting;
 import edu.umn.biomedicus.common.grams.Bigram;
 import edu.umn.biomedicus.common.tuples.PosCap;
 import edu.umn.biomedicus.common.tuples.WordCap;
+import edu.umn.biomedicus.common.types.syntax.PartOfSpeech;
 import edu.umn.biomedicus.common.viterbi.CandidateProbability;
 import edu.umn.biomedicus.common.viterbi.EmissionProbabilityModel;
 import edu.umn.biomedicus.common.viterbi.TransitionProbabilityModel;
@@ -31,10 +35,13 @@ import edu.umn.biomedicus.serialization.YamlSerialization;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import org.slf4j.Logger;
@@ -62,10 +69,39 @@ public class TntModel implements EmissionProbabilityModel<PosCap, WordCap>,
    */
   private final List<WordProbabilityModel> wordModels;
 
+  /**
+   * Cache of the emission candidates and log probabilities for each word, or null if caching is
+   * disabled.
+   */
+  @Nullable
+  private final Cache<WordCap, List<CandidateProbability<PosCap>>> emissionCache;
+
   TntModel(PosCapTrigramModel posCapTrigramModel,
       List<WordProbabilityModel> wordModels) {
+    this(posCapTrigramModel, wordModels, 0);
+  }
+
+  /**
+   * Creates a TnT model which caches the emission candidates of up to {@code emissionCacheSize}
+   * words, evicting the least recently used words once the cache is full.
+   *
+   * @param posCapTrigramModel trigram model used for transition probability
+   * @param wordModels word probability models used for emission probability
+   * @param emissionCacheSize the maximum number of words to cache, 0 to disable caching
+   */
+  TntModel(PosCapTrigramModel posCapTrigramModel,
+      List<WordProbabilityModel> wordModels,
+      int emissionCacheSize) {
     this.posCapTrigramModel = posCapTrigramModel;
     this.wordModels = wordModels;
+    if (emissionCacheSize > 0) {
+      emissionCache = CacheBuilder.newBuilder()
+          .maximumSize(emissionCacheSize)
+          .recordStats()
+          .build();
+    } else {
+      emissionCache = null;
+    }
   }
 
   public void write(Path folder) throws IOException {
@@ -100,23 +136,60 @@ public class TntModel implements EmissionProbabilityModel<PosCap, WordCap>,
 
   @Override
   public Collection<CandidateProbability<PosCap>> getCandidates(WordCap emittedValue) {
+    if (emissionCache == null) {
+      return computeCandidates(emittedValue);
+    }
+    try {
+      return emissionCache.get(emittedValue, () -> computeCandidates(emittedValue));
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Returns the hit and miss statistics of the emission cache, or null if caching is disabled.
+   *
+   * @return cache statistics
+   */
+  @Nullable
+  public CacheStats getEmissionCacheStats() {
+    return emissionCache == null ? null : emissionCache.stats();
+  }
+
+  private List<CandidateProbability<PosCap>> computeCandidates(WordCap emittedValue) {
     WordProbabilityModel filteredAdaptedWordProbability = getWordProbabilityModel(emittedValue);
 
-    return filteredAdaptedWordProbability.getCandidates(emittedValue)
-        .stream()
-        .map(candidate -> {
-          double emissionLogProbability = filteredAdaptedWordProbability
-              .logProbabilityOfWord(candidate, emittedValue);
-          PosCap candidatePosCap = PosCap.create(candidate, emittedValue.isCapitalized());
-          return Viterbi.candidateOf(candidatePosCap, emissionLogProbability);
-        })
-        .collect(Collectors.toList());
+    List<PartOfSpeech> candidates = new ArrayList<>(
+        filteredAdaptedWordProbability.getCandidates(emittedValue));
+    double[] emissionLogProbabilities = filteredAdaptedWordProbability
+        .logProbabilitiesOfWord(candidates, emittedValue);
+    List<CandidateProbability<PosCap>> candidateProbabilities = new ArrayList<>(
+        candidates.size());
+    for (int i = 0; i < candidates.size(); i++) {
+      PosCap candidatePosCap = PosCap.create(candidates.get(i), emittedValue.isCapitalized());
+      candidateProbabilities.add(Viterbi.candidateOf(candidatePosCap,
+          emissionLogProbabilities[i]));
+    }
+    return Collections.unmodifiableList(candidateProbabilities);
   }
 
   @Override
   public double getTransitionLogProbability(Bigram<PosCap> statesReduction, PosCap candidate) {
-    return Math.log10(posCapTrigramModel.getTrigramProbability(statesReduction.getFirst(),
-        statesReduction.getSecond(), candidate));
+    return posCapTrigramModel.getTrigramLogProbability(statesReduction.getFirst().ordinal(),
+        statesReduction.getSecond().ordinal(), candidate.ordinal());
+  }
+
+  /**
+   * The log base 10 transition probability with the states identified by their
+   * {@link PosCap#ordinal()}. Used by {@link TntViterbi}.
+   *
+   * @param first the ordinal of the state two before the candidate
+   * @param second the ordinal of the state before the candidate
+   * @param candidate the ordinal of the candidate state
+   * @return log base 10 probability
+   */
+  double getTransitionLogProbability(int first, int second, int candidate) {
+    return posCapTrigramModel.getTrigramLogProbability(first, second, candidate);
   }
 
   /**
@@ -127,6 +200,8 @@ public class TntModel implements EmissionProbabilityModel<PosCap, WordCap>,
 
     private final Path trigram;
     private final Path wordMetadata;
+    private final boolean precomputeTrigramLog;
+    private final int emissionCacheSize;
     private final DataStoreFactory dataStoreFactory;
 
     @Inject
@@ -134,13 +209,22 @@ public class TntModel implements EmissionProbabilityModel<PosCap, WordCap>,
         @Setting("tnt.trigram.asDataPath") Path trigram,
         @Setting("tnt.word.metadata.asDataPath"
         ) Path wordMetadata,
+        @Setting("tnt.trigram.precomputeLog") Boolean precomputeTrigramLog,
+        @Setting("tnt.emissionCache.size") Integer emissionCacheSize,
         DataStoreFactory dataStoreFactory
     ) {
       this.trigram = trigram;
       this.wordMetadata = wordMetadata;
+      this.precomputeTrigramLog = precomputeTrigramLog;
+      this.emissionCacheSize = emissionCacheSize;
       this.dataStoreFactory = dataStoreFactory;
     }
 
+    @Override
+    public int loadPriority() {
+      return 50;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     protected TntModel loadModel() throws BiomedicusException {
@@ -151,13 +235,17 @@ public class TntModel implements EmissionProbabilityModel<PosCap, WordCap>,
         Map<String, Object> store = yaml.load(Files.newInputStream(trigram));
 
         PosCapTrigramModel posCapTrigramModel = PosCapTrigramModel.createFromStore(store);
+        if (precomputeTrigramLog) {
+          LOGGER.info("Precomputing TnT trigram log probabilities.");
+          posCapTrigramModel.precomputeLogProbabilities();
+        }
 
         List<WordProbabilityModel> wordModels = yaml.load(Files.newInputStream(wordMetadata));
 
         LOGGER.info("Loading TnT word models.");
         wordModels.forEach(wm -> wm.openDataStore(dataStoreFactory));
 
-        return new TntModel(posCapTrigramModel, wordModels);
+        return new TntModel(posCapTrigramModel, wordModels, emissionCacheSize);
       } catch (IOException e) {
         throw new BiomedicusException(e);
       }
@@ -16,14 +16,12 @@
 
 package edu.umn.biomedicus.tnt;
 
+import com.google.common.cache.CacheStats;
 import com.google.inject.Inject;
 import edu.umn.biomedicus.annotations.Setting;
-import edu.umn.biomedicus.common.grams.Ngram;
 import edu.umn.biomedicus.common.tuples.PosCap;
 import edu.umn.biomedicus.common.tuples.WordCap;
 import edu.umn.biomedicus.common.types.syntax.PartOfSpeech;
-import edu.umn.biomedicus.common.viterbi.Viterbi;
-import edu.umn.biomedicus.common.viterbi.ViterbiProcessor;
 import edu.umn.biomedicus.sentences.Sentence;
 import edu.umn.biomedicus.tagging.PosTag;
 import edu.umn.biomedicus.tokenization.ParseToken;
@@ -35,7 +33,11 @@ import edu.umn.nlpengine.Labeler;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import javax.annotation.Nonnull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Part of speech tagger implementation for the TnT algorithm.
@@ -45,6 +47,8 @@ import javax.annotation.Nonnull;
  */
 public class TntPosTagger implements DocumentsProcessor {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(TntPosTagger.class);
+
   /**
    * A pos cap for before the beginning of sentences.
    */
@@ -75,6 +79,14 @@ public class TntPosTagger implements DocumentsProcessor {
    */
   private final TntModel tntModel;
 
+  /**
+   * Viterbi decoders not currently in use. A document takes one, or creates one if there are none,
+   * and returns it when done, so there are only as many as documents tagged at once. A thread
+   * local would create a decoder for every document when each document runs on a new virtual
+   * thread.
+   */
+  private final Queue<TntViterbi> idleViterbis = new ConcurrentLinkedQueue<>();
+
   /**
    * Default constructor. Initializes the beam threshold and tnt model.
    *
@@ -96,21 +108,37 @@ public class TntPosTagger implements DocumentsProcessor {
     LabelIndex<Sentence> sentenceLabelIndex = document.labelIndex(Sentence.class);
     LabelIndex<ParseToken> parseTokenLabelIndex = document.labelIndex(ParseToken.class);
     Labeler<PosTag> partOfSpeechLabeler = document.labeler(PosTag.class);
+    TntViterbi viterbi = idleViterbis.poll();
+    if (viterbi == null) {
+      viterbi = new TntViterbi(tntModel);
+    }
+    try {
+      tag(document, sentenceLabelIndex, parseTokenLabelIndex, partOfSpeechLabeler, viterbi);
+    } finally {
+      idleViterbis.offer(viterbi);
+    }
+  }
 
+  private void tag(
+      Document document,
+      LabelIndex<Sentence> sentenceLabelIndex,
+      LabelIndex<ParseToken> parseTokenLabelIndex,
+      Labeler<PosTag> partOfSpeechLabeler,
+      TntViterbi viterbi
+  ) {
     for (Sentence sentence : sentenceLabelIndex) {
       Collection<ParseToken> tokens = parseTokenLabelIndex.inside(sentence);
-      ViterbiProcessor<PosCap, WordCap> viterbiProcessor = Viterbi.secondOrder(tntModel, tntModel,
-          Ngram.create(BBS, BOS), Ngram::create);
+      viterbi.begin(BBS, BOS);
 
       String docText = document.getText();
       for (ParseToken token : tokens) {
         CharSequence text = token.coveredText(docText);
         boolean isCapitalized = Character.isUpperCase(text.charAt(0));
-        viterbiProcessor.advance(new WordCap(text.toString(), isCapitalized));
-        viterbiProcessor.beamFilter(beamThreshold);
+        viterbi.advance(new WordCap(text.toString(), isCapitalized));
+        viterbi.beamFilter(beamThreshold);
       }
 
-      List<PosCap> tags = viterbiProcessor.end(SKIP, EOS);
+      List<PosCap> tags = viterbi.end(SKIP);
 
       if (tokens.size() + 2 != tags.size()) {
         throw new AssertionError(
@@ -127,6 +155,10 @@ public class TntPosTagger implements DocumentsProcessor {
 
   @Override
   public void done() {
-
+    CacheStats emissionCacheStats = tntModel.getEmissionCacheStats();
+    if (emissionCacheStats != null) {
+      LOGGER.info("TnT emission cache hit rate: {}, {}", emissionCacheStats.hitRate(),
+          emissionCacheStats);
+    }
   }
 }
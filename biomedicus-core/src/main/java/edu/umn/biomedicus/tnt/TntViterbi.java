@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.tnt;
+
+import edu.umn.biomedicus.common.tuples.PosCap;
+import edu.umn.biomedicus.common.tuples.WordCap;
+import edu.umn.biomedicus.common.viterbi.CandidateProbability;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A second order Viterbi decoder specialized for the {@link TntModel}. Produces the same tags as
+ * {@link edu.umn.biomedicus.common.viterbi.Viterbi#secondOrder}, but instead of ancestor objects
+ * keyed by bigrams the lattice is stored in primitive arrays, with each state identified by the
+ * bigram of {@link PosCap#ordinal()} values {@code first * cardinality + second} and an int
+ * backpointer to the entry in the previous step it descends from.
+ * <p>This class is not thread safe. It can be reused for any number of sentences by calling
+ * {@link #begin(PosCap, PosCap)} at the start of each, the arrays only grow to fit the longest
+ * sentence.</p>
+ *
+ * @since 2.2.0
+ */
+final class TntViterbi {
+
+  /**
+   * PosCap instances by their ordinal.
+   */
+  private static final PosCap[] POS_CAPS = new PosCap[PosCap.cardinality()];
+
+  static {
+    for (int i = 0; i < POS_CAPS.length; i++) {
+      POS_CAPS[i] = PosCap.createFromOrdinal(i);
+    }
+  }
+
+  private final TntModel tntModel;
+
+  /**
+   * The number of possible states.
+   */
+  private final int states;
+
+  /**
+   * The lattice entry for each bigram key in the step being computed, or -1.
+   */
+  private final int[] entryByKey;
+
+  /**
+   * The bigram key of each lattice entry.
+   */
+  private int[] keys = new int[256];
+
+  /**
+   * The log base 10 probability of each lattice entry.
+   */
+  private double[] scores = new double[256];
+
+  /**
+   * The index of the entry in the previous step that each lattice entry descends from.
+   */
+  private int[] backpointers = new int[256];
+
+  /**
+   * The number of lattice entries in all steps.
+   */
+  private int size;
+
+  /**
+   * The index of the first lattice entry of each step.
+   */
+  private int[] stepStarts = new int[64];
+
+  /**
+   * Whether each step was skipped because no candidate had a nonzero probability.
+   */
+  private boolean[] skipped = new boolean[64];
+
+  /**
+   * The number of steps, including the initial step.
+   */
+  private int steps;
+
+  private int[] candidateStates = new int[16];
+
+  private double[] candidateEmissions = new double[16];
+
+  TntViterbi(TntModel tntModel) {
+    this.tntModel = tntModel;
+    states = PosCap.cardinality();
+    entryByKey = new int[states * states];
+    Arrays.fill(entryByKey, -1);
+  }
+
+  /**
+   * Starts decoding a new sentence.
+   *
+   * @param first the state two before the first word
+   * @param second the state immediately before the first word
+   */
+  void begin(PosCap first, PosCap second) {
+    size = 0;
+    steps = 0;
+    startStep();
+    addEntry(first.ordinal() * states + second.ordinal(), 0.0, -1);
+  }
+
+  /**
+   * Advances the lattice by one word.
+   *
+   * @param wordCap the word
+   */
+  void advance(WordCap wordCap) {
+    int candidateCount = loadCandidates(wordCap);
+
+    int previousStart = stepStarts[steps - 1];
+    int previousEnd = size;
+    int start = startStep();
+
+    for (int c = 0; c < candidateCount; c++) {
+      int candidate = candidateStates[c];
+      double emissionLogProbability = candidateEmissions[c];
+      for (int i = previousStart; i < previousEnd; i++) {
+        int key = keys[i];
+        int second = key % states;
+        double logProbability = tntModel.getTransitionLogProbability(key / states, second,
+            candidate) + emissionLogProbability + scores[i];
+        if (logProbability > Double.NEGATIVE_INFINITY) {
+          int descendantKey = second * states + candidate;
+          int entry = entryByKey[descendantKey];
+          if (entry == -1) {
+            entryByKey[descendantKey] = addEntry(descendantKey, logProbability, i);
+          } else if (!(scores[entry] > logProbability)) {
+            scores[entry] = logProbability;
+            backpointers[entry] = i;
+          }
+        }
+      }
+    }
+
+    for (int i = start; i < size; i++) {
+      entryByKey[keys[i]] = -1;
+    }
+
+    if (size == start) {
+      skipped[steps - 1] = true;
+      for (int i = previousStart; i < previousEnd; i++) {
+        addEntry(keys[i], scores[i], i);
+      }
+    }
+  }
+
+  /**
+   * Removes the entries of the most recent step whose log probability is more than
+   * {@code beamThreshold} less than the most probable entry.
+   *
+   * @param beamThreshold the beam threshold in log base 10
+   */
+  void beamFilter(double beamThreshold) {
+    int start = stepStarts[steps - 1];
+    if (size - start < 10) {
+      return;
+    }
+
+    double logGreatest = Double.NEGATIVE_INFINITY;
+    for (int i = start; i < size; i++) {
+      logGreatest = Math.max(logGreatest, scores[i]);
+    }
+    double logBoundary = logGreatest - beamThreshold;
+
+    int kept = start;
+    for (int i = start; i < size; i++) {
+      if (scores[i] >= logBoundary) {
+        keys[kept] = keys[i];
+        scores[kept] = scores[i];
+        backpointers[kept] = backpointers[i];
+        kept++;
+      }
+    }
+    if (kept == start) {
+      throw new AssertionError("Number of ancestors should never drop to zero");
+    }
+    size = kept;
+  }
+
+  /**
+   * Finishes the sentence, returning the most probable sequence of states including the two
+   * initial states.
+   * <p>Like the generic Viterbi processor, which passes the terminal transition through
+   * {@code Math.log10} twice so that it never contributes, the most probable entry of the last
+   * step is chosen without a transition to the end of sentence state.</p>
+   *
+   * @param skipValue the state to use for words where no candidate had a nonzero probability
+   * @return list of states, two longer than the number of words
+   */
+  List<PosCap> end(PosCap skipValue) {
+    int start = stepStarts[steps - 1];
+    int best = -1;
+    double maxLogProbability = Double.NEGATIVE_INFINITY;
+    for (int i = start; i < size; i++) {
+      if (scores[i] > maxLogProbability) {
+        maxLogProbability = scores[i];
+        best = i;
+      }
+    }
+    if (best == -1) {
+      throw new AssertionError("0-probability result");
+    }
+
+    PosCap[] path = new PosCap[steps + 1];
+    int entry = best;
+    for (int step = steps - 1; step > 0; step--) {
+      path[step + 1] = skipped[step] ? skipValue : POS_CAPS[keys[entry] % states];
+      entry = backpointers[entry];
+    }
+    path[0] = POS_CAPS[keys[entry] / states];
+    path[1] = POS_CAPS[keys[entry] % states];
+
+    return Arrays.asList(path);
+  }
+
+  private int loadCandidates(WordCap wordCap) {
+    Collection<CandidateProbability<PosCap>> candidates = tntModel.getCandidates(wordCap);
+    if (candidates.size() > candidateStates.length) {
+      int capacity = Math.max(candidates.size(), candidateStates.length * 2);
+      candidateStates = new int[capacity];
+      candidateEmissions = new double[capacity];
+    }
+    int count = 0;
+    for (CandidateProbability<PosCap> candidate : candidates) {
+      candidateStates[count] = candidate.getCandidate().ordinal();
+      candidateEmissions[count] = candidate.getEmissionLogProbability();
+      count++;
+    }
+    return count;
+  }
+
+  private int startStep() {
+    if (steps == stepStarts.length) {
+      stepStarts = Arrays.copyOf(stepStarts, steps * 2);
+      skipped = Arrays.copyOf(skipped, steps * 2);
+    }
+    stepStarts[steps] = size;
+    skipped[steps] = false;
+    steps++;
+    return size;
+  }
+
+  private int addEntry(int key, double score, int backpointer) {
+    if (size == keys.length) {
+      keys = Arrays.copyOf(keys, size * 2);
+      scores = Arrays.copyOf(scores, size * 2);
+      backpointers = Arrays.copyOf(backpointers, size * 2);
+    }
+    keys[size] = key;
+    scores[size] = score;
+    backpointers[size] = backpointer;
+    return size++;
+  }
+}
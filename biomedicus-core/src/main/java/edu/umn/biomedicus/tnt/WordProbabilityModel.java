@@ -19,6 +19,7 @@ package edu.umn.biomedicus.tnt;
 import edu.umn.biomedicus.common.tuples.WordCap;
 import edu.umn.biomedicus.common.tuples.WordPosCap;
 import edu.umn.biomedicus.common.types.syntax.PartOfSpeech;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -38,6 +39,22 @@ public interface WordProbabilityModel {
    */
   double logProbabilityOfWord(PartOfSpeech candidate, WordCap wordCap);
 
+  /**
+   * Returns the log10 probability of the word for each of the candidates. Models backed by a
+   * database look up all of the candidates at once.
+   *
+   * @param candidates the conditional parts of speech
+   * @param wordCap the word
+   * @return the log10 probability for each candidate, in the same order
+   */
+  default double[] logProbabilitiesOfWord(List<PartOfSpeech> candidates, WordCap wordCap) {
+    double[] logProbabilities = new double[candidates.size()];
+    for (int i = 0; i < logProbabilities.length; i++) {
+      logProbabilities[i] = logProbabilityOfWord(candidates.get(i), wordCap);
+    }
+    return logProbabilities;
+  }
+
   /**
    * Returns the potential part of speech candidates for a given word
    *
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.umn.biomedicus.utilities;
+
+import edu.umn.biomedicus.acronym.MappedSenseVectors;
+import edu.umn.biomedicus.concepts.MappedConceptDictionary;
+import edu.umn.biomedicus.tnt.MappedDataStoreConverter;
+import edu.umn.biomedicus.vocabulary.MappedVocabStore;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.annotation.Nullable;
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.spi.PathOptionHandler;
+import org.rocksdb.RocksDBException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes memory-mapped snapshots of the RocksDB models in a BioMedICUS data directory to the
+ * default "mapped" locations used when the concepts, TnT word, acronym sense map, and vocabulary
+ * "format" settings are set to "mapped". Snapshots only need to be written once, after which every
+ * pipeline process on a machine maps the same files.
+ *
+ * @since 2.2.0
+ */
+public final class ModelSnapshotWriter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ModelSnapshotWriter.class);
+
+  @Nullable
+  @Argument(required = true, handler = PathOptionHandler.class,
+      usage = "path to the BioMedICUS data directory")
+  private Path dataPath;
+
+  public static void main(String[] args) {
+    try {
+      new ModelSnapshotWriter().process(args);
+    } catch (IOException | RocksDBException e) {
+      e.printStackTrace();
+    }
+  }
+
+  public void process(String[] args) throws IOException, RocksDBException {
+    CmdLineParser parser = new CmdLineParser(this);
+
+    try {
+      parser.parseArgument(args);
+    } catch (CmdLineException e) {
+      System.err.println(e.getLocalizedMessage());
+      System.err.println("java edu.umn.biomedicus.utilities.ModelSnapshotWriter [data-path]");
+      parser.printUsage(System.err);
+      return;
+    }
+
+    assert dataPath != null : "should be non-null by this point based on required = true";
+
+    writeSnapshots(dataPath);
+  }
+
+  /**
+   * Writes a snapshot of every RocksDB model present in the data directory.
+   *
+   * @param dataPath the BioMedICUS data directory
+   */
+  public static void writeSnapshots(Path dataPath) throws IOException, RocksDBException {
+    Path concepts = dataPath.resolve("concepts");
+    if (Files.isDirectory(concepts)) {
+      LOGGER.info("Writing concepts snapshot.");
+      MappedConceptDictionary.writeSnapshot(concepts, dataPath.resolve("concepts-mapped"));
+    }
+
+    Path tntWords = dataPath.resolve("tnt/words");
+    if (Files.isDirectory(tntWords)) {
+      LOGGER.info("Writing TnT words snapshot.");
+      MappedDataStoreConverter.convert(tntWords, dataPath.resolve("tnt/words-mapped"));
+    }
+
+    Path senseVectors = dataPath.resolve("acronym/senseVectors");
+    if (Files.isDirectory(senseVectors)) {
+      LOGGER.info("Writing acronym sense vectors snapshot.");
+      MappedSenseVectors.writeSnapshot(senseVectors,
+          dataPath.resolve("acronym/senseVectors-mapped"));
+    }
+
+    Path vocabulary = dataPath.resolve("vocabulary");
+    if (Files.isDirectory(vocabulary)) {
+      LOGGER.info("Writing vocabulary snapshot.");
+      MappedVocabStore.writeSnapshot(vocabulary, dataPath.resolve("vocabulary-mapped"));
+    }
+  }
+}
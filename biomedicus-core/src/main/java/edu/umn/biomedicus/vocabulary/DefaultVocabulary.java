@@ -82,6 +82,11 @@ class DefaultVocabulary implements LifecycleManaged, Vocabulary {
       this.store = store;
     }
 
+    @Override
+    public int loadPriority() {
+      return 70;
+    }
+
     @Override
     protected Vocabulary loadModel() throws BiomedicusException {
       try {
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.umn.biomedicus.vocabulary;
+
+import com.google.common.base.Preconditions;
+import edu.umn.biomedicus.annotations.Setting;
+import edu.umn.biomedicus.common.dictionary.BidirectionalDictionary;
+import edu.umn.biomedicus.common.dictionary.MappedByteTable;
+import edu.umn.biomedicus.common.dictionary.MappedIdentifiers;
+import edu.umn.biomedicus.common.dictionary.MappedStrings;
+import edu.umn.biomedicus.common.dictionary.StandardBidirectionalDictionary;
+import java.io.IOException;
+import java.nio.file.Path;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Vocabulary store using memory-mapped snapshots of the {@link RocksDbVocabStore} databases, so
+ * that every process on a machine shares one copy of the vocabulary.
+ *
+ * @since 2.2.0
+ */
+@Singleton
+public class MappedVocabStore extends VocabularyStore {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MappedVocabStore.class);
+
+  private static final String[] DATABASES = {
+      "wordsTerms", "wordsIndices", "termsTerms", "termsIndices", "normsTerms", "normsIndices"
+  };
+
+  private final Path mappedPath;
+
+  @Nullable
+  private BidirectionalDictionary words;
+
+  @Nullable
+  private BidirectionalDictionary terms;
+
+  @Nullable
+  private BidirectionalDictionary norms;
+
+  @Inject
+  public MappedVocabStore(@Setting("vocabulary.mapped.asDataPath") Path mappedPath) {
+    this.mappedPath = mappedPath;
+  }
+
+  /**
+   * Writes snapshots of the vocabulary databases created by {@link RocksDbVocabularyBuilder}.
+   *
+   * @param dbPath the folder containing the RocksDB databases
+   * @param outputPath the folder to write the snapshot to
+   */
+  public static void writeSnapshot(Path dbPath, Path outputPath)
+      throws IOException, RocksDBException {
+    RocksDB.loadLibrary();
+    for (String database : DATABASES) {
+      LOGGER.info("Writing vocabulary snapshot: {}", database);
+      try (RocksDB rocksDB = RocksDB.openReadOnly(dbPath.resolve(database).toString())) {
+        MappedByteTable.copy(rocksDB, outputPath.resolve(database));
+      }
+    }
+  }
+
+  @Override
+  void open() throws IOException {
+    LOGGER.info("Mapping vocabularies: {}", mappedPath);
+
+    words = new StandardBidirectionalDictionary(
+        new MappedIdentifiers(mappedPath.resolve("wordsIndices")),
+        new MappedStrings(mappedPath.resolve("wordsTerms")));
+
+    terms = new StandardBidirectionalDictionary(
+        new MappedIdentifiers(mappedPath.resolve("termsIndices")),
+        new MappedStrings(mappedPath.resolve("termsTerms")));
+
+    norms = new StandardBidirectionalDictionary(
+        new MappedIdentifiers(mappedPath.resolve("normsIndices")),
+        new MappedStrings(mappedPath.resolve("normsTerms")));
+  }
+
+  @Override
+  BidirectionalDictionary getWords() {
+    Preconditions.checkNotNull(words);
+    return words;
+  }
+
+  @Override
+  BidirectionalDictionary getTerms() {
+    Preconditions.checkNotNull(terms);
+    return terms;
+  }
+
+  @Override
+  BidirectionalDictionary getNorms() {
+    Preconditions.checkNotNull(norms);
+    return norms;
+  }
+
+  @Override
+  public void close() {
+    words = null;
+    terms = null;
+    norms = null;
+  }
+}
@@ -24,11 +24,14 @@ import edu.umn.biomedicus.common.dictionary.BidirectionalDictionary.Strings;
 import edu.umn.biomedicus.common.dictionary.RocksDbIdentifiers;
 import edu.umn.biomedicus.common.dictionary.RocksDbStrings;
 import edu.umn.biomedicus.common.dictionary.StandardBidirectionalDictionary;
+import edu.umn.biomedicus.framework.RocksDbResources;
 import java.io.IOException;
 import java.nio.file.Path;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,6 +47,10 @@ public class RocksDbVocabStore extends VocabularyStore {
 
   private final Boolean inMemory;
 
+  private final double bloomFilterRate;
+
+  private final RocksDbResources rocksDbResources;
+
   @Nullable
   private BidirectionalDictionary words;
 
@@ -56,10 +63,14 @@ public class RocksDbVocabStore extends VocabularyStore {
   @Inject
   public RocksDbVocabStore(
       @Setting("vocabulary.db.asDataPath") Path dbPath,
-      @Setting("vocabulary.inMemory") Boolean inMemory
+      @Setting("vocabulary.inMemory") Boolean inMemory,
+      @Setting("vocabulary.bloomFilter") Double bloomFilterRate,
+      RocksDbResources rocksDbResources
   ) {
     this.dbPath = dbPath;
     this.inMemory = inMemory;
+    this.bloomFilterRate = inMemory ? 0 : bloomFilterRate;
+    this.rocksDbResources = rocksDbResources;
   }
 
   @Override
@@ -67,21 +78,32 @@ public class RocksDbVocabStore extends VocabularyStore {
     LOGGER.info("Loading vocabularies: {}", dbPath);
 
     LOGGER.info("Opening words index. inMemory = {}.", inMemory);
-    Strings wordsTerms = new RocksDbStrings(dbPath.resolve("wordsTerms"));
-    Identifiers wordsIndices = new RocksDbIdentifiers(dbPath.resolve("wordsIndices"));
+    Strings wordsTerms = new RocksDbStrings(openDatabase("wordsTerms"));
+    Identifiers wordsIndices = new RocksDbIdentifiers(openDatabase("wordsIndices"),
+        dbPath.resolve("wordsIndices").toString(), bloomFilterRate);
     words = new StandardBidirectionalDictionary(wordsIndices, wordsTerms).inMemory(inMemory);
 
     LOGGER.info("Opening terms index. inMemory = {}.", inMemory);
-    Strings termsTerms = new RocksDbStrings(dbPath.resolve("termsTerms"));
-    Identifiers termsIndices = new RocksDbIdentifiers(dbPath.resolve("termsIndices"));
+    Strings termsTerms = new RocksDbStrings(openDatabase("termsTerms"));
+    Identifiers termsIndices = new RocksDbIdentifiers(openDatabase("termsIndices"),
+        dbPath.resolve("termsIndices").toString(), bloomFilterRate);
     terms = new StandardBidirectionalDictionary(termsIndices, termsTerms).inMemory(inMemory);
 
     LOGGER.info("Opening norms index. inMemory = {}.", inMemory);
-    Strings normsTerms = new RocksDbStrings(dbPath.resolve("normsTerms"));
-    Identifiers normsIndices = new RocksDbIdentifiers(dbPath.resolve("normsIndices"));
+    Strings normsTerms = new RocksDbStrings(openDatabase("normsTerms"));
+    Identifiers normsIndices = new RocksDbIdentifiers(openDatabase("normsIndices"),
+        dbPath.resolve("normsIndices").toString(), bloomFilterRate);
     norms = new StandardBidirectionalDictionary(normsIndices, normsTerms).inMemory(inMemory);
   }
 
+  private RocksDB openDatabase(String name) {
+    try {
+      return rocksDbResources.openReadOnly(dbPath.resolve(name));
+    } catch (RocksDBException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   @Override
   BidirectionalDictionary getWords() {
     Preconditions.checkNotNull(words);
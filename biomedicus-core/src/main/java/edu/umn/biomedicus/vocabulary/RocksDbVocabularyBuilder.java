@@ -18,6 +18,7 @@ package edu.umn.biomedicus.vocabulary;
 
 import edu.umn.biomedicus.common.utilities.Patterns;
 import edu.umn.biomedicus.exc.BiomedicusException;
+import edu.umn.biomedicus.framework.RocksDbResources;
 import java.io.Closeable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -50,7 +51,7 @@ public class RocksDbVocabularyBuilder extends VocabularyBuilder {
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
-    try (Options options = new Options().setCreateIfMissing(true).prepareForBulkLoad()){
+    try (Options options = RocksDbResources.bulkLoadOptions()){
       try {
         words = new RocksDbTermIndexBuilder(
             RocksDB.open(options, outputPath.resolve("wordsTerms").toString()),
@@ -25,7 +25,7 @@ public class VocabularyModule extends AbstractModule {
   @Override
   protected void configure() {
     bind(Vocabulary.class).toProvider(DefaultVocabulary.Loader.class);
-    bind(VocabularyStore.class).to(RocksDbVocabStore.class);
+    bind(VocabularyStore.class).toProvider(VocabularyStoreProvider.class);
     bind(VocabularyBuilder.class).to(RocksDbVocabularyBuilder.class);
   }
 }
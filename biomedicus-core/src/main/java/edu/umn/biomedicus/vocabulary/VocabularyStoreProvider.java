@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.umn.biomedicus.vocabulary;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import edu.umn.biomedicus.annotations.Setting;
+
+/**
+ * Provides the vocabulary store for the "vocabulary.format" setting, either "rocksdb" or "mapped".
+ *
+ * @since 2.2.0
+ */
+@Singleton
+class VocabularyStoreProvider implements Provider<VocabularyStore> {
+
+  private final String format;
+
+  private final Provider<RocksDbVocabStore> rocksDbVocabStore;
+
+  private final Provider<MappedVocabStore> mappedVocabStore;
+
+  @Inject
+  VocabularyStoreProvider(
+      @Setting("vocabulary.format") String format,
+      Provider<RocksDbVocabStore> rocksDbVocabStore,
+      Provider<MappedVocabStore> mappedVocabStore
+  ) {
+    this.format = format;
+    this.rocksDbVocabStore = rocksDbVocabStore;
+    this.mappedVocabStore = mappedVocabStore;
+  }
+
+  @Override
+  public VocabularyStore get() {
+    switch (format) {
+      case "rocksdb":
+        return rocksDbVocabStore.get();
+      case "mapped":
+        return mappedVocabStore.get();
+      default:
+        throw new IllegalStateException("Unknown vocabulary format: " + format);
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.common
+
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * A lexicon of named lists of words and phrases, which finds the entries of all of the lists in a
+ * sequence of tokens in a single pass.
+ *
+ * The entries of every list are stored together in one trie keyed on lower-cased tokens, so the
+ * cost of a scan is one hash lookup per token no matter how many lists or entries there are, and
+ * a token is only tested against the rest of a phrase when the tokens before it start one.
+ * Phrases are written with their tokens separated by spaces, the same as the files read by
+ * [SequenceDetector.loadFromFile]. Entries are used as they are written, they are not trimmed or
+ * lower-cased, so only entries written in lower case can match.
+ *
+ * The gazetteer counts the tokens it scans and the matches of each list, see [statistics].
+ *
+ * @param lists the entries of each list by the list's name, in the order of the list indices
+ * @since 2.2.0
+ */
+class Gazetteer(lists: Map<String, Collection<String>>) {
+    /**
+     * The names of the lists, the index of a list is its index in this list.
+     */
+    val names: List<String> = lists.keys.toList()
+
+    private val root = Node()
+
+    private val entries = IntArray(names.size)
+
+    private val matches = Array(names.size) { LongAdder() }
+
+    private val tokens = LongAdder()
+
+    init {
+        require(names.size <= Long.SIZE) { "A gazetteer supports at most ${Long.SIZE} lists" }
+
+        lists.values.forEachIndexed { index, entries ->
+            for (entry in entries) {
+                if (entry.isEmpty()) continue
+                val node = entry.split(' ').fold(root) { node, word -> node.child(word) }
+                if ((node.lists and (1L shl index)) == 0L) {
+                    node.lists = node.lists or (1L shl index)
+                    this.entries[index]++
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the list named [name] or -1 if there is no list with that name.
+     */
+    fun indexOf(name: String) = names.indexOf(name)
+
+    /**
+     * Finds all of the entries of every list in the [tokens], ignoring case. A match is reported
+     * once for each list containing the entry, matches are in order of their first token, then
+     * their last token, then the index of their list.
+     */
+    fun findAll(tokens: List<String>): List<GazetteerMatch> {
+        this.tokens.add(tokens.size.toLong())
+
+        val lowerCase = Array(tokens.size) { tokens[it].toLowerCase() }
+
+        val result = ArrayList<GazetteerMatch>()
+        for (first in lowerCase.indices) {
+            var node = root.children?.get(lowerCase[first])
+            var last = first
+            while (node != null) {
+                var lists = node.lists
+                while (lists != 0L) {
+                    val index = java.lang.Long.numberOfTrailingZeros(lists)
+                    matches[index].increment()
+                    result.add(GazetteerMatch(index, first, last + 1))
+                    lists = lists and (lists - 1)
+                }
+                if (++last == lowerCase.size) break
+                node = node.children?.get(lowerCase[last])
+            }
+        }
+        return result
+    }
+
+    /**
+     * Returns the number of entries and the number of matches so far for each of the lists.
+     */
+    fun statistics(): List<GazetteerStatistics> = names.mapIndexed { index, name ->
+        GazetteerStatistics(name, entries[index], matches[index].sum())
+    }
+
+    /**
+     * Returns the number of tokens scanned so far.
+     */
+    fun tokenCount() = tokens.sum()
+
+    private class Node {
+        var children: HashMap<String, Node>? = null
+
+        var lists = 0L
+
+        fun child(word: String): Node {
+            val map = children ?: HashMap<String, Node>().also { children = it }
+            return map.getOrPut(word) { Node() }
+        }
+    }
+}
+
+/**
+ * A match of an entry of one of the lists in a [Gazetteer].
+ *
+ * @property list the index of the list
+ * @property first the index of the first token of the match
+ * @property end the index after the last token of the match
+ */
+data class GazetteerMatch(val list: Int, val first: Int, val end: Int)
+
+/**
+ * The statistics for one of the lists in a [Gazetteer].
+ *
+ * @property name the name of the list
+ * @property entries the number of distinct entries in the list
+ * @property matches the number of matches of the list's entries
+ */
+data class GazetteerStatistics(val name: String, val entries: Int, val matches: Long)
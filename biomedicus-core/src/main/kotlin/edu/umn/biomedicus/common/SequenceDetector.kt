@@ -25,15 +25,23 @@ import java.util.*
 /**
  * Detects arbitrary sub-sequences of items in longer sequences of items using a test.
  *
+ * Detectors created by [ignoreCase] or [loadFromFileIgnoreCase] compare the text of items to
+ * strings ignoring case. They are compiled into an Aho–Corasick automaton over the sub-sequences,
+ * so they find all of the matches with one step per item no matter how many sub-sequences there
+ * are, instead of testing every item against the first item of every sub-sequence.
+ *
  * @param T the type of items in the sub-sequence definitions
  * @param U the type of items to be tested
  * @property sequences the list of sub-sequence lists
  * @property test the test to run determining if items of type [T] match type [U]
  */
-class SequenceDetector<T, U>(
-        vararg val sequences: List<T>,
-        val test: (T, U) -> Boolean
+class SequenceDetector<T, U> private constructor(
+        val sequences: Array<out List<T>>,
+        val test: (T, U) -> Boolean,
+        internal val automaton: SequenceAutomaton<U>?
 ) {
+    constructor(vararg sequences: List<T>, test: (T, U) -> Boolean) : this(sequences, test, null)
+
     /**
      * Creates a matcher object against the sequences for this detector
      */
@@ -74,6 +82,41 @@ class SequenceDetector<T, U>(
         ): SequenceDetector<String, U> {
             return loadFromFile(filename.toString(), test)
         }
+
+        /**
+         * Creates a compiled detector which matches the [sequences] against the [text] of items
+         * ignoring case, the same as a test of `text(item).equals(string, true)`.
+         */
+        fun <U> ignoreCase(
+                sequences: List<List<String>>,
+                text: (U) -> String
+        ): SequenceDetector<String, U> {
+            return SequenceDetector<String, U>(
+                    sequences.toTypedArray(),
+                    { string, item -> text(item).equals(string, true) },
+                    SequenceAutomaton(sequences, text)
+            )
+        }
+
+        /**
+         * Loads the sub-sequences from a file like [loadFromFile] into a compiled detector which
+         * matches them against the [text] of items ignoring case.
+         */
+        fun <U> loadFromFileIgnoreCase(
+                filename: String,
+                text: (U) -> String
+        ): SequenceDetector<String, U> {
+            return File(filename).useLines {
+                ignoreCase(it.filter { it.isNotEmpty() }.map { it.split(" ") }.toList(), text)
+            }
+        }
+
+        fun <U> loadFromFileIgnoreCase(
+                filename: Path,
+                text: (U) -> String
+        ): SequenceDetector<String, U> {
+            return loadFromFileIgnoreCase(filename.toString(), text)
+        }
     }
 }
 
@@ -91,6 +134,8 @@ class SequenceMatcher<T, U> internal constructor(val detector: SequenceDetector<
 
     private val inProgresses: MutableList<InProgress> = LinkedList()
 
+    private var state = 0
+
     /**
      * Tests if the sequence contains any of the matching sub-sequences.
      */
@@ -111,6 +156,11 @@ class SequenceMatcher<T, U> internal constructor(val detector: SequenceDetector<
      * those elements.
      */
     fun isCompletedBy(element: U): Int? {
+        detector.automaton?.let {
+            state = it.next(state, element)
+            return it.completed(state).firstOrNull()
+        }
+
         val it = inProgresses.iterator()
         while (it.hasNext()) {
             val inProgress = it.next()
@@ -149,14 +199,21 @@ class SequenceMatcher<T, U> internal constructor(val detector: SequenceDetector<
      * Gets the completed sub-sequence lengths that are matches after the specified [element].
      */
     fun getCompleted(element: U): Collection<Int> {
+        detector.automaton?.let {
+            state = it.next(state, element)
+            return it.completed(state).asList()
+        }
+
         val it = inProgresses.iterator()
         val completed = ArrayList<Int>()
         while (it.hasNext()) {
             val inProgress = it.next()
             if (detector.test(inProgress.sequence[inProgress.tokenIndex + 1], element)) {
                 val size = inProgress.sequence.size
-                if (inProgress.tokenIndex + 2 == size) completed.add(size)
-                else inProgress.tokenIndex += 1
+                if (inProgress.tokenIndex + 2 == size) {
+                    completed.add(size)
+                    it.remove()
+                } else inProgress.tokenIndex += 1
             } else it.remove()
         }
 
@@ -176,6 +233,7 @@ class SequenceMatcher<T, U> internal constructor(val detector: SequenceDetector<
      */
     fun reset() {
         inProgresses.clear()
+        state = 0
     }
 
     private inner class InProgress(
@@ -183,3 +241,103 @@ class SequenceMatcher<T, U> internal constructor(val detector: SequenceDetector<
             var tokenIndex: Int = 0
     )
 }
+
+/**
+ * An Aho–Corasick automaton over sequences of strings which are compared ignoring case.
+ *
+ * Strings are folded to a canonical case one character at a time, which makes two strings fold
+ * to the same value exactly when [String.equals] with ignoreCase would find them equal. Each
+ * distinct folded string in the sequences is given an id, transitions out of the root are a
+ * table indexed by id and transitions out of the other states are sorted arrays of ids.
+ *
+ * @param U the type of the items matched
+ */
+internal class SequenceAutomaton<U>(
+        sequences: List<List<String>>,
+        private val text: (U) -> String
+) {
+    private val ids = HashMap<String, Int>()
+
+    private val rootNext: IntArray
+
+    private val keys: Array<IntArray>
+
+    private val targets: Array<IntArray>
+
+    private val failure: IntArray
+
+    private val outputs: Array<IntArray>
+
+    init {
+        val children = arrayListOf(HashMap<Int, Int>())
+        val depths = arrayListOf(0)
+        val counts = arrayListOf(0)
+        for (sequence in sequences) {
+            if (sequence.isEmpty()) continue
+            var state = 0
+            for (string in sequence) {
+                val id = ids.getOrPut(fold(string)) { ids.size }
+                state = children[state].getOrPut(id) {
+                    children.add(HashMap())
+                    depths.add(depths[state] + 1)
+                    counts.add(0)
+                    children.size - 1
+                }
+            }
+            counts[state] = counts[state] + 1
+        }
+
+        val size = children.size
+        keys = Array(size) { children[it].keys.sorted().toIntArray() }
+        targets = Array(size) { state -> keys[state].map { children[state][it]!! }.toIntArray() }
+        rootNext = IntArray(ids.size)
+        for ((id, target) in children[0]) rootNext[id] = target
+
+        failure = IntArray(size)
+        outputs = Array(size) { IntArray(0) }
+        val queue = IntArray(size)
+        var tail = 1
+        for (head in 0 until size) {
+            val state = queue[head]
+            val own = IntArray(counts[state]) { depths[state] }
+            outputs[state] = if (state == 0) own else own + outputs[failure[state]]
+            for (i in keys[state].indices) {
+                val target = targets[state][i]
+                failure[target] = if (state == 0) 0 else step(failure[state], keys[state][i])
+                queue[tail++] = target
+            }
+        }
+    }
+
+    /**
+     * Returns the state after [element] when in [state].
+     */
+    fun next(state: Int, element: U): Int {
+        val id = ids[fold(text(element))] ?: return 0
+        return step(state, id)
+    }
+
+    private fun step(state: Int, id: Int): Int {
+        var current = state
+        while (current != 0) {
+            val index = Arrays.binarySearch(keys[current], id)
+            if (index >= 0) return targets[current][index]
+            current = failure[current]
+        }
+        return rootNext[id]
+    }
+
+    /**
+     * Returns the lengths of the sequences which are completed in [state], longest first.
+     */
+    fun completed(state: Int): IntArray = outputs[state]
+
+    companion object {
+        internal fun fold(string: String): String {
+            val chars = CharArray(string.length) {
+                Character.toLowerCase(Character.toUpperCase(string[it]))
+            }
+            return String(chars)
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.framework
+
+import com.google.inject.ConfigurationException
+import com.google.inject.Injector
+import com.google.inject.Key
+import com.google.inject.spi.HasDependencies
+import com.google.inject.spi.InjectionPoint
+import com.google.inject.spi.LinkedKeyBinding
+import com.google.inject.spi.ProviderKeyBinding
+import edu.umn.biomedicus.annotations.Setting
+import edu.umn.biomedicus.exc.BiomedicusException
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import java.lang.reflect.ParameterizedType
+import java.util.ArrayDeque
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorCompletionService
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * The result of eagerly loading one [EagerLoadable].
+ *
+ * @property key the key of the loadable
+ * @property millis the time taken to load in milliseconds
+ * @property heapDeltaBytes the change in used heap while loading. Other loadables may be loading at
+ * the same time, so this is only an estimate.
+ */
+data class LoadResult(val key: Key<*>, val millis: Long, val heapDeltaBytes: Long)
+
+/**
+ * Eagerly loads every [EagerLoadable] used by a set of root classes, such as the components of a
+ * pipeline, on a bounded pool of threads, so that startup takes as long as the slowest model
+ * instead of the sum of all of them.
+ *
+ * Loadables are found by walking the dependencies of the root classes. Bindings of the injector
+ * that the roots do not depend on are not loaded. Models that are [com.google.inject.ProvidedBy] a
+ * [DataLoader] are found through the loader binding. Loadables are started in order of
+ * [EagerLoadable.loadPriority]. Loaders which depend on another model wait for it through the
+ * [DataLoader] lock, so they do not need to be ordered.
+ *
+ * The number of threads is the "eagerLoad.threads" setting, or the number of processors if it is
+ * not positive.
+ */
+@Singleton
+class EagerLoader @Inject constructor(
+        private val injector: Injector,
+        @Setting("eagerLoad.threads") threads: Int
+) {
+    companion object {
+        val log: Logger = LoggerFactory.getLogger(EagerLoader::class.java)
+    }
+
+    private val threads = if (threads > 0) threads else Runtime.getRuntime().availableProcessors()
+
+    /**
+     * Finds every eager loadable binding reachable from [roots].
+     */
+    fun discover(roots: Collection<Class<*>>): List<Key<out EagerLoadable>> {
+        val queue = ArrayDeque<Key<*>>()
+        roots.forEach { queue.add(Key.get(it)) }
+
+        val seen = HashSet<Key<*>>()
+        val found = ArrayList<Key<out EagerLoadable>>()
+        while (queue.isNotEmpty()) {
+            val key = unwrapProvider(queue.removeFirst())
+            if (!seen.add(key)) continue
+
+            val binding = try {
+                injector.getBinding(key)
+            } catch (e: ConfigurationException) {
+                // pipeline components can depend on component settings which are only bound in
+                // the child injector created for the component, so read their injection points
+                queue.addAll(injectionPointDependencies(key))
+                continue
+            }
+
+            if (EagerLoadable::class.java.isAssignableFrom(key.typeLiteral.rawType)) {
+                @Suppress("UNCHECKED_CAST")
+                found.add(key as Key<out EagerLoadable>)
+            }
+
+            (binding as? HasDependencies)?.dependencies?.forEach { queue.add(it.key) }
+            (binding as? ProviderKeyBinding<*>)?.let { queue.add(it.providerKey) }
+            (binding as? LinkedKeyBinding<*>)?.let { queue.add(it.linkedKey) }
+        }
+        return found
+    }
+
+    private fun injectionPointDependencies(key: Key<*>): List<Key<*>> {
+        if (key.annotationType != null) return emptyList()
+        return try {
+            val injectionPoints = InjectionPoint.forInstanceMethodsAndFields(key.typeLiteral) +
+                    InjectionPoint.forConstructorOf(key.typeLiteral)
+            injectionPoints.flatMap { point -> point.dependencies.map { it.key } }
+        } catch (e: ConfigurationException) {
+            emptyList()
+        }
+    }
+
+    private fun unwrapProvider(key: Key<*>): Key<*> {
+        val rawType = key.typeLiteral.rawType
+        if (rawType != javax.inject.Provider::class.java
+                && rawType != com.google.inject.Provider::class.java) return key
+        val type = key.typeLiteral.type as? ParameterizedType ?: return key
+        val provided = type.actualTypeArguments[0]
+        return key.annotation?.let { Key.get(provided, it) }
+                ?: key.annotationType?.let { Key.get(provided, it) }
+                ?: Key.get(provided)
+    }
+
+    /**
+     * Loads every eager loadable reachable from [roots] concurrently, blocking until they have all
+     * loaded.
+     *
+     * @throws BiomedicusException with the first failure, after which no more loadables are started
+     */
+    @Throws(BiomedicusException::class)
+    fun loadAll(roots: Collection<Class<*>>): List<LoadResult> {
+        val loadables = discover(roots)
+                .map { it to injector.getInstance(it) }
+                .distinctBy { System.identityHashCode(it.second) }
+                .sortedByDescending { it.second.loadPriority() }
+
+        log.info("Eagerly loading {} models on {} threads", loadables.size, threads)
+        val start = System.nanoTime()
+
+        val count = AtomicInteger()
+        val executor = Executors.newFixedThreadPool(threads) {
+            Thread(it, "biomedicus-eager-load-${count.incrementAndGet()}").apply { isDaemon = true }
+        }
+        try {
+            val completion = ExecutorCompletionService<LoadResult>(executor)
+            loadables.forEach { (key, loadable) -> completion.submit { load(key, loadable) } }
+
+            val results = ArrayList<LoadResult>(loadables.size)
+            repeat(loadables.size) {
+                try {
+                    results.add(completion.take().get())
+                } catch (e: ExecutionException) {
+                    throw e.cause as? BiomedicusException ?: BiomedicusException(e.cause)
+                }
+            }
+
+            log.info("Finished eager loading in {} ms",
+                    (System.nanoTime() - start) / 1_000_000)
+            return results
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    private fun load(key: Key<*>, loadable: EagerLoadable): LoadResult {
+        val runtime = Runtime.getRuntime()
+        val heapBefore = runtime.totalMemory() - runtime.freeMemory()
+        val start = System.nanoTime()
+        try {
+            loadable.eagerLoad()
+        } catch (e: Exception) {
+            throw BiomedicusException("Failed to load $key", e)
+        }
+        val result = LoadResult(
+                key,
+                (System.nanoTime() - start) / 1_000_000,
+                runtime.totalMemory() - runtime.freeMemory() - heapBefore
+        )
+        log.info("Loaded {} in {} ms, heap delta {} MB", key, result.millis,
+                result.heapDeltaBytes / (1024 * 1024))
+        return result
+    }
+}
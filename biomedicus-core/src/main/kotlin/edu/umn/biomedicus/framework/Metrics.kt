@@ -0,0 +1,362 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.framework
+
+import com.google.inject.ImplementedBy
+import edu.umn.biomedicus.annotations.Setting
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import java.io.Closeable
+import java.lang.management.ManagementFactory
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.concurrent.atomic.LongAdder
+import javax.inject.Inject
+import javax.inject.Singleton
+import javax.management.ObjectName
+
+/**
+ * Stores the [ProcessorMetrics] for every processor in the pipeline and the [ResourceMetrics] of
+ * shared resources, and notifies any [MetricsReporter] instances when new metrics are added.
+ */
+@ImplementedBy(StandardMetricsRegistry::class)
+interface MetricsRegistry {
+    /**
+     * All of the processor metrics that have been created.
+     */
+    val allProcessorMetrics: Collection<ProcessorMetrics>
+
+    /**
+     * Returns the metrics for the processor identified by [processorIdentifier], creating them if
+     * they do not exist yet.
+     */
+    fun processorMetrics(processorIdentifier: String): ProcessorMetrics
+
+    /**
+     * All of the resource metrics that have been added.
+     */
+    val allResourceMetrics: Collection<ResourceMetrics>
+
+    /**
+     * Adds the metrics of a resource shared by the processors, which are reported alongside the
+     * processor metrics.
+     */
+    fun addResourceMetrics(metrics: ResourceMetrics)
+
+    /**
+     * Adds a reporter which will be notified of all existing and future processor and resource
+     * metrics.
+     */
+    fun addReporter(reporter: MetricsReporter)
+}
+
+/**
+ * Metrics of a resource shared by the processors, such as a model database. Implementations are
+ * exported over JMX using the MXBean interface they implement.
+ */
+interface ResourceMetrics {
+    /**
+     * The kind of resource, used as the type of its MXBean.
+     */
+    val resourceType: String
+
+    /**
+     * Identifies the resource among the resources of its type.
+     */
+    val resourceName: String
+}
+
+/**
+ * Exports processor metrics somewhere outside of the process.
+ */
+interface MetricsReporter : Closeable {
+    /**
+     * Called once for every processor's metrics.
+     */
+    fun added(metrics: ProcessorMetrics)
+
+    /**
+     * Called once for every resource's metrics.
+     */
+    fun added(metrics: ResourceMetrics) {}
+}
+
+/**
+ * The default metrics registry, which adds a [JmxMetricsReporter] when the "metrics.jmx" setting
+ * is true and a [LoggingMetricsReporter] when the "metrics.logPeriodSeconds" setting is positive.
+ */
+@Singleton
+class StandardMetricsRegistry @Inject constructor(
+        @Setting("metrics.jmx") jmx: Boolean,
+        @Setting("metrics.logPeriodSeconds") logPeriodSeconds: Int
+) : MetricsRegistry, LifecycleManaged {
+    private val metrics = ConcurrentHashMap<String, ProcessorMetrics>()
+
+    private val resources = CopyOnWriteArrayList<ResourceMetrics>()
+
+    private val reporters = CopyOnWriteArrayList<MetricsReporter>()
+
+    init {
+        if (jmx) addReporter(JmxMetricsReporter())
+        if (logPeriodSeconds > 0) addReporter(LoggingMetricsReporter(this, logPeriodSeconds.toLong()))
+    }
+
+    override val allProcessorMetrics: Collection<ProcessorMetrics> get() = metrics.values
+
+    override fun processorMetrics(processorIdentifier: String): ProcessorMetrics {
+        metrics[processorIdentifier]?.let { return it }
+        var created = false
+        val result = metrics.computeIfAbsent(processorIdentifier) {
+            created = true
+            ProcessorMetrics(it)
+        }
+        if (created) reporters.forEach { it.added(result) }
+        return result
+    }
+
+    override val allResourceMetrics: Collection<ResourceMetrics> get() = resources
+
+    override fun addResourceMetrics(metrics: ResourceMetrics) {
+        resources.add(metrics)
+        reporters.forEach { it.added(metrics) }
+    }
+
+    override fun addReporter(reporter: MetricsReporter) {
+        reporters.add(reporter)
+        metrics.values.forEach { reporter.added(it) }
+        resources.forEach { reporter.added(it) }
+    }
+
+    override fun doShutdown() {
+        reporters.forEach { it.close() }
+    }
+}
+
+/**
+ * MXBean interface for the processor metrics, used to export the metrics over JMX.
+ */
+interface ProcessorMetricsMXBean {
+    val artifactCount: Long
+
+    val failureCount: Long
+
+    val characterCount: Long
+
+    val meanLatencyMillis: Double
+
+    val p50LatencyMillis: Double
+
+    val p95LatencyMillis: Double
+
+    val p99LatencyMillis: Double
+
+    val artifactsPerSecond: Double
+
+    val charactersPerSecond: Double
+}
+
+/**
+ * Throughput and latency metrics for a single processor in the pipeline.
+ *
+ * Throughput is measured in wall-clock time from the first artifact recorded, so it is the overall
+ * rate of the processor across all threads.
+ *
+ * @property processorIdentifier the identifier of the processor
+ */
+class ProcessorMetrics(val processorIdentifier: String) : ProcessorMetricsMXBean {
+    private val artifacts = LongAdder()
+
+    private val failures = LongAdder()
+
+    private val characters = LongAdder()
+
+    private val totalNanos = LongAdder()
+
+    private val firstRecorded = AtomicLong()
+
+    /**
+     * The histogram of the time taken to process each artifact in nanoseconds.
+     */
+    val latency = LatencyHistogram()
+
+    /**
+     * Records that an artifact with [characters] characters of text took [nanos] to process.
+     */
+    fun record(nanos: Long, characters: Long, failed: Boolean = false) {
+        firstRecorded.compareAndSet(0, System.nanoTime() - nanos)
+        artifacts.increment()
+        if (failed) failures.increment()
+        this.characters.add(characters)
+        totalNanos.add(nanos)
+        latency.record(nanos)
+    }
+
+    override val artifactCount get() = artifacts.sum()
+
+    override val failureCount get() = failures.sum()
+
+    override val characterCount get() = characters.sum()
+
+    override val meanLatencyMillis: Double
+        get() {
+            val count = artifactCount
+            return if (count == 0L) 0.0 else totalNanos.sum() / count / 1e6
+        }
+
+    override val p50LatencyMillis get() = latency.percentile(0.50) / 1e6
+
+    override val p95LatencyMillis get() = latency.percentile(0.95) / 1e6
+
+    override val p99LatencyMillis get() = latency.percentile(0.99) / 1e6
+
+    override val artifactsPerSecond get() = perSecond(artifactCount)
+
+    override val charactersPerSecond get() = perSecond(characterCount)
+
+    private fun perSecond(value: Long): Double {
+        val first = firstRecorded.get()
+        if (first == 0L) return 0.0
+        val seconds = (System.nanoTime() - first) / 1e9
+        return if (seconds > 0) value / seconds else 0.0
+    }
+
+    override fun toString() = String.format(
+            "%s: %d artifacts (%d failed), %.1f artifacts/s, %.0f chars/s, latency ms mean=%.3f "
+                    + "p50=%.3f p95=%.3f p99=%.3f",
+            processorIdentifier, artifactCount, failureCount, artifactsPerSecond,
+            charactersPerSecond, meanLatencyMillis, p50LatencyMillis, p95LatencyMillis,
+            p99LatencyMillis
+    )
+}
+
+/**
+ * A lock-free histogram of non-negative long values using log-linear buckets: each power of two
+ * is split into 8 equal sub-buckets, so percentiles are accurate to within 12.5%.
+ */
+class LatencyHistogram {
+    companion object {
+        private const val SUB_BITS = 3
+
+        private const val SUB_BUCKETS = 1 shl SUB_BITS
+
+        private const val BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS
+
+        internal fun bucketIndex(value: Long): Int {
+            if (value < SUB_BUCKETS) return maxOf(value, 0).toInt()
+            val msb = 63 - java.lang.Long.numberOfLeadingZeros(value)
+            val sub = ((value ushr (msb - SUB_BITS)) and (SUB_BUCKETS - 1).toLong()).toInt()
+            return (msb - SUB_BITS + 1) * SUB_BUCKETS + sub
+        }
+
+        internal fun bucketUpperBound(index: Int): Long {
+            if (index < SUB_BUCKETS) return index.toLong()
+            val shift = index / SUB_BUCKETS - 1
+            val sub = index % SUB_BUCKETS
+            return ((SUB_BUCKETS + sub + 1).toLong() shl shift) - 1
+        }
+    }
+
+    private val counts = AtomicLongArray(BUCKETS)
+
+    fun record(value: Long) {
+        counts.incrementAndGet(bucketIndex(value))
+    }
+
+    /**
+     * Returns the upper bound of the bucket containing the [quantile] value, for example 0.99 for
+     * the 99th percentile, or 0 if nothing has been recorded.
+     */
+    fun percentile(quantile: Double): Long {
+        var total = 0L
+        for (i in 0 until BUCKETS) total += counts.get(i)
+        if (total == 0L) return 0
+
+        val rank = maxOf(1L, Math.ceil(quantile * total).toLong())
+        var seen = 0L
+        for (i in 0 until BUCKETS) {
+            seen += counts.get(i)
+            if (seen >= rank) return bucketUpperBound(i)
+        }
+        return bucketUpperBound(BUCKETS - 1)
+    }
+}
+
+/**
+ * Registers every processor's and resource's metrics as an MXBean under the "edu.umn.biomedicus"
+ * domain.
+ */
+class JmxMetricsReporter : MetricsReporter {
+    private val server = ManagementFactory.getPlatformMBeanServer()
+
+    private val names = CopyOnWriteArrayList<ObjectName>()
+
+    override fun added(metrics: ProcessorMetrics) =
+            register(metrics, "ProcessorMetrics", metrics.processorIdentifier)
+
+    override fun added(metrics: ResourceMetrics) =
+            register(metrics, metrics.resourceType, metrics.resourceName)
+
+    private fun register(metrics: Any, type: String, name: String) {
+        val objectName = ObjectName("edu.umn.biomedicus:type=$type,name=" + ObjectName.quote(name))
+        if (!server.isRegistered(objectName)) {
+            server.registerMBean(metrics, objectName)
+            names.add(objectName)
+        }
+    }
+
+    override fun close() {
+        names.filter { server.isRegistered(it) }.forEach { server.unregisterMBean(it) }
+        names.clear()
+    }
+}
+
+/**
+ * Periodically logs the metrics for every processor and resource in [registry].
+ */
+class LoggingMetricsReporter(
+        private val registry: MetricsRegistry,
+        periodSeconds: Long
+) : MetricsReporter {
+    companion object {
+        val log: Logger = LoggerFactory.getLogger(LoggingMetricsReporter::class.java)
+    }
+
+    private val executor: ScheduledExecutorService = Executors.newSingleThreadScheduledExecutor {
+        Thread(it, "biomedicus-metrics-log").apply { isDaemon = true }
+    }
+
+    init {
+        executor.scheduleAtFixedRate(::report, periodSeconds, periodSeconds, TimeUnit.SECONDS)
+    }
+
+    override fun added(metrics: ProcessorMetrics) {}
+
+    fun report() {
+        registry.allProcessorMetrics.forEach { log.info(it.toString()) }
+        registry.allResourceMetrics.forEach { log.info(it.toString()) }
+    }
+
+    override fun close() {
+        executor.shutdown()
+        report()
+    }
+}
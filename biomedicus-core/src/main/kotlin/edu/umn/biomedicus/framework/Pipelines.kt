@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.framework
+
+import edu.umn.nlpengine.Artifact
+import edu.umn.nlpengine.Runner
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Semaphore
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicReference
+
+/**
+ * Drives the artifacts from an [ArtifactSourceRunner] through a chain of [Runner] instances on a
+ * pool of worker threads without going through UIMA.
+ *
+ * Artifacts are pulled from the source on the thread calling [run] and handed to the workers, each
+ * artifact running through every runner in order on a single worker thread. At most [maxInFlight]
+ * artifacts are pulled but not yet finished at any time, once that limit is reached pulling blocks
+ * until a worker finishes an artifact.
+ *
+ * When [virtualThreads] is set every artifact runs on its own virtual thread instead of on a fixed
+ * pool, so stages that block on I/O do not hold a platform thread while waiting and [maxInFlight]
+ * can be set to thousands. Concurrency of individual stages can then be capped using the
+ * "maxConcurrency" processor setting, see [ConcurrencyLimitedRunner]. On JVMs without virtual
+ * threads this falls back to a cached pool of platform threads bounded by [maxInFlight].
+ *
+ * @property source the source of artifacts
+ * @property runners the runners to run on every artifact, in order
+ * @property threads the number of worker threads, ignored when using virtual threads
+ * @property maxInFlight the maximum number of artifacts pulled from the source but not finished
+ * @property virtualThreads whether to run each artifact on a new virtual thread
+ */
+class PipelineExecutor(
+        private val source: ArtifactSourceRunner,
+        private val runners: List<Runner>,
+        private val threads: Int = Runtime.getRuntime().availableProcessors(),
+        private val maxInFlight: Int = 2 * threads,
+        private val virtualThreads: Boolean = false
+) {
+    companion object {
+        val log: Logger = LoggerFactory.getLogger(PipelineExecutor::class.java)
+
+        /**
+         * Creates an executor using the runners created by the [runnerFactory].
+         *
+         * @param sourceIdentifier the processor identifier of the artifact source
+         * @param sourceSettings the processor settings for the artifact source
+         * @param processorSettings the processor settings for each pipeline component keyed by
+         * processor identifier, in the order they should run
+         */
+        fun create(
+                runnerFactory: RunnerFactory,
+                sourceIdentifier: String,
+                sourceSettings: Map<String, *>,
+                processorSettings: Map<String, Map<String, *>>,
+                threads: Int = Runtime.getRuntime().availableProcessors(),
+                maxInFlight: Int = 2 * threads,
+                virtualThreads: Boolean = false
+        ): PipelineExecutor {
+            val source = runnerFactory.sourceRunner(sourceIdentifier, sourceSettings, emptyMap())
+            val concurrency = if (virtualThreads) maxInFlight else threads
+            val runners = processorSettings.map { (identifier, settings) ->
+                runnerFactory.getRunner(identifier, settings, emptyMap(),
+                        concurrency = concurrency)
+            }
+            return PipelineExecutor(source, runners, threads, maxInFlight, virtualThreads)
+        }
+
+        /**
+         * Creates an executor which starts a new virtual thread for each task, or null if the
+         * running JVM does not support virtual threads.
+         */
+        internal fun newVirtualThreadExecutor(): ExecutorService? = try {
+            Executors::class.java.getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null) as ExecutorService
+        } catch (e: NoSuchMethodException) {
+            null
+        }
+    }
+
+    init {
+        require(threads > 0) { "threads must be positive: $threads" }
+        require(maxInFlight > 0) { "maxInFlight must be positive: $maxInFlight" }
+        require(virtualThreads || maxInFlight >= threads) {
+            "maxInFlight: $maxInFlight must be at least threads: $threads"
+        }
+    }
+
+    /**
+     * Processes every artifact from the source, blocking until they are all finished. Afterwards
+     * calls [Runner.done] once on every runner and closes the source.
+     *
+     * If a runner fails on an artifact no further artifacts are pulled from the source, the
+     * artifacts already in flight are finished, and the first exception is rethrown without
+     * calling [Runner.done].
+     *
+     * @return the number of artifacts processed
+     */
+    fun run(): Int {
+        val completed = AtomicInteger()
+        val failure = AtomicReference<Throwable?>()
+        val permits = Semaphore(maxInFlight)
+        val executor = createExecutor()
+
+        source.use {
+            try {
+                while (failure.get() == null) {
+                    permits.acquire()
+                    var submitted = false
+                    val hasNext = source.tryAdvance { artifact ->
+                        submitted = true
+                        executor.execute {
+                            try {
+                                runners.forEach { it.processArtifact(artifact) }
+                                completed.incrementAndGet()
+                            } catch (e: Throwable) {
+                                failure.compareAndSet(null, e)
+                            } finally {
+                                permits.release()
+                            }
+                        }
+                    }
+                    if (!submitted) permits.release()
+                    if (!hasNext) break
+                }
+            } finally {
+                awaitShutdown(executor)
+            }
+
+            failure.get()?.let { throw it }
+
+            log.info("Finished processing {} artifacts", completed.get())
+            runners.forEach { it.done() }
+        }
+        return completed.get()
+    }
+
+    private fun createExecutor(): ExecutorService {
+        if (virtualThreads) {
+            newVirtualThreadExecutor()?.let { return it }
+            log.warn("Virtual threads are not supported by this JVM, using platform threads")
+            return Executors.newCachedThreadPool(WorkerThreadFactory())
+        }
+        return Executors.newFixedThreadPool(threads, WorkerThreadFactory())
+    }
+
+    private fun awaitShutdown(executor: ExecutorService) {
+        executor.shutdown()
+        while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            log.info("Waiting for in-flight artifacts to finish")
+        }
+    }
+
+    private class WorkerThreadFactory : ThreadFactory {
+        private val count = AtomicInteger()
+
+        override fun newThread(r: Runnable) =
+                Thread(r, "biomedicus-pipeline-${count.incrementAndGet()}")
+    }
+}
+
+/**
+ * Limits the number of artifacts concurrently processed by [runner] to the number of permits in
+ * [permits]. Used to cap the concurrency of individual stages when artifacts are processed on
+ * virtual threads.
+ */
+class ConcurrencyLimitedRunner(
+        private val runner: Runner,
+        private val permits: Semaphore
+) : Runner {
+    override fun processArtifact(artifact: Artifact) {
+        permits.acquire()
+        try {
+            runner.processArtifact(artifact)
+        } finally {
+            permits.release()
+        }
+    }
+
+    override fun done() = runner.done()
+}
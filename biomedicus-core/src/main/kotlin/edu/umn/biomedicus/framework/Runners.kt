@@ -19,12 +19,19 @@ package edu.umn.biomedicus.framework
 import com.google.inject.Injector
 import com.google.inject.Key
 import com.google.inject.name.Named
+import edu.umn.biomedicus.annotations.Reusable
+import edu.umn.biomedicus.annotations.SingleThreaded
 import edu.umn.nlpengine.*
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 import java.io.Closeable
 import java.util.*
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.Semaphore
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.locks.Lock
+import java.util.concurrent.locks.ReentrantLock
 import javax.inject.Inject
 import javax.inject.Provider
 import javax.inject.Singleton
@@ -36,11 +43,18 @@ import javax.inject.Singleton
 class RunnerFactory @Inject constructor(
         private val injector: Injector,
         @Named("globalSettings") private val globalSettings: Map<String, Any>,
-        private val settingsTransformerProvider: Provider<SettingsTransformer>
+        private val settingsTransformerProvider: Provider<SettingsTransformer>,
+        private val metricsRegistry: MetricsRegistry
 ) {
     private val contexts = ConcurrentHashMap<String, BiomedicusScopes.Context>()
     private val processorRunners = ConcurrentHashMap<String, Runner>()
+    private val concurrencyLimits = ConcurrentHashMap<String, Semaphore>()
 
+    /**
+     * Creates or returns the shared runner for a pipeline component. [concurrency] is the number
+     * of artifacts the pipeline can run through the component at once, if it is known, and sizes
+     * the pool of reusable task instances.
+     */
     fun getRunner(
             processorIdentifier: String,
             processorSettings: Map<String, *>,
@@ -49,43 +63,73 @@ class RunnerFactory @Inject constructor(
                     ?.let { it as? String }
                     ?.let {
                         Class.forName(it)
-                    } ?: error("pipelineComponent illegal value")
+                    } ?: error("pipelineComponent illegal value"),
+            concurrency: Int? = null
     ): Runner {
+        val maxConcurrency = processorSettings.positiveIntSetting("maxConcurrency")
+
         val (settingsInjector, processorContext) =
                 createContext(processorIdentifier, processorSettings, processorScopedObjects)
 
+        val metrics = metricsRegistry.processorMetrics(processorIdentifier)
+        val documentName = processorSettings["documentName"] as? String
+
         @Suppress("UNCHECKED_CAST")
-        return when {
-            pipelineComponent.isSubclass<DocumentTask>() -> DocumentTaskRunner(
-                    pipelineComponent as Class<out DocumentTask>,
-                    processorContext,
-                    settingsInjector,
-                    processorSettings
+        val runner = when {
+            pipelineComponent.isSubclass<DocumentTask>() -> MeteredRunner(
+                    DocumentTaskRunner(
+                            pipelineComponent as Class<out DocumentTask>,
+                            processorContext,
+                            settingsInjector,
+                            processorSettings,
+                            concurrency
+                    ),
+                    metrics,
+                    documentName
             )
-            pipelineComponent.isSubclass<ArtifactTask>() -> ArtifactTaskRunner(
-                    pipelineComponent as Class<out ArtifactTask>,
-                    processorContext,
-                    settingsInjector
+            pipelineComponent.isSubclass<ArtifactTask>() -> MeteredRunner(
+                    ArtifactTaskRunner(
+                            pipelineComponent as Class<out ArtifactTask>,
+                            processorContext,
+                            settingsInjector,
+                            processorSettings,
+                            concurrency
+                    ),
+                    metrics
             )
             pipelineComponent.isSubclass<ArtifactsProcessor>() -> processorRunners
                     .computeIfAbsent(processorIdentifier) {
-                        ArtifactsProcessorRunner(
-                                pipelineComponent as Class<out ArtifactsProcessor>,
-                                processorContext,
-                                settingsInjector
+                        MeteredRunner(
+                                ArtifactsProcessorRunner(
+                                        pipelineComponent as Class<out ArtifactsProcessor>,
+                                        processorContext,
+                                        settingsInjector
+                                ),
+                                metrics
                         )
                     }
             pipelineComponent.isSubclass<DocumentsProcessor>() -> processorRunners
                     .computeIfAbsent(processorIdentifier) {
-                        DocumentsProcessorRunner(
-                                pipelineComponent as Class<out DocumentsProcessor>,
-                                processorContext,
-                                settingsInjector,
-                                processorSettings
+                        MeteredRunner(
+                                DocumentsProcessorRunner(
+                                        pipelineComponent as Class<out DocumentsProcessor>,
+                                        processorContext,
+                                        settingsInjector,
+                                        processorSettings
+                                ),
+                                metrics,
+                                documentName
                         )
                     }
             else -> throw IllegalArgumentException("Unknown processor class ${pipelineComponent.canonicalName}")
         }
+
+        return maxConcurrency?.let {
+            val permits = concurrencyLimits.computeIfAbsent(processorIdentifier) { _ ->
+                Semaphore(it)
+            }
+            ConcurrencyLimitedRunner(runner, permits)
+        } ?: runner
     }
 
     fun sourceRunner(
@@ -102,7 +146,12 @@ class RunnerFactory @Inject constructor(
                 createContext(processorIdentifier, processorSettings, processorScopedObjects)
 
 
-        return ArtifactSourceRunner(sourceClass, processorContext, settingsInjector)
+        return ArtifactSourceRunner(
+                sourceClass,
+                processorContext,
+                settingsInjector,
+                metricsRegistry.processorMetrics(processorIdentifier)
+        )
     }
 
     private fun createContext(
@@ -136,21 +185,26 @@ class RunnerFactory @Inject constructor(
  * Runs [ArtifactTask] instances.
  */
 class ArtifactTaskRunner(
-        private val taskClass: Class<out ArtifactTask>,
+        taskClass: Class<out ArtifactTask>,
         private val processorContext: BiomedicusScopes.Context,
-        private val settingsInjector: Injector
+        settingsInjector: Injector,
+        processorSettings: Map<String, *> = emptyMap<String, Any>(),
+        concurrency: Int? = null
 ) : Runner {
     companion object {
         val log: Logger = LoggerFactory.getLogger(ArtifactTaskRunner::class.java)
     }
 
+    private val tasks = TaskInstances(taskClass, settingsInjector, processorSettings, concurrency)
+
     override fun processArtifact(artifact: Artifact): Unit = processorContext.call {
-        val processor = settingsInjector.getInstance(taskClass)
-        try {
-            processor.run(artifact)
-        } catch (e: Exception) {
-            log.error("Processing failed on artifact: ${artifact.artifactID}")
-            throw e
+        tasks.use { processor ->
+            try {
+                processor.run(artifact)
+            } catch (e: Exception) {
+                log.error("Processing failed on artifact: ${artifact.artifactID}")
+                throw e
+            }
         }
     }
 }
@@ -159,10 +213,11 @@ class ArtifactTaskRunner(
  * Runs [DocumentTask] instances.
  */
 class DocumentTaskRunner(
-        private val taskClass: Class<out DocumentTask>,
+        taskClass: Class<out DocumentTask>,
         private val processorContext: BiomedicusScopes.Context,
-        private val settingsInjector: Injector,
-        processorSettings: Map<String, *>
+        settingsInjector: Injector,
+        processorSettings: Map<String, *>,
+        concurrency: Int? = null
 ) : Runner {
     companion object {
         val log: Logger = LoggerFactory.getLogger(DocumentTaskRunner::class.java)
@@ -170,20 +225,24 @@ class DocumentTaskRunner(
 
     private val documentName = processorSettings.getSetting<String>("documentName")
 
+    private val tasks = TaskInstances(taskClass, settingsInjector, processorSettings, concurrency)
+
     init {
         processorContext.call {
-            settingsInjector.getInstance(taskClass)
+            tasks.use { }
         }
     }
 
     override fun processArtifact(artifact: Artifact): Unit = artifact.documents[documentName]
             ?.let {
                 processorContext.call {
-                    try {
-                        settingsInjector.getInstance(taskClass).run(it)
-                    } catch (e: Exception) {
-                        log.error("Processing failed on artifact: ${artifact.artifactID}")
-                        throw e
+                    tasks.use { task ->
+                        try {
+                            task.run(it)
+                        } catch (e: Exception) {
+                            log.error("Processing failed on artifact: ${artifact.artifactID}")
+                            throw e
+                        }
                     }
                 }
             } ?: throw IllegalArgumentException("No document with name: $documentName")
@@ -191,7 +250,56 @@ class DocumentTaskRunner(
 }
 
 /**
- * Runs [ArtifactsProcessor] instances.
+ * Supplies the task instances for a task runner. By default a new instance of [taskClass] is
+ * injected for every use. Tasks annotated [Reusable] or configured with the "reuseInstances"
+ * processor setting are instead kept in a pool of idle instances after use, so only as many
+ * instances are created as there are threads running the task at once.
+ *
+ * The pool keeps at most as many idle instances as the task can be running on at once: the
+ * "maxConcurrency" processor setting if it is set, otherwise the [concurrency] of the pipeline
+ * running the task, otherwise the number of available processors. Instances beyond that, created
+ * during a burst of concurrent artifacts, are dropped when they are done instead of being kept
+ * forever.
+ *
+ * Must be used inside of the processor context so that new instances can be injected.
+ */
+internal class TaskInstances<T : Any>(
+        private val taskClass: Class<out T>,
+        private val settingsInjector: Injector,
+        processorSettings: Map<String, *>,
+        concurrency: Int? = null
+) {
+    val reusable = taskClass.isAnnotationPresent(Reusable::class.java)
+            || processorSettings["reuseInstances"] == true
+
+    val maxIdle = processorSettings.positiveIntSetting("maxConcurrency")
+            ?: concurrency
+            ?: Runtime.getRuntime().availableProcessors()
+
+    private val idle = ConcurrentLinkedQueue<T>()
+
+    private val idleCount = AtomicInteger()
+
+    /**
+     * Runs [block] with an instance of the task. Instances are not returned to the pool when
+     * [block] throws, in case they were left in an inconsistent state.
+     */
+    fun <R> use(block: (T) -> R): R {
+        val instance = idle.poll()?.also { idleCount.decrementAndGet() }
+                ?: settingsInjector.getInstance(taskClass)
+        val result = block(instance)
+        if (reusable) {
+            if (idleCount.incrementAndGet() <= maxIdle) idle.offer(instance)
+            else idleCount.decrementAndGet()
+        }
+        return result
+    }
+}
+
+/**
+ * Runs [ArtifactsProcessor] instances. There is a single processor instance which is called
+ * concurrently when artifacts are processed on several threads, unless it is annotated
+ * [SingleThreaded], in which case calls into it are serialized.
  */
 class ArtifactsProcessorRunner(
         pipelineComponent: Class<out ArtifactsProcessor>,
@@ -206,22 +314,30 @@ class ArtifactsProcessorRunner(
         settingsInjector.getInstance(pipelineComponent)
     }
 
+    private val lock = singleThreadedLock(pipelineComponent)
+
     override fun processArtifact(artifact: Artifact): Unit = processorContext.call {
-        try {
-            processor.process(artifact)
-        } catch (e: Exception) {
-            log.error("Processing failed on artifact: ${artifact.artifactID}")
-            throw e
+        lock.locked {
+            try {
+                processor.process(artifact)
+            } catch (e: Exception) {
+                log.error("Processing failed on artifact: ${artifact.artifactID}")
+                throw e
+            }
         }
     }
 
     override fun done(): Unit = processorContext.call {
-        processor.done()
+        lock.locked {
+            processor.done()
+        }
     }
 }
 
 /**
- * Runs [DocumentsProcessor] instances.
+ * Runs [DocumentsProcessor] instances. There is a single processor instance which is called
+ * concurrently when artifacts are processed on several threads, unless it is annotated
+ * [SingleThreaded], in which case calls into it are serialized.
  */
 class DocumentsProcessorRunner(
         pipelineComponent: Class<out DocumentsProcessor>,
@@ -239,30 +355,89 @@ class DocumentsProcessorRunner(
         settingsInjector.getInstance(pipelineComponent)
     }
 
+    private val lock = singleThreadedLock(pipelineComponent)
+
     override fun processArtifact(artifact: Artifact) = artifact.documents[documentName]
             ?.let {
                 processorContext.call {
-                    try {
-                        processor.process(it)
-                    } catch (e: Exception) {
-                        log.error("Processing failed on artifact: ${artifact.artifactID}")
-                        throw e
+                    lock.locked {
+                        try {
+                            processor.process(it)
+                        } catch (e: Exception) {
+                            log.error("Processing failed on artifact: ${artifact.artifactID}")
+                            throw e
+                        }
                     }
                 }
             } ?: throw IllegalArgumentException("No document with name: $documentName")
 
     override fun done(): Unit = processorContext.call {
-        processor.done()
+        lock.locked {
+            processor.done()
+        }
+    }
+}
+
+/**
+ * The lock serializing calls into a processor of [pipelineComponent], or null if the processor
+ * can be called concurrently.
+ */
+private fun singleThreadedLock(pipelineComponent: Class<*>): Lock? =
+        if (pipelineComponent.isAnnotationPresent(SingleThreaded::class.java)) ReentrantLock()
+        else null
+
+/**
+ * Runs [block] holding this lock, or without locking if there is no lock.
+ */
+private inline fun <R> Lock?.locked(block: () -> R): R {
+    if (this == null) return block()
+    lock()
+    try {
+        return block()
+    } finally {
+        unlock()
     }
 }
 
 /**
- * Runs [ArtifactSource] instances.
+ * Records the latency, throughput and failures of [runner] in [metrics]. Characters are counted
+ * from the document named [documentName], or from every document in the artifact if it is null.
+ */
+class MeteredRunner(
+        private val runner: Runner,
+        private val metrics: ProcessorMetrics,
+        private val documentName: String? = null
+) : Runner {
+    override fun processArtifact(artifact: Artifact) {
+        val start = System.nanoTime()
+        var failed = true
+        try {
+            runner.processArtifact(artifact)
+            failed = false
+        } finally {
+            metrics.record(System.nanoTime() - start, characters(artifact), failed)
+        }
+    }
+
+    private fun characters(artifact: Artifact): Long {
+        if (documentName != null) {
+            return artifact.documents[documentName]?.text?.length?.toLong() ?: 0
+        }
+        return artifact.documents.values.fold(0L) { sum, document -> sum + document.text.length }
+    }
+
+    override fun done() = runner.done()
+}
+
+/**
+ * Runs [ArtifactSource] instances. When [metrics] is given, records the time taken to read each
+ * artifact.
  */
 class ArtifactSourceRunner(
         sourceClass: Class<out ArtifactSource>,
         private val processorContext: BiomedicusScopes.Context,
-        private val settingsInjector: Injector
+        private val settingsInjector: Injector,
+        private val metrics: ProcessorMetrics? = null
 ) : Closeable {
     private val source = processorContext.call {
         settingsInjector.getInstance(sourceClass)
@@ -272,10 +447,21 @@ class ArtifactSourceRunner(
         source.estimateTotal()
     }
 
-    fun tryAdvance(consumer: (Artifact) -> Unit): Boolean =
-            processorContext.call {
-                source.tryAdvance(consumer)
+    fun tryAdvance(consumer: (Artifact) -> Unit): Boolean {
+        if (metrics == null) {
+            return processorContext.call { source.tryAdvance(consumer) }
+        }
+        val start = System.nanoTime()
+        return processorContext.call {
+            source.tryAdvance {
+                val characters = it.documents.values.fold(0L) { sum, document ->
+                    sum + document.text.length
+                }
+                metrics.record(System.nanoTime() - start, characters)
+                consumer(it)
             }
+        }
+    }
 
     override fun close() = processorContext.call {
         source.close()
@@ -287,6 +473,23 @@ internal inline fun <reified T> Map<String, *>.getSetting(key: String): T {
             ?: throw IllegalStateException("Setting not found with key: $key")
 }
 
+/**
+ * Returns the setting with [key] as a positive whole number, or null if it is not set. The value
+ * may be a number, or a string as it is when it comes from a UIMA parameter.
+ *
+ * @throws IllegalArgumentException if the value is not a whole number or is not positive
+ */
+internal fun Map<String, *>.positiveIntSetting(key: String): Int? {
+    val value = this[key] ?: return null
+    val number = when (value) {
+        is Int, is Long, is Short, is Byte -> (value as Number).toInt()
+        is String -> value.trim().toIntOrNull()
+        else -> null
+    } ?: throw IllegalArgumentException("Setting $key must be a whole number: $value")
+    require(number > 0) { "Setting $key must be positive: $number" }
+    return number
+}
+
 internal inline fun <reified T> Class<*>.isSubclass(): Boolean {
     return T::class.java.isAssignableFrom(this)
 }
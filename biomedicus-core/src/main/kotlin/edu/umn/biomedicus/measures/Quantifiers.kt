@@ -103,10 +103,6 @@ data class Quantifier(
     )
 }
 
-private val test: (String, Token) -> Boolean = { word, token: Token ->
-    token.text.equals(word, true)
-}
-
 /**
  * Detects instances of [IndefiniteQuantifierCue], which are of 3 types defined in
  * [IndefiniteQuantifierType] and also detects [FuzzyValue].
@@ -123,10 +119,10 @@ class IndefiniteQuantifierDetector(
         @Setting("measures.indefiniteQuantifiers.local.asDataPath") localPath: String,
         @Setting("measures.indefiniteQuantifiers.fuzzy.asDataPath") fuzzyPath: String
     ) : this(
-        SequenceDetector.loadFromFile(leftPath, test),
-        SequenceDetector.loadFromFile(rightPath, test),
-        SequenceDetector.loadFromFile(localPath, test),
-        SequenceDetector.loadFromFile(fuzzyPath, test)
+        SequenceDetector.loadFromFileIgnoreCase(leftPath, Token::text),
+        SequenceDetector.loadFromFileIgnoreCase(rightPath, Token::text),
+        SequenceDetector.loadFromFileIgnoreCase(localPath, Token::text),
+        SequenceDetector.loadFromFileIgnoreCase(fuzzyPath, Token::text)
     )
 
     override fun process(document: Document) {
@@ -186,7 +182,7 @@ class StandaloneQuantifierDetector(
 ) : DocumentsProcessor {
     @Inject constructor(
         @Setting("measures.standaloneQuantifiers.asDataPath") path: String
-    ) : this(SequenceDetector.loadFromFile(path, test))
+    ) : this(SequenceDetector.loadFromFileIgnoreCase(path, Token::text))
 
     override fun process(document: Document) {
         val sentences = document.labelIndex<Sentence>()
@@ -16,10 +16,12 @@
 
 package edu.umn.biomedicus.sentences
 
+import edu.umn.biomedicus.annotations.SingleThreaded
 import edu.umn.nlpengine.Document
 import edu.umn.nlpengine.DocumentsProcessor
 import edu.umn.nlpengine.labelIndex
 
+@SingleThreaded
 class SentenceEndingStats : DocumentsProcessor {
 
     val periodRegex = Regex("[.]\\s*$")
@@ -17,6 +17,7 @@
 package edu.umn.biomedicus.sentences
 
 import edu.umn.biomedicus.annotations.ComponentSetting
+import edu.umn.biomedicus.annotations.SingleThreaded
 import edu.umn.biomedicus.tokenization.TokenCandidate
 import edu.umn.nlpengine.Document
 import edu.umn.nlpengine.DocumentsProcessor
@@ -25,6 +26,7 @@ import java.io.File
 import java.nio.charset.StandardCharsets
 import javax.inject.Inject
 
+@SingleThreaded
 class SentencesWekaWriter @Inject constructor(
     @ComponentSetting("outputFile") outputFile: String
 ) : DocumentsProcessor {
@@ -240,7 +240,7 @@ class AlcoholTemporalDetector : DocumentTask {
 class AlcoholTypes(val detector: SequenceDetector<String, Token>) {
     @Inject internal constructor(
             @Setting("sh.alcohol.types.asDataPath") path: Path
-    ) : this(SequenceDetector.loadFromFile(path, tokenTextEquals))
+    ) : this(SequenceDetector.loadFromFileIgnoreCase(path, Token::text))
 }
 
 /**
@@ -270,7 +270,7 @@ class AlcoholTypeDetector(
 class AlcoholStatusPhrases(val detector: SequenceDetector<String, Token>) {
     @Inject internal constructor(
             @Setting("sh.alcohol.statusPhrases.asDataPath") path: Path
-    ) : this(SequenceDetector.loadFromFile(path, tokenTextEquals))
+    ) : this(SequenceDetector.loadFromFileIgnoreCase(path, Token::text))
 }
 
 /**
@@ -307,7 +307,7 @@ class AlcoholStatusDetector(
 class AlcoholMethodPhrases(val detector: SequenceDetector<String, Token>) {
     @Inject internal constructor(
             @Setting("sh.alcohol.methodPhrases.asDataPath") path: Path
-    ) : this(SequenceDetector.loadFromFile(path, tokenTextEquals))
+    ) : this(SequenceDetector.loadFromFileIgnoreCase(path, Token::text))
 }
 
 /**
@@ -240,7 +240,7 @@ class DrugTemporalDetector : DocumentTask {
 class DrugTypes(val detector: SequenceDetector<String, Token>) {
     @Inject internal constructor(
             @Setting("sh.drugs.types.asDataPath") path: Path
-    ) : this(SequenceDetector.loadFromFile(path, tokenTextEquals))
+    ) : this(SequenceDetector.loadFromFileIgnoreCase(path, Token::text))
 }
 
 /**
@@ -286,7 +286,7 @@ class DrugStatusDetector : DocumentTask {
 class DrugMethodPhrases(val detector: SequenceDetector<String, Token>) {
     @Inject internal constructor(
             @Setting("sh.drugs.methodPhrases.asDataPath") path: Path
-    ) : this(SequenceDetector.loadFromFile(path, tokenTextEquals))
+    ) : this(SequenceDetector.loadFromFileIgnoreCase(path, Token::text))
 }
 
 /**
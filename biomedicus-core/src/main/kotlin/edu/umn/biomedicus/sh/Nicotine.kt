@@ -263,7 +263,7 @@ class NicotineTemporalDetector : DocumentTask {
 class NicotineTypes(val detector: SequenceDetector<String, Token>) {
     @Inject internal constructor(
             @Setting("sh.nicotine.types.asDataPath") path: Path
-    ) : this(SequenceDetector.loadFromFile(path, tokenTextEquals))
+    ) : this(SequenceDetector.loadFromFileIgnoreCase(path, Token::text))
 }
 
 /**
@@ -302,9 +302,7 @@ class NicotineTypeDetector(
 class NicotineStatusPhrases(val detector: SequenceDetector<String, ParseToken>) {
     @Inject internal constructor(
             @Setting("sh.nicotine.statusPhrases.asDataPath") path: Path
-    ) : this(SequenceDetector.loadFromFile(path) { string, token: ParseToken ->
-        token.text.compareTo(string, true) == 0
-    })
+    ) : this(SequenceDetector.loadFromFileIgnoreCase(path, ParseToken::text))
 }
 
 /**
@@ -351,9 +349,7 @@ class NicotineStatusDetector(
 class NicotineMethodPhrases(val detector: SequenceDetector<String, ParseToken>) {
     @Inject internal constructor(
             @Setting("sh.nicotine.methodPhrases.asDataPath") path: Path
-    ) : this(SequenceDetector.loadFromFile(path) { string, token: ParseToken ->
-        token.text.compareTo(string, true) == 0
-    })
+    ) : this(SequenceDetector.loadFromFileIgnoreCase(path, ParseToken::text))
 }
 
 /**
@@ -183,10 +183,6 @@ internal val tokenStartsWith: (String, Token) -> Boolean = { a, b: Token ->
     b.text.startsWith(a, true)
 }
 
-internal val tokenTextEquals: (String, Token) -> Boolean = { a, b: Token ->
-    b.text.compareTo(a, true) == 0
-}
-
 /**
  * The models for the candidate detectors and general social history tasks.
  */
@@ -340,9 +336,7 @@ class SocialHistoryCandidateDetector(
 class UsageFrequencyPhrases @Inject constructor(
         @Setting("sh.usageFrequencyPhrases.asDataPath") path: Path
 ) {
-    val detector = SequenceDetector.loadFromFile(path) { a, b: Token ->
-        b.text.compareTo(a, true) == 0
-    }
+    val detector = SequenceDetector.loadFromFileIgnoreCase(path, Token::text)
 }
 
 /**
@@ -437,7 +431,7 @@ class UsageFrequencyDetector(private val expr: SearchExpr) : DocumentTask {
 class UsageStatusPhrases(val detector: SequenceDetector<String, Token>) {
     @Inject constructor(
             @Setting("sh.statusPhrases.asDataPath") path: Path
-    ) : this(SequenceDetector.loadFromFile(path, tokenTextEquals))
+    ) : this(SequenceDetector.loadFromFileIgnoreCase(path, Token::text))
 }
 
 /**
@@ -480,7 +474,7 @@ class UsageStatusDetector(
 class GenericMethodPhrases(val detector: SequenceDetector<String, Token>) {
     @Inject internal constructor(
             @Setting("sh.genericMethodPhrases.asDataPath") path: Path
-    ) : this(SequenceDetector.loadFromFile(path, tokenTextEquals))
+    ) : this(SequenceDetector.loadFromFileIgnoreCase(path, Token::text))
 }
 
 /**
@@ -17,14 +17,18 @@
 package edu.umn.biomedicus.time
 
 import edu.umn.biomedicus.annotations.Setting
+import edu.umn.biomedicus.common.Gazetteer
 import edu.umn.biomedicus.common.types.syntax.PartOfSpeech
 import edu.umn.biomedicus.exc.BiomedicusException
+import edu.umn.biomedicus.framework.LifecycleManaged
 import edu.umn.biomedicus.framework.SearchExpr
 import edu.umn.biomedicus.framework.SearchExprFactory
 import edu.umn.biomedicus.sentences.Sentence
 import edu.umn.biomedicus.tagging.PosTag
 import edu.umn.biomedicus.tokenization.ParseToken
 import edu.umn.nlpengine.*
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
 import java.io.File
 import java.nio.charset.StandardCharsets
 import java.nio.file.Path
@@ -112,6 +116,7 @@ class DaysOfWeek(val values: List<String>) {
 /**
  * Detects days of week in text
  */
+@Deprecated("Replaced by DetectTimeWords, which detects all of the time word lists in one pass")
 class DetectDaysOfWeek(val values: List<String>) : DocumentTask {
     @Inject constructor(daysOfWeek: DaysOfWeek) : this(daysOfWeek.values)
 
@@ -139,6 +144,7 @@ class TimesOfDay(val values: List<String>) {
     )
 }
 
+@Deprecated("Replaced by DetectTimeWords, which detects all of the time word lists in one pass")
 class DetectTimesOfDay(val values: List<String>) : DocumentTask {
     @Inject constructor(timesOfDay: TimesOfDay) : this(timesOfDay.values)
 
@@ -161,6 +167,7 @@ class Seasons(val values: List<String>) {
     )
 }
 
+@Deprecated("Replaced by DetectTimeWords, which detects all of the time word lists in one pass")
 class DetectSeasonWords(val values: List<String>) : DocumentTask {
     @Inject constructor(seasons: Seasons) : this(seasons.values)
 
@@ -187,6 +194,7 @@ class Months(val months: List<String>) {
 /**
  * Detects months in text.
  */
+@Deprecated("Replaced by DetectTimeWords, which detects all of the time word lists in one pass")
 class DetectMonths(val months: List<String>) : DocumentTask {
     @Inject constructor(months: Months) : this(months.months)
 
@@ -211,6 +219,98 @@ class DetectMonths(val months: List<String>) : DocumentTask {
 }
 
 
+/**
+ * The days of week, times of day, seasons and months word lists in one gazetteer, so that
+ * [DetectTimeWords] can find all of them with a single scan of the tokens. Logs the statistics of
+ * each list on shutdown.
+ */
+@Singleton
+class TimeWords(val gazetteer: Gazetteer) : LifecycleManaged {
+    @Inject constructor(
+            daysOfWeek: DaysOfWeek,
+            timesOfDay: TimesOfDay,
+            seasons: Seasons,
+            months: Months
+    ) : this(Gazetteer(linkedMapOf(
+            DAYS_OF_WEEK to daysOfWeek.values,
+            TIMES_OF_DAY to timesOfDay.values,
+            SEASONS to seasons.values,
+            MONTHS to months.months
+    )))
+
+    companion object {
+        const val DAYS_OF_WEEK = "daysOfWeek"
+
+        const val TIMES_OF_DAY = "timesOfDay"
+
+        const val SEASONS = "seasons"
+
+        const val MONTHS = "months"
+
+        val log: Logger = LoggerFactory.getLogger(TimeWords::class.java)
+    }
+
+    override fun doShutdown() {
+        log.info("Time words scanned {} tokens", gazetteer.tokenCount())
+        for ((name, entries, matches) in gazetteer.statistics()) {
+            log.info("Time words list {}: {} entries, {} matches", name, entries, matches)
+        }
+    }
+}
+
+/**
+ * Detects days of week, times of day, seasons and months in text with one scan of the tokens
+ * against the [TimeWords] gazetteer, replacing [DetectDaysOfWeek], [DetectTimesOfDay],
+ * [DetectSeasonWords] and [DetectMonths].
+ *
+ * Like those detectors, days of week are only labeled when their first token is tagged as a noun
+ * and months when their first token is tagged as a noun or modal.
+ */
+class DetectTimeWords(private val gazetteer: Gazetteer) : DocumentTask {
+    @Inject constructor(timeWords: TimeWords) : this(timeWords.gazetteer)
+
+    private val daysOfWeek = gazetteer.indexOf(TimeWords.DAYS_OF_WEEK)
+
+    private val timesOfDay = gazetteer.indexOf(TimeWords.TIMES_OF_DAY)
+
+    private val seasons = gazetteer.indexOf(TimeWords.SEASONS)
+
+    private val months = gazetteer.indexOf(TimeWords.MONTHS)
+
+    override fun run(document: Document) {
+        val tokens = document.labelIndex<ParseToken>().asList()
+        val posTags = document.labelIndex<PosTag>()
+
+        val dayOfWeekLabeler = document.labeler<DayOfWeek>()
+        val timeOfDayLabeler = document.labeler<TimeOfDayWord>()
+        val seasonLabeler = document.labeler<SeasonWord>()
+        val monthLabeler = document.labeler<Month>()
+
+        for (match in gazetteer.findAll(tokens.map { it.text })) {
+            val first = tokens[match.first]
+            val span = Span(first.startIndex, tokens[match.end - 1].endIndex)
+            when (match.list) {
+                daysOfWeek -> {
+                    val partOfSpeech = posTags.firstAtLocation(first)?.partOfSpeech
+                    if (partOfSpeech == PartOfSpeech.NN || partOfSpeech == PartOfSpeech.NNP) {
+                        dayOfWeekLabeler.add(DayOfWeek(span))
+                    }
+                }
+                timesOfDay -> timeOfDayLabeler.add(TimeOfDayWord(span))
+                seasons -> seasonLabeler.add(SeasonWord(span))
+                months -> {
+                    val partOfSpeech = posTags.firstAtLocation(first)?.partOfSpeech
+                    if (partOfSpeech == PartOfSpeech.NN || partOfSpeech == PartOfSpeech.NNP
+                            || partOfSpeech == PartOfSpeech.MD) {
+                        monthLabeler.add(Month(span))
+                    }
+                }
+            }
+        }
+    }
+}
+
+
 internal val yearPattern = Regex("(18|19|20)\\d{2}")
 
 class DetectYearNumbers : DocumentTask {
@@ -17,12 +17,14 @@
 package edu.umn.biomedicus.util
 
 import edu.umn.biomedicus.annotations.ComponentSetting
+import edu.umn.biomedicus.annotations.SingleThreaded
 import edu.umn.nlpengine.ArtifactsProcessor
 import edu.umn.nlpengine.Artifact
 import java.io.File
 import javax.inject.Inject
 
 
+@SingleThreaded
 class UniqueCharactersProcessor @Inject internal constructor(
         @ComponentSetting("outputFile") private val outputFile: String,
         @ComponentSetting("documentName") private val documentName: String
@@ -17,6 +17,7 @@
 package edu.umn.biomedicus.util
 
 import edu.umn.biomedicus.annotations.ComponentSetting
+import edu.umn.biomedicus.annotations.SingleThreaded
 import edu.umn.biomedicus.sentences.TextSegment
 import edu.umn.biomedicus.tokenization.EmbeddingToken
 import edu.umn.biomedicus.tokenization.TokenCandidate
@@ -31,6 +32,7 @@ import javax.inject.Inject
  * Pre-processes documents for Word2Vec or FastText by removing all punctuation and writing tokens
  * to a single file.
  */
+@SingleThreaded
 class Word2VecTrainingWriter @Inject constructor(
     @ComponentSetting("outputFile") outputFile: String
 ) : DocumentsProcessor {
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.acronym;
+
+import edu.umn.biomedicus.tokenization.Token;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the time taken to score the senses of acronym occurrences by vectorizing each context
+ * into a new sparse vector and taking its dot product with every sense vector, and by
+ * vectorizing into a reused {@link ContextVector} and scoring a {@link SenseMatrix}.
+ * <p>Contexts are 40 tokens, about the window the vector space uses on either side of an
+ * acronym, drawn from a 20000 word vocabulary, scored against 12 senses.</p>
+ */
+public class SenseMatrixBenchmark {
+
+  public static void main(String[] args) {
+    int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+    int words = 20000;
+    Random random = new Random(13);
+    WordVectorSpace wordVectorSpace = SenseMatrixTest.randomVectorSpace(words);
+    Map<String, SparseVector> senseVectors = SenseMatrixTest.randomSenseVectors(random, 12,
+        words);
+    List<String> senses = new ArrayList<>(senseVectors.keySet());
+    SenseMatrix senseMatrix = SenseMatrix.pack(senses, new HashSenseVectors(senseVectors));
+    ContextVector contextVector = new ContextVector();
+
+    List<List<Token>> contexts = new ArrayList<>();
+    for (int i = 0; i < 20000; i++) {
+      contexts.add(SenseMatrixTest.randomContext(random, 40, words));
+    }
+
+    for (int i = 0; i < iterations; i++) {
+      long start = System.nanoTime();
+      for (List<Token> context : contexts) {
+        SenseMatrixTest.generic(wordVectorSpace, senseVectors, senses, context, 20,
+            Double.NEGATIVE_INFINITY);
+      }
+      long generic = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (List<Token> context : contexts) {
+        SenseMatrixTest.packed(wordVectorSpace, senseMatrix, contextVector, context, 20,
+            Integer.MAX_VALUE, Double.NEGATIVE_INFINITY);
+      }
+      long packed = System.nanoTime() - start;
+
+      System.out.printf("iteration %d: generic %.1f ns/acronym, packed %.1f ns/acronym%n", i,
+          (double) generic / contexts.size(), (double) packed / contexts.size());
+    }
+  }
+}
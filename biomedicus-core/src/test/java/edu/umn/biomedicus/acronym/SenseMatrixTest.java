@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.acronym;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.umn.biomedicus.acronyms.ScoredSense;
+import edu.umn.biomedicus.tokenization.ParseToken;
+import edu.umn.biomedicus.tokenization.Token;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+public class SenseMatrixTest {
+
+  static WordVectorSpace randomVectorSpace(int words) {
+    Map<String, Integer> dictionary = new HashMap<>();
+    for (int i = 0; i < words; i++) {
+      dictionary.put("w" + i, i);
+    }
+    WordVectorSpace wordVectorSpace = new WordVectorSpace();
+    wordVectorSpace.setDictionary(dictionary);
+    wordVectorSpace.setCountingDocuments(false);
+    return wordVectorSpace;
+  }
+
+  static Map<String, SparseVector> randomSenseVectors(Random random, int senses, int words) {
+    Map<String, SparseVector> senseVectors = new HashMap<>();
+    for (int i = 0; i < senses; i++) {
+      Map<Integer, Double> vector = new HashMap<>();
+      for (int j = 0; j < words / 4; j++) {
+        vector.put(random.nextInt(words), random.nextDouble());
+      }
+      senseVectors.put("sense" + i, new SparseVector(vector));
+    }
+    return senseVectors;
+  }
+
+  static List<Token> randomContext(Random random, int length, int words) {
+    List<Token> context = new ArrayList<>();
+    for (int i = 0; i < length; i++) {
+      String text = random.nextInt(10) == 0 ? "unknown" : "w" + random.nextInt(words);
+      context.add(new ParseToken(0, 0, text, true));
+    }
+    return context;
+  }
+
+  static List<ScoredSense> generic(WordVectorSpace wordVectorSpace,
+      Map<String, SparseVector> senseVectors, List<String> senses, List<Token> context,
+      int index, double cutoffScore) {
+    SparseVector vector = wordVectorSpace.vectorize(context, index);
+    return senses.stream()
+        .filter(senseVectors::containsKey)
+        .map(sense -> new ScoredSense(sense, vector.dot(senseVectors.get(sense))))
+        .filter(scored -> scored.getScore() >= cutoffScore)
+        .sorted(Comparator.comparing(ScoredSense::getScore).reversed())
+        .collect(Collectors.toList());
+  }
+
+  static List<ScoredSense> packed(WordVectorSpace wordVectorSpace, SenseMatrix senseMatrix,
+      ContextVector contextVector, List<Token> context, int index, int k, double cutoffScore) {
+    contextVector.clear();
+    wordVectorSpace.vectorize(context, index, contextVector);
+    return senseMatrix.topSenses(contextVector, k, cutoffScore);
+  }
+
+  @Test
+  void testSameAsDotProducts() {
+    Random random = new Random(3);
+    WordVectorSpace wordVectorSpace = randomVectorSpace(500);
+    Map<String, SparseVector> senseVectors = randomSenseVectors(random, 8, 500);
+    List<String> senses = new ArrayList<>(senseVectors.keySet());
+    senses.add("no vector");
+    SenseMatrix senseMatrix = SenseMatrix.pack(senses, new HashSenseVectors(senseVectors));
+    assertEquals(8, senseMatrix.rows());
+
+    ContextVector contextVector = new ContextVector();
+    for (int i = 0; i < 200; i++) {
+      List<Token> context = randomContext(random, 40, 500);
+      int index = random.nextInt(context.size());
+      for (double cutoffScore : new double[]{Double.NEGATIVE_INFINITY, 1.0}) {
+        assertEquals(
+            generic(wordVectorSpace, senseVectors, senses, context, index, cutoffScore),
+            packed(wordVectorSpace, senseMatrix, contextVector, context, index,
+                Integer.MAX_VALUE, cutoffScore)
+        );
+      }
+    }
+  }
+
+  @Test
+  void testTopK() {
+    Random random = new Random(5);
+    WordVectorSpace wordVectorSpace = randomVectorSpace(100);
+    Map<String, SparseVector> senseVectors = randomSenseVectors(random, 5, 100);
+    List<String> senses = new ArrayList<>(senseVectors.keySet());
+    SenseMatrix senseMatrix = SenseMatrix.pack(senses, new HashSenseVectors(senseVectors));
+    List<Token> context = randomContext(random, 30, 100);
+
+    List<ScoredSense> all = packed(wordVectorSpace, senseMatrix, new ContextVector(), context, 15,
+        Integer.MAX_VALUE, Double.NEGATIVE_INFINITY);
+    List<ScoredSense> top = packed(wordVectorSpace, senseMatrix, new ContextVector(), context, 15,
+        2, Double.NEGATIVE_INFINITY);
+    assertEquals(all.subList(0, 2), top);
+  }
+
+  @Test
+  void testEqualScoresKeepOrder() {
+    Map<Integer, Double> vector = new HashMap<>();
+    vector.put(1, 1.0);
+    Map<String, SparseVector> senseVectors = new HashMap<>();
+    senseVectors.put("b", new SparseVector(vector));
+    senseVectors.put("a", new SparseVector(vector));
+    List<String> senses = new ArrayList<>();
+    senses.add("b");
+    senses.add("a");
+    SenseMatrix senseMatrix = SenseMatrix.pack(senses, new HashSenseVectors(senseVectors));
+
+    ContextVector contextVector = new ContextVector();
+    contextVector.add(1, 2.0);
+    List<ScoredSense> scored = senseMatrix.topSenses(contextVector, Integer.MAX_VALUE, 0);
+    assertEquals("b", scored.get(0).getSense());
+    assertEquals("a", scored.get(1).getSense());
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the time taken to detect thousands of token sequences in sentences with a detector
+ * that tests every token against the sequences and with one compiled by
+ * {@link SequenceDetector.Factory#ignoreCase}. The sequences are one to four words long and drawn
+ * from the same vocabulary as the sentences, so the tested detector starts many partial matches.
+ */
+public class SequenceDetectorBenchmark {
+
+  private static final int VOCABULARY = 5000;
+
+  private static final int SENTENCES = 5000;
+
+  private static final int SENTENCE_LENGTH = 20;
+
+  private static String word(int i) {
+    return "word" + Integer.toString(i, 36);
+  }
+
+  public static void main(String[] args) {
+    int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+    Random random = new Random(42);
+
+    List<List<String>> sentences = new ArrayList<>();
+    for (int i = 0; i < SENTENCES; i++) {
+      List<String> sentence = new ArrayList<>();
+      for (int j = 0; j < SENTENCE_LENGTH; j++) {
+        String word = word(random.nextInt(VOCABULARY));
+        sentence.add(random.nextBoolean() ? word : word.toUpperCase());
+      }
+      sentences.add(sentence);
+    }
+
+    for (int count : new int[]{100, 1000, 5000}) {
+      List<List<String>> sequences = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+        String[] sequence = new String[1 + random.nextInt(4)];
+        for (int j = 0; j < sequence.length; j++) {
+          sequence[j] = word(random.nextInt(VOCABULARY));
+        }
+        sequences.add(Arrays.asList(sequence));
+      }
+
+      @SuppressWarnings("unchecked")
+      SequenceDetector<String, String> tested = new SequenceDetector<>(
+          sequences.toArray(new List[0]), (string, token) -> token.equalsIgnoreCase(string));
+      SequenceDetector<String, String> compiled = SequenceDetector.Factory
+          .ignoreCase(sequences, token -> token);
+
+      for (int i = 0; i < iterations; i++) {
+        System.out.printf("%d sequences, iteration %d%n", count, i);
+        run("tested", tested, sentences);
+        run("compiled", compiled, sentences);
+      }
+    }
+  }
+
+  private static void run(String name, SequenceDetector<String, String> detector,
+      List<List<String>> sentences) {
+    long start = System.nanoTime();
+    int matches = 0;
+    for (List<String> sentence : sentences) {
+      matches += detector.detectAll(sentence).size();
+    }
+    long elapsed = System.nanoTime() - start;
+    System.out.printf("  %-9s %6d matches, %9.1f ns/token%n", name, matches,
+        (double) elapsed / (sentences.size() * SENTENCE_LENGTH));
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.common.dictionary;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+
+public class BloomFilterTest {
+
+  private static byte[] key(String prefix, int i) {
+    return (prefix + i).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void testNoFalseNegatives() {
+    BloomFilter filter = new BloomFilter("test", 10000, 0.01);
+    for (int i = 0; i < 10000; i++) {
+      filter.put(key("present", i));
+    }
+    for (int i = 0; i < 10000; i++) {
+      assertTrue(filter.mightContain(key("present", i)));
+    }
+    assertEquals(10000, filter.passed());
+    assertEquals(0, filter.rejected());
+  }
+
+  @Test
+  void testFalsePositiveRate() {
+    BloomFilter filter = new BloomFilter("test", 10000, 0.01);
+    for (int i = 0; i < 10000; i++) {
+      filter.put(key("present", i));
+    }
+    for (int i = 0; i < 100000; i++) {
+      filter.mightContain(key("absent", i));
+    }
+    assertEquals(100000, filter.passed() + filter.rejected());
+    assertTrue(filter.passed() < 2000, "False positives: " + filter.passed());
+  }
+
+  @Test
+  void testEmptyRejectsEverything() {
+    BloomFilter filter = new BloomFilter("test", 0, 0.01);
+    for (int i = 0; i < 100; i++) {
+      filter.mightContain(key("absent", i));
+    }
+    assertEquals(100, filter.rejected());
+  }
+
+  @Test
+  void testRocksDbLookups() throws IOException, RocksDBException {
+    RocksDB.loadLibrary();
+    Path path = Files.createTempDirectory("bloom-filter");
+    try (Options options = new Options().setCreateIfMissing(true);
+        RocksDB db = RocksDB.open(options, path.toString())) {
+      for (int i = 0; i < 1000; i++) {
+        db.put(key("present", i), key("value", i));
+      }
+
+      assertNull(BloomFilter.forKeys("test", db, 0));
+      BloomFilter filter = BloomFilter.forKeys("test", db, 0.01);
+      assertNotNull(filter);
+
+      byte[] buffer = new byte[16];
+      for (int i = 0; i < 1000; i++) {
+        assertArrayEquals(key("value", i), BloomFilter.get(db, filter, key("present", i)));
+        assertEquals(key("value", i).length,
+            BloomFilter.get(db, filter, key("present", i), buffer));
+        assertNull(BloomFilter.get(db, filter, key("absent", i)));
+        assertEquals(RocksDB.NOT_FOUND, BloomFilter.get(db, filter, key("absent", i), buffer));
+      }
+      assertEquals(2000, filter.passed() - filter.falsePositives());
+      assertEquals(2000, filter.rejected() + filter.falsePositives());
+      assertTrue(filter.rejected() > 1900, "Rejected: " + filter.rejected());
+
+      List<byte[]> keys = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        keys.add(key("present", i));
+        keys.add(key("absent", i));
+      }
+      List<byte[]> values = BloomFilter.multiGet(db, filter, keys);
+      assertEquals(200, values.size());
+      for (int i = 0; i < 100; i++) {
+        assertArrayEquals(key("value", i), values.get(2 * i));
+        assertNull(values.get(2 * i + 1));
+      }
+    }
+  }
+
+  @Test
+  void testInvalidRate() {
+    assertThrows(IllegalArgumentException.class, () -> new BloomFilter("test", 10, 1.5));
+  }
+}
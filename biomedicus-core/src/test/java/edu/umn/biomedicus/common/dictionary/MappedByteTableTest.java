@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.umn.biomedicus.common.dictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+public class MappedByteTableTest {
+
+  private static byte[] key(int i) {
+    return String.format("key-%04d", i).getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] value(int i) {
+    return ByteBuffer.allocate(8).putInt(i).putInt(i * i).array();
+  }
+
+  private static MappedByteTable write(int count, int shardBytes) throws IOException {
+    Path folder = Files.createTempDirectory("mapped-table");
+    try (MappedByteTable.Writer writer = new MappedByteTable.Writer(folder, shardBytes)) {
+      for (int i = 0; i < count; i++) {
+        writer.put(key(i), value(i));
+      }
+    }
+    return MappedByteTable.open(folder);
+  }
+
+  @Test
+  void testGet() throws IOException {
+    MappedByteTable table = write(100, MappedByteTable.DEFAULT_SHARD_BYTES);
+
+    assertEquals(100, table.size());
+    for (int i = 0; i < 100; i++) {
+      ByteBuffer value = table.get(key(i));
+      assertNotNull(value);
+      assertEquals(8, value.remaining());
+      assertEquals(i, value.getInt(0));
+      assertEquals(i * i, value.getInt(4));
+    }
+    assertNull(table.get(key(100)));
+    assertFalse(table.contains("key".getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  void testShards() throws IOException {
+    MappedByteTable table = write(1000, 1024);
+
+    assertEquals(1000, table.size());
+    for (int i = 0; i < 1000; i++) {
+      ByteBuffer value = table.get(key(i));
+      assertNotNull(value);
+      assertEquals(i, value.getInt(0));
+    }
+    assertNull(table.get(new byte[0]));
+    assertNull(table.get("zzz".getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  void testCursor() throws IOException {
+    MappedByteTable table = write(1000, 1024);
+
+    MappedByteTable.Cursor cursor = table.cursor();
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(cursor.isValid());
+      assertEquals(ByteBuffer.wrap(key(i)), cursor.key());
+      assertEquals(ByteBuffer.wrap(value(i)), cursor.value());
+      cursor.next();
+    }
+    assertFalse(cursor.isValid());
+  }
+
+  @Test
+  void testEmpty() throws IOException {
+    MappedByteTable table = write(0, MappedByteTable.DEFAULT_SHARD_BYTES);
+
+    assertEquals(0, table.size());
+    assertNull(table.get(key(0)));
+    assertFalse(table.cursor().isValid());
+  }
+
+  @Test
+  void testUnsortedKeys() throws IOException {
+    Path folder = Files.createTempDirectory("mapped-table");
+    try (MappedByteTable.Writer writer = MappedByteTable.create(folder)) {
+      writer.put(key(1), value(1));
+      assertThrows(IllegalArgumentException.class, () -> writer.put(key(0), value(0)));
+    }
+  }
+}
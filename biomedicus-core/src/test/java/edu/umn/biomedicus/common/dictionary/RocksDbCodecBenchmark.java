@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package edu.umn.biomedicus.common.dictionary;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+
+/**
+ * Measures the bytes allocated per lookup of an int and string key with a double value, the
+ * layout of the TnT probability stores, when encoding keys with {@link String#getBytes} and
+ * wrapping the returned value as before, and when using a {@link RocksDbCodec}.
+ */
+public class RocksDbCodecBenchmark {
+
+  private static final int KEYS = 100_000;
+
+  private static final int LOOKUPS = 1_000_000;
+
+  private static final com.sun.management.ThreadMXBean THREADS
+      = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private static String word(int i) {
+    return "word" + Integer.toString(i, 36);
+  }
+
+  private static byte[] allocatingKey(int partOfSpeech, String word) {
+    byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+    return ByteBuffer.allocate(bytes.length + 4).putInt(partOfSpeech).put(bytes).array();
+  }
+
+  public static void main(String[] args) throws IOException, RocksDBException {
+    RocksDB.loadLibrary();
+    Path path = Files.createTempDirectory("codec-benchmark");
+    try (Options options = new Options().setCreateIfMissing(true);
+        RocksDB db = RocksDB.open(options, path.toString())) {
+      for (int i = 0; i < KEYS; i++) {
+        db.put(allocatingKey(i % 40, word(i)), ByteBuffer.allocate(8).putDouble(i).array());
+      }
+
+      String[] words = new String[LOOKUPS];
+      int[] partsOfSpeech = new int[LOOKUPS];
+      Random random = new Random(5);
+      for (int i = 0; i < LOOKUPS; i++) {
+        int key = random.nextInt(2 * KEYS);
+        words[i] = word(key);
+        partsOfSpeech[i] = key % 40;
+      }
+
+      for (int iteration = 0; iteration < 5; iteration++) {
+        long threadId = Thread.currentThread().getId();
+        double sum = 0;
+        long start = THREADS.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < LOOKUPS; i++) {
+          byte[] bytes = db.get(allocatingKey(partsOfSpeech[i], words[i]));
+          if (bytes != null) {
+            sum += ByteBuffer.wrap(bytes).getDouble();
+          }
+        }
+        long allocating = THREADS.getThreadAllocatedBytes(threadId) - start;
+
+        RocksDbCodec codec = RocksDbCodec.local();
+        start = THREADS.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < LOOKUPS; i++) {
+          if (codec.get(db, null, codec.intUtf8Key(partsOfSpeech[i], words[i]))) {
+            sum -= codec.valueDouble();
+          }
+        }
+        long codecBytes = THREADS.getThreadAllocatedBytes(threadId) - start;
+
+        System.out.printf("iteration %d: getBytes %.1f bytes/op, codec %.1f bytes/op (%s)%n",
+            iteration, (double) allocating / LOOKUPS, (double) codecBytes / LOOKUPS, sum);
+      }
+    }
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package edu.umn.biomedicus.common.dictionary;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+public class RocksDbCodecTest {
+
+  private static final String[] STRINGS = {
+      "", "dose", "été", "µg/dL", "≥ 5", "😀 smile", "unpaired \uD800 high",
+      "unpaired \uDC00 low", "trailing \uD83D"
+  };
+
+  @Test
+  void testUtf8KeyMatchesGetBytes() {
+    RocksDbCodec codec = new RocksDbCodec();
+    for (String string : STRINGS) {
+      assertArrayEquals(string.getBytes(StandardCharsets.UTF_8), codec.utf8Key(string), string);
+    }
+  }
+
+  @Test
+  void testIntUtf8Key() {
+    RocksDbCodec codec = new RocksDbCodec();
+    for (String string : STRINGS) {
+      byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+      byte[] expected = ByteBuffer.allocate(4 + bytes.length).putInt(0x01020304).put(bytes)
+          .array();
+      assertArrayEquals(expected, codec.intUtf8Key(0x01020304, string), string);
+    }
+  }
+
+  @Test
+  void testBagKeyMatchesGetBytes() {
+    StringsBag bag = new StringsBag(new int[]{3, 70000, -1}, new int[]{1, 2, 300});
+    assertArrayEquals(bag.getBytes(), new RocksDbCodec().bagKey(bag));
+  }
+
+  @Test
+  void testKeysReusedByLength() {
+    RocksDbCodec codec = new RocksDbCodec();
+    byte[] first = codec.utf8Key("abc");
+    assertSame(first, codec.utf8Key("xyz"));
+    assertArrayEquals("xyz".getBytes(StandardCharsets.UTF_8), first);
+    assertEquals(500, codec.key(500).length);
+    assertSame(codec.key(500), codec.key(500));
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.umn.biomedicus.concepts;
+
+import edu.umn.nlpengine.Document;
+import edu.umn.nlpengine.DocumentTask;
+import java.util.Random;
+
+/**
+ * Compares the throughput of the old window loop, which looks up every window one at a time,
+ * against the current detector on random documents and a random dictionary.
+ */
+public class DetectDictionaryConceptsBenchmark {
+
+  public static void main(String[] args) {
+    int documents = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+    TrieConceptDictionary dictionary = DetectDictionaryConceptsTestKt
+        .randomDictionary(new Random(0), 20_000);
+
+    run("window loop", new WindowLoopDetectDictionaryConcepts(dictionary), documents);
+    run("current", new DetectDictionaryConcepts(dictionary), documents);
+  }
+
+  private static void run(String name, DocumentTask detector, int documents) {
+    for (int iteration = 0; iteration < 3; iteration++) {
+      Random random = new Random(1);
+      long nanos = 0;
+      long characters = 0;
+      for (int i = 0; i < documents; i++) {
+        Document document = DetectDictionaryConceptsTestKt.randomDocument(random, 50);
+        long start = System.nanoTime();
+        detector.run(document);
+        nanos += System.nanoTime() - start;
+        characters += document.getText().length();
+      }
+      System.out.printf("%s (iteration %d): %.1f chars/ms%n", name, iteration,
+          characters / (nanos / 1e6));
+    }
+  }
+}
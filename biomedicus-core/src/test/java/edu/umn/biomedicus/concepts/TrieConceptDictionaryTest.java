@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.umn.biomedicus.concepts;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import edu.umn.biomedicus.common.dictionary.StringIdentifier;
+import edu.umn.biomedicus.common.dictionary.StringsBag;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+public class TrieConceptDictionaryTest {
+
+  private static final String ALPHABET = "ab cé-";
+
+  private static String randomPhrase(Random random) {
+    StringBuilder builder = new StringBuilder();
+    int length = 1 + random.nextInt(8);
+    for (int i = 0; i < length; i++) {
+      builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+    }
+    return builder.toString();
+  }
+
+  private static List<ConceptRow> randomRows(Random random) {
+    List<ConceptRow> rows = new ArrayList<>();
+    int count = 1 + random.nextInt(3);
+    for (int i = 0; i < count; i++) {
+      rows.add(new ConceptRow(new SUI(random.nextInt(100)), new CUI(random.nextInt(100)),
+          new TUI(random.nextInt(100)), random.nextInt(5)));
+    }
+    return rows;
+  }
+
+  private static StringsBag randomBag(Random random) {
+    StringsBag.Builder builder = StringsBag.builder();
+    int count = 1 + random.nextInt(3);
+    for (int i = 0; i < count; i++) {
+      builder.addTerm(new StringIdentifier(random.nextInt(20)));
+    }
+    return builder.build();
+  }
+
+  private static byte[] bytes(List<ConceptRow> rows) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (ConceptRow row : rows) {
+      out.write(row.getBytes());
+    }
+    return out.toByteArray();
+  }
+
+  private static TreeMap<byte[], byte[]> table(Map<byte[], List<ConceptRow>> map)
+      throws IOException {
+    TreeMap<byte[], byte[]> table = new TreeMap<>(TrieConceptDictionary::compare);
+    for (Map.Entry<byte[], List<ConceptRow>> entry : map.entrySet()) {
+      table.put(entry.getKey(), bytes(entry.getValue()));
+    }
+    return table;
+  }
+
+  @Test
+  void testMatchesMaps() throws IOException {
+    Random random = new Random(42);
+    Map<String, List<ConceptRow>> phrases = new HashMap<>();
+    Map<String, List<ConceptRow>> lowercase = new HashMap<>();
+    Map<StringsBag, List<ConceptRow>> norms = new HashMap<>();
+    for (int i = 0; i < 2000; i++) {
+      String phrase = randomPhrase(random);
+      List<ConceptRow> rows = randomRows(random);
+      phrases.put(phrase, rows);
+      if (random.nextBoolean()) {
+        lowercase.put(phrase, random.nextBoolean() ? rows : randomRows(random));
+      } else {
+        lowercase.put(randomPhrase(random), randomRows(random));
+      }
+      norms.put(randomBag(random), randomRows(random));
+    }
+
+    Map<byte[], List<ConceptRow>> phraseBytes = new HashMap<>();
+    phrases.forEach((k, v) -> phraseBytes.put(k.getBytes(StandardCharsets.UTF_8), v));
+    Map<byte[], List<ConceptRow>> lowercaseBytes = new HashMap<>();
+    lowercase.forEach((k, v) -> lowercaseBytes.put(k.getBytes(StandardCharsets.UTF_8), v));
+    Map<byte[], List<ConceptRow>> normsBytes = new HashMap<>();
+    norms.forEach((k, v) -> normsBytes.put(k.getBytes(), v));
+
+    TrieConceptDictionary dictionary = TrieConceptDictionary.build(
+        table(phraseBytes).entrySet().iterator(),
+        table(lowercaseBytes).entrySet().iterator(),
+        table(normsBytes).entrySet().iterator(),
+        Collections.singletonMap(0, "SRC"));
+
+    for (int i = 0; i < 5000; i++) {
+      String phrase = randomPhrase(random);
+      assertEquals(phrases.get(phrase), dictionary.forPhrase(phrase));
+      assertEquals(lowercase.get(phrase), dictionary.forLowercasePhrase(phrase));
+      StringsBag bag = randomBag(random);
+      assertEquals(norms.get(bag), dictionary.forNorms(bag));
+    }
+    for (String phrase : phrases.keySet()) {
+      assertEquals(phrases.get(phrase), dictionary.forPhrase(phrase));
+    }
+    for (String phrase : lowercase.keySet()) {
+      assertEquals(lowercase.get(phrase), dictionary.forLowercasePhrase(phrase));
+    }
+    for (StringsBag bag : norms.keySet()) {
+      assertEquals(norms.get(bag), dictionary.forNorms(bag));
+    }
+    assertNull(dictionary.forPhrase(""));
+    assertNull(dictionary.forNorms(StringsBag.builder().build()));
+    assertEquals("SRC", dictionary.source(0));
+  }
+
+  @Test
+  void testEmpty() {
+    TrieConceptDictionary dictionary = TrieConceptDictionary.build(
+        Collections.emptyIterator(), Collections.emptyIterator(), Collections.emptyIterator(),
+        Collections.emptyMap());
+
+    assertNull(dictionary.forPhrase("a"));
+    assertNull(dictionary.forLowercasePhrase(""));
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.framework;
+
+import com.google.inject.Guice;
+import edu.umn.nlpengine.Document;
+import edu.umn.nlpengine.DocumentTask;
+import edu.umn.nlpengine.StandardArtifact;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures the throughput of a CPU bound document task run through a single processor context
+ * from several threads, relative to running it from one thread.
+ */
+public class BiomedicusScopesBenchmark {
+
+  public static class CpuBoundTask implements DocumentTask {
+
+    static volatile long sink;
+
+    @Override
+    public void run(Document document) {
+      long hash = 0;
+      String text = document.getText();
+      for (int i = 0; i < 20_000; i++) {
+        hash = 31 * hash + text.charAt(i % text.length());
+      }
+      sink = hash;
+    }
+  }
+
+  private static long time(DocumentTaskRunner runner, int threads, int artifactsPerThread)
+      throws Exception {
+    StandardArtifact artifact = new StandardArtifact("1");
+    artifact.addDocument("text", "some text to hash repeatedly");
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      long start = System.nanoTime();
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < artifactsPerThread; j++) {
+            runner.processArtifact(artifact);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      return System.nanoTime() - start;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    int threads = args.length > 0 ? Integer.parseInt(args[0])
+        : Runtime.getRuntime().availableProcessors();
+    int artifacts = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+    DocumentTaskRunner runner = new DocumentTaskRunner(CpuBoundTask.class,
+        BiomedicusScopes.createProcessorContext(Collections.emptyMap()),
+        Guice.createInjector(), Collections.singletonMap("documentName", "text"));
+
+    // warm up
+    time(runner, threads, artifacts / threads);
+    time(runner, 1, artifacts);
+
+    long single = time(runner, 1, artifacts);
+    long parallel = time(runner, threads, artifacts / threads);
+    System.out.printf("1 thread: %d ms%n", single / 1_000_000);
+    System.out.printf("%d threads: %d ms, %.2fx throughput of one thread%n", threads,
+        parallel / 1_000_000, (double) single / parallel);
+  }
+}
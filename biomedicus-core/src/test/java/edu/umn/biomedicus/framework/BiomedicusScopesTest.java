@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.framework;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.inject.Guice;
+import com.google.inject.Key;
+import com.google.inject.name.Names;
+import edu.umn.biomedicus.annotations.SingleThreaded;
+import edu.umn.nlpengine.Document;
+import edu.umn.nlpengine.DocumentTask;
+import edu.umn.nlpengine.DocumentsProcessor;
+import edu.umn.nlpengine.Runner;
+import edu.umn.nlpengine.StandardArtifact;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class BiomedicusScopesTest {
+
+  private static final int THREADS = 4;
+
+  public static class OverlappingTask implements DocumentTask {
+
+    static volatile CountDownLatch inside;
+
+    @Override
+    public void run(Document document) {
+      inside.countDown();
+      try {
+        // only returns true if the other call is inside the runner at the same time
+        assertTrue(inside.await(10, TimeUnit.SECONDS), "calls did not overlap");
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  public static class OverlappingProcessor implements DocumentsProcessor {
+
+    static volatile CountDownLatch inside;
+
+    @Override
+    public void process(Document document) {
+      inside.countDown();
+      try {
+        // only returns true if the other call is inside the runner at the same time
+        assertTrue(inside.await(10, TimeUnit.SECONDS), "calls did not overlap");
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @Override
+    public void done() {
+    }
+  }
+
+  @SingleThreaded
+  public static class CountingProcessor implements DocumentsProcessor {
+
+    static final AtomicInteger running = new AtomicInteger();
+
+    static final AtomicInteger maxRunning = new AtomicInteger();
+
+    @Override
+    public void process(Document document) {
+      int now = running.incrementAndGet();
+      maxRunning.accumulateAndGet(now, Math::max);
+      Thread.yield();
+      running.decrementAndGet();
+    }
+
+    @Override
+    public void done() {
+    }
+  }
+
+  private static StandardArtifact artifact() {
+    StandardArtifact artifact = new StandardArtifact("1");
+    artifact.addDocument("text", "some text");
+    return artifact;
+  }
+
+  private static void runOnThreads(int threads, int times, Runner runner) throws Exception {
+    StandardArtifact artifact = artifact();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < times; j++) {
+            runner.processArtifact(artifact);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testConcurrentCalls() throws Exception {
+    BiomedicusScopes.Context context = BiomedicusScopes
+        .createProcessorContext(Collections.emptyMap());
+    CyclicBarrier barrier = new CyclicBarrier(THREADS);
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < THREADS; i++) {
+        int value = i;
+        futures.add(executor.submit(() -> context.call(() -> {
+          // every thread has to be inside the context at once to pass the barrier
+          barrier.await(10, TimeUnit.SECONDS);
+          return value;
+        })));
+      }
+      for (int i = 0; i < THREADS; i++) {
+        assertEquals(i, (int) futures.get(i).get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testDocumentTaskCallsOverlap() throws Exception {
+    DocumentTaskRunner runner = new DocumentTaskRunner(OverlappingTask.class,
+        BiomedicusScopes.createProcessorContext(Collections.emptyMap()),
+        Guice.createInjector(), Collections.singletonMap("documentName", "text"));
+
+    OverlappingTask.inside = new CountDownLatch(2);
+    runOnThreads(2, 1, runner);
+  }
+
+  @Test
+  void testDocumentsProcessorCallsOverlap() throws Exception {
+    DocumentsProcessorRunner runner = new DocumentsProcessorRunner(OverlappingProcessor.class,
+        BiomedicusScopes.createProcessorContext(Collections.emptyMap()),
+        Guice.createInjector(), Collections.singletonMap("documentName", "text"));
+
+    OverlappingProcessor.inside = new CountDownLatch(2);
+    runOnThreads(2, 1, runner);
+  }
+
+  @Test
+  void testSingleThreadedDocumentsProcessorCallsSerialized() throws Exception {
+    CountingProcessor.maxRunning.set(0);
+    DocumentsProcessorRunner runner = new DocumentsProcessorRunner(CountingProcessor.class,
+        BiomedicusScopes.createProcessorContext(Collections.emptyMap()),
+        Guice.createInjector(), Collections.singletonMap("documentName", "text"));
+
+    runOnThreads(THREADS, 200, runner);
+
+    assertEquals(1, CountingProcessor.maxRunning.get());
+  }
+
+  @Test
+  void testDependentObjectsCreatedOnDifferentThreads() throws Exception {
+    BiomedicusScopes.Context context = BiomedicusScopes
+        .createProcessorContext(Collections.emptyMap());
+    Key<String> first = Key.get(String.class, Names.named("first"));
+    Key<String> second = Key.get(String.class, Names.named("second"));
+    CountDownLatch creatingFirst = new CountDownLatch(1);
+    CountDownLatch creatingSecond = new CountDownLatch(1);
+
+    // "first" depends on "second", and on the second thread "second" depends on "first", which
+    // deadlocks if each object is created under its own lock
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<String> firstFuture = executor.submit(() -> context.call(() ->
+          context.get(first, () -> {
+            creatingFirst.countDown();
+            await(creatingSecond, 500);
+            return "first " + context.get(second, () -> "second");
+          })));
+      Future<String> secondFuture = executor.submit(() -> context.call(() -> {
+        await(creatingFirst, 10_000);
+        return context.get(second, () -> {
+          creatingSecond.countDown();
+          return "second " + context.get(first, () -> "first");
+        });
+      }));
+
+      assertEquals("first second", firstFuture.get(10, TimeUnit.SECONDS));
+      assertEquals("second", secondFuture.get(10, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void await(CountDownLatch latch, long millis) {
+    try {
+      latch.await(millis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
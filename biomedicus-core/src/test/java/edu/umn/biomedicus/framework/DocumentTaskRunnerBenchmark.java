@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.framework;
+
+import com.google.inject.Guice;
+import edu.umn.nlpengine.DocumentTask;
+import edu.umn.nlpengine.StandardArtifact;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares the per-document overhead of injecting a new task for every document against reusing
+ * task instances.
+ */
+public class DocumentTaskRunnerBenchmark {
+
+  public static void main(String[] args) {
+    int documents = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+    List<StandardArtifact> artifacts = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      StandardArtifact artifact = new StandardArtifact(Integer.toString(i));
+      artifact.addDocument("text", "some text");
+      artifacts.add(artifact);
+    }
+
+    run("injected", runner(CountingTask.class), artifacts, documents);
+    run("reused", runner(ReusableCountingTask.class), artifacts, documents);
+  }
+
+  private static DocumentTaskRunner runner(Class<? extends DocumentTask> taskClass) {
+    return new DocumentTaskRunner(
+        taskClass,
+        BiomedicusScopes.createProcessorContext(Collections.emptyMap()),
+        Guice.createInjector(),
+        Collections.singletonMap("documentName", "text"),
+        null
+    );
+  }
+
+  private static void run(String name, DocumentTaskRunner runner,
+      List<StandardArtifact> artifacts, int documents) {
+    for (int iteration = 0; iteration < 3; iteration++) {
+      long start = System.nanoTime();
+      for (int i = 0; i < documents; i++) {
+        runner.processArtifact(artifacts.get(i % artifacts.size()));
+      }
+      long nanos = System.nanoTime() - start;
+      System.out.printf("%s (iteration %d): %.1f ns/document%n", name, iteration,
+          (double) nanos / documents);
+    }
+  }
+}
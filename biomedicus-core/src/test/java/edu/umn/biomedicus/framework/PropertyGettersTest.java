@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.framework;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+class PropertyGettersTest {
+
+  @Test
+  void testPrimitiveIsBoxed() throws Exception {
+    Function<Object, Object> getter = PropertyGetters.getter(Bean.class.getMethod("getCount"));
+
+    assertEquals(3, getter.apply(new Bean()));
+  }
+
+  @Test
+  void testObjectProperty() throws Exception {
+    Function<Object, Object> getter = PropertyGetters.getter(Bean.class.getMethod("getName"));
+
+    assertEquals("bean", getter.apply(new Bean()));
+  }
+
+  @Test
+  void testNullProperty() throws Exception {
+    Function<Object, Object> getter = PropertyGetters.getter(Bean.class.getMethod("getMissing"));
+
+    assertNull(getter.apply(new Bean()));
+  }
+
+  @Test
+  void testInterfaceMethod() throws Exception {
+    Function<Object, Object> getter = PropertyGetters
+        .getter(CharSequence.class.getMethod("length"));
+
+    assertEquals(4, getter.apply("abcd"));
+  }
+
+  @Test
+  void testGettersAreCached() throws Exception {
+    assertSame(PropertyGetters.getter(Bean.class.getMethod("getName")),
+        PropertyGetters.getter(Bean.class.getMethod("getName")));
+  }
+
+  @Test
+  void testExceptionPropagates() throws Exception {
+    Function<Object, Object> getter = PropertyGetters.getter(Bean.class.getMethod("getFailure"));
+
+    assertThrows(UnsupportedOperationException.class, () -> getter.apply(new Bean()));
+  }
+
+  static class Bean {
+
+    public int getCount() {
+      return 3;
+    }
+
+    public String getName() {
+      return "bean";
+    }
+
+    public String getMissing() {
+      return null;
+    }
+
+    public String getFailure() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
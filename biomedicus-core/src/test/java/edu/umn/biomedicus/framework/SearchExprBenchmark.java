@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.framework;
+
+import edu.umn.biomedicus.framework.SearchExprTest.BAZ;
+import edu.umn.biomedicus.framework.SearchExprTest.Foo;
+import edu.umn.biomedicus.framework.SearchExprTest.HasEnum;
+import edu.umn.nlpengine.Document;
+import edu.umn.nlpengine.Labeler;
+import edu.umn.nlpengine.StandardArtifact;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Measures the time taken to search for the property patterns from {@link SearchExprTest} over a
+ * document of many labels, and the time taken by one property read through
+ * {@link Method#invoke(Object, Object...)} and through the compiled getter that property matches
+ * now use.
+ */
+public class SearchExprBenchmark {
+
+  private static final List<String> PATTERNS = Arrays.asList(
+      "Foo<getValue=\"bar\">",
+      "Foo<getValue=\"baz\"|\"bar\">",
+      "Foo<getValue=r\"a*\">",
+      "Foo<getValue=i\"baz\">",
+      "Foo<getValue=i\"baz\"|r\"a*\">",
+      "Foo<getBaz=5>",
+      "Foo<getBaz=4|3>",
+      "Foo<getValue=\"baz\",getBaz=42>",
+      "[?Foo<getBaz=10>] Foo<getBaz=14>",
+      "HasEnum<getBaz=eFOO>"
+  );
+
+  public static void main(String[] args) throws Exception {
+    int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+    int labels = 100000;
+    String[] values = {"bar", "baz", "BAZ", "aaa", "abc", null};
+    Random random = new Random(7);
+
+    char[] chars = new char[labels * 5];
+    Arrays.fill(chars, 'a');
+    Document document = new StandardArtifact("benchmark")
+        .addDocument("text", new String(chars));
+    Labeler<Foo> fooLabeler = document.labeler(Foo.class);
+    Labeler<HasEnum> hasEnumLabeler = document.labeler(HasEnum.class);
+    Foo[] foos = new Foo[labels];
+    for (int i = 0; i < labels; i++) {
+      Foo foo = new Foo(i * 5, i * 5 + 4);
+      foo.setValue(values[random.nextInt(values.length)]);
+      foo.setBaz(random.nextInt(50));
+      fooLabeler.add(foo);
+      foos[i] = foo;
+      HasEnum hasEnum = new HasEnum(i * 5, i * 5 + 4);
+      hasEnum.baz = random.nextBoolean() ? BAZ.FOO : BAZ.BAR;
+      hasEnumLabeler.add(hasEnum);
+    }
+
+    LabelAliases labelAliases = new LabelAliases();
+    labelAliases.addAlias("Foo", Foo.class);
+    labelAliases.addAlias("HasEnum", HasEnum.class);
+
+    Method method = Foo.class.getMethod("getBaz");
+    Function<Object, Object> getter = PropertyGetters.getter(method);
+
+    for (int i = 0; i < iterations; i++) {
+      System.out.printf("iteration %d%n", i);
+      for (String pattern : PATTERNS) {
+        SearchExpr searchExpr = SearchExpr.parse(labelAliases, pattern);
+        long start = System.nanoTime();
+        Searcher searcher = searchExpr.createSearcher(document);
+        int matches = 0;
+        while (searcher.search()) {
+          matches++;
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("  %-36s %6d matches, %6.1f ns/label%n", pattern, matches,
+            (double) elapsed / labels);
+      }
+
+      long sum = 0;
+      long start = System.nanoTime();
+      for (Foo foo : foos) {
+        sum += (Integer) method.invoke(foo);
+      }
+      long reflective = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (Foo foo : foos) {
+        sum -= (Integer) getter.apply(foo);
+      }
+      long compiled = System.nanoTime() - start;
+
+      System.out.printf("  property read: reflection %.1f ns, compiled %.1f ns (%d)%n",
+          (double) reflective / labels, (double) compiled / labels, sum);
+    }
+  }
+}
@@ -1272,6 +1272,63 @@ class SearchExprTest {
     assertFalse(searcher.search());
   }
 
+  @Test
+  void testNoLeadingLabels() {
+    when(document.labelIndex(Foo.class)).thenReturn(StandardLabelIndex.create(Foo.class));
+    when(document.labelIndex(Blah.class))
+        .thenReturn(StandardLabelIndex.create(Blah.class, new Blah(10, 14)));
+    when(document.getStartIndex()).thenReturn(0);
+    when(document.getEndIndex()).thenReturn(25);
+
+    SearchExpr expr = SearchExpr.parse(labelAliases, "[?Foo] Blah");
+
+    Searcher searcher = expr.createSearcher(document);
+
+    assertFalse(searcher.search());
+  }
+
+  @Test
+  void testOptionalLeadingLabel() {
+    LabelIndex<Foo> fooLabelIndex = StandardLabelIndex
+        .create(Foo.class, new Foo(0, 5), new Foo(20, 25));
+    LabelIndex<Blah> blahs = StandardLabelIndex
+        .create(Blah.class, new Blah(10, 14));
+
+    when(document.labelIndex(Foo.class)).thenReturn(fooLabelIndex);
+    when(document.labelIndex(Blah.class)).thenReturn(blahs);
+    when(document.getStartIndex()).thenReturn(0);
+    when(document.getEndIndex()).thenReturn(25);
+
+    SearchExpr expr = SearchExpr.parse(labelAliases, "Blah*? Foo");
+
+    Searcher searcher = expr.createSearcher(document);
+
+    assertTrue(searcher.search());
+    assertEquals(0, searcher.getBegin());
+    assertEquals(5, searcher.getEnd());
+
+    assertTrue(searcher.search());
+    assertEquals(20, searcher.getBegin());
+    assertEquals(25, searcher.getEnd());
+
+    assertFalse(searcher.search());
+  }
+
+  @Test
+  void testLeadingNoTextStartsAtSearchBegin() {
+    when(document.getStartIndex()).thenReturn(0);
+    when(document.getEndIndex()).thenReturn(13);
+    when(document.getText()).thenReturn("this is text.");
+    when(document.labelIndex(Blah.class))
+        .thenReturn(StandardLabelIndex.create(Blah.class, new Blah(8, 12)));
+
+    SearchExpr expr = SearchExpr.parse(labelAliases, "-> Blah");
+
+    Searcher searcher = expr.createSearcher(document);
+
+    assertFalse(searcher.search());
+  }
+
   enum BAZ {
     FOO,
     BAR
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.framework;
+
+import edu.umn.biomedicus.common.types.syntax.PartOfSpeech;
+import edu.umn.biomedicus.measures.Number;
+import edu.umn.biomedicus.measures.NumberRange;
+import edu.umn.biomedicus.measures.Quantifier;
+import edu.umn.biomedicus.measures.TimeFrequencyUnit;
+import edu.umn.biomedicus.measures.TimeUnit;
+import edu.umn.biomedicus.numbers.NumberType;
+import edu.umn.biomedicus.sentences.Sentence;
+import edu.umn.biomedicus.sh.UsageFrequencyPattern;
+import edu.umn.biomedicus.sh.UsageFrequencyPhrase;
+import edu.umn.biomedicus.tagging.PosTag;
+import edu.umn.biomedicus.time.DatePattern;
+import edu.umn.biomedicus.time.DayOfWeek;
+import edu.umn.biomedicus.time.Month;
+import edu.umn.biomedicus.time.SeasonWord;
+import edu.umn.biomedicus.time.TemporalPhrasePattern;
+import edu.umn.biomedicus.time.TextDate;
+import edu.umn.biomedicus.time.TextTime;
+import edu.umn.biomedicus.time.TextTimePattern;
+import edu.umn.biomedicus.time.TimeOfDayWord;
+import edu.umn.biomedicus.time.YearNumber;
+import edu.umn.biomedicus.time.YearRange;
+import edu.umn.biomedicus.time.YearRangePattern;
+import edu.umn.biomedicus.tokenization.ParseToken;
+import edu.umn.nlpengine.Document;
+import edu.umn.nlpengine.LabelIndex;
+import edu.umn.nlpengine.StandardArtifact;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Measures the time taken to search each sentence of a long note for the social history usage
+ * frequency pattern and the time patterns, the way their detectors do. Most sentences of the note
+ * are filler without any of the labels the patterns start with, one in ten has a usage frequency
+ * and one in ten has a time and day of the week.
+ */
+public class TagExSearchBenchmark {
+
+  private static final String FILLER
+      = "the patient was seen in clinic today and reports no new complaints .";
+
+  private static final String FREQUENCY = "she smokes 3 cigarettes 2 times per day .";
+
+  private static final String TIME = "follow up at 10 : 30 pm on Monday .";
+
+  public static void main(String[] args) {
+    int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+    int sentences = 20000;
+
+    LabelAliases labelAliases = new LabelAliases();
+    labelAliases.addAlias("Sentence", Sentence.class);
+    labelAliases.addAlias("ParseToken", ParseToken.class);
+    labelAliases.addAlias("PosTag", PosTag.class);
+    labelAliases.addAlias("Number", Number.class);
+    labelAliases.addAlias("NumberRange", NumberRange.class);
+    labelAliases.addAlias("Quantifier", Quantifier.class);
+    labelAliases.addAlias("TimeUnit", TimeUnit.class);
+    labelAliases.addAlias("TimeFrequencyUnit", TimeFrequencyUnit.class);
+    labelAliases.addAlias("UsageFrequencyPhrase", UsageFrequencyPhrase.class);
+    labelAliases.addAlias("DayOfWeek", DayOfWeek.class);
+    labelAliases.addAlias("Month", Month.class);
+    labelAliases.addAlias("YearNumber", YearNumber.class);
+    labelAliases.addAlias("YearRange", YearRange.class);
+    labelAliases.addAlias("TextDate", TextDate.class);
+    labelAliases.addAlias("TextTime", TextTime.class);
+    labelAliases.addAlias("TimeOfDayWord", TimeOfDayWord.class);
+    labelAliases.addAlias("SeasonWord", SeasonWord.class);
+    SearchExprFactory searchExprFactory = new SearchExprFactory(labelAliases);
+
+    Map<String, SearchExpr> patterns = new LinkedHashMap<>();
+    patterns.put("sh usage frequency",
+        new UsageFrequencyPattern(searchExprFactory).getSearchExpr());
+    patterns.put("time year range", new YearRangePattern(searchExprFactory).getExpr());
+    patterns.put("time text time", new TextTimePattern(searchExprFactory).getExpr());
+    patterns.put("time date", new DatePattern(searchExprFactory).getExpr());
+    patterns.put("time temporal phrase", new TemporalPhrasePattern(searchExprFactory).getExpr());
+
+    Document document = createNote(sentences);
+    LabelIndex<Sentence> sentenceIndex = document.labelIndex(Sentence.class);
+
+    for (int i = 0; i < iterations; i++) {
+      System.out.printf("iteration %d%n", i);
+      for (Entry<String, SearchExpr> entry : patterns.entrySet()) {
+        long start = System.nanoTime();
+        Searcher searcher = entry.getValue().createSearcher(document);
+        int matches = 0;
+        for (Sentence sentence : sentenceIndex) {
+          while (searcher.search(sentence)) {
+            matches++;
+          }
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("  %-22s %6d matches, %7.1f ns/sentence%n", entry.getKey(), matches,
+            (double) elapsed / sentences);
+      }
+    }
+  }
+
+  private static Document createNote(int sentences) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < sentences; i++) {
+      text.append(i % 10 == 3 ? FREQUENCY : i % 10 == 7 ? TIME : FILLER).append(' ');
+    }
+    Document document = new StandardArtifact("benchmark").addDocument("note", text.toString());
+
+    int sentenceStart = 0;
+    int index = 0;
+    for (String word : text.toString().split(" ")) {
+      int end = index + word.length();
+      document.labeler(ParseToken.class).add(new ParseToken(index, end, word, true));
+      document.labeler(PosTag.class).add(new PosTag(index, end, partOfSpeech(word)));
+      if (word.chars().allMatch(Character::isDigit)) {
+        document.labeler(Number.class)
+            .add(new Number(index, end, word, "1", NumberType.CARDINAL));
+        document.labeler(Quantifier.class).add(new Quantifier(index, end, true));
+      } else if (word.equals("day")) {
+        document.labeler(TimeUnit.class).add(new TimeUnit(index, end));
+      } else if (word.equals("Monday")) {
+        document.labeler(DayOfWeek.class).add(new DayOfWeek(index, end));
+      } else if (word.equals(".")) {
+        document.labeler(Sentence.class).add(new Sentence(sentenceStart, end));
+        sentenceStart = end + 1;
+      }
+      index = end + 1;
+    }
+    return document;
+  }
+
+  private static PartOfSpeech partOfSpeech(String word) {
+    switch (word) {
+      case "the":
+        return PartOfSpeech.DT;
+      case "in":
+      case "at":
+      case "on":
+      case "per":
+        return PartOfSpeech.IN;
+      default:
+        return PartOfSpeech.NN;
+    }
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.time;
+
+import edu.umn.biomedicus.common.Gazetteer;
+import edu.umn.biomedicus.common.GazetteerStatistics;
+import edu.umn.biomedicus.common.types.syntax.PartOfSpeech;
+import edu.umn.biomedicus.tagging.PosTag;
+import edu.umn.biomedicus.tokenization.ParseToken;
+import edu.umn.nlpengine.Document;
+import edu.umn.nlpengine.DocumentTask;
+import edu.umn.nlpengine.StandardArtifact;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the time taken to label the days of week, times of day, seasons and months of a long
+ * note with the four separate detectors against the time taken by the single {@link
+ * DetectTimeWords} scan. One in ten sentences of the note has a time word.
+ */
+public class TimeWordsBenchmark {
+
+  private static final List<String> DAYS = Arrays.asList("monday", "mon", "mon.", "tuesday",
+      "tue", "tue.", "tues", "tues.", "wednesday", "wed", "wed.", "thursday", "thu", "thu.",
+      "thur", "thur.", "thurs", "thurs.", "friday", "fri", "fri.", "saturday", "sat", "sat.",
+      "sunday", "sun", "sun.");
+
+  private static final List<String> TIMES_OF_DAY = Arrays.asList("morning", "mornings",
+      "afternoon", "afternoons", "evening", "evenings", "night", "nights", "nighttime",
+      "daytime", "noon", "midnight", "bedtime", "dawn", "dusk", "overnight");
+
+  private static final List<String> SEASONS = Arrays.asList("spring", "summer", "fall",
+      "autumn", "winter", "springtime", "summertime", "wintertime");
+
+  private static final List<String> MONTHS = Arrays.asList("january", "jan", "jan.", "february",
+      "feb", "feb.", "march", "mar", "mar.", "april", "apr", "apr.", "may", "june", "jun",
+      "jun.", "july", "jul", "jul.", "august", "aug", "aug.", "september", "sep", "sep.", "sept",
+      "sept.", "october", "oct", "oct.", "november", "nov", "nov.", "december", "dec", "dec.");
+
+  private static final String FILLER
+      = "the patient was seen in clinic today and reports no new complaints .";
+
+  private static final String TIME = "she will return Monday morning in June or next spring .";
+
+  @SuppressWarnings("deprecation")
+  public static void main(String[] args) {
+    int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+    int sentences = 20000;
+
+    DocumentTask[] separate = {
+        new DetectDaysOfWeek(DAYS),
+        new DetectTimesOfDay(TIMES_OF_DAY),
+        new DetectSeasonWords(SEASONS),
+        new DetectMonths(MONTHS)
+    };
+
+    Map<String, List<String>> lists = new LinkedHashMap<>();
+    lists.put(TimeWords.DAYS_OF_WEEK, DAYS);
+    lists.put(TimeWords.TIMES_OF_DAY, TIMES_OF_DAY);
+    lists.put(TimeWords.SEASONS, SEASONS);
+    lists.put(TimeWords.MONTHS, MONTHS);
+    TimeWords timeWords = new TimeWords(new Gazetteer(lists));
+    DetectTimeWords combined = new DetectTimeWords(timeWords);
+
+    for (int i = 0; i < iterations; i++) {
+      System.out.printf("iteration %d%n", i);
+
+      Document document = createNote(sentences);
+      int tokens = document.labelIndex(ParseToken.class).size();
+      long start = System.nanoTime();
+      for (DocumentTask task : separate) {
+        task.run(document);
+      }
+      report("separate detectors", document, tokens, System.nanoTime() - start);
+
+      document = createNote(sentences);
+      start = System.nanoTime();
+      combined.run(document);
+      report("time words gazetteer", document, tokens, System.nanoTime() - start);
+    }
+
+    Gazetteer gazetteer = timeWords.getGazetteer();
+    System.out.printf("%d tokens scanned by the gazetteer%n", gazetteer.tokenCount());
+    for (GazetteerStatistics statistics : gazetteer.statistics()) {
+      System.out.printf("  %-12s %3d entries, %7d matches%n", statistics.getName(),
+          statistics.getEntries(), statistics.getMatches());
+    }
+  }
+
+  private static void report(String name, Document document, int tokens, long elapsed) {
+    System.out.printf("  %-22s %5d days, %5d times, %5d seasons, %5d months, %6.1f ns/token%n",
+        name, document.labelIndex(DayOfWeek.class).size(),
+        document.labelIndex(TimeOfDayWord.class).size(),
+        document.labelIndex(SeasonWord.class).size(), document.labelIndex(Month.class).size(),
+        (double) elapsed / tokens);
+  }
+
+  private static Document createNote(int sentences) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < sentences; i++) {
+      text.append(i % 10 == 7 ? TIME : FILLER).append(' ');
+    }
+    Document document = new StandardArtifact("benchmark").addDocument("note", text.toString());
+
+    int index = 0;
+    for (String word : text.toString().split(" ")) {
+      int end = index + word.length();
+      document.labeler(ParseToken.class).add(new ParseToken(index, end, word, true));
+      document.labeler(PosTag.class).add(new PosTag(index, end, partOfSpeech(word)));
+      index = end + 1;
+    }
+    return document;
+  }
+
+  private static PartOfSpeech partOfSpeech(String word) {
+    switch (word) {
+      case "the":
+        return PartOfSpeech.DT;
+      case "in":
+        return PartOfSpeech.IN;
+      case "or":
+        return PartOfSpeech.CC;
+      case "Monday":
+      case "June":
+        return PartOfSpeech.NNP;
+      default:
+        return PartOfSpeech.NN;
+    }
+  }
+}
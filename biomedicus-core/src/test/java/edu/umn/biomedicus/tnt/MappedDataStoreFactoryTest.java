@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.tnt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.umn.biomedicus.common.tuples.Pair;
+import edu.umn.biomedicus.common.types.syntax.PartOfSpeech;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+public class MappedDataStoreFactoryTest {
+
+  @Test
+  void testKnownWords() throws IOException {
+    Path folder = Files.createTempDirectory("tnt-mapped");
+    MappedDataStoreFactory factory = new MappedDataStoreFactory(folder);
+
+    Map<Pair<PartOfSpeech, String>, Double> probabilities = new LinkedHashMap<>();
+    probabilities.put(Pair.of(PartOfSpeech.NN, "dose"), 0.25);
+    probabilities.put(Pair.of(PartOfSpeech.VB, "dose"), 0.5);
+    probabilities.put(Pair.of(PartOfSpeech.NN, "été"), 0.125);
+    probabilities.put(Pair.of(PartOfSpeech.JJ, "zz"), 1.0);
+    probabilities.put(Pair.of(PartOfSpeech.NN, "a"), 0.75);
+    KnownWordsDataStore created = factory.createKnownWordsDataStore(0);
+    created.addAllProbabilities(probabilities);
+    created.write();
+
+    KnownWordsDataStore store = factory.openKnownWordDataStore(0);
+    assertEquals(Arrays.asList(PartOfSpeech.NN, PartOfSpeech.VB), store.getCandidates("dose"));
+    assertEquals(0.5, (double) store.getProbability("dose", PartOfSpeech.VB));
+    assertEquals(0.125, (double) store.getProbability("été", PartOfSpeech.NN));
+    assertEquals(1.0, (double) store.getProbability("zz", PartOfSpeech.JJ));
+    assertEquals(0.75, (double) store.getProbability("a", PartOfSpeech.NN));
+    assertNull(store.getProbability("dose", PartOfSpeech.JJ));
+    assertNull(store.getProbability("unknown", PartOfSpeech.NN));
+    assertTrue(store.isKnown("a"));
+    assertFalse(store.isKnown("dos"));
+    assertFalse(store.isKnown("doses"));
+    assertEquals(Collections.emptyList(), store.getCandidates("unknown"));
+  }
+
+  @Test
+  void testSuffixes() throws IOException {
+    Path folder = Files.createTempDirectory("tnt-mapped");
+    MappedDataStoreFactory factory = new MappedDataStoreFactory(folder);
+
+    TreeMap<Pair<PartOfSpeech, String>, Double> probabilities = new TreeMap<>(
+        Comparator.comparing((Pair<PartOfSpeech, String> pair) -> pair.getSecond())
+            .thenComparing(Pair::getFirst));
+    probabilities.put(Pair.of(PartOfSpeech.NNS, "s"), 0.3);
+    probabilities.put(Pair.of(PartOfSpeech.VBZ, "s"), 0.2);
+    probabilities.put(Pair.of(PartOfSpeech.VBG, "ing"), 0.6);
+    SuffixDataStore created = factory.createSuffixDataStore(1);
+    created.addAllProbabilities(probabilities);
+    created.write();
+
+    SuffixDataStore store = factory.openSuffixDataStore(1);
+    assertEquals(0.3, (double) store.getProbability("s", PartOfSpeech.NNS));
+    assertEquals(0.2, (double) store.getProbability("s", PartOfSpeech.VBZ));
+    assertEquals(0.6, (double) store.getProbability("ing", PartOfSpeech.VBG));
+    assertNull(store.getProbability("ng", PartOfSpeech.VBG));
+  }
+
+  @Test
+  void testEmptyTable() throws IOException {
+    Path folder = Files.createTempDirectory("tnt-mapped");
+    MappedDataStoreFactory.write(folder.resolve(MappedDataStoreFactory.getWordsName(2)),
+        Collections.emptyMap());
+
+    KnownWordsDataStore store = new MappedDataStoreFactory(folder).openKnownWordDataStore(2);
+    assertFalse(store.isKnown("a"));
+    assertEquals(Collections.emptyList(), store.getCandidates("a"));
+  }
+}
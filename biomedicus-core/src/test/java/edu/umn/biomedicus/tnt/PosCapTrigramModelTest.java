@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.tnt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.umn.biomedicus.common.tuples.PosCap;
+import edu.umn.biomedicus.common.tuples.WordCap;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class PosCapTrigramModelTest {
+
+  @Test
+  void testPrecomputedLogProbabilities() {
+    PosCapTrigramModel model = TntViterbiTest.randomTrigramModel(5);
+    PosCapTrigramModel precomputed = TntViterbiTest.randomTrigramModel(5);
+    precomputed.precomputeLogProbabilities();
+
+    int cardinality = PosCap.cardinality();
+    for (int first = 0; first < cardinality; first++) {
+      for (int second = 0; second < cardinality; second++) {
+        for (int third = 0; third < cardinality; third++) {
+          assertEquals(Math.log10(model.getTrigramProbability(first, second, third)),
+              precomputed.getTrigramLogProbability(first, second, third));
+        }
+      }
+    }
+  }
+
+  @Test
+  void testPrecomputedTaggerOutput() {
+    TntModel model = new TntModel(TntViterbiTest.randomTrigramModel(9),
+        Collections.singletonList(new TntViterbiTest.RandomWordModel()));
+    PosCapTrigramModel precomputedTrigrams = TntViterbiTest.randomTrigramModel(9);
+    precomputedTrigrams.precomputeLogProbabilities();
+    TntModel precomputed = new TntModel(precomputedTrigrams,
+        Collections.singletonList(new TntViterbiTest.RandomWordModel()));
+
+    TntViterbi viterbi = new TntViterbi(precomputed);
+    Random random = new Random(13);
+    for (int i = 0; i < 200; i++) {
+      List<WordCap> sentence = TntViterbiTest.randomSentence(random);
+      assertEquals(TntViterbiTest.generic(model, sentence),
+          TntViterbiTest.primitive(viterbi, sentence));
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.tnt;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import edu.umn.biomedicus.common.tuples.Pair;
+import edu.umn.biomedicus.common.tuples.WordCap;
+import edu.umn.biomedicus.common.types.syntax.PartOfSpeech;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+
+public class SuffixWordProbabilityModelTest {
+
+  private static final List<PartOfSpeech> CANDIDATES = Arrays.asList(PartOfSpeech.NN,
+      PartOfSpeech.NNS, PartOfSpeech.VBZ, PartOfSpeech.VBG, PartOfSpeech.JJ);
+
+  private static class MapSuffixDataStore implements SuffixDataStore {
+
+    private final Map<Pair<PartOfSpeech, String>, Double> probabilities;
+
+    private final boolean batches;
+
+    private int batchCalls;
+
+    MapSuffixDataStore(Map<Pair<PartOfSpeech, String>, Double> probabilities, boolean batches) {
+      this.probabilities = probabilities;
+      this.batches = batches;
+    }
+
+    @Nullable
+    @Override
+    public Double getProbability(String suffix, PartOfSpeech candidate) {
+      return probabilities.get(Pair.of(candidate, suffix));
+    }
+
+    @Override
+    public boolean batchesLookups() {
+      return batches;
+    }
+
+    @Override
+    public List<Double> getProbabilities(List<Pair<PartOfSpeech, String>> keys) {
+      if (!batches) {
+        fail("Batch lookup on a store which does not batch");
+      }
+      batchCalls++;
+      return SuffixDataStore.super.getProbabilities(keys);
+    }
+
+    @Override
+    public void addAllProbabilities(TreeMap<Pair<PartOfSpeech, String>, Double> probabilities) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void write() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private static SuffixWordProbabilityModel model(SuffixDataStore store) {
+    SuffixWordProbabilityModel model = new SuffixWordProbabilityModel();
+    model.setMaxSuffixLength(4);
+    model.setWordCapAdapter(new WordCapAdapter(true, false));
+    model.openDataStore(new DataStoreFactory() {
+      @Override
+      public void setDbPath(Path dbPath) {
+      }
+
+      @Override
+      public SuffixDataStore openSuffixDataStore(int id) {
+        return store;
+      }
+
+      @Override
+      public KnownWordsDataStore openKnownWordDataStore(int id) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public KnownWordsDataStore createKnownWordsDataStore(int id) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public SuffixDataStore createSuffixDataStore(int id) {
+        throw new UnsupportedOperationException();
+      }
+    });
+    return model;
+  }
+
+  private static String randomWord(Random random) {
+    char[] chars = new char[1 + random.nextInt(7)];
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = "abes".charAt(random.nextInt(4));
+    }
+    return new String(chars);
+  }
+
+  private static Map<Pair<PartOfSpeech, String>, Double> randomProbabilities(Random random) {
+    Map<Pair<PartOfSpeech, String>, Double> probabilities = new HashMap<>();
+    for (int i = 0; i < 200; i++) {
+      String word = randomWord(random);
+      String suffix = word.substring(random.nextInt(word.length()));
+      PartOfSpeech candidate = CANDIDATES.get(random.nextInt(CANDIDATES.size()));
+      probabilities.put(Pair.of(candidate, suffix), -random.nextDouble() * 10);
+    }
+    return probabilities;
+  }
+
+  @Test
+  void testBatchedProbabilitiesMatchSingleLookups() {
+    for (long seed = 0; seed < 20; seed++) {
+      Random random = new Random(seed);
+      Map<Pair<PartOfSpeech, String>, Double> probabilities = randomProbabilities(random);
+      MapSuffixDataStore batchedStore = new MapSuffixDataStore(probabilities, true);
+      SuffixWordProbabilityModel batched = model(batchedStore);
+      SuffixWordProbabilityModel single = model(new MapSuffixDataStore(probabilities, false));
+
+      for (int i = 0; i < 100; i++) {
+        WordCap wordCap = new WordCap(randomWord(random), random.nextBoolean());
+        double[] expected = new double[CANDIDATES.size()];
+        for (int j = 0; j < expected.length; j++) {
+          expected[j] = single.logProbabilityOfWord(CANDIDATES.get(j), wordCap);
+        }
+
+        assertArrayEquals(expected, batched.logProbabilitiesOfWord(CANDIDATES, wordCap),
+            wordCap.getWord());
+        assertArrayEquals(expected, single.logProbabilitiesOfWord(CANDIDATES, wordCap),
+            wordCap.getWord());
+      }
+      assertEquals(100, batchedStore.batchCalls);
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.tnt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.google.common.cache.CacheStats;
+import edu.umn.biomedicus.common.tuples.PosCap;
+import edu.umn.biomedicus.common.tuples.WordCap;
+import edu.umn.biomedicus.common.types.syntax.PartOfSpeech;
+import edu.umn.biomedicus.common.viterbi.CandidateProbability;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class TntModelTest {
+
+  private static List<String> describe(Collection<CandidateProbability<PosCap>> candidates) {
+    List<String> result = new ArrayList<>();
+    for (CandidateProbability<PosCap> candidate : candidates) {
+      result.add(candidate.getCandidate() + ":" + candidate.getEmissionLogProbability());
+    }
+    return result;
+  }
+
+  @Test
+  void testEmissionCache() {
+    int[] lookups = new int[1];
+    WordProbabilityModel wordModel = new TntViterbiTest.RandomWordModel() {
+      @Override
+      public Set<PartOfSpeech> getCandidates(WordCap wordCap) {
+        lookups[0]++;
+        return super.getCandidates(wordCap);
+      }
+    };
+    PosCapTrigramModel trigramModel = TntViterbiTest.randomTrigramModel(1);
+    TntModel uncached = new TntModel(trigramModel,
+        Collections.singletonList(new TntViterbiTest.RandomWordModel()));
+    TntModel cached = new TntModel(trigramModel, Collections.singletonList(wordModel), 100);
+
+    WordCap word = new WordCap("w1", false);
+    WordCap other = new WordCap("w2", true);
+    for (int i = 0; i < 5; i++) {
+      assertEquals(describe(uncached.getCandidates(word)), describe(cached.getCandidates(word)));
+      assertEquals(describe(uncached.getCandidates(other)), describe(cached.getCandidates(other)));
+    }
+
+    assertEquals(2, lookups[0]);
+    CacheStats stats = cached.getEmissionCacheStats();
+    assertEquals(8, stats.hitCount());
+    assertEquals(2, stats.missCount());
+    assertNull(uncached.getEmissionCacheStats());
+  }
+}
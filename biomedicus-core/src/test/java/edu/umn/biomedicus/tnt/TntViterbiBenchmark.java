@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.tnt;
+
+import edu.umn.biomedicus.common.tuples.WordCap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the time taken to decode sentences with the generic Viterbi processor and with
+ * {@link TntViterbi}.
+ */
+public class TntViterbiBenchmark {
+
+  public static void main(String[] args) {
+    int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+    TntModel model = TntViterbiTest.randomModel(7);
+    Random random = new Random(11);
+    List<List<WordCap>> sentences = new ArrayList<>();
+    int words = 0;
+    for (int i = 0; i < 2000; i++) {
+      List<WordCap> sentence = TntViterbiTest.randomSentence(random);
+      words += sentence.size();
+      sentences.add(sentence);
+    }
+
+    TntViterbi viterbi = new TntViterbi(model);
+    for (int i = 0; i < iterations; i++) {
+      long start = System.nanoTime();
+      for (List<WordCap> sentence : sentences) {
+        TntViterbiTest.generic(model, sentence);
+      }
+      long generic = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (List<WordCap> sentence : sentences) {
+        TntViterbiTest.primitive(viterbi, sentence);
+      }
+      long primitive = System.nanoTime() - start;
+
+      System.out.printf("iteration %d: generic %.1f ns/word, primitive %.1f ns/word%n", i,
+          (double) generic / words, (double) primitive / words);
+    }
+  }
+}
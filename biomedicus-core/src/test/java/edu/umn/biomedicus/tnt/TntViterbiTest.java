@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.tnt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.umn.biomedicus.common.grams.Ngram;
+import edu.umn.biomedicus.common.tuples.PosCap;
+import edu.umn.biomedicus.common.tuples.WordCap;
+import edu.umn.biomedicus.common.types.syntax.PartOfSpeech;
+import edu.umn.biomedicus.common.viterbi.Viterbi;
+import edu.umn.biomedicus.common.viterbi.ViterbiProcessor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class TntViterbiTest {
+
+  /**
+   * A part of speech which never occurs, words with only this candidate are skipped.
+   */
+  static final PartOfSpeech NEVER = PartOfSpeech.FW;
+
+  /**
+   * Creates a TnT model with random transition probabilities and random candidates for each word.
+   */
+  static TntModel randomModel(long seed) {
+    return new TntModel(randomTrigramModel(seed),
+        Collections.singletonList(new RandomWordModel()));
+  }
+
+  /**
+   * Creates a trigram model with random probabilities, where {@link #NEVER} has probability zero.
+   */
+  static PosCapTrigramModel randomTrigramModel(long seed) {
+    Random random = new Random(seed);
+    int states = PosCap.cardinality();
+    double[] unigrams = new double[states];
+    double[][] bigrams = new double[states][states];
+    double[][][] trigrams = new double[states][states][states];
+    for (int i = 0; i < states; i++) {
+      unigrams[i] = random.nextDouble();
+      for (int j = 0; j < states; j++) {
+        bigrams[i][j] = random.nextDouble();
+        for (int k = 0; k < states; k++) {
+          trigrams[i][j][k] = random.nextInt(4) == 0 ? 0 : random.nextDouble();
+        }
+      }
+    }
+    for (boolean capitalized : new boolean[]{true, false}) {
+      int never = PosCap.create(NEVER, capitalized).ordinal();
+      unigrams[never] = 0;
+      for (int i = 0; i < states; i++) {
+        bigrams[i][never] = 0;
+        for (int j = 0; j < states; j++) {
+          trigrams[i][j][never] = 0;
+        }
+      }
+    }
+    return new PosCapTrigramModel(unigrams, bigrams, trigrams, 0.1, 0.3, 0.6);
+  }
+
+  static List<WordCap> randomSentence(Random random) {
+    List<WordCap> words = new ArrayList<>();
+    int length = random.nextInt(40);
+    for (int i = 0; i < length; i++) {
+      words.add(new WordCap("w" + random.nextInt(500), random.nextInt(5) == 0));
+    }
+    return words;
+  }
+
+  static List<PosCap> generic(TntModel model, List<WordCap> sentence) {
+    ViterbiProcessor<PosCap, WordCap> processor = Viterbi.secondOrder(model, model,
+        Ngram.create(TntPosTagger.BBS, TntPosTagger.BOS), Ngram::create);
+    for (WordCap wordCap : sentence) {
+      processor.advance(wordCap);
+      processor.beamFilter(2.0);
+    }
+    return processor.end(TntPosTagger.SKIP, TntPosTagger.EOS);
+  }
+
+  static List<PosCap> primitive(TntViterbi viterbi, List<WordCap> sentence) {
+    viterbi.begin(TntPosTagger.BBS, TntPosTagger.BOS);
+    for (WordCap wordCap : sentence) {
+      viterbi.advance(wordCap);
+      viterbi.beamFilter(2.0);
+    }
+    return viterbi.end(TntPosTagger.SKIP);
+  }
+
+  @Test
+  void testSameTagsAsGenericViterbi() {
+    TntModel model = randomModel(7);
+    TntViterbi viterbi = new TntViterbi(model);
+    Random random = new Random(11);
+    for (int i = 0; i < 200; i++) {
+      List<WordCap> sentence = randomSentence(random);
+      assertEquals(generic(model, sentence), primitive(viterbi, sentence));
+    }
+  }
+
+  @Test
+  void testSkippedWord() {
+    TntModel model = randomModel(3);
+    List<WordCap> sentence = new ArrayList<>();
+    sentence.add(new WordCap("w1", false));
+    sentence.add(new WordCap("never", false));
+    sentence.add(new WordCap("w2", false));
+
+    List<PosCap> tags = primitive(new TntViterbi(model), sentence);
+
+    assertEquals(generic(model, sentence), tags);
+    assertEquals(TntPosTagger.SKIP, tags.get(3));
+  }
+
+  /**
+   * Returns a deterministic random set of candidates and probabilities for each word, and only
+   * the part of speech which never occurs for the word "never".
+   */
+  static class RandomWordModel implements WordProbabilityModel {
+
+    private static final PartOfSpeech[] PARTS_OF_SPEECH = PartOfSpeech.values();
+
+    @Override
+    public double logProbabilityOfWord(PartOfSpeech candidate, WordCap wordCap) {
+      Random random = new Random(wordCap.getWord().hashCode() * 31L + candidate.ordinal());
+      return -3 * random.nextDouble();
+    }
+
+    @Override
+    public Set<PartOfSpeech> getCandidates(WordCap wordCap) {
+      if ("never".equals(wordCap.getWord())) {
+        return EnumSet.of(NEVER);
+      }
+      Random random = new Random(wordCap.getWord().hashCode());
+      Set<PartOfSpeech> candidates = EnumSet.noneOf(PartOfSpeech.class);
+      int count = 1 + random.nextInt(6);
+      while (candidates.size() < count) {
+        candidates.add(PARTS_OF_SPEECH[random.nextInt(PARTS_OF_SPEECH.length)]);
+      }
+      return candidates;
+    }
+
+    @Override
+    public boolean isKnown(WordCap wordCap) {
+      return true;
+    }
+
+    @Override
+    public void createDataStore(DataStoreFactory dataStoreFactory) {
+
+    }
+
+    @Override
+    public void openDataStore(DataStoreFactory dataStoreFactory) {
+
+    }
+
+    @Override
+    public void writeData() {
+
+    }
+
+    @Override
+    public int getId() {
+      return 0;
+    }
+
+    @Override
+    public void setId(int id) {
+
+    }
+  }
+}
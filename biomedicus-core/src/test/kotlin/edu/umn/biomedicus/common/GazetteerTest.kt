@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.common
+
+import kotlin.test.*
+
+class GazetteerTest {
+    val tested = Gazetteer(linkedMapOf(
+            "colors" to listOf("red", "light blue", "blue"),
+            "moods" to listOf("blue", "happy"),
+            "empty" to listOf<String>()
+    ))
+
+    @Test
+    fun testWord() {
+        assertEquals(listOf(GazetteerMatch(0, 1, 2)), tested.findAll(listOf("a", "red", "car")))
+    }
+
+    @Test
+    fun testIgnoresCase() {
+        assertEquals(listOf(GazetteerMatch(1, 0, 1)), tested.findAll(listOf("HAPPY")))
+    }
+
+    @Test
+    fun testEntriesUsedAsWritten() {
+        val gazetteer = Gazetteer(linkedMapOf("colors" to listOf("Red", " blue", "green")))
+
+        assertEquals(listOf(GazetteerMatch(0, 2, 3)),
+                gazetteer.findAll(listOf("red", "blue", "green")))
+    }
+
+    @Test
+    fun testWordInSeveralLists() {
+        assertEquals(listOf(GazetteerMatch(0, 0, 1), GazetteerMatch(1, 0, 1)),
+                tested.findAll(listOf("Blue")))
+    }
+
+    @Test
+    fun testPhraseAndWords() {
+        assertEquals(listOf(
+                GazetteerMatch(0, 1, 3),
+                GazetteerMatch(0, 2, 3),
+                GazetteerMatch(1, 2, 3)
+        ), tested.findAll(listOf("a", "light", "blue", "light")))
+    }
+
+    @Test
+    fun testNoMatches() {
+        assertTrue(tested.findAll(listOf("light", "green")).isEmpty())
+    }
+
+    @Test
+    fun testIndexOf() {
+        assertEquals(1, tested.indexOf("moods"))
+        assertEquals(-1, tested.indexOf("animals"))
+    }
+
+    @Test
+    fun testStatistics() {
+        val gazetteer = Gazetteer(linkedMapOf(
+                "colors" to listOf("red", "blue", "red", ""),
+                "moods" to listOf("blue")
+        ))
+
+        gazetteer.findAll(listOf("red", "and", "blue"))
+        gazetteer.findAll(listOf("red"))
+
+        assertEquals(listOf(
+                GazetteerStatistics("colors", 2, 3),
+                GazetteerStatistics("moods", 1, 1)
+        ), gazetteer.statistics())
+        assertEquals(4, gazetteer.tokenCount())
+    }
+
+    @Test
+    fun testTooManyLists() {
+        assertFailsWith<IllegalArgumentException> {
+            Gazetteer((0..64).associate { "list$it" to listOf("word$it") })
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package edu.umn.biomedicus.common
 
+import java.util.*
 import kotlin.test.*
 
 class SequenceDetectorTest {
@@ -39,4 +40,140 @@ class SequenceDetectorTest {
     fun testSequenceFail() {
         assertNull(tested.matches(listOf("x", "y", "z", "a", "b", "t", "u")))
     }
+
+    @Test
+    fun testCompletedSequenceNotRepeated() {
+        // a completed sequence used to stay in progress, testing its last item again against the
+        // next element, which reported "b c" a second time as IntRange(1, 2) for "b c c"
+        assertEquals(listOf(IntRange(0, 1)), tested.detectAll(listOf("b", "c", "c")))
+    }
+
+    val compiled = SequenceDetector.ignoreCase(listOf(
+            listOf("a", "b", "c"),
+            listOf("b", "c"),
+            listOf("d")
+    )) { string: String -> string }
+
+    @Test
+    fun testCompiledLengthOneEquals() {
+        assertEquals(compiled.matches(listOf("x", "y", "z", "D")), IntRange(3, 3))
+    }
+
+    @Test
+    fun testCompiledSequencePass() {
+        assertEquals(compiled.matches(listOf("x", "y", "A", "b", "C", "z")), IntRange(2, 4))
+    }
+
+    @Test
+    fun testCompiledSequenceFail() {
+        assertNull(compiled.matches(listOf("x", "y", "z", "a", "b", "t", "u")))
+    }
+
+    @Test
+    fun testCompiledDetectAllSameAsTest() {
+        val sequence = listOf("a", "b", "c", "d", "a", "a", "b", "b", "c", "c", "d", "b", "c")
+
+        assertEquals(tested.detectAll(sequence), compiled.detectAll(sequence))
+    }
+
+    @Test
+    fun testCompiledDetectAll() {
+        val sequence = listOf("a", "b", "c", "d", "a", "a", "b", "b", "c", "d", "b", "c")
+
+        assertEquals(
+                listOf(IntRange(0, 2), IntRange(1, 2), IntRange(3, 3), IntRange(7, 8),
+                        IntRange(9, 9), IntRange(10, 11)),
+                compiled.detectAll(sequence)
+        )
+    }
+
+    @Test
+    fun testCompiledOverlapping() {
+        val detector = SequenceDetector.ignoreCase(listOf(
+                listOf("a", "a"),
+                listOf("a", "b"),
+                listOf("a", "a", "b")
+        )) { string: String -> string }
+
+        assertEquals(
+                listOf(IntRange(0, 1), IntRange(1, 2), IntRange(1, 3), IntRange(2, 3)),
+                detector.detectAll(listOf("a", "a", "a", "b"))
+        )
+    }
+
+    @Test
+    fun testMatchesOverlappingLongestFirst() {
+        val sequences = listOf(listOf("b", "c"), listOf("a", "b", "c"), listOf("c"))
+        val sequence = listOf("x", "a", "b", "c")
+
+        val testDetector = SequenceDetector(*sequences.toTypedArray()) { a, b: String ->
+            a.equals(b, true)
+        }
+        val compiledDetector = SequenceDetector.ignoreCase(sequences) { string: String -> string }
+
+        assertEquals(IntRange(1, 3), testDetector.matches(sequence))
+        assertEquals(IntRange(1, 3), compiledDetector.matches(sequence))
+    }
+
+    @Test
+    fun testCompiledSameAsTestRandomized() {
+        val words = listOf("a", "A", "b", "c")
+        for (seed in 0L until 2000L) {
+            val random = Random(seed)
+            val sequences = List(1 + random.nextInt(8)) {
+                List(1 + random.nextInt(4)) { words[random.nextInt(words.size)] }
+            }
+            val sequence = List(random.nextInt(20)) { words[random.nextInt(words.size)] }
+
+            val testDetector = SequenceDetector(*sequences.toTypedArray()) { a, b: String ->
+                a.equals(b, true)
+            }
+            val compiledDetector = SequenceDetector.ignoreCase(sequences) { string: String ->
+                string
+            }
+
+            val expected = bruteForceDetectAll(sequences, sequence)
+            assertEquals(expected, testDetector.detectAll(sequence), "seed $seed")
+            assertEquals(expected, compiledDetector.detectAll(sequence), "seed $seed")
+            assertEquals(expected.firstOrNull(), testDetector.matches(sequence), "seed $seed")
+            assertEquals(expected.firstOrNull(), compiledDetector.matches(sequence), "seed $seed")
+        }
+    }
+
+    /**
+     * Checks every sequence ending at every index, the matches ending at an index are ordered
+     * longest first.
+     */
+    private fun bruteForceDetectAll(
+            sequences: List<List<String>>,
+            sequence: List<String>
+    ): List<IntRange> {
+        val ranges = ArrayList<IntRange>()
+        for (last in sequence.indices) {
+            sequences.filter { it.size <= last + 1 }
+                    .filter { candidate ->
+                        val first = last - candidate.size + 1
+                        candidate.indices.all { candidate[it].equals(sequence[first + it], true) }
+                    }
+                    .map { it.size }
+                    .sortedDescending()
+                    .mapTo(ranges) { IntRange(last - it + 1, last) }
+        }
+        return ranges
+    }
+
+    @Test
+    fun testCompiledTestIgnoresCase() {
+        assertTrue(compiled.test("b", "B"))
+        assertFalse(compiled.test("b", "c"))
+    }
+
+    @Test
+    fun testCompiledMatcherReset() {
+        val matcher = compiled.createMatcher()
+        assertEquals(emptyList<Int>(), matcher.getCompleted("a"))
+        assertEquals(emptyList<Int>(), matcher.getCompleted("b"))
+        matcher.reset()
+        assertEquals(emptyList<Int>(), matcher.getCompleted("c"))
+    }
 }
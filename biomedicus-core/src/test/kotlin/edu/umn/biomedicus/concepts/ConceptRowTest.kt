@@ -42,4 +42,18 @@ class ConceptRowTest {
         assertEquals(secondO.tui.identifier(), 6)
         assertEquals(secondO.source, 8)
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `test rows view`() {
+        val first = ConceptRow(SUI(1), CUI(2), TUI(3), 7)
+        val second = ConceptRow(SUI(4), CUI(5), TUI(6), 8)
+
+        val buffer = ByteBuffer.allocate(40).putInt(99).put(first.bytes).put(second.bytes)
+        buffer.flip().position(4)
+
+        val rows = ConceptRows(buffer)
+
+        assertEquals(listOf(first, second), rows)
+        assertFailsWith<IndexOutOfBoundsException> { rows[2] }
+    }
+}
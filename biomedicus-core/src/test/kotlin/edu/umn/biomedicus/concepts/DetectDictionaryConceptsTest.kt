@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.concepts
+
+import edu.umn.biomedicus.acronyms.Acronym
+import edu.umn.biomedicus.common.dictionary.StringIdentifier
+import edu.umn.biomedicus.common.dictionary.StringsBag
+import edu.umn.biomedicus.common.types.syntax.PartOfSpeech
+import edu.umn.biomedicus.common.types.syntax.PartsOfSpeech
+import edu.umn.biomedicus.normalization.NormForm
+import edu.umn.biomedicus.sentences.Sentence
+import edu.umn.biomedicus.tagging.PosTag
+import edu.umn.biomedicus.tokenization.TermToken
+import edu.umn.biomedicus.tokenization.Token
+import edu.umn.nlpengine.Document
+import edu.umn.nlpengine.DocumentTask
+import edu.umn.nlpengine.LabelIndex
+import edu.umn.nlpengine.Labeler
+import edu.umn.nlpengine.Span
+import edu.umn.nlpengine.StandardArtifact
+import edu.umn.nlpengine.TextRange
+import edu.umn.nlpengine.addTo
+import edu.umn.nlpengine.labelIndex
+import edu.umn.nlpengine.labeler
+import java.util.*
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+import kotlin.test.fail
+
+private val words = listOf("Chest", "pain", "of", "the", "left", "arm", "and", "Heart", "failure",
+        "acute", "renal", "disease", "blood", "pressure", "high", "Type", "2", "diabetes")
+
+private val partsOfSpeech = listOf(PartOfSpeech.NN, PartOfSpeech.NN, PartOfSpeech.JJ,
+        PartOfSpeech.DT, PartOfSpeech.IN, PartOfSpeech.CC, PartOfSpeech.VB)
+
+/**
+ * Creates a document of random sentences of the words, with term tokens, part of speech tags, and
+ * norms.
+ */
+internal fun randomDocument(random: Random, sentences: Int): Document {
+    val builder = StringBuilder()
+    val labels = ArrayList<(Document) -> Unit>()
+    repeat(sentences) {
+        val sentenceStart = builder.length
+        repeat(3 + random.nextInt(15)) {
+            val word = words[random.nextInt(words.size)]
+            val start = builder.length
+            builder.append(word)
+            val end = builder.length
+            val space = random.nextInt(10) != 0
+            if (space) builder.append(' ')
+            val pos = partsOfSpeech[random.nextInt(partsOfSpeech.size)]
+            val norm = words.indexOfFirst { it.equals(word, ignoreCase = true) }
+            labels.add { document ->
+                TermToken(start, end, word, space).addTo(document)
+                PosTag(start, end, pos).addTo(document)
+                NormForm(start, end, word.toLowerCase(), norm).addTo(document)
+            }
+        }
+        val sentenceEnd = builder.length
+        labels.add { document -> Sentence(sentenceStart, sentenceEnd).addTo(document) }
+        builder.append(". ")
+    }
+    val document = StandardArtifact("1").addDocument("doc", builder.toString())
+    labels.forEach { it(document) }
+    return document
+}
+
+private fun rows(random: Random): ByteArray {
+    val rows = (0..random.nextInt(2)).map {
+        ConceptRow(SUI(random.nextInt(1000)), CUI(random.nextInt(1000)), TUI(random.nextInt(50)),
+                random.nextInt(2))
+    }
+    return rows.fold(ByteArray(0)) { bytes, row -> bytes + row.bytes }
+}
+
+private fun table() = TreeMap<ByteArray, ByteArray>(Comparator { first, second ->
+    TrieConceptDictionary.compare(first, second)
+})
+
+/**
+ * Creates a dictionary of random phrases and norm bags of the words.
+ */
+internal fun randomDictionary(random: Random, entries: Int): TrieConceptDictionary {
+    val phrases = table()
+    val lowercase = table()
+    val norms = table()
+    repeat(entries) {
+        val phrase = (0..random.nextInt(4)).joinToString(" ") { words[random.nextInt(words.size)] }
+        phrases[phrase.toByteArray()] = rows(random)
+        if (random.nextBoolean()) lowercase[phrase.toLowerCase().toByteArray()] = rows(random)
+
+        val bag = StringsBag.builder()
+        repeat(2 + random.nextInt(2)) {
+            bag.addTerm(StringIdentifier(random.nextInt(words.size)))
+        }
+        norms[bag.build().bytes] = rows(random)
+    }
+    return TrieConceptDictionary.build(phrases.entries.iterator(), lowercase.entries.iterator(),
+            norms.entries.iterator(), mapOf(0 to "A", 1 to "B"))
+}
+
+private val trivialPos = setOf(PartOfSpeech.DT, PartOfSpeech.CD, PartOfSpeech.WDT,
+        PartOfSpeech.TO, PartOfSpeech.CC, PartOfSpeech.PRP, PartOfSpeech.`PRP$`, PartOfSpeech.MD,
+        PartOfSpeech.EX, PartOfSpeech.IN, PartOfSpeech.XX) + PartsOfSpeech.getPunctuationClass()
+
+/**
+ * A copy of the window loop of [DetectDictionaryConcepts] from before it skipped windows and
+ * batched lookups. It looks up every window of up to five tokens in each sentence one at a time,
+ * and is the reference the current detector is compared against.
+ */
+internal class WindowLoopDetectDictionaryConcepts(
+        private val conceptDictionary: ConceptDictionary
+) : DocumentTask {
+    private lateinit var termLabeler: Labeler<DictionaryTerm>
+
+    private lateinit var conceptLabeler: Labeler<UmlsConcept>
+
+    private lateinit var posTags: LabelIndex<PosTag>
+
+    private lateinit var normIndexes: LabelIndex<NormForm>
+
+    private fun checkPhrase(
+            span: Span,
+            phrase: String,
+            oneToken: Boolean,
+            confMod: Double
+    ): Boolean {
+        conceptDictionary.forPhrase(phrase)?.let {
+            makeTerm(span, it, 1 - confMod)
+            return true
+        }
+
+        if (oneToken) return false
+
+        conceptDictionary.forLowercasePhrase(phrase.toLowerCase(Locale.ENGLISH))?.let {
+            makeTerm(span, it, 0.6 - confMod)
+            return true
+        }
+
+        return false
+    }
+
+    private fun checkTokenSet(tokenSet: List<TermToken>) {
+        if (tokenSet.size <= 1) return
+
+        val phraseAsSpan = Span(tokenSet.first().startIndex, tokenSet.last().endIndex)
+        val builder = StringsBag.builder()
+        for (normForm in normIndexes.inside(phraseAsSpan)) {
+            val posTag = posTags.firstAtLocation(normForm)
+            if (posTag != null && posTag.partOfSpeech in trivialPos) continue
+            builder.addTerm(normForm.normIdentifier())
+        }
+
+        conceptDictionary.forNorms(builder.build())?.let { makeTerm(phraseAsSpan, it, .3) }
+    }
+
+    private fun makeTerm(label: TextRange, cuis: List<ConceptRow>, confidence: Double) {
+        for (row in cuis) {
+            val source = conceptDictionary.source(row.source) ?: "unknown"
+            conceptLabeler.add(UmlsConcept(label, row.sui.toString(), row.cui.toString(),
+                    row.tui.toString(), source, confidence))
+        }
+        termLabeler.add(DictionaryTerm(label))
+    }
+
+    override fun run(document: Document) {
+        normIndexes = document.labelIndex()
+        termLabeler = document.labeler()
+        conceptLabeler = document.labeler()
+        posTags = document.labelIndex()
+        val termTokens = document.labelIndex<TermToken>()
+        val acronyms = document.labelIndex<Acronym>()
+
+        val documentText = document.text
+        for (sentence in document.labelIndex<Sentence>()) {
+            val editedString = StringBuilder()
+            val editedStringSpans = ArrayList<Span>()
+            val sentenceTermTokens = termTokens.inside(sentence).asList()
+
+            for (termToken in sentenceTermTokens) {
+                val token: Token = acronyms.firstAtLocation(termToken) ?: termToken
+                val tokenText = token.text
+                editedStringSpans.add(Span(editedString.length,
+                        editedString.length + tokenText.length))
+                editedString.append(tokenText)
+                if (token.hasSpaceAfter) editedString.append(' ')
+            }
+
+            for (from in sentenceTermTokens.indices) {
+                val to = minOf(from + 5, sentenceTermTokens.size)
+                val window = sentenceTermTokens.subList(from, to)
+                val first = window[0]
+
+                for (subsetSize in 1..window.size) {
+                    val windowSubset = window.subList(0, subsetSize)
+                    val entire = Span(first.startIndex, windowSubset.last().endIndex)
+
+                    if (posTags.inside(entire).all { it.partOfSpeech in trivialPos }) continue
+
+                    if (checkPhrase(entire, entire.coveredString(documentText), subsetSize == 1,
+                                    0.0)) continue
+
+                    val editedBegin = editedStringSpans[from].startIndex
+                    val editedEnd = editedStringSpans[from + subsetSize - 1].endIndex
+                    if (checkPhrase(entire, editedString.substring(editedBegin, editedEnd),
+                                    subsetSize == 1, .1)) continue
+
+                    checkTokenSet(windowSubset)
+                }
+            }
+        }
+    }
+}
+
+/**
+ * A dictionary which fails on single lookups, so every lookup must be part of a batch.
+ */
+internal class BatchOnlyConceptDictionary(
+        private val dictionary: ConceptDictionary
+) : ConceptDictionary {
+    var batches = 0
+
+    override fun batchesLookups() = true
+
+    override fun forPhrase(phrase: String) = fail("Single phrase lookup: \"$phrase\"")
+
+    override fun forLowercasePhrase(phrase: String) =
+            fail("Single lowercase phrase lookup: \"$phrase\"")
+
+    override fun forNorms(norms: StringsBag) = fail("Single norms lookup: $norms")
+
+    override fun forPhrases(phrases: List<String>): List<List<ConceptRow>?> {
+        batches++
+        return dictionary.forPhrases(phrases)
+    }
+
+    override fun forLowercasePhrases(phrases: List<String>): List<List<ConceptRow>?> {
+        batches++
+        return dictionary.forLowercasePhrases(phrases)
+    }
+
+    override fun forNormBags(normBags: List<StringsBag>): List<List<ConceptRow>?> {
+        batches++
+        return dictionary.forNormBags(normBags)
+    }
+
+    override fun hasPhrasePrefix(prefix: String) = dictionary.hasPhrasePrefix(prefix)
+
+    override fun hasLowercasePrefix(prefix: String) = dictionary.hasLowercasePrefix(prefix)
+
+    override fun hasNorm(norm: StringIdentifier) = dictionary.hasNorm(norm)
+
+    override fun source(identifier: Int) = dictionary.source(identifier)
+}
+
+/**
+ * A dictionary which fails on batch lookups, for dictionaries which do not benefit from them.
+ */
+internal class SingleOnlyConceptDictionary(
+        private val dictionary: ConceptDictionary
+) : ConceptDictionary by dictionary {
+    override fun forPhrases(phrases: List<String>) = fail("Batch phrase lookup: $phrases")
+
+    override fun forLowercasePhrases(phrases: List<String>) =
+            fail("Batch lowercase phrase lookup: $phrases")
+
+    override fun forNormBags(normBags: List<StringsBag>) = fail("Batch norms lookup: $normBags")
+}
+
+class DetectDictionaryConceptsTest {
+    @Test
+    fun `finds the same concepts as the old window loop`() {
+        for (seed in 0L until 20L) {
+            val dictionary = randomDictionary(Random(seed), 300)
+
+            val expected = randomDocument(Random(seed), 50)
+            WindowLoopDetectDictionaryConcepts(dictionary).run(expected)
+
+            val actual = randomDocument(Random(seed), 50)
+            DetectDictionaryConcepts(dictionary).run(actual)
+
+            val expectedConcepts = expected.labelIndex<UmlsConcept>().asList()
+            assertTrue(expectedConcepts.isNotEmpty())
+            assertEquals(expectedConcepts, actual.labelIndex<UmlsConcept>().asList())
+            assertEquals(expected.labelIndex<DictionaryTerm>().asList(),
+                    actual.labelIndex<DictionaryTerm>().asList())
+        }
+    }
+
+    @Test
+    fun `every lookup in a sentence is resolved in one batch`() {
+        for (seed in 0L until 20L) {
+            val dictionary = randomDictionary(Random(seed), 300)
+
+            val expected = randomDocument(Random(seed), 50)
+            DetectDictionaryConcepts(dictionary).run(expected)
+
+            val batchOnly = BatchOnlyConceptDictionary(dictionary)
+            val actual = randomDocument(Random(seed), 50)
+            DetectDictionaryConcepts(batchOnly).run(actual)
+
+            assertTrue(batchOnly.batches <= 3 * 50)
+            assertEquals(expected.labelIndex<UmlsConcept>().asList(),
+                    actual.labelIndex<UmlsConcept>().asList())
+        }
+    }
+
+    @Test
+    fun `dictionaries which do not batch use single lookups`() {
+        for (seed in 0L until 20L) {
+            val dictionary = randomDictionary(Random(seed), 300)
+
+            val expected = randomDocument(Random(seed), 50)
+            DetectDictionaryConcepts(BatchOnlyConceptDictionary(dictionary)).run(expected)
+
+            val actual = randomDocument(Random(seed), 50)
+            DetectDictionaryConcepts(SingleOnlyConceptDictionary(dictionary)).run(actual)
+
+            assertEquals(expected.labelIndex<UmlsConcept>().asList(),
+                    actual.labelIndex<UmlsConcept>().asList())
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.framework
+
+import com.google.inject.Guice
+import edu.umn.biomedicus.annotations.Reusable
+import edu.umn.nlpengine.Document
+import edu.umn.nlpengine.DocumentTask
+import edu.umn.nlpengine.StandardArtifact
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.test.Test
+import kotlin.test.assertEquals
+
+private val constructed = AtomicInteger()
+
+class CountingTask : DocumentTask {
+    init {
+        constructed.incrementAndGet()
+    }
+
+    override fun run(document: Document) {}
+}
+
+@Reusable
+class ReusableCountingTask : DocumentTask {
+    init {
+        constructed.incrementAndGet()
+    }
+
+    override fun run(document: Document) {}
+}
+
+private fun documentTaskRunner(
+        taskClass: Class<out DocumentTask>,
+        settings: Map<String, Any> = emptyMap()
+) = DocumentTaskRunner(
+        taskClass,
+        BiomedicusScopes.createProcessorContext(emptyMap()),
+        Guice.createInjector(),
+        settings + ("documentName" to "text")
+)
+
+private fun artifact(id: Int) = StandardArtifact("$id").apply { addDocument("text", "some text") }
+
+class DocumentTaskRunnerTest {
+    @Test
+    fun `new instance for every document by default`() {
+        constructed.set(0)
+        val runner = documentTaskRunner(CountingTask::class.java)
+        for (i in 0 until 10) runner.processArtifact(artifact(i))
+
+        assertEquals(11, constructed.get())
+    }
+
+    @Test
+    fun `reusable task instance is reused`() {
+        constructed.set(0)
+        val runner = documentTaskRunner(ReusableCountingTask::class.java)
+        for (i in 0 until 10) runner.processArtifact(artifact(i))
+
+        assertEquals(1, constructed.get())
+    }
+
+    @Test
+    fun `idle instances are capped at the concurrency`() {
+        constructed.set(0)
+        val tasks = TaskInstances(ReusableCountingTask::class.java, Guice.createInjector(),
+                mapOf("maxConcurrency" to 2))
+
+        fun nest(depth: Int) {
+            if (depth > 0) tasks.use { nest(depth - 1) }
+        }
+
+        nest(5)
+        assertEquals(5, constructed.get())
+        nest(5)
+        assertEquals(8, constructed.get())
+    }
+
+    @Test
+    fun `idle instances are capped at the pipeline concurrency`() {
+        constructed.set(0)
+        val tasks = TaskInstances(ReusableCountingTask::class.java, Guice.createInjector(),
+                mapOf("threads" to 100), 3)
+
+        fun nest(depth: Int) {
+            if (depth > 0) tasks.use { nest(depth - 1) }
+        }
+
+        nest(5)
+        assertEquals(5, constructed.get())
+        nest(5)
+        assertEquals(7, constructed.get())
+    }
+
+    @Test
+    fun `reuseInstances setting reuses instance`() {
+        constructed.set(0)
+        val runner = documentTaskRunner(CountingTask::class.java, mapOf("reuseInstances" to true))
+        for (i in 0 until 10) runner.processArtifact(artifact(i))
+
+        assertEquals(1, constructed.get())
+    }
+}
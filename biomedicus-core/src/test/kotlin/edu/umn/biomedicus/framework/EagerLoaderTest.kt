@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.framework
+
+import com.google.inject.AbstractModule
+import com.google.inject.Guice
+import com.google.inject.Key
+import com.google.inject.ProvidedBy
+import edu.umn.biomedicus.annotations.ComponentSetting
+import edu.umn.biomedicus.exc.BiomedicusException
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+import javax.inject.Singleton
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertTrue
+
+@ProvidedBy(FirstModel.Loader::class)
+class FirstModel {
+    @Singleton
+    class Loader : DataLoader<FirstModel>() {
+        override fun loadModel(): FirstModel {
+            latch.countDown()
+            check(latch.await(10, TimeUnit.SECONDS)) { "Models were not loaded concurrently" }
+            return FirstModel()
+        }
+    }
+
+    companion object {
+        var latch = CountDownLatch(2)
+    }
+}
+
+@ProvidedBy(SecondModel.Loader::class)
+class SecondModel {
+    @Singleton
+    class Loader : DataLoader<SecondModel>() {
+        override fun loadModel(): SecondModel {
+            FirstModel.latch.countDown()
+            check(FirstModel.latch.await(10, TimeUnit.SECONDS)) {
+                "Models were not loaded concurrently"
+            }
+            return SecondModel()
+        }
+    }
+}
+
+@ProvidedBy(FailingModel.Loader::class)
+class FailingModel {
+    @Singleton
+    class Loader : DataLoader<FailingModel>() {
+        override fun loadModel(): FailingModel = throw BiomedicusException("failed")
+    }
+}
+
+class UsesModels @Inject constructor(first: FirstModel, second: SecondModel)
+
+class UsesFailingModel @Inject constructor(model: FailingModel)
+
+class UsesComponentSetting @Inject constructor(
+        first: FirstModel,
+        @ComponentSetting("component.only") setting: String
+)
+
+class EagerLoaderTest {
+    private fun eagerLoader(vararg modules: AbstractModule) = Guice.createInjector(*modules)
+            .getInstance(Key.get(EagerLoader::class.java))
+
+    private fun threadsModule() = object : AbstractModule() {
+        override fun configure() {
+            bind(Int::class.java).annotatedWith(SettingImpl("eagerLoad.threads")).toInstance(2)
+        }
+    }
+
+    @Test
+    fun `discovers loaders through provided by bindings`() {
+        val keys = eagerLoader(threadsModule()).discover(listOf(UsesModels::class.java))
+
+        assertEquals(
+                setOf<Key<*>>(Key.get(FirstModel.Loader::class.java),
+                        Key.get(SecondModel.Loader::class.java)),
+                keys.toSet()
+        )
+    }
+
+    @Test
+    fun `does not discover bindings the roots do not depend on`() {
+        val failingModule = object : AbstractModule() {
+            override fun configure() {
+                bind(UsesFailingModel::class.java)
+            }
+        }
+
+        val keys = eagerLoader(threadsModule(), failingModule)
+                .discover(listOf(UsesModels::class.java))
+
+        assertEquals(
+                setOf<Key<*>>(Key.get(FirstModel.Loader::class.java),
+                        Key.get(SecondModel.Loader::class.java)),
+                keys.toSet()
+        )
+    }
+
+    @Test
+    fun `discovers loaders of components with unbound component settings`() {
+        val keys = eagerLoader(threadsModule()).discover(listOf(UsesComponentSetting::class.java))
+
+        assertEquals(listOf<Key<*>>(Key.get(FirstModel.Loader::class.java)), keys)
+    }
+
+    @Test
+    fun `loads models concurrently`() {
+        FirstModel.latch = CountDownLatch(2)
+
+        val results = eagerLoader(threadsModule()).loadAll(listOf(UsesModels::class.java))
+
+        assertEquals(2, results.size)
+        assertTrue(results.all { it.millis >= 0 })
+    }
+
+    @Test
+    fun `fails on first exception`() {
+        assertFailsWith<BiomedicusException> {
+            eagerLoader(threadsModule()).loadAll(listOf(UsesFailingModel::class.java))
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.framework
+
+import edu.umn.nlpengine.Artifact
+import edu.umn.nlpengine.Runner
+import edu.umn.nlpengine.StandardArtifact
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertTrue
+
+class MetricsTest {
+    @Test
+    fun `histogram bucket contains value`() {
+        for (value in listOf(0L, 1L, 7L, 8L, 9L, 15L, 16L, 1000L, 123456789L, Long.MAX_VALUE)) {
+            val index = LatencyHistogram.bucketIndex(value)
+            assertTrue(LatencyHistogram.bucketUpperBound(index) >= value, "upper bound of $value")
+            if (index > 0) {
+                assertTrue(LatencyHistogram.bucketUpperBound(index - 1) < value,
+                        "previous bound of $value")
+            }
+        }
+    }
+
+    @Test
+    fun `histogram percentiles`() {
+        val histogram = LatencyHistogram()
+        for (i in 1L..1000L) histogram.record(i * 1000)
+
+        val p50 = histogram.percentile(0.5)
+        assertTrue(p50 >= 500_000 && p50 <= 500_000 * 1.125, "p50: $p50")
+        val p99 = histogram.percentile(0.99)
+        assertTrue(p99 >= 990_000 && p99 <= 990_000 * 1.125, "p99: $p99")
+    }
+
+    @Test
+    fun `metered runner records artifacts`() {
+        val metrics = ProcessorMetrics("test")
+        val runner = MeteredRunner(object : Runner {
+            override fun processArtifact(artifact: Artifact) {
+                if (artifact.artifactID == "fail") throw IllegalStateException()
+            }
+        }, metrics, "text")
+
+        val artifact = StandardArtifact("1")
+        artifact.addDocument("text", "some text")
+        artifact.addDocument("other", "ignored")
+        runner.processArtifact(artifact)
+        assertFailsWith<IllegalStateException> {
+            runner.processArtifact(StandardArtifact("fail"))
+        }
+
+        assertEquals(2, metrics.artifactCount)
+        assertEquals(1, metrics.failureCount)
+        assertEquals(9, metrics.characterCount)
+    }
+
+    @Test
+    fun `registry reports resource metrics to every reporter`() {
+        val resource = object : ResourceMetrics {
+            override val resourceType = "Test"
+
+            override val resourceName = "resource"
+        }
+        val reported = ArrayList<ResourceMetrics>()
+        val reporter = object : MetricsReporter {
+            override fun added(metrics: ProcessorMetrics) {}
+
+            override fun added(metrics: ResourceMetrics) {
+                reported.add(metrics)
+            }
+
+            override fun close() {}
+        }
+
+        val registry = StandardMetricsRegistry(false, 0)
+        registry.addReporter(reporter)
+        registry.addResourceMetrics(resource)
+        registry.addReporter(reporter)
+
+        assertEquals(listOf<ResourceMetrics>(resource, resource), reported)
+        assertEquals(listOf<ResourceMetrics>(resource), registry.allResourceMetrics.toList())
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.framework
+
+import com.google.inject.Guice
+import com.google.inject.Module
+import edu.umn.nlpengine.Artifact
+import edu.umn.nlpengine.ArtifactSource
+import edu.umn.nlpengine.Runner
+import edu.umn.nlpengine.StandardArtifact
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+
+class PipelineExecutorTest {
+    private class CountingSource : ArtifactSource {
+        val reads = AtomicInteger()
+
+        override fun estimateTotal() = 100L
+
+        override fun tryAdvance(consumer: (Artifact) -> Unit): Boolean {
+            val next = reads.get()
+            if (next == 100) return false
+            reads.incrementAndGet()
+            consumer(StandardArtifact("$next"))
+            return true
+        }
+
+        override fun close() {}
+    }
+
+    private fun sourceRunner(source: CountingSource = CountingSource()) = ArtifactSourceRunner(
+            CountingSource::class.java,
+            BiomedicusScopes.createProcessorContext(emptyMap()),
+            Guice.createInjector(Module { it.bind(CountingSource::class.java).toInstance(source) })
+    )
+
+    @Test
+    fun `processes every artifact and calls done once`() {
+        val seen = ConcurrentHashMap.newKeySet<String>()
+        val inFlight = AtomicInteger()
+        val maxInFlight = AtomicInteger()
+        val dones = AtomicInteger()
+
+        val runner = object : Runner {
+            override fun processArtifact(artifact: Artifact) {
+                val current = inFlight.incrementAndGet()
+                maxInFlight.accumulateAndGet(current) { a, b -> maxOf(a, b) }
+                Thread.sleep(1)
+                seen.add(artifact.artifactID)
+                inFlight.decrementAndGet()
+            }
+
+            override fun done() {
+                dones.incrementAndGet()
+            }
+        }
+
+        val processed = PipelineExecutor(sourceRunner(), listOf(runner), 4, 8).run()
+
+        assertEquals(100, processed)
+        assertEquals(100, seen.size)
+        assertEquals(1, dones.get())
+        assertTrue(maxInFlight.get() <= 4)
+    }
+
+    @Test
+    fun `virtual threads respect stage concurrency limit`() {
+        val seen = ConcurrentHashMap.newKeySet<String>()
+        val inFlight = AtomicInteger()
+        val maxInFlight = AtomicInteger()
+
+        val runner = object : Runner {
+            override fun processArtifact(artifact: Artifact) {
+                val current = inFlight.incrementAndGet()
+                maxInFlight.accumulateAndGet(current) { a, b -> maxOf(a, b) }
+                Thread.sleep(1)
+                seen.add(artifact.artifactID)
+                inFlight.decrementAndGet()
+            }
+        }
+
+        val processed = PipelineExecutor(
+                sourceRunner(),
+                listOf(ConcurrencyLimitedRunner(runner, Semaphore(3))),
+                maxInFlight = 50,
+                virtualThreads = true
+        ).run()
+
+        assertEquals(100, processed)
+        assertEquals(100, seen.size)
+        assertTrue(maxInFlight.get() <= 3)
+    }
+
+    @Test
+    fun `virtual threads allow maxInFlight below threads`() {
+        val runner = object : Runner {
+            override fun processArtifact(artifact: Artifact) {}
+        }
+
+        val processed = PipelineExecutor(sourceRunner(), listOf(runner), threads = 8,
+                maxInFlight = 2, virtualThreads = true).run()
+
+        assertEquals(100, processed)
+        assertFailsWith<IllegalArgumentException> {
+            PipelineExecutor(sourceRunner(), listOf(runner), threads = 8, maxInFlight = 2)
+        }
+        assertFailsWith<IllegalArgumentException> {
+            PipelineExecutor(sourceRunner(), listOf(runner), maxInFlight = 0,
+                    virtualThreads = true)
+        }
+    }
+
+    @Test
+    fun `rethrows runner failure without calling done`() {
+        val dones = AtomicInteger()
+
+        val runner = object : Runner {
+            override fun processArtifact(artifact: Artifact) {
+                if (artifact.artifactID == "10") throw IllegalStateException("failed")
+            }
+
+            override fun done() {
+                dones.incrementAndGet()
+            }
+        }
+
+        assertFailsWith<IllegalStateException> {
+            PipelineExecutor(sourceRunner(), listOf(runner), 2, 2).run()
+        }
+        assertEquals(0, dones.get())
+    }
+
+    @Test
+    fun `stops reading the source when maxInFlight artifacts are unfinished`() {
+        val source = CountingSource()
+        val started = CountDownLatch(2)
+        val release = CountDownLatch(1)
+
+        val runner = object : Runner {
+            override fun processArtifact(artifact: Artifact) {
+                started.countDown()
+                release.await()
+            }
+        }
+
+        val executor = PipelineExecutor(sourceRunner(source), listOf(runner), 2, 3)
+        val processed = AtomicInteger()
+        val thread = Thread { processed.set(executor.run()) }
+        thread.start()
+
+        assertTrue(started.await(10, TimeUnit.SECONDS))
+        // both workers are blocked, one artifact is queued and the source must not be read again
+        Thread.sleep(200)
+        assertEquals(3, source.reads.get())
+        assertTrue(thread.isAlive)
+
+        release.countDown()
+        thread.join(10_000)
+        assertFalse(thread.isAlive)
+        assertEquals(100, processed.get())
+    }
+}
@@ -22,6 +22,9 @@ import edu.umn.nlpengine.*
 import java.lang.System
 import kotlin.concurrent.thread
 import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertNull
 import kotlin.test.assertSame
 import kotlin.test.assertTrue
 
@@ -91,4 +94,45 @@ class RunnerFactoryTest {
         assertSame(document, processed, "document passed to processor")
         assertTrue(done, "done not called after finished")
     }
+
+    @Test
+    fun `max concurrency from a string setting`() {
+        System.setProperty("biomedicus.paths.home", ".")
+        val application = Bootstrapper.create(Guice.createInjector(Stage.DEVELOPMENT))
+        val runnerFactory = application.getInstance(RunnerFactory::class.java)
+
+        val runner = runnerFactory.getRunner("limited",
+                mapOf(Pair("pipelineComponent", TestArtifactsProcessor::class.java.name),
+                        Pair("maxConcurrency", "2")),
+                emptyMap())
+
+        assertTrue(runner is ConcurrencyLimitedRunner)
+    }
+
+    @Test
+    fun `max concurrency must be positive`() {
+        System.setProperty("biomedicus.paths.home", ".")
+        val application = Bootstrapper.create(Guice.createInjector(Stage.DEVELOPMENT))
+        val runnerFactory = application.getInstance(RunnerFactory::class.java)
+
+        assertFailsWith<IllegalArgumentException> {
+            runnerFactory.getRunner("zero",
+                    mapOf(Pair("pipelineComponent", TestArtifactsProcessor::class.java.name),
+                            Pair("maxConcurrency", 0)),
+                    emptyMap())
+        }
+    }
+
+    @Test
+    fun `positive int setting`() {
+        val settings = mapOf("number" to 4, "string" to " 3 ", "negative" to "-1",
+                "fraction" to 1.5, "text" to "many")
+
+        assertEquals(4, settings.positiveIntSetting("number"))
+        assertEquals(3, settings.positiveIntSetting("string"))
+        assertNull(settings.positiveIntSetting("missing"))
+        assertFailsWith<IllegalArgumentException> { settings.positiveIntSetting("negative") }
+        assertFailsWith<IllegalArgumentException> { settings.positiveIntSetting("fraction") }
+        assertFailsWith<IllegalArgumentException> { settings.positiveIntSetting("text") }
+    }
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.normalization
+
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.doReturn
+import com.nhaarman.mockitokotlin2.mock
+import edu.umn.biomedicus.common.dictionary.BidirectionalDictionary
+import edu.umn.biomedicus.common.dictionary.StringIdentifier
+import edu.umn.biomedicus.common.types.syntax.PartOfSpeech
+import edu.umn.biomedicus.tagging.PosTag
+import edu.umn.biomedicus.tokenization.ParseToken
+import edu.umn.biomedicus.tokenization.WordIndex
+import edu.umn.biomedicus.vocabulary.Vocabulary
+import edu.umn.nlpengine.Document
+import edu.umn.nlpengine.StandardArtifact
+import edu.umn.nlpengine.addTo
+import edu.umn.nlpengine.labelIndex
+import java.util.*
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.fail
+
+private val words = listOf("Doses", "were", "given", "TWICE", "daily", "unknownword", "of")
+
+private val partsOfSpeech = listOf(PartOfSpeech.NN, PartOfSpeech.NNS, PartOfSpeech.VBD)
+
+private fun term(word: String) = words.indexOf(word).let {
+    if (word.startsWith("unknown")) StringIdentifier.unknown() else StringIdentifier(it)
+}
+
+private fun randomDocument(random: Random, length: Int): Document {
+    val builder = StringBuilder()
+    val labels = ArrayList<(Document) -> Unit>()
+    repeat(length) {
+        val word = words[random.nextInt(words.size)]
+        val pos = partsOfSpeech[random.nextInt(partsOfSpeech.size)]
+        val start = builder.length
+        builder.append(word)
+        val end = builder.length
+        builder.append(' ')
+        labels.add { document ->
+            ParseToken(start, end, word, true).addTo(document)
+            PosTag(start, end, pos).addTo(document)
+            WordIndex(start, end, term(word)).addTo(document)
+        }
+    }
+    val document = StandardArtifact("1").addDocument("doc", builder.toString())
+    labels.forEach { it(document) }
+    return document
+}
+
+private fun randomNorms(random: Random): Map<TermPos, TermString> {
+    val norms = HashMap<TermPos, TermString>()
+    words.forEachIndexed { i, word ->
+        partsOfSpeech.forEach { pos ->
+            if (random.nextBoolean()) {
+                norms[TermPos(StringIdentifier(i), pos)] =
+                        TermString(StringIdentifier(100 + i), "${word.toLowerCase()}-$pos")
+            }
+        }
+    }
+    return norms
+}
+
+/**
+ * A model which only answers batches.
+ */
+private class BatchOnlyNormalizerModel(private val norms: Map<TermPos, TermString>) :
+        NormalizerModel {
+    var batches = 0
+
+    override fun batchesLookups() = true
+
+    override fun get(termPos: TermPos): TermString? = fail("Single lookup: $termPos")
+
+    override fun getAll(termPosList: List<TermPos>): List<TermString?> {
+        batches++
+        return termPosList.map { norms[it] }
+    }
+
+    override fun doShutdown() {}
+}
+
+/**
+ * A model which does not batch and fails on batches.
+ */
+private class SingleOnlyNormalizerModel(private val norms: Map<TermPos, TermString>) :
+        NormalizerModel {
+    override fun get(termPos: TermPos) = norms[termPos]
+
+    override fun getAll(termPosList: List<TermPos>): List<TermString?> =
+            fail("Batch lookup: $termPosList")
+
+    override fun doShutdown() {}
+}
+
+class NormalizerTest {
+    private val normsDictionary = mock<BidirectionalDictionary> {
+        on { getTermIdentifier(any()) } doReturn StringIdentifier(999)
+    }
+
+    private val vocabulary = mock<Vocabulary> {
+        on { normsIndex } doReturn normsDictionary
+    }
+
+    private fun normalize(model: NormalizerModel, seed: Long): List<NormForm> {
+        val document = randomDocument(Random(seed), 40)
+        Normalizer(model, vocabulary).process(document)
+        return document.labelIndex<NormForm>().asList()
+    }
+
+    @Test
+    fun `batched norms are paired with the known words`() {
+        for (seed in 0L until 20L) {
+            val norms = randomNorms(Random(seed))
+            val batchOnly = BatchOnlyNormalizerModel(norms)
+
+            val batched = normalize(batchOnly, seed)
+
+            assertEquals(1, batchOnly.batches)
+            assertEquals(normalize(SingleOnlyNormalizerModel(norms), seed), batched)
+        }
+    }
+
+    @Test
+    fun `words without a norm use the lowercase text`() {
+        val document = StandardArtifact("1").addDocument("doc", "TWICE unknownword")
+        ParseToken(0, 5, "TWICE", true).addTo(document)
+        PosTag(0, 5, PartOfSpeech.RB).addTo(document)
+        WordIndex(0, 5, term("TWICE")).addTo(document)
+        ParseToken(6, 17, "unknownword", false).addTo(document)
+        PosTag(6, 17, PartOfSpeech.NN).addTo(document)
+        WordIndex(6, 17, term("unknownword")).addTo(document)
+
+        val norms = mapOf(TermPos(term("TWICE"), PartOfSpeech.RB) to
+                TermString(StringIdentifier(3), "twice"))
+        Normalizer(BatchOnlyNormalizerModel(norms), vocabulary).process(document)
+
+        assertEquals(listOf(NormForm(0, 5, "twice", 3), NormForm(6, 17, "unknownword", 999)),
+                document.labelIndex<NormForm>().asList())
+    }
+}
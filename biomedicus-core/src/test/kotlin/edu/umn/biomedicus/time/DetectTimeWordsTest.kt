@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.biomedicus.time
+
+import edu.umn.biomedicus.common.Gazetteer
+import edu.umn.biomedicus.common.types.syntax.PartOfSpeech
+import edu.umn.biomedicus.tagging.PosTag
+import edu.umn.biomedicus.tokenization.ParseToken
+import edu.umn.nlpengine.StandardArtifact
+import edu.umn.nlpengine.addTo
+import edu.umn.nlpengine.labelIndex
+import kotlin.test.*
+
+class DetectTimeWordsTest {
+    private val timeWords = TimeWords(Gazetteer(linkedMapOf(
+            TimeWords.DAYS_OF_WEEK to listOf("monday", "may"),
+            TimeWords.TIMES_OF_DAY to listOf("morning", "late evening"),
+            TimeWords.SEASONS to listOf("spring"),
+            TimeWords.MONTHS to listOf("may", "june")
+    )))
+
+    private val detector = DetectTimeWords(timeWords)
+
+    @Test
+    fun testAllLists() {
+        val document = StandardArtifact("1")
+                .addDocument("doc", "Monday morning in June and spring late evening")
+
+        ParseToken(0, 6, "Monday", true).addTo(document)
+        ParseToken(7, 14, "morning", true).addTo(document)
+        ParseToken(15, 17, "in", true).addTo(document)
+        ParseToken(18, 22, "June", true).addTo(document)
+        ParseToken(23, 26, "and", true).addTo(document)
+        ParseToken(27, 33, "spring", true).addTo(document)
+        ParseToken(34, 38, "late", true).addTo(document)
+        ParseToken(39, 46, "evening", false).addTo(document)
+
+        PosTag(0, 6, PartOfSpeech.NNP).addTo(document)
+        PosTag(7, 14, PartOfSpeech.NN).addTo(document)
+        PosTag(15, 17, PartOfSpeech.IN).addTo(document)
+        PosTag(18, 22, PartOfSpeech.NNP).addTo(document)
+        PosTag(23, 26, PartOfSpeech.CC).addTo(document)
+        PosTag(27, 33, PartOfSpeech.NN).addTo(document)
+        PosTag(34, 38, PartOfSpeech.JJ).addTo(document)
+        PosTag(39, 46, PartOfSpeech.NN).addTo(document)
+
+        detector.run(document)
+
+        assertEquals(listOf(DayOfWeek(0, 6)), document.labelIndex<DayOfWeek>().asList())
+        assertEquals(listOf(TimeOfDayWord(7, 14), TimeOfDayWord(34, 46)),
+                document.labelIndex<TimeOfDayWord>().asList())
+        assertEquals(listOf(Month(18, 22)), document.labelIndex<Month>().asList())
+        assertEquals(listOf(SeasonWord(27, 33)), document.labelIndex<SeasonWord>().asList())
+    }
+
+    @Test
+    fun testPartsOfSpeech() {
+        val document = StandardArtifact("1").addDocument("doc", "you may go")
+
+        ParseToken(0, 3, "you", true).addTo(document)
+        ParseToken(4, 7, "may", true).addTo(document)
+        ParseToken(8, 10, "go", false).addTo(document)
+
+        PosTag(0, 3, PartOfSpeech.PRP).addTo(document)
+        PosTag(4, 7, PartOfSpeech.MD).addTo(document)
+        PosTag(8, 10, PartOfSpeech.VB).addTo(document)
+
+        detector.run(document)
+
+        assertTrue(document.labelIndex<DayOfWeek>().isEmpty())
+        assertEquals(listOf(Month(4, 7)), document.labelIndex<Month>().asList())
+    }
+
+    @Test
+    fun testStatistics() {
+        val document = StandardArtifact("1").addDocument("doc", "spring")
+        ParseToken(0, 6, "spring", false).addTo(document)
+        PosTag(0, 6, PartOfSpeech.NN).addTo(document)
+
+        detector.run(document)
+
+        val seasons = timeWords.gazetteer.statistics()
+                .first { it.name == TimeWords.SEASONS }
+        assertEquals(1, seasons.entries)
+        assertEquals(1, seasons.matches)
+    }
+}
@@ -54,6 +54,7 @@ public final class GuiceInjector extends Resource_ImplBase {
       Application application = Bootstrapper.create();
       injector = application.getInjector();
       lifecycleManager = injector.getInstance(LifecycleManager.class);
+      application.eagerLoadConfigured();
     } catch (BiomedicusException e) {
       throw new IllegalStateException(e);
     }
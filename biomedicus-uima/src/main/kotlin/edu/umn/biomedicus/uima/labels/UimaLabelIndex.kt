@@ -33,10 +33,11 @@ class UimaLabelIndex<T : Label> @Inject constructor(
     private val index: AnnotationIndex<AnnotationFS> = cas.getAnnotationIndex(labelAdapter.type)
 
     private val inflated: LabelIndex<T> by lazy {
-        if (labelAdapter.distinct)
-            DistinctLabelIndex(labelClass, this)
-        else
-            StandardLabelIndex(labelClass, this)
+        when {
+            labelAdapter.distinct -> DistinctLabelIndex(labelClass, this)
+            size >= IntervalLabelIndex.MIN_SIZE -> IntervalLabelIndex(labelClass, this)
+            else -> StandardLabelIndex(labelClass, this)
+        }
     }
 
     override val size: Int by lazy {
@@ -250,16 +250,20 @@ class StandardLabeler<T : Label>(
 
     /**
      * Upon first access creates the label index by turning everything added to this labeler into a
-     * new [LabelIndex]. After this labels can no longer be added to the labeler.
+     * new [LabelIndex]. After this labels can no longer be added to the labeler. Labels which are
+     * not distinct use an [IntervalLabelIndex] once there are at least [IntervalLabelIndex.MIN_SIZE]
+     * of them.
      *
      * @return Either returns a new label index or the existing label index created.
      */
     val index: LabelIndex<T> by lazy {
-        if (labelClass.kotlin.findAnnotation<LabelMetadata>()?.distinct
-                        ?: throw IllegalStateException("Label without @LabelMetadata annotation")) {
-            DistinctLabelIndex(labelClass, unsorted!!)
-        } else {
-            StandardLabelIndex(labelClass, unsorted!!)
+        val distinct = labelClass.kotlin.findAnnotation<LabelMetadata>()?.distinct
+                ?: throw IllegalStateException("Label without @LabelMetadata annotation")
+        val labels = unsorted!!
+        when {
+            distinct -> DistinctLabelIndex(labelClass, labels)
+            labels.size >= IntervalLabelIndex.MIN_SIZE -> IntervalLabelIndex(labelClass, labels)
+            else -> StandardLabelIndex(labelClass, labels)
         }.also { unsorted = null }
     }
 
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.nlpengine
+
+inline fun <reified T : Label> IntervalLabelIndex(vararg labels: T): IntervalLabelIndex<T> {
+    return IntervalLabelIndex(T::class.java, *labels)
+}
+
+inline fun <reified T : Label> IntervalLabelIndex(labels: Iterable<T>): IntervalLabelIndex<T> {
+    return IntervalLabelIndex(T::class.java, labels)
+}
+
+/**
+ * A label index for overlapping labels which augments the sorted array of a [StandardLabelIndex]
+ * with a tree of the minimum and maximum end indices of each subrange. Views use the tree to skip
+ * directly to the next label whose end index is inside their bounds, so [containing] and [inside]
+ * cost O(log n) per label returned instead of a linear scan over every label that starts before
+ * the queried text.
+ *
+ * Ordering and view semantics are identical to [StandardLabelIndex].
+ */
+class IntervalLabelIndex<T : Label> private constructor(
+        private val delegate: StandardLabelIndex<T>
+) : LabelIndex<T> by delegate {
+
+    constructor(
+            labelClass: Class<T>,
+            vararg labels: T
+    ) : this(labelClass, labels.asIterable())
+
+    constructor(
+            labelClass: Class<T>,
+            labels: Iterable<T>
+    ) : this(StandardLabelIndex(
+            labelClass,
+            labels.sortedWith(Comparator { o1, o2 -> o1.compareLocation(o2) }),
+            true
+    ))
+
+    companion object Factory {
+        /**
+         * The number of labels at which [StandardLabeler] switches from a [StandardLabelIndex] to
+         * an [IntervalLabelIndex] for labels that are not distinct. Below this a linear scan is
+         * cheaper than building and walking the tree.
+         */
+        const val MIN_SIZE = 64
+
+        @JvmStatic
+        fun <T : Label> create(labelClass: Class<T>, vararg labels: T): IntervalLabelIndex<T> {
+            return IntervalLabelIndex(labelClass, *labels)
+        }
+    }
+
+    override fun ascendingStartIndex(): LabelIndex<T> = this
+
+    override fun ascendingEndIndex(): LabelIndex<T> = this
+}
+
+/**
+ * A segment tree over the end indices of a sorted array of labels, storing the minimum and maximum
+ * end index of every subrange.
+ *
+ * @param ends the end index of each label in the sorted order of the label index
+ */
+internal class SpanEndTree(ends: IntArray) {
+    private val size = ends.size
+
+    private val leaves: Int
+
+    private val maxEnds: IntArray
+
+    private val minEnds: IntArray
+
+    init {
+        var capacity = 1
+        while (capacity < size) capacity = capacity shl 1
+        leaves = capacity
+
+        maxEnds = IntArray(2 * capacity) { Int.MIN_VALUE }
+        minEnds = IntArray(2 * capacity) { Int.MAX_VALUE }
+        for (i in 0 until size) {
+            maxEnds[capacity + i] = ends[i]
+            minEnds[capacity + i] = ends[i]
+        }
+        for (node in capacity - 1 downTo 1) {
+            maxEnds[node] = maxOf(maxEnds[2 * node], maxEnds[2 * node + 1])
+            minEnds[node] = minOf(minEnds[2 * node], minEnds[2 * node + 1])
+        }
+    }
+
+    /**
+     * The least index between [fromIndex] and [toIndex] inclusive whose end index is between
+     * [minEnd] and [maxEnd] inclusive, or -1 if there is no such index.
+     */
+    fun firstIndex(fromIndex: Int, toIndex: Int, minEnd: Int, maxEnd: Int): Int {
+        val from = maxOf(fromIndex, 0)
+        val to = minOf(toIndex, size - 1)
+        if (from > to) return -1
+        return first(1, 0, leaves - 1, from, to, minEnd, maxEnd)
+    }
+
+    /**
+     * The greatest index between [fromIndex] and [toIndex] inclusive whose end index is between
+     * [minEnd] and [maxEnd] inclusive, or -1 if there is no such index.
+     */
+    fun lastIndex(fromIndex: Int, toIndex: Int, minEnd: Int, maxEnd: Int): Int {
+        val from = maxOf(fromIndex, 0)
+        val to = minOf(toIndex, size - 1)
+        if (from > to) return -1
+        return last(1, 0, leaves - 1, from, to, minEnd, maxEnd)
+    }
+
+    private fun prune(node: Int, nodeLeft: Int, nodeRight: Int, from: Int, to: Int, minEnd: Int,
+                      maxEnd: Int) = nodeRight < from || nodeLeft > to || maxEnds[node] < minEnd
+            || minEnds[node] > maxEnd
+
+    private fun first(node: Int, nodeLeft: Int, nodeRight: Int, from: Int, to: Int, minEnd: Int,
+                      maxEnd: Int): Int {
+        if (prune(node, nodeLeft, nodeRight, from, to, minEnd, maxEnd)) return -1
+        if (nodeLeft == nodeRight) return nodeLeft
+        val mid = (nodeLeft + nodeRight) ushr 1
+        val result = first(2 * node, nodeLeft, mid, from, to, minEnd, maxEnd)
+        if (result != -1) return result
+        return first(2 * node + 1, mid + 1, nodeRight, from, to, minEnd, maxEnd)
+    }
+
+    private fun last(node: Int, nodeLeft: Int, nodeRight: Int, from: Int, to: Int, minEnd: Int,
+                     maxEnd: Int): Int {
+        if (prune(node, nodeLeft, nodeRight, from, to, minEnd, maxEnd)) return -1
+        if (nodeLeft == nodeRight) return nodeLeft
+        val mid = (nodeLeft + nodeRight) ushr 1
+        val result = last(2 * node + 1, mid + 1, nodeRight, from, to, minEnd, maxEnd)
+        if (result != -1) return result
+        return last(2 * node, nodeLeft, mid, from, to, minEnd, maxEnd)
+    }
+}
@@ -41,13 +41,25 @@ inline fun <reified T : Label> StandardLabelIndex(
 }
 
 /**
- * A label index backed by a immutable sorted array of [TextRange] values.
+ * A label index backed by a immutable sorted array of [TextRange] values. The start and end
+ * indices of the labels are additionally stored in parallel primitive arrays, which all searches
+ * and view navigation run on so that queries do not allocate or dereference the labels.
+ *
+ * @param withEndTree whether to build a [SpanEndTree] over the end indices which views use to
+ * skip labels that end outside of their bounds, see [IntervalLabelIndex]
  */
 class StandardLabelIndex<T : Label> internal constructor(
         override val labelClass: Class<T>,
-        private val values: List<T>
+        private val values: List<T>,
+        withEndTree: Boolean = false
 ) : LabelIndex<T>, Collection<T> by values {
 
+    private val starts = IntArray(values.size) { values[it].startIndex }
+
+    private val ends = IntArray(values.size) { values[it].endIndex }
+
+    private val endTree = if (withEndTree) SpanEndTree(ends) else null
+
     constructor(
             labelClass: Class<T>,
             vararg labels: T
@@ -75,6 +87,11 @@ class StandardLabelIndex<T : Label> internal constructor(
     ) : this(labelClass, labels.sortedWith(comparator))
 
     companion object Factory {
+        /**
+         * Marks a cached view index or size that has not been computed yet.
+         */
+        private const val UNCOMPUTED = Int.MIN_VALUE
+
         @JvmStatic
         fun <T : Label> create(labelClass: Class<T>, vararg labels: T): StandardLabelIndex<T> {
             return StandardLabelIndex(labelClass, *labels)
@@ -116,9 +133,16 @@ class StandardLabelIndex<T : Label> internal constructor(
 
     override fun atLocation(textRange: TextRange) = internalAtLocation(textRange)
 
+    override fun atLocation(startIndex: Int, endIndex: Int) =
+            internalAtLocation(startIndex, endIndex)
+
     override fun contains(element: @UnsafeVariance T) = internalIndexOf(element) != -1
 
-    override fun containsSpan(textRange: TextRange) = internalContainsLocation(textRange)
+    override fun containsSpan(textRange: TextRange) =
+            internalContainsLocation(textRange.startIndex, textRange.endIndex)
+
+    override fun containsSpan(startIndex: Int, endIndex: Int) =
+            internalContainsLocation(startIndex, endIndex)
 
     override fun asList() = object : List<T> by values {
         override fun indexOf(element: @UnsafeVariance T) = internalIndexOf(element)
@@ -144,20 +168,25 @@ class StandardLabelIndex<T : Label> internal constructor(
             textRange: TextRange,
             fromIndex: Int = 0,
             toIndex: Int = size
+    ) = internalAtLocation(textRange.startIndex, textRange.endIndex, fromIndex, toIndex)
+
+    internal fun internalAtLocation(
+            begin: Int,
+            end: Int,
+            fromIndex: Int = 0,
+            toIndex: Int = size
     ): Collection<T> {
-        val index = values.binarySearch(textRange, Comparator { o1, o2 ->
-            o1.compareLocation(o2)
-        }, fromIndex, toIndex)
+        val index = searchLocation(begin, end, fromIndex, toIndex)
 
         if (index < 0) return emptyList()
 
         var left = index
-        while (left > fromIndex && values[left - 1].locationEquals(textRange)) {
+        while (left > fromIndex && starts[left - 1] == begin && ends[left - 1] == end) {
             left--
         }
 
         var right = index
-        while (right < toIndex && values[right].locationEquals(textRange)) {
+        while (right < toIndex && starts[right] == begin && ends[right] == end) {
             right++
         }
 
@@ -169,25 +198,23 @@ class StandardLabelIndex<T : Label> internal constructor(
             fromIndex: Int = 0,
             toIndex: Int = size
     ): Int {
-        val result = values.binarySearch(element, Comparator { o1, o2 ->
-            o1.compareLocation(o2)
-        }, fromIndex, toIndex)
+        val result = searchLocation(element.startIndex, element.endIndex, fromIndex, toIndex)
 
         if (result < 0) return -1
 
-        val begin = values[result].startIndex
+        val begin = starts[result]
         var left = result
-        var found: Int? = null
-        while (left > fromIndex && begin == values[--left].startIndex) {
+        var found = -1
+        while (left > fromIndex && begin == starts[--left]) {
             if (values[left] == element) found = left
         }
-        if (found != null) {
+        if (found != -1) {
             return found
         }
 
-        val end = values[result].endIndex
+        val end = ends[result]
         var right = result
-        while (right < toIndex && end == values[right].endIndex) {
+        while (right < toIndex && end == ends[right]) {
             if (values[right] == element) return right
             right++
         }
@@ -200,26 +227,24 @@ class StandardLabelIndex<T : Label> internal constructor(
             fromIndex: Int = 0,
             toIndex: Int = size
     ): Int {
-        val result = values.binarySearch(element, Comparator { o1, o2 ->
-            o1.compareLocation(o2)
-        }, fromIndex, toIndex)
+        val result = searchLocation(element.startIndex, element.endIndex, fromIndex, toIndex)
 
         if (result < 0) return -1
 
-        val end = values[result].endIndex
+        val end = ends[result]
         var right = result
-        var found: Int? = null
-        while (right < toIndex && end == values[right].endIndex) {
+        var found = -1
+        while (right < toIndex && end == ends[right]) {
             if (values[right] == element) found = right
             right++
         }
-        if (found != null) {
+        if (found != -1) {
             return found
         }
 
-        val begin = values[result].startIndex
+        val begin = starts[result]
         var left = result
-        while (left > fromIndex && begin == values[--left].startIndex) {
+        while (left > fromIndex && begin == starts[--left]) {
             if (values[left] == element) return left
         }
 
@@ -227,12 +252,36 @@ class StandardLabelIndex<T : Label> internal constructor(
     }
 
     internal fun internalContainsLocation(
-            textRange: TextRange,
+            begin: Int,
+            end: Int,
             fromIndex: Int = 0,
             toIndex: Int = size
-    ) = 0 <= values.binarySearch(textRange, Comparator { o1, o2 ->
-        o1.compareLocation(o2)
-    }, fromIndex, toIndex)
+    ) = 0 <= searchLocation(begin, end, fromIndex, toIndex)
+
+    /**
+     * Binary search of the location specified by [begin] and [end] in the range from [fromIndex]
+     * inclusive to [toIndex] exclusive. Has the same result as [List.binarySearch] with a location
+     * comparator, but runs on the primitive [starts] and [ends] arrays.
+     */
+    internal fun searchLocation(begin: Int, end: Int, fromIndex: Int, toIndex: Int): Int {
+        var low = fromIndex
+        var high = toIndex - 1
+
+        while (low <= high) {
+            val mid = (low + high).ushr(1)
+            val midStart = starts[mid]
+            val cmp = if (midStart != begin) midStart.compareTo(begin) else ends[mid].compareTo(end)
+
+            if (cmp < 0) {
+                low = mid + 1
+            } else if (cmp > 0) {
+                high = mid - 1
+            } else {
+                return mid
+            }
+        }
+        return -(low + 1)
+    }
 
     /**
      * Least index with a location greater than or equal to the provided location
@@ -243,12 +292,8 @@ class StandardLabelIndex<T : Label> internal constructor(
             end: Int,
             fromIndex: Int = 0,
             toIndex: Int = size
-    ) = ceilingIndex(Span(begin, end), fromIndex, toIndex)
-
-    internal fun ceilingIndex(span: Span, fromIndex: Int = 0, toIndex: Int = values.size): Int {
-        var index = values.binarySearch(span, Comparator { o1, o2 ->
-            o1.compareLocation(o2)
-        }, fromIndex, toIndex)
+    ): Int {
+        var index = searchLocation(begin, end, fromIndex, toIndex)
 
         if (index < 0) {
             val insert = -1 * (index + 1)
@@ -256,7 +301,7 @@ class StandardLabelIndex<T : Label> internal constructor(
             return if (insert == toIndex) -1 else insert
         }
 
-        while (index > fromIndex && values[index - 1].locationEquals(span)) {
+        while (index > fromIndex && starts[index - 1] == begin && ends[index - 1] == end) {
             index--
         }
 
@@ -271,12 +316,8 @@ class StandardLabelIndex<T : Label> internal constructor(
             end: Int,
             fromIndex: Int = 0,
             toIndex: Int = size
-    ) = greaterIndex(Span(begin, end), fromIndex, toIndex)
-
-    internal fun greaterIndex(span: Span, fromIndex: Int = 0, toIndex: Int = values.size): Int {
-        val index = values.binarySearch(span, Comparator { o1, o2 ->
-            o1.compareLocation(o2)
-        }, fromIndex, toIndex)
+    ): Int {
+        val index = searchLocation(begin, end, fromIndex, toIndex)
 
         if (index < 0) {
             val insert = -1 * (index + 1)
@@ -295,7 +336,7 @@ class StandardLabelIndex<T : Label> internal constructor(
     ): Int {
         var index = floorIndex(begin, end, fromIndex, toIndex)
 
-        while (index >= 0 && values[index].endIndex > end) {
+        while (index >= 0 && ends[index] > end) {
             index--
         }
         return index
@@ -310,20 +351,8 @@ class StandardLabelIndex<T : Label> internal constructor(
             end: Int,
             fromIndex: Int = 0,
             toIndex: Int = size
-    ) = floorIndex(Span(begin, end), fromIndex, toIndex)
-
-    /**
-     * Greatest index with a location less than or equal to the provided location or -1
-     * if there is no such index
-     */
-    internal fun floorIndex(
-            span: Span,
-            fromIndex: Int = 0,
-            toIndex: Int = values.size
     ): Int {
-        var index = values.binarySearch(span, Comparator { o1, o2 ->
-            o1.compareLocation(o2)
-        }, fromIndex, toIndex)
+        var index = searchLocation(begin, end, fromIndex, toIndex)
 
         if (index < 0) {
             val insert = -1 * (index + 1)
@@ -331,7 +360,7 @@ class StandardLabelIndex<T : Label> internal constructor(
             return if (insert == fromIndex) -1 else insert - 1
         }
 
-        while (index < toIndex - 1 && values[index + 1].locationEquals(span)) {
+        while (index < toIndex - 1 && starts[index + 1] == begin && ends[index + 1] == end) {
             index++
         }
 
@@ -340,7 +369,7 @@ class StandardLabelIndex<T : Label> internal constructor(
 
     internal fun beginsEqual(firstIndex: Int, secondIndex: Int) =
             firstIndex !in 0 until size || secondIndex !in 0 until size ||
-                    values[firstIndex].startIndex == values[secondIndex].startIndex
+                    starts[firstIndex] == starts[secondIndex]
 
     internal abstract inner class View(
             val minBegin: Int,
@@ -366,9 +395,27 @@ class StandardLabelIndex<T : Label> internal constructor(
             }
         }
 
-        abstract val firstIndex: Int
+        private var cachedFirstIndex = UNCOMPUTED
+
+        private var cachedLastIndex = UNCOMPUTED
 
-        abstract val lastIndex: Int
+        private var cachedSize = UNCOMPUTED
+
+        val firstIndex: Int
+            get() {
+                if (cachedFirstIndex == UNCOMPUTED) cachedFirstIndex = computeFirstIndex()
+                return cachedFirstIndex
+            }
+
+        val lastIndex: Int
+            get() {
+                if (cachedLastIndex == UNCOMPUTED) cachedLastIndex = computeLastIndex()
+                return cachedLastIndex
+            }
+
+        abstract fun computeFirstIndex(): Int
+
+        abstract fun computeLastIndex(): Int
 
         abstract fun updateBounds(
                 newMinBegin: Int = minBegin,
@@ -383,15 +430,19 @@ class StandardLabelIndex<T : Label> internal constructor(
 
         abstract fun prevIndex(index: Int): Int
 
-        override val size: Int by lazy {
-            var size = 0
-            var i = firstIndex
-            while (i != -1) {
-                size++
-                i = nextIndex(i)
+        override val size: Int
+            get() {
+                if (cachedSize == UNCOMPUTED) {
+                    var size = 0
+                    var i = firstIndex
+                    while (i != -1) {
+                        size++
+                        i = nextIndex(i)
+                    }
+                    cachedSize = size
+                }
+                return cachedSize
             }
-            size
-        }
 
         override fun first(): T? {
             if (firstIndex in 0 until values.size && firstIndex <= right && firstIndex >= left) {
@@ -407,9 +458,12 @@ class StandardLabelIndex<T : Label> internal constructor(
             return null
         }
 
-        override fun atLocation(textRange: TextRange): Collection<T> {
-            if (!insideView(textRange)) return emptyList()
-            return internalAtLocation(textRange, left, right + 1)
+        override fun atLocation(textRange: TextRange) =
+                atLocation(textRange.startIndex, textRange.endIndex)
+
+        override fun atLocation(startIndex: Int, endIndex: Int): Collection<T> {
+            if (!insideView(startIndex, endIndex)) return emptyList()
+            return internalAtLocation(startIndex, endIndex, left, right + 1)
         }
 
         override fun isEmpty() = size == 0
@@ -422,9 +476,12 @@ class StandardLabelIndex<T : Label> internal constructor(
         override fun containsAll(elements: Collection<@UnsafeVariance T>) =
                 elements.all { contains(it) }
 
-        override fun containsSpan(textRange: TextRange): Boolean {
-            if (!insideView(textRange)) return false
-            return internalContainsLocation(textRange, left, right + 1)
+        override fun containsSpan(textRange: TextRange) =
+                containsSpan(textRange.startIndex, textRange.endIndex)
+
+        override fun containsSpan(startIndex: Int, endIndex: Int): Boolean {
+            if (!insideView(startIndex, endIndex)) return false
+            return internalContainsLocation(startIndex, endIndex, left, right + 1)
         }
 
         override fun toTheLeftOf(index: Int) =
@@ -465,12 +522,16 @@ class StandardLabelIndex<T : Label> internal constructor(
         override fun iterator() = ViewIterator(0)
 
         internal fun insideView(textRange: TextRange) =
-                textRange.startIndex in minBegin..maxBegin && textRange.endIndex in minEnd..maxEnd
+                insideView(textRange.startIndex, textRange.endIndex)
+
+        internal fun insideView(begin: Int, end: Int) =
+                begin in minBegin..maxBegin && end in minEnd..maxEnd
 
         internal fun endsInView(index: Int) =
-                if (index == -1 || values[index].endIndex in minEnd..maxEnd) index else -1
+                if (index == -1 || ends[index] in minEnd..maxEnd) index else -1
 
         internal fun nextIndexAscending(index: Int): Int {
+            endTree?.let { return it.firstIndex(index + 1, right, minEnd, maxEnd) }
             var cursor = index
             while (cursor < right) {
                 val result = endsInView(++cursor)
@@ -480,6 +541,7 @@ class StandardLabelIndex<T : Label> internal constructor(
         }
 
         internal fun nextIndexDescending(index: Int): Int {
+            endTree?.let { return it.lastIndex(left, index - 1, minEnd, maxEnd) }
             var cursor = index
             while (cursor > left) {
                 val result = endsInView(--cursor)
@@ -679,8 +741,8 @@ class StandardLabelIndex<T : Label> internal constructor(
             left: Int = ceilingIndex(minBegin, minEnd),
             right: Int = floorBeginAndEnd(maxBegin, maxEnd)
     ) : View(minBegin, maxBegin, minEnd, maxEnd, left, right) {
-        override val firstIndex by lazy { nextIndex(left - 1) }
-        override val lastIndex by lazy { prevIndex(right + 1) }
+        override fun computeFirstIndex() = nextIndex(left - 1)
+        override fun computeLastIndex() = prevIndex(right + 1)
 
         override fun updateBounds(
                 newMinBegin: Int,
@@ -742,8 +804,8 @@ class StandardLabelIndex<T : Label> internal constructor(
             left: Int = ceilingIndex(minBegin, minEnd),
             right: Int = floorBeginAndEnd(maxBegin, maxEnd)
     ) : View(minBegin, maxBegin, minEnd, maxEnd, left, right) {
-        override val firstIndex by lazy { nextIndex(right + 1) }
-        override val lastIndex by lazy { prevIndex(left - 1) }
+        override fun computeFirstIndex() = nextIndex(right + 1)
+        override fun computeLastIndex() = prevIndex(left - 1)
 
         override fun updateBounds(
                 newMinBegin: Int,
@@ -803,8 +865,8 @@ class StandardLabelIndex<T : Label> internal constructor(
             left: Int = ceilingIndex(minBegin, minEnd),
             right: Int = floorBeginAndEnd(maxBegin, maxEnd)
     ) : View(minBegin, maxBegin, minEnd, maxEnd, left, right) {
-        override val firstIndex by lazy { nextBreakAscending(left) }
-        override val lastIndex by lazy { nextBreakDescending(right) }
+        override fun computeFirstIndex() = nextBreakAscending(left)
+        override fun computeLastIndex() = nextBreakDescending(right)
 
         override fun updateBounds(
                 newMinBegin: Int,
@@ -864,8 +926,8 @@ class StandardLabelIndex<T : Label> internal constructor(
             left: Int = ceilingIndex(minBegin, minEnd),
             right: Int = floorBeginAndEnd(maxBegin, maxEnd)
     ) : View(minBegin, maxBegin, minEnd, maxEnd, left, right) {
-        override val firstIndex by lazy { nextBreakDescending(right) }
-        override val lastIndex by lazy { nextBreakAscending(left) }
+        override fun computeFirstIndex() = nextBreakDescending(right)
+        override fun computeLastIndex() = nextBreakAscending(left)
 
         override fun updateBounds(
                 newMinBegin: Int,
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2018 Regents of the University of Minnesota.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.umn.nlpengine
+
+import java.util.*
+import kotlin.test.*
+
+class IntervalLabelIndexTest : StandardLabelIndexTest() {
+    override fun labelIndex(vararg labels: TestLabel): LabelIndex<TestLabel> =
+            IntervalLabelIndex(*labels)
+
+    private val random = Random(42)
+
+    private val labels = (0 until 2000).map {
+        val start = random.nextInt(5000)
+        TestLabel(start, start + random.nextInt(200))
+    }
+
+    private val standard = StandardLabelIndex(labels)
+
+    private val interval = IntervalLabelIndex(labels)
+
+    @Test
+    fun testRandomContaining() {
+        for (i in 0 until 200) {
+            val start = random.nextInt(5200)
+            val end = start + random.nextInt(20)
+
+            assertEquals(
+                    expected = standard.containing(start, end).asList(),
+                    actual = interval.containing(start, end).asList()
+            )
+        }
+    }
+
+    @Test
+    fun testRandomInside() {
+        for (i in 0 until 200) {
+            val start = random.nextInt(5200)
+            val end = start + random.nextInt(400)
+
+            assertEquals(
+                    expected = standard.inside(start, end).asList(),
+                    actual = interval.inside(start, end).asList()
+            )
+        }
+    }
+
+    @Test
+    fun testRandomContainingDescending() {
+        for (i in 0 until 200) {
+            val start = random.nextInt(5200)
+            val end = start + random.nextInt(20)
+
+            assertEquals(
+                    expected = standard.containing(start, end).descending().asList(),
+                    actual = interval.containing(start, end).descending().asList()
+            )
+        }
+    }
+
+    @Test
+    fun testRandomContainingSize() {
+        for (i in 0 until 200) {
+            val start = random.nextInt(5200)
+            val end = start + random.nextInt(20)
+
+            assertEquals(
+                    expected = standard.containing(start, end).size,
+                    actual = interval.containing(start, end).size
+            )
+        }
+    }
+}
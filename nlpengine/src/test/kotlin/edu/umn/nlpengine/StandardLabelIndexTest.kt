@@ -19,11 +19,14 @@ package edu.umn.nlpengine
 import java.util.*
 import kotlin.test.*
 
-class StandardLabelIndexTest {
+open class StandardLabelIndexTest {
 
     data class TestLabel(override val startIndex: Int, override val endIndex: Int) : Label()
 
-    val tested = StandardLabelIndex(
+    open fun labelIndex(vararg labels: TestLabel): LabelIndex<TestLabel> =
+            StandardLabelIndex(*labels)
+
+    val tested = labelIndex(
             TestLabel(0, 5),
             TestLabel(0, 7),
             TestLabel(2, 6),
@@ -103,7 +106,7 @@ class StandardLabelIndexTest {
 
     @Test
     fun testBeginsInside() {
-        val tested = StandardLabelIndex(
+        val tested = labelIndex(
                 TestLabel(0, 5),
                 TestLabel(0, 7),
                 TestLabel(2, 6),
@@ -128,7 +131,7 @@ class StandardLabelIndexTest {
 
     @Test
     fun testBeginsInsideWithOverlap() {
-        val tested = StandardLabelIndex(
+        val tested = labelIndex(
                 TestLabel(0, 5),
                 TestLabel(0, 7),
                 TestLabel(2, 6),
@@ -238,7 +241,7 @@ class StandardLabelIndexTest {
 
     @Test
     fun testFirstEmpty() {
-        val standardLabelIndex = StandardLabelIndex<TestLabel>()
+        val standardLabelIndex = labelIndex()
 
         assertNull(standardLabelIndex.first())
     }
@@ -265,6 +268,14 @@ class StandardLabelIndexTest {
         assertFalse(it.hasNext())
     }
 
+    @Test
+    fun testGetMultipleIndices() {
+        val get = tested.atLocation(9, 13)
+
+        assertEquals(get.size, 2)
+        assertTrue(get.all { it == TestLabel(9, 13) })
+    }
+
     @Test
     fun testGetOne() {
         val get = tested.atLocation(TestLabel(2, 6))
@@ -435,6 +446,14 @@ class StandardLabelIndexTest {
         assertFalse(it.hasNext())
     }
 
+    @Test
+    fun testViewGetIndices() {
+        val get = descending.atLocation(9, 13)
+        assertEquals(get.size, 2)
+        assertTrue(descending.containsSpan(9, 13))
+        assertFalse(tested.inside(0, 8).containsSpan(9, 13))
+    }
+
     @Test
     fun testViewGetNotInsideView() {
         val nothing = tested.inside(0, 0)
@@ -535,7 +554,7 @@ class StandardLabelIndexTest {
 
     @Test
     fun `view beginsInside shouldn't return anything before view`() {
-        val tested = StandardLabelIndex(
+        val tested = labelIndex(
                 TestLabel(0, 5),
                 TestLabel(0, 7),
                 TestLabel(2, 6),
@@ -560,7 +579,7 @@ class StandardLabelIndexTest {
 
     @Test
     fun `view beginsInside shouldn't return anything after view`() {
-        val tested = StandardLabelIndex(
+        val tested = labelIndex(
                 TestLabel(0, 5),
                 TestLabel(0, 7),
                 TestLabel(2, 6),
@@ -585,7 +604,7 @@ class StandardLabelIndexTest {
 
     @Test
     fun `view beginsInside shouldn't return labels whose beginIndex equals the endIndex parameter`() {
-        val tested = StandardLabelIndex(
+        val tested = labelIndex(
                 TestLabel(0, 5),
                 TestLabel(0, 7),
                 TestLabel(2, 6),
@@ -606,7 +625,7 @@ class StandardLabelIndexTest {
 
     @Test
     fun `view beginsInside should return labels that overlap with parameter range`() {
-        val tested = StandardLabelIndex(
+        val tested = labelIndex(
                 TestLabel(0, 5),
                 TestLabel(0, 7),
                 TestLabel(2, 6),